@@ -0,0 +1,116 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler;
+
+import org.jetbrains.java.decompiler.main.decompiler.ConsoleDecompiler;
+import org.jetbrains.java.decompiler.main.decompiler.PrintStreamLogger;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.Manifest;
+
+/**
+ * Full pipeline over the test data archives, with the options used by the tests. The output is discarded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class DecompilationBenchmark {
+  @Param({"bulk", "obfuscated", "kt25937"})
+  public String archive;
+
+  @Param({"1"})
+  public String threads;
+
+  private File source;
+
+  @Setup
+  public void setUp() {
+    source = new File("testData", archive + ".jar").getAbsoluteFile();
+    if (!source.isFile()) {
+      throw new IllegalStateException("Not found: " + source + ", benchmarks must be run from the project directory");
+    }
+  }
+
+  @Benchmark
+  public long decompile() {
+    Map<String, Object> options = new HashMap<>();
+    options.put(IFernflowerPreferences.LOG_LEVEL, "error");
+    options.put(IFernflowerPreferences.DECOMPILE_GENERIC_SIGNATURES, "1");
+    options.put(IFernflowerPreferences.REMOVE_SYNTHETIC, "1");
+    options.put(IFernflowerPreferences.REMOVE_BRIDGE, "1");
+    options.put(IFernflowerPreferences.LITERALS_AS_IS, "1");
+    options.put(IFernflowerPreferences.THREADS, threads);
+
+    DiscardingDecompiler decompiler = new DiscardingDecompiler(options);
+    decompiler.addSource(source);
+    decompiler.decompileContext();
+    return decompiler.length;
+  }
+
+  private static class DiscardingDecompiler extends ConsoleDecompiler {
+    private long length;
+
+    DiscardingDecompiler(Map<String, Object> options) {
+      super(new File("."), options, new PrintStreamLogger(System.out));
+    }
+
+    @Override
+    public void saveFolder(String path) { }
+
+    @Override
+    public void copyFile(String source, String path, String entryName) { }
+
+    @Override
+    public void writeClassFile(String path, String qualifiedName, String entryName, ContentWriter content, int[] mapping) {
+      count(content);
+    }
+
+    @Override
+    public void createArchive(String path, String archiveName, Manifest manifest) { }
+
+    @Override
+    public void saveDirEntry(String path, String archiveName, String entryName) { }
+
+    @Override
+    public void copyEntry(String source, String path, String archiveName, String entryName) { }
+
+    @Override
+    public void writeClassEntry(String path, String archiveName, String qualifiedName, String entryName, ContentWriter content) {
+      if (content != null) {
+        count(content);
+      }
+    }
+
+    private void count(ContentWriter content) {
+      try {
+        content.writeTo(new Writer() {
+          @Override
+          public void write(char[] buffer, int offset, int count) {
+            length += count;
+          }
+
+          @Override
+          public void flush() { }
+
+          @Override
+          public void close() { }
+        });
+      }
+      catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    @Override
+    public void closeArchive(String path, String archiveName) { }
+  }
+}
@@ -0,0 +1,138 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.modules.decompiler.sforms;
+
+import org.jetbrains.java.decompiler.main.decompiler.ConsoleDecompiler;
+import org.jetbrains.java.decompiler.main.decompiler.PrintStreamLogger;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
+import org.openjdk.jmh.annotations.*;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Full pipeline over a generated method with a large switch inside a loop, or with a deep nest of loops. Variables
+ * assigned in many blocks and used across the back edges make the SSA constructors revisit nodes many times until
+ * their var maps are stable.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SSAConstructionBenchmark {
+  @Param({"switch", "loops"})
+  public String shape;
+
+  @Param({"10", "30"})
+  public int size;
+
+  private Path directory;
+  private File source;
+
+  @Setup
+  public void setUp() throws IOException {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    if (compiler == null) {
+      throw new IllegalStateException("The benchmark must be run on a JDK");
+    }
+
+    directory = Files.createTempDirectory("ssa-benchmark");
+    Path java = directory.resolve("Generated.java");
+    Files.writeString(java, "switch".equals(shape) ? generateSwitch(size) : generateLoops(size));
+    if (compiler.run(null, null, null, "-g:none", "-d", directory.toString(), java.toString()) != 0) {
+      throw new IllegalStateException("Cannot compile " + java);
+    }
+    source = directory.resolve("Generated.class").toFile();
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+    }
+  }
+
+  private static String generateSwitch(int size) {
+    StringBuilder builder = new StringBuilder("public class Generated {\n  public static int run(int n) {\n");
+    builder.append("    int a = 0, b = 1, c = 2;\n    for (int i = 0; i < n; i++) {\n      switch (i % ").append(size).append(") {\n");
+    for (int i = 0; i < size; i++) {
+      builder.append("        case ").append(i).append(":\n");
+      switch (i % 3) {
+        case 0:
+          builder.append("          a = b + ").append(i).append(";\n          break;\n");
+          break;
+        case 1:
+          builder.append("          b = c ^ a;\n          if (b > ").append(i).append(") c = a;\n          break;\n");
+          break;
+        default:
+          builder.append("          c = a - ").append(i).append(";\n          continue;\n");
+      }
+    }
+    builder.append("      }\n      a++;\n    }\n    return a + b + c;\n  }\n}\n");
+    return builder.toString();
+  }
+
+  private static String generateLoops(int size) {
+    StringBuilder builder = new StringBuilder("public class Generated {\n  public static int run(int n) {\n    int a = 0, b = 1;\n");
+    for (int i = 0; i < size; i++) {
+      builder.append("    for (int i").append(i).append(" = 0; i").append(i).append(" < n; i").append(i).append("++) {\n");
+      builder.append("      if ((a & ").append(i).append(") == 0) a = b; else b = a + i").append(i).append(";\n");
+    }
+    for (int i = 0; i < size; i++) {
+      builder.append("    }\n");
+    }
+    builder.append("    return a + b;\n  }\n}\n");
+    return builder.toString();
+  }
+
+  @Benchmark
+  public long decompile() {
+    Map<String, Object> options = new HashMap<>();
+    options.put(IFernflowerPreferences.LOG_LEVEL, "error");
+
+    DiscardingDecompiler decompiler = new DiscardingDecompiler(options);
+    decompiler.addSource(source);
+    decompiler.decompileContext();
+    return decompiler.length;
+  }
+
+  private static class DiscardingDecompiler extends ConsoleDecompiler {
+    private long length;
+
+    DiscardingDecompiler(Map<String, Object> options) {
+      super(new File("."), options, new PrintStreamLogger(System.out));
+    }
+
+    @Override
+    public void writeClassFile(String path, String qualifiedName, String entryName, ContentWriter content, int[] mapping) {
+      try {
+        content.writeTo(new Writer() {
+          @Override
+          public void write(char[] buffer, int offset, int count) {
+            length += count;
+          }
+
+          @Override
+          public void flush() { }
+
+          @Override
+          public void close() { }
+        });
+      }
+      catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,56 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.struct.consts;
+
+import org.jetbrains.java.decompiler.util.DataInputFullStream;
+import org.jetbrains.java.decompiler.util.InterpreterUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Constant pool parsing of all classes of a test data archive, without a decompiler context (and so without renaming).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConstantPoolBenchmark {
+  @Param({"bulk", "obfuscated", "kt25937"})
+  public String archive;
+
+  private final List<byte[]> classes = new ArrayList<>();
+
+  @Setup
+  public void setUp() throws IOException {
+    File file = new File("testData", archive + ".jar");
+    try (ZipFile zip = new ZipFile(file)) {
+      Enumeration<? extends ZipEntry> entries = zip.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry entry = entries.nextElement();
+        if (entry.getName().endsWith(".class")) {
+          classes.add(InterpreterUtil.getBytes(zip, entry));
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public void parse(Blackhole blackhole) throws IOException {
+    for (byte[] bytes : classes) {
+      try (DataInputFullStream in = new DataInputFullStream(bytes)) {
+        in.discard(8);
+        blackhole.consume(new ConstantPool(in));
+      }
+    }
+  }
+}
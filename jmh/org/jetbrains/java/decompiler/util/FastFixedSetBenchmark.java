@@ -0,0 +1,93 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.util;
+
+import org.jetbrains.java.decompiler.util.FastFixedSetFactory.FastFixedSet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FastFixedSetBenchmark {
+  @Param({"32", "256", "2048"})
+  public int size;
+
+  private FastFixedSet<Integer> first;
+  private FastFixedSet<Integer> second;
+  private int[] probes;
+
+  @Setup
+  public void setUp() {
+    List<Integer> universe = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      universe.add(i);
+    }
+    FastFixedSetFactory<Integer> factory = new FastFixedSetFactory<>(universe);
+
+    Random random = new Random(42);
+    first = factory.spawnEmptySet();
+    second = factory.spawnEmptySet();
+    for (int i = 0; i < size / 2; i++) {
+      first.add(random.nextInt(size));
+      second.add(random.nextInt(size));
+    }
+
+    probes = new int[64];
+    for (int i = 0; i < probes.length; i++) {
+      probes[i] = random.nextInt(size);
+    }
+  }
+
+  @Benchmark
+  public FastFixedSet<Integer> copy() {
+    return first.getCopy();
+  }
+
+  @Benchmark
+  public FastFixedSet<Integer> union() {
+    FastFixedSet<Integer> set = first.getCopy();
+    set.union(second);
+    return set;
+  }
+
+  @Benchmark
+  public FastFixedSet<Integer> intersection() {
+    FastFixedSet<Integer> set = first.getCopy();
+    set.intersection(second);
+    return set;
+  }
+
+  @Benchmark
+  public FastFixedSet<Integer> complement() {
+    FastFixedSet<Integer> set = first.getCopy();
+    set.complement(second);
+    return set;
+  }
+
+  @Benchmark
+  public boolean containsSet() {
+    return first.contains(second);
+  }
+
+  @Benchmark
+  public void contains(Blackhole blackhole) {
+    for (int probe : probes) {
+      blackhole.consume(first.contains(probe));
+    }
+  }
+
+  @Benchmark
+  public void iterate(Blackhole blackhole) {
+    for (Integer element : first) {
+      blackhole.consume(element);
+    }
+  }
+}
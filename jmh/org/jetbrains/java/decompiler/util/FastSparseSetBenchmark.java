@@ -0,0 +1,93 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.util;
+
+import org.jetbrains.java.decompiler.util.FastSparseSetFactory.FastSparseSet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FastSparseSetBenchmark {
+  @Param({"32", "256", "2048"})
+  public int size;
+
+  private FastSparseSet<Integer> first;
+  private FastSparseSet<Integer> second;
+  private int[] probes;
+
+  @Setup
+  public void setUp() {
+    List<Integer> universe = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      universe.add(i);
+    }
+    FastSparseSetFactory<Integer> factory = new FastSparseSetFactory<>(universe);
+
+    Random random = new Random(42);
+    first = factory.spawnEmptySet();
+    second = factory.spawnEmptySet();
+    for (int i = 0; i < size / 4; i++) {
+      first.add(random.nextInt(size));
+      second.add(random.nextInt(size));
+    }
+
+    probes = new int[64];
+    for (int i = 0; i < probes.length; i++) {
+      probes[i] = random.nextInt(size);
+    }
+  }
+
+  @Benchmark
+  public FastSparseSet<Integer> copy() {
+    return first.getCopy();
+  }
+
+  @Benchmark
+  public FastSparseSet<Integer> union() {
+    FastSparseSet<Integer> set = first.getCopy();
+    set.union(second);
+    return set;
+  }
+
+  @Benchmark
+  public FastSparseSet<Integer> intersection() {
+    FastSparseSet<Integer> set = first.getCopy();
+    set.intersection(second);
+    return set;
+  }
+
+  @Benchmark
+  public FastSparseSet<Integer> complement() {
+    FastSparseSet<Integer> set = first.getCopy();
+    set.complement(second);
+    return set;
+  }
+
+  @Benchmark
+  public boolean equality() {
+    return first.equals(second);
+  }
+
+  @Benchmark
+  public void contains(Blackhole blackhole) {
+    for (int probe : probes) {
+      blackhole.consume(first.contains(probe));
+    }
+  }
+
+  @Benchmark
+  public void iterate(Blackhole blackhole) {
+    for (Integer element : first) {
+      blackhole.consume(element);
+    }
+  }
+}
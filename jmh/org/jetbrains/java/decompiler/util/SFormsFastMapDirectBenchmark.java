@@ -0,0 +1,109 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.util;
+
+import org.jetbrains.java.decompiler.modules.decompiler.exps.VarExprent;
+import org.jetbrains.java.decompiler.util.FastSparseSetFactory.FastSparseSet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Variable version maps as used by the SSA construction: locals, stack variables and fields (negative keys),
+ * each mapped to a small set of versions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SFormsFastMapDirectBenchmark {
+  @Param({"16", "128", "1024"})
+  public int variables;
+
+  private SFormsFastMapDirect first;
+  private SFormsFastMapDirect second;
+  private int[] keys;
+
+  @Setup
+  public void setUp() {
+    List<Integer> versions = new ArrayList<>();
+    for (int i = 0; i < 64; i++) {
+      versions.add(i);
+    }
+    FastSparseSetFactory<Integer> factory = new FastSparseSetFactory<>(versions);
+
+    keys = new int[variables];
+    for (int i = 0; i < variables; i++) {
+      if (i % 3 == 0) {
+        keys[i] = i / 3;
+      }
+      else if (i % 3 == 1) {
+        keys[i] = VarExprent.STACK_BASE + i / 3;
+      }
+      else {
+        keys[i] = -(i / 3 + 1);
+      }
+    }
+
+    Random random = new Random(42);
+    first = new SFormsFastMapDirect();
+    second = new SFormsFastMapDirect();
+    for (int key : keys) {
+      first.put(key, newVersions(factory, random));
+      if (random.nextBoolean()) {
+        second.put(key, newVersions(factory, random));
+      }
+    }
+  }
+
+  private static FastSparseSet<Integer> newVersions(FastSparseSetFactory<Integer> factory, Random random) {
+    FastSparseSet<Integer> set = factory.spawnEmptySet();
+    for (int i = random.nextInt(3); i >= 0; i--) {
+      set.add(random.nextInt(64));
+    }
+    return set;
+  }
+
+  @Benchmark
+  public SFormsFastMapDirect copy() {
+    return first.getCopy();
+  }
+
+  @Benchmark
+  public SFormsFastMapDirect union() {
+    SFormsFastMapDirect map = first.getCopy();
+    map.union(second);
+    return map;
+  }
+
+  @Benchmark
+  public SFormsFastMapDirect intersection() {
+    SFormsFastMapDirect map = first.getCopy();
+    map.intersection(second);
+    return map;
+  }
+
+  @Benchmark
+  public SFormsFastMapDirect complement() {
+    SFormsFastMapDirect map = first.getCopy();
+    map.complement(second);
+    return map;
+  }
+
+  @Benchmark
+  public void get(Blackhole blackhole) {
+    for (int key : keys) {
+      blackhole.consume(second.get(key));
+    }
+  }
+
+  @Benchmark
+  public void entries(Blackhole blackhole) {
+    blackhole.consume(first.entryList());
+  }
+}
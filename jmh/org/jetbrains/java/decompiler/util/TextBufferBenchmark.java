@@ -0,0 +1,97 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.util;
+
+import org.jetbrains.java.decompiler.main.ClassesProcessor;
+import org.jetbrains.java.decompiler.main.Fernflower;
+import org.jetbrains.java.decompiler.main.decompiler.PrintStreamLogger;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Source text assembly the way ClassWriter does it: many small appends into method buffers, which are then appended
+ * to the class buffer, plus the line counting done for the bytecode mapping.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextBufferBenchmark {
+  @Param({"100", "1000", "10000"})
+  public int lines;
+
+  private Fernflower engine;
+  private TextBuffer text;
+
+  @Setup
+  public void setUp() {
+    // the buffer takes the line separator and the indentation from the current context
+    engine = new Fernflower((externalPath, internalPath) -> null, null, null, new PrintStreamLogger(System.out));
+    text = build();
+  }
+
+  @TearDown
+  public void tearDown() {
+    engine.clearContext();
+  }
+
+  private TextBuffer build() {
+    TextBuffer buffer = new TextBuffer(ClassesProcessor.AVERAGE_CLASS_SIZE);
+    TextBuffer method = null;
+    for (int i = 0; i < lines; i++) {
+      if (i % 20 == 0) {
+        if (method != null) {
+          buffer.append(method);
+        }
+        method = new TextBuffer();
+        method.appendIndent(1).append("public void method").append(i).append("(int var1) {").appendLineSeparator();
+      }
+      method.appendIndent(2).append("int var").append(i).append(" = ").append(i).append(';').appendLineSeparator();
+    }
+    if (method != null) {
+      buffer.append(method);
+    }
+    return buffer;
+  }
+
+  @Benchmark
+  public TextBuffer append() {
+    return build();
+  }
+
+  @Benchmark
+  public String nested() {
+    // a class nested into itself, like chains of anonymous classes and lambdas
+    TextBuffer buffer = text;
+    for (int depth = 0; depth < 10; depth++) {
+      TextBuffer outer = new TextBuffer();
+      outer.append("new Object() {").appendLineSeparator();
+      int start = outer.length();
+      outer.append(buffer).append("}");
+      outer.countLines(start);
+      buffer = outer;
+    }
+    return buffer.toString();
+  }
+
+  @Benchmark
+  public String convert() {
+    return text.toString();
+  }
+
+  @Benchmark
+  public int countLines() {
+    return text.countLines() + text.countLines(text.length() / 2);
+  }
+
+  @Benchmark
+  public TextBuffer prepend() {
+    TextBuffer buffer = new TextBuffer(text.toString());
+    for (int i = 0; i < 10; i++) {
+      buffer.prepend("// prepended line\n");
+    }
+    return buffer;
+  }
+}
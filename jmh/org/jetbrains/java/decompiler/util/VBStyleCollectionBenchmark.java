@@ -0,0 +1,73 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VBStyleCollectionBenchmark {
+  @Param({"16", "256", "4096"})
+  public int size;
+
+  private String[] keys;
+  private VBStyleCollection<Object, String> collection;
+
+  @Setup
+  public void setUp() {
+    keys = new String[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = "method" + i + " ()V";
+    }
+    collection = fill();
+  }
+
+  private VBStyleCollection<Object, String> fill() {
+    VBStyleCollection<Object, String> result = new VBStyleCollection<>();
+    for (String key : keys) {
+      result.addWithKey(key, key);
+    }
+    return result;
+  }
+
+  @Benchmark
+  public VBStyleCollection<Object, String> addWithKey() {
+    return fill();
+  }
+
+  @Benchmark
+  public void getWithKey(Blackhole blackhole) {
+    for (String key : keys) {
+      blackhole.consume(collection.getWithKey(key));
+    }
+  }
+
+  @Benchmark
+  public VBStyleCollection<Object, String> insertAtFront() {
+    VBStyleCollection<Object, String> result = new VBStyleCollection<>();
+    for (String key : keys) {
+      result.addWithKeyAndIndex(0, key, key);
+    }
+    return result;
+  }
+
+  @Benchmark
+  public VBStyleCollection<Object, String> removeWithKey() {
+    VBStyleCollection<Object, String> result = collection.clone();
+    for (int i = 0; i < keys.length; i += 4) {
+      result.removeWithKey(keys[i]);
+    }
+    return result;
+  }
+
+  @Benchmark
+  public VBStyleCollection<Object, String> copy() {
+    return collection.clone();
+  }
+}
@@ -0,0 +1,72 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.util;
+
+import org.jetbrains.java.decompiler.modules.decompiler.vars.VarVersionPair;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Variable version lookups as done by the type and version processors: boxed pairs in a HashMap against packed keys
+ * in a LongIntHashMap. Run with {@code -prof gc} to compare allocation rates. The random keys only approximate the
+ * maps of real methods, the effect on a whole run is measured by {@link org.jetbrains.java.decompiler.DecompilationBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VarVersionMapBenchmark {
+  @Param({"16", "256", "4096"})
+  public int size;
+
+  private int[] vars;
+  private int[] versions;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    vars = new int[size];
+    versions = new int[size];
+    for (int i = 0; i < size; i++) {
+      vars[i] = random.nextInt(Math.max(size / 4, 1));
+      versions[i] = random.nextInt(8) + 1;
+    }
+  }
+
+  @Benchmark
+  public int pairHashMap() {
+    Map<VarVersionPair, Integer> map = new HashMap<>();
+    for (int i = 0; i < size; i++) {
+      map.put(new VarVersionPair(vars[i], versions[i]), i);
+    }
+    int sum = 0;
+    for (int i = 0; i < size; i++) {
+      Integer value = map.get(new VarVersionPair(vars[i], versions[i]));
+      if (value != null) {
+        sum += value;
+      }
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public int packedLongIntHashMap() {
+    LongIntHashMap map = new LongIntHashMap();
+    for (int i = 0; i < size; i++) {
+      map.put(VarVersionPair.key(vars[i], versions[i]), i);
+    }
+    int sum = 0;
+    for (int i = 0; i < size; i++) {
+      int value = map.get(VarVersionPair.key(vars[i], versions[i]), -1);
+      if (value >= 0) {
+        sum += value;
+      }
+    }
+    return sum;
+  }
+}
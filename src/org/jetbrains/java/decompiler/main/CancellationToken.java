@@ -0,0 +1,49 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.main;
+
+/**
+ * Cooperative cancellation of a method being decompiled. The processing code polls the token of the current context
+ * at pass boundaries ({@link DecompilerContext#startPass(String)}) and inside long-running loops
+ * ({@link DecompilerContext#checkCancelled()}), and aborts with {@link CancelledException} once it is cancelled.
+ */
+public class CancellationToken {
+  // token of contexts without a time limit, which is shared and thus ignores cancellation
+  public static final CancellationToken NONE = new CancellationToken() {
+    @Override
+    public void cancel() { }
+  };
+
+  private volatile boolean cancelled;
+
+  public void cancel() {
+    cancelled = true;
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  public void checkCancelled(String pass) {
+    if (cancelled) {
+      throw new CancelledException(pass);
+    }
+  }
+
+  public static class CancelledException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final String pass;
+
+    public CancelledException(String pass) {
+      super("Processing was cancelled" + (pass != null ? " in " + pass : ""), null, false, false);
+      this.pass = pass;
+    }
+
+    /**
+     * @return name of the pass that was running when processing stopped; null if unknown
+     */
+    public String getPass() {
+      return pass;
+    }
+  }
+}
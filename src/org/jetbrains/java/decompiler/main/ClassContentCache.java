@@ -0,0 +1,224 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.main;
+
+import org.jetbrains.java.decompiler.main.ClassesProcessor.ClassNode;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
+import org.jetbrains.java.decompiler.struct.StructClass;
+import org.jetbrains.java.decompiler.util.InterpreterUtil;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * On-disk cache of decompiled classes. An entry is keyed by a hash of the class files of a root class and of all classes
+ * nested into it, and of the options which affect the output.
+ * <p>
+ * The output of a class also depends on the other classes of the context, which are not part of the key: their names
+ * decide which imports collide, their hierarchy and members are looked up for casts, varargs and generic signatures,
+ * and renaming depends on all of them. Entries are therefore only valid for the same set of classes and libraries;
+ * the cache directory must be cleared when any of them changes.
+ * <p>
+ * The key also covers the decompiler itself, by a digest of the jar it is loaded from (or of its class files when it
+ * runs from a directory), so entries of another build are never read.
+ */
+public class ClassContentCache {
+  private static final String FORMAT_VERSION = "1";
+  // options which do not change the output
+  private static final Set<String> IGNORED_OPTIONS = new HashSet<>(Arrays.asList(
+    IFernflowerPreferences.CACHE_DIRECTORY, IFernflowerPreferences.THREADS, IFernflowerPreferences.VIRTUAL_THREADS,
+    IFernflowerPreferences.LOG_LEVEL, IFernflowerPreferences.LIBRARY_CACHE_SIZE, IFernflowerPreferences.LAZY_LIBRARIES,
+    IFernflowerPreferences.ARCHIVE_COMPRESSION, IFernflowerPreferences.REPORT_FILE));
+
+  private static final class BuildDigestHolder {
+    private static final byte[] DIGEST = digestBuild(getBuildLocation());
+  }
+
+  private final File directory;
+  private final byte[] optionsDigest;
+
+  public ClassContentCache(File directory, Map<String, Object> options) {
+    this.directory = directory;
+
+    StringBuilder builder = new StringBuilder(FORMAT_VERSION).append('\n');
+    for (Map.Entry<String, Object> entry : new TreeMap<>(options).entrySet()) {
+      if (entry.getValue() instanceof String && !IGNORED_OPTIONS.contains(entry.getKey())) {
+        builder.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+      }
+    }
+    MessageDigest digest = newDigest();
+    digest.update(BuildDigestHolder.DIGEST);
+    optionsDigest = digest.digest(builder.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @return key of the root class, or null when the class files are not available
+   */
+  public String getKey(ClassNode root) {
+    MessageDigest digest = newDigest();
+    digest.update(optionsDigest);
+
+    Set<StructClass> visited = new HashSet<>();
+    Deque<ClassNode> stack = new ArrayDeque<>();
+    stack.push(root);
+    while (!stack.isEmpty()) {
+      ClassNode node = stack.pop();
+      if (visited.add(node.classStruct)) {
+        byte[] bytes = node.classStruct.getBytes();
+        if (bytes == null) {
+          return null;
+        }
+        digest.update(bytes);
+      }
+      for (int i = node.nested.size() - 1; i >= 0; i--) {
+        stack.push(node.nested.get(i));
+      }
+    }
+
+    StringBuilder key = new StringBuilder();
+    for (byte b : digest.digest()) {
+      key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return key.toString();
+  }
+
+  /**
+   * @return cached content and original lines mapping, or null when there is no entry for the key
+   */
+  public Entry get(String key) {
+    File file = getFile(key);
+    if (!file.isFile()) {
+      return null;
+    }
+
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      int[] mapping = null;
+      int mappingLength = in.readInt();
+      if (mappingLength >= 0) {
+        mapping = new int[mappingLength];
+        for (int i = 0; i < mappingLength; i++) {
+          mapping[i] = in.readInt();
+        }
+      }
+      byte[] content = new byte[in.readInt()];
+      in.readFully(content);
+      return new Entry(new String(content, StandardCharsets.UTF_8), mapping);
+    }
+    catch (IOException ex) {
+      DecompilerContext.getLogger().writeMessage("Cannot read cached class " + file, IFernflowerLogger.Severity.WARN, ex);
+      return null;
+    }
+  }
+
+  public void put(String key, String content, int[] mapping) {
+    if (content.contains(ClassWriter.NOT_DECOMPILED_MARKER)) {
+      return; // failures, like exceeded time limits, are not necessarily reproducible
+    }
+
+    File file = getFile(key);
+    try {
+      File dir = file.getParentFile();
+      if (!(dir.mkdirs() || dir.isDirectory())) {
+        throw new IOException("Cannot create directory " + dir);
+      }
+
+      // written to a temporary file first, so that concurrent readers never see a partial entry
+      File temp = File.createTempFile(key, ".tmp", dir);
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+        out.writeInt(mapping != null ? mapping.length : -1);
+        if (mapping != null) {
+          for (int value : mapping) {
+            out.writeInt(value);
+          }
+        }
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+      }
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    catch (IOException ex) {
+      DecompilerContext.getLogger().writeMessage("Cannot write cached class " + file, IFernflowerLogger.Severity.WARN, ex);
+    }
+  }
+
+  private static File getBuildLocation() {
+    try {
+      CodeSource source = ClassContentCache.class.getProtectionDomain().getCodeSource();
+      return source != null && source.getLocation() != null ? new File(source.getLocation().toURI()) : null;
+    }
+    catch (URISyntaxException | IllegalArgumentException | SecurityException e) {
+      return null;
+    }
+  }
+
+  /**
+   * @return digest of the decompiler jar or class directory at the given location, together with the implementation
+   * version; only the latter when the location is not known
+   */
+  static byte[] digestBuild(File location) {
+    MessageDigest digest = newDigest();
+    String version = ClassContentCache.class.getPackage().getImplementationVersion();
+    digest.update(String.valueOf(version).getBytes(StandardCharsets.UTF_8));
+    try {
+      if (location != null && location.isFile()) {
+        digest.update(InterpreterUtil.getBytes(location));
+      }
+      else if (location != null && location.isDirectory()) {
+        digestClassFiles(digest, location, "");
+      }
+    }
+    catch (IOException ex) {
+      DecompilerContext.getLogger().writeMessage("Cannot read decompiler build " + location, IFernflowerLogger.Severity.WARN, ex);
+    }
+    return digest.digest();
+  }
+
+  private static void digestClassFiles(MessageDigest digest, File dir, String path) throws IOException {
+    File[] files = dir.listFiles();
+    if (files == null) {
+      return;
+    }
+    Arrays.sort(files, Comparator.comparing(File::getName));
+    for (File file : files) {
+      String name = path + '/' + file.getName();
+      if (file.isDirectory()) {
+        digestClassFiles(digest, file, name);
+      }
+      else if (name.endsWith(".class")) {
+        digest.update(name.getBytes(StandardCharsets.UTF_8));
+        digest.update(InterpreterUtil.getBytes(file));
+      }
+    }
+  }
+
+  private File getFile(String key) {
+    return new File(new File(directory, key.substring(0, 2)), key.substring(2));
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  public static class Entry {
+    public final String content;
+    public final int[] mapping;
+
+    public Entry(String content, int[] mapping) {
+      this.content = content;
+      this.mapping = mapping;
+    }
+  }
+}
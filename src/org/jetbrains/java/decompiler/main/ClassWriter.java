@@ -5,7 +5,6 @@ import org.jetbrains.java.decompiler.code.CodeConstants;
 import org.jetbrains.java.decompiler.main.ClassesProcessor.ClassNode;
 import org.jetbrains.java.decompiler.main.collectors.BytecodeMappingTracer;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
-import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.main.rels.ClassWrapper;
 import org.jetbrains.java.decompiler.main.rels.MethodWrapper;
 import org.jetbrains.java.decompiler.modules.decompiler.ExprProcessor;
@@ -35,13 +34,22 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 public class ClassWriter {
+  // written in place of the body of a method which could not be decompiled
+  static final String NOT_DECOMPILED_MARKER = "// $FF: Couldn't be decompiled";
+
+  private final DecompilerContext context;
   private final PoolInterceptor interceptor;
 
   public ClassWriter() {
-    interceptor = DecompilerContext.getPoolInterceptor();
+    this(DecompilerContext.getCurrentContext());
+  }
+
+  public ClassWriter(DecompilerContext context) {
+    this.context = context;
+    interceptor = context.poolInterceptor();
   }
 
-  private static void invokeProcessors(ClassNode node) {
+  private void invokeProcessors(ClassNode node) {
     ClassWrapper wrapper = node.getWrapper();
     StructClass cl = wrapper.getClassStruct();
 
@@ -49,15 +57,15 @@ public class ClassWriter {
 
     if (node.type == ClassNode.CLASS_ROOT &&
         !cl.isVersion5() &&
-        DecompilerContext.getOption(IFernflowerPreferences.DECOMPILE_CLASS_1_4)) {
+        context.options().decompileClass14) {
       ClassReference14Processor.processClassReferences(node);
     }
 
-    if (cl.hasModifier(CodeConstants.ACC_ENUM) && DecompilerContext.getOption(IFernflowerPreferences.DECOMPILE_ENUM)) {
+    if (cl.hasModifier(CodeConstants.ACC_ENUM) && context.options().decompileEnum) {
       EnumProcessor.clearEnum(wrapper);
     }
 
-    if (DecompilerContext.getOption(IFernflowerPreferences.DECOMPILE_ASSERTIONS)) {
+    if (context.options().decompileAssertions) {
       AssertProcessor.buildAssertions(node);
     }
   }
@@ -68,17 +76,17 @@ public class ClassWriter {
       return;
     }
 
-    boolean lambdaToAnonymous = DecompilerContext.getOption(IFernflowerPreferences.LAMBDA_TO_ANONYMOUS_CLASS);
+    boolean lambdaToAnonymous = context.options().lambdaToAnonymousClass;
 
-    ClassNode outerNode = (ClassNode)DecompilerContext.getProperty(DecompilerContext.CURRENT_CLASS_NODE);
-    DecompilerContext.setProperty(DecompilerContext.CURRENT_CLASS_NODE, node);
+    ClassNode outerNode = context.currentClassNode();
+    context.setCurrentClassNode(node);
 
     BytecodeMappingTracer tracer = new BytecodeMappingTracer(origTracer.getCurrentSourceLine());
 
     try {
       StructClass cl = wrapper.getClassStruct();
 
-      DecompilerContext.getLogger().startWriteClass(node.simpleName);
+      context.logger().startWriteClass(node.simpleName);
 
       if (node.lambdaInformation.is_method_reference) {
         if (!node.lambdaInformation.is_content_method_static && method_object != null) {
@@ -87,7 +95,7 @@ public class ClassWriter {
         }
         else {
           // reference to a static method
-          buffer.append(ExprProcessor.getCastTypeName(new VarType(node.lambdaInformation.content_class_name, true), Collections.emptyList()));
+          buffer.append(ExprProcessor.getCastTypeName(context, new VarType(node.lambdaInformation.content_class_name, true), Collections.emptyList()));
         }
 
         buffer.append("::")
@@ -119,7 +127,7 @@ public class ClassWriter {
               if (explicitlyTyped) {
                 List<TypeAnnotation> iParameterTypeAnnotations = TargetInfo.FormalParameterTarget.extract(parameterTypeAnnotations, i);
                 VarType type = md_content.params[i];
-                buffer.append(ExprProcessor.getCastTypeName(type, TypeAnnotationWriteHelper.create(iParameterTypeAnnotations)));
+                buffer.append(ExprProcessor.getCastTypeName(context, type, TypeAnnotationWriteHelper.create(iParameterTypeAnnotations)));
                 buffer.append(' ');
               }
 
@@ -146,15 +154,15 @@ public class ClassWriter {
       }
     }
     finally {
-      DecompilerContext.setProperty(DecompilerContext.CURRENT_CLASS_NODE, outerNode);
+      context.setCurrentClassNode(outerNode);
     }
 
-    DecompilerContext.getLogger().endWriteClass();
+    context.logger().endWriteClass();
   }
 
   public void classToJava(ClassNode node, TextBuffer buffer, int indent, BytecodeMappingTracer tracer) {
-    ClassNode outerNode = (ClassNode)DecompilerContext.getProperty(DecompilerContext.CURRENT_CLASS_NODE);
-    DecompilerContext.setProperty(DecompilerContext.CURRENT_CLASS_NODE, node);
+    ClassNode outerNode = context.currentClassNode();
+    context.setCurrentClassNode(node);
 
     int startLine = tracer != null ? tracer.getCurrentSourceLine() : 0;
     BytecodeMappingTracer dummy_tracer = new BytecodeMappingTracer(startLine);
@@ -166,7 +174,7 @@ public class ClassWriter {
       ClassWrapper wrapper = node.getWrapper();
       StructClass cl = wrapper.getClassStruct();
 
-      DecompilerContext.getLogger().startWriteClass(cl.qualifiedName);
+      context.logger().startWriteClass(cl.qualifiedName);
 
       // write class definition
       int start_class_def = buffer.length();
@@ -180,7 +188,7 @@ public class ClassWriter {
       List<StructRecordComponent> components = cl.getRecordComponents();
 
       for (StructField fd : cl.getFields()) {
-        boolean hide = fd.isSynthetic() && DecompilerContext.getOption(IFernflowerPreferences.REMOVE_SYNTHETIC) ||
+        boolean hide = fd.isSynthetic() && context.options().removeSynthetic ||
                        wrapper.getHiddenMembers().contains(InterpreterUtil.makeUniqueKey(fd.getName(), fd.getDescriptor()));
         if (hide) continue;
 
@@ -190,7 +198,7 @@ public class ClassWriter {
           continue;
         }
 
-        boolean isEnum = fd.hasModifier(CodeConstants.ACC_ENUM) && DecompilerContext.getOption(IFernflowerPreferences.DECOMPILE_ENUM);
+        boolean isEnum = fd.hasModifier(CodeConstants.ACC_ENUM) && context.options().decompileEnum;
         if (isEnum) {
           if (enumFields) {
             buffer.append(',').appendLineSeparator();
@@ -221,8 +229,8 @@ public class ClassWriter {
 
       // methods
       for (StructMethod mt : cl.getMethods()) {
-        boolean hide = mt.isSynthetic() && DecompilerContext.getOption(IFernflowerPreferences.REMOVE_SYNTHETIC) ||
-                       mt.hasModifier(CodeConstants.ACC_BRIDGE) && DecompilerContext.getOption(IFernflowerPreferences.REMOVE_BRIDGE) ||
+        boolean hide = mt.isSynthetic() && context.options().removeSynthetic ||
+                       mt.hasModifier(CodeConstants.ACC_BRIDGE) && context.options().removeBridge ||
                        wrapper.getHiddenMembers().contains(InterpreterUtil.makeUniqueKey(mt.getName(), mt.getDescriptor()));
         if (hide) continue;
 
@@ -238,6 +246,9 @@ public class ClassWriter {
           hasContent = true;
           addTracer(cl, mt, method_tracer);
           startLine = method_tracer.getCurrentSourceLine();
+          if (context.report() != null) {
+            context.report().setMethodOutput(cl.qualifiedName, mt.getName(), mt.getDescriptor(), buffer.length() - position);
+          }
         }
         else {
           buffer.setLength(position);
@@ -250,7 +261,7 @@ public class ClassWriter {
         if (inner.type == ClassNode.CLASS_MEMBER) {
           StructClass innerCl = inner.classStruct;
           boolean isSynthetic = (inner.access & CodeConstants.ACC_SYNTHETIC) != 0 || innerCl.isSynthetic();
-          boolean hide = isSynthetic && DecompilerContext.getOption(IFernflowerPreferences.REMOVE_SYNTHETIC) ||
+          boolean hide = isSynthetic && context.options().removeSynthetic ||
                          wrapper.getHiddenMembers().contains(innerCl.qualifiedName);
           if (hide) continue;
 
@@ -271,12 +282,16 @@ public class ClassWriter {
       if (node.type != ClassNode.CLASS_ANONYMOUS) {
         buffer.appendLineSeparator();
       }
+
+      if (context.report() != null) {
+        context.report().setClassOutput(cl.qualifiedName, buffer.length() - start_class_def);
+      }
     }
     finally {
-      DecompilerContext.setProperty(DecompilerContext.CURRENT_CLASS_NODE, outerNode);
+      context.setCurrentClassNode(outerNode);
     }
 
-    DecompilerContext.getLogger().endWriteClass();
+    context.logger().endWriteClass();
   }
 
   @SuppressWarnings("SpellCheckingInspection")
@@ -307,7 +322,7 @@ public class ClassWriter {
     int flags = node.type == ClassNode.CLASS_ROOT ? cl.getAccessFlags() : node.access;
     boolean isDeprecated = cl.hasAttribute(StructGeneralAttribute.ATTRIBUTE_DEPRECATED);
     boolean isSynthetic = (flags & CodeConstants.ACC_SYNTHETIC) != 0 || cl.hasAttribute(StructGeneralAttribute.ATTRIBUTE_SYNTHETIC);
-    boolean isEnum = DecompilerContext.getOption(IFernflowerPreferences.DECOMPILE_ENUM) && (flags & CodeConstants.ACC_ENUM) != 0;
+    boolean isEnum = context.options().decompileEnum && (flags & CodeConstants.ACC_ENUM) != 0;
     boolean isInterface = (flags & CodeConstants.ACC_INTERFACE) != 0;
     boolean isAnnotation = (flags & CodeConstants.ACC_ANNOTATION) != 0;
 
@@ -402,7 +417,7 @@ public class ClassWriter {
           );
         }
         else {
-          buffer.append(ExprProcessor.getCastTypeName(supertype, TypeAnnotationWriteHelper.create(extendsTypeAnnotations)));
+          buffer.append(ExprProcessor.getCastTypeName(context, supertype, TypeAnnotationWriteHelper.create(extendsTypeAnnotations)));
         }
         buffer.append(' ');
       }
@@ -425,6 +440,7 @@ public class ClassWriter {
           }
           else {
             buffer.append(ExprProcessor.getCastTypeName(
+              context,
               new VarType(cl.getInterface(i), true),
               TypeAnnotationWriteHelper.create(superTypeAnnotations))
             );
@@ -446,7 +462,7 @@ public class ClassWriter {
           if (i > 0) {
             buffer.append(", ");
           }
-          String nestedName = DecompilerContext.getImportCollector().getNestedName(qualifiedName);
+          String nestedName = context.importCollector().getNestedName(qualifiedName);
           buffer.append(nestedName);
         }
         buffer.append(' ');
@@ -459,7 +475,7 @@ public class ClassWriter {
     int start = buffer.length();
     boolean isInterface = cl.hasModifier(CodeConstants.ACC_INTERFACE);
     boolean isDeprecated = fd.hasAttribute(StructGeneralAttribute.ATTRIBUTE_DEPRECATED);
-    boolean isEnum = fd.hasModifier(CodeConstants.ACC_ENUM) && DecompilerContext.getOption(IFernflowerPreferences.DECOMPILE_ENUM);
+    boolean isEnum = fd.hasModifier(CodeConstants.ACC_ENUM) && context.options().decompileEnum;
 
     if (isDeprecated) {
       appendDeprecation(buffer, indent);
@@ -494,7 +510,7 @@ public class ClassWriter {
         buffer.append(GenericMain.getGenericCastTypeName(descriptor.type, TypeAnnotationWriteHelper.create(typeAnnotations)));
       }
       else {
-        buffer.append(ExprProcessor.getCastTypeName(fieldType, TypeAnnotationWriteHelper.create(typeAnnotations)));
+        buffer.append(ExprProcessor.getCastTypeName(context, fieldType, TypeAnnotationWriteHelper.create(typeAnnotations)));
       }
       buffer.append(' ');
     }
@@ -613,11 +629,11 @@ public class ClassWriter {
     return (flags & (CodeConstants.ACC_SYNTHETIC | CodeConstants.ACC_MANDATED)) != 0;
   }
 
-  private static void addTracer(StructClass cls, StructMethod method, BytecodeMappingTracer tracer) {
+  private void addTracer(StructClass cls, StructMethod method, BytecodeMappingTracer tracer) {
     StructLineNumberTableAttribute table = method.getAttribute(StructGeneralAttribute.ATTRIBUTE_LINE_NUMBER_TABLE);
     tracer.setLineNumberTable(table);
     String key = InterpreterUtil.makeUniqueKey(method.getName(), method.getDescriptor());
-    DecompilerContext.getBytecodeSourceMapper().addTracer(cls.qualifiedName, key, tracer);
+    context.bytecodeSourceMapper().addTracer(cls.qualifiedName, key, tracer);
   }
 
   private boolean methodToJava(ClassNode node, StructMethod mt, TextBuffer buffer, int indent, BytecodeMappingTracer tracer) {
@@ -628,13 +644,13 @@ public class ClassWriter {
     boolean hideMethod = false;
     int start_index_method = buffer.length();
 
-    MethodWrapper outerWrapper = (MethodWrapper)DecompilerContext.getProperty(DecompilerContext.CURRENT_METHOD_WRAPPER);
-    DecompilerContext.setProperty(DecompilerContext.CURRENT_METHOD_WRAPPER, methodWrapper);
+    MethodWrapper outerWrapper = context.currentMethodWrapper();
+    context.setCurrentMethodWrapper(methodWrapper);
 
     try {
       boolean isInterface = cl.hasModifier(CodeConstants.ACC_INTERFACE);
       boolean isAnnotation = cl.hasModifier(CodeConstants.ACC_ANNOTATION);
-      boolean isEnum = cl.hasModifier(CodeConstants.ACC_ENUM) && DecompilerContext.getOption(IFernflowerPreferences.DECOMPILE_ENUM);
+      boolean isEnum = cl.hasModifier(CodeConstants.ACC_ENUM) && context.options().decompileEnum;
       boolean isDeprecated = mt.hasAttribute(StructGeneralAttribute.ATTRIBUTE_DEPRECATED);
       boolean clInit = false, init = false, dInit = false;
 
@@ -667,7 +683,7 @@ public class ClassWriter {
       }
 
       GenericMethodDescriptor descriptor = null;
-      if (DecompilerContext.getOption(IFernflowerPreferences.DECOMPILE_GENERIC_SIGNATURES)) {
+      if (context.options().decompileGenericSignatures) {
         StructGenericSignatureAttribute attr = mt.getAttribute(StructGeneralAttribute.ATTRIBUTE_SIGNATURE);
         if (attr != null) {
           descriptor = GenericMain.parseMethodSignature(attr.getSignature());
@@ -682,7 +698,7 @@ public class ClassWriter {
             }
             if (actualParams != descriptor.parameterTypes.size()) {
               String message = "Inconsistent generic signature in method " + mt.getName() + " " + mt.getDescriptor() + " in " + cl.qualifiedName;
-              DecompilerContext.getLogger().writeMessage(message, IFernflowerLogger.Severity.WARN);
+              context.logger().writeMessage(message, IFernflowerLogger.Severity.WARN);
               descriptor = null;
             }
           }
@@ -732,7 +748,7 @@ public class ClassWriter {
             buffer.append(GenericMain.getGenericCastTypeName(descriptor.returnType, TypeAnnotationWriteHelper.create(emptyTypeAnnotations)));
           }
           else {
-            buffer.append(ExprProcessor.getCastTypeName(md.ret, TypeAnnotationWriteHelper.create(emptyTypeAnnotations)));
+            buffer.append(ExprProcessor.getCastTypeName(context, md.ret, TypeAnnotationWriteHelper.create(emptyTypeAnnotations)));
           }
           buffer.append(' ');
         }
@@ -783,12 +799,12 @@ public class ClassWriter {
               if (isVarArg) {
                 varParamType = varParamType.decreaseArrayDim();
               }
-              typeName = ExprProcessor.getCastTypeName(varParamType, TypeAnnotationWriteHelper.create(typeParamAnnotations));
+              typeName = ExprProcessor.getCastTypeName(context, varParamType, TypeAnnotationWriteHelper.create(typeParamAnnotations));
             }
 
             if (ExprProcessor.UNDEFINED_TYPE_STRING.equals(typeName) &&
-                DecompilerContext.getOption(IFernflowerPreferences.UNDEFINED_PARAM_TYPE_OBJECT)) {
-              typeName = ExprProcessor.getCastTypeName(VarType.VARTYPE_OBJECT, TypeAnnotationWriteHelper.create(typeParamAnnotations));
+                context.options().undefinedParamTypeObject) {
+              typeName = ExprProcessor.getCastTypeName(context, VarType.VARTYPE_OBJECT, TypeAnnotationWriteHelper.create(typeParamAnnotations));
             }
             buffer.append(typeName);
             if (isVarArg) {
@@ -824,7 +840,7 @@ public class ClassWriter {
             }
             else {
               VarType type = new VarType(attr.getExcClassname(i, cl.getPool()), true);
-              buffer.append(ExprProcessor.getCastTypeName(type, Collections.emptyList()));
+              buffer.append(ExprProcessor.getCastTypeName(context, type, Collections.emptyList()));
             }
           }
         }
@@ -872,14 +888,14 @@ public class ClassWriter {
           }
           catch (Throwable t) {
             String message = "Method " + mt.getName() + " " + mt.getDescriptor() + " couldn't be written.";
-            DecompilerContext.getLogger().writeMessage(message, IFernflowerLogger.Severity.WARN, t);
+            context.logger().writeMessage(message, IFernflowerLogger.Severity.WARN, t);
             methodWrapper.decompiledWithErrors = true;
           }
         }
 
         if (methodWrapper.decompiledWithErrors) {
           buffer.appendIndent(indent + 1);
-          buffer.append("// $FF: Couldn't be decompiled");
+          buffer.append(NOT_DECOMPILED_MARKER);
           buffer.appendLineSeparator();
           tracer.incrementCurrentSourceLine();
         }
@@ -892,7 +908,7 @@ public class ClassWriter {
       tracer.incrementCurrentSourceLine();
     }
     finally {
-      DecompilerContext.setProperty(DecompilerContext.CURRENT_METHOD_WRAPPER, outerWrapper);
+      context.setCurrentMethodWrapper(outerWrapper);
     }
 
     // save total lines
@@ -933,7 +949,7 @@ public class ClassWriter {
     buffer.append('}').appendLineSeparator();
   }
 
-  private static void methodLambdaToJava(ClassNode lambdaNode,
+  private void methodLambdaToJava(ClassNode lambdaNode,
                                          ClassWrapper classWrapper,
                                          StructMethod mt,
                                          TextBuffer buffer,
@@ -941,8 +957,8 @@ public class ClassWriter {
                                          boolean codeOnly, BytecodeMappingTracer tracer) {
     MethodWrapper methodWrapper = classWrapper.getMethodWrapper(mt.getName(), mt.getDescriptor());
 
-    MethodWrapper outerWrapper = (MethodWrapper)DecompilerContext.getProperty(DecompilerContext.CURRENT_METHOD_WRAPPER);
-    DecompilerContext.setProperty(DecompilerContext.CURRENT_METHOD_WRAPPER, methodWrapper);
+    MethodWrapper outerWrapper = context.currentMethodWrapper();
+    context.setCurrentMethodWrapper(methodWrapper);
 
     try {
       String method_name = lambdaNode.lambdaInformation.method_name;
@@ -965,10 +981,10 @@ public class ClassWriter {
               buffer.append(", ");
             }
 
-            String typeName = ExprProcessor.getCastTypeName(md_content.params[i].copy(), Collections.emptyList());
+            String typeName = ExprProcessor.getCastTypeName(context, md_content.params[i].copy(), Collections.emptyList());
             if (ExprProcessor.UNDEFINED_TYPE_STRING.equals(typeName) &&
-                DecompilerContext.getOption(IFernflowerPreferences.UNDEFINED_PARAM_TYPE_OBJECT)) {
-              typeName = ExprProcessor.getCastTypeName(VarType.VARTYPE_OBJECT, Collections.emptyList());
+                context.options().undefinedParamTypeObject) {
+              typeName = ExprProcessor.getCastTypeName(context, VarType.VARTYPE_OBJECT, Collections.emptyList());
             }
 
             buffer.append(typeName);
@@ -996,7 +1012,7 @@ public class ClassWriter {
           }
           catch (Throwable t) {
             String message = "Method " + mt.getName() + " " + mt.getDescriptor() + " couldn't be written.";
-            DecompilerContext.getLogger().writeMessage(message, IFernflowerLogger.Severity.WARN, t);
+            context.logger().writeMessage(message, IFernflowerLogger.Severity.WARN, t);
             methodWrapper.decompiledWithErrors = true;
           }
         }
@@ -1004,7 +1020,7 @@ public class ClassWriter {
 
       if (methodWrapper.decompiledWithErrors) {
         buffer.appendIndent(indent);
-        buffer.append("// $FF: Couldn't be decompiled");
+        buffer.append(NOT_DECOMPILED_MARKER);
         buffer.appendLineSeparator();
       }
 
@@ -1018,7 +1034,7 @@ public class ClassWriter {
       }
     }
     finally {
-      DecompilerContext.setProperty(DecompilerContext.CURRENT_METHOD_WRAPPER, outerWrapper);
+      context.setCurrentMethodWrapper(outerWrapper);
     }
   }
 
@@ -1044,7 +1060,7 @@ public class ClassWriter {
     return res.append("/* $FF was: ").append(name).append("*/").toString();
   }
 
-  private static void recordComponentToJava(StructRecordComponent cd, TextBuffer buffer, boolean varArgComponent) {
+  private void recordComponentToJava(StructRecordComponent cd, TextBuffer buffer, boolean varArgComponent) {
     Map.Entry<VarType, GenericFieldDescriptor> fieldTypeData = getFieldTypeData(cd);
     VarType fieldType = fieldTypeData.getKey();
     GenericFieldDescriptor descriptor = fieldTypeData.getValue();
@@ -1060,6 +1076,7 @@ public class ClassWriter {
     }
     else {
       buffer.append(ExprProcessor.getCastTypeName(
+        context,
         varArgComponent ? fieldType.decreaseArrayDim() : fieldType,
         TypeAnnotationWriteHelper.create(typeAnnotations)
       ));
@@ -1072,7 +1089,7 @@ public class ClassWriter {
     buffer.append(cd.getName());
   }
 
-  private static boolean hideConstructor(
+  private boolean hideConstructor(
     ClassNode node,
     boolean hasAnnotation,
     boolean init,
@@ -1080,14 +1097,14 @@ public class ClassWriter {
     int paramCount,
     int methodAccessFlags
   ) {
-    if (!init || hasAnnotation|| throwsExceptions || paramCount > 0 || !DecompilerContext.getOption(IFernflowerPreferences.HIDE_DEFAULT_CONSTRUCTOR)) {
+    if (!init || hasAnnotation|| throwsExceptions || paramCount > 0 || !context.options().hideDefaultConstructor) {
       return false;
     }
 
     StructClass cl = node.getWrapper().getClassStruct();
 
 	  int classAccessFlags = node.type == ClassNode.CLASS_ROOT ? cl.getAccessFlags() : node.access;
-    boolean isEnum = cl.hasModifier(CodeConstants.ACC_ENUM) && DecompilerContext.getOption(IFernflowerPreferences.DECOMPILE_ENUM);
+    boolean isEnum = cl.hasModifier(CodeConstants.ACC_ENUM) && context.options().decompileEnum;
 
     // default constructor requires same accessibility flags. Exception: enum constructor which is always private
     if (!isEnum && ((classAccessFlags & ACCESSIBILITY_FLAGS) != (methodAccessFlags & ACCESSIBILITY_FLAGS))) {
@@ -1104,11 +1121,11 @@ public class ClassWriter {
     return true;
   }
 
-  private static Map.Entry<VarType, GenericFieldDescriptor> getFieldTypeData(StructField fd) {
+  private Map.Entry<VarType, GenericFieldDescriptor> getFieldTypeData(StructField fd) {
     VarType fieldType = new VarType(fd.getDescriptor(), false);
 
     GenericFieldDescriptor descriptor = null;
-    if (DecompilerContext.getOption(IFernflowerPreferences.DECOMPILE_GENERIC_SIGNATURES)) {
+    if (context.options().decompileGenericSignatures) {
       StructGenericSignatureAttribute attr = fd.getAttribute(StructGeneralAttribute.ATTRIBUTE_SIGNATURE);
       if (attr != null) {
         descriptor = GenericMain.parseFieldSignature(attr.getSignature());
@@ -1124,7 +1141,7 @@ public class ClassWriter {
 
   private enum MType {CLASS, FIELD, METHOD}
 
-  private static void appendRenameComment(TextBuffer buffer, String oldName, MType type, int indent) {
+  private void appendRenameComment(TextBuffer buffer, String oldName, MType type, int indent) {
     if (oldName == null) return;
 
     buffer.appendIndent(indent);
@@ -1132,7 +1149,7 @@ public class ClassWriter {
 
     switch (type) {
       case CLASS:
-        buffer.append(ExprProcessor.buildJavaClassName(oldName));
+        buffer.append(ExprProcessor.buildJavaClassName(context, oldName));
         break;
 
       case FIELD:
@@ -1163,11 +1180,11 @@ public class ClassWriter {
     buffer.appendLineSeparator();
   }
 
-  private static String getTypePrintOut(VarType type) {
-    String typeText = ExprProcessor.getCastTypeName(type, false, Collections.emptyList());
+  private String getTypePrintOut(VarType type) {
+    String typeText = ExprProcessor.getCastTypeName(context, type, false, Collections.emptyList());
     if (ExprProcessor.UNDEFINED_TYPE_STRING.equals(typeText) &&
-        DecompilerContext.getOption(IFernflowerPreferences.UNDEFINED_PARAM_TYPE_OBJECT)) {
-      typeText = ExprProcessor.getCastTypeName(VarType.VARTYPE_OBJECT, false, Collections.emptyList());
+        context.options().undefinedParamTypeObject) {
+      typeText = ExprProcessor.getCastTypeName(context, VarType.VARTYPE_OBJECT, false, Collections.emptyList());
     }
     return typeText;
   }
@@ -1255,7 +1272,7 @@ public class ClassWriter {
   }
 
   public static GenericClassDescriptor getGenericClassDescriptor(StructClass cl) {
-    if (DecompilerContext.getOption(IFernflowerPreferences.DECOMPILE_GENERIC_SIGNATURES)) {
+    if (DecompilerContext.getOptions().decompileGenericSignatures) {
       StructGenericSignatureAttribute attr = cl.getAttribute(StructGeneralAttribute.ATTRIBUTE_SIGNATURE);
       if (attr != null) {
         return GenericMain.parseClassSignature(attr.getSignature());
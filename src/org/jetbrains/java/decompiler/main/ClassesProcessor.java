@@ -7,7 +7,6 @@ import org.jetbrains.java.decompiler.code.InstructionSequence;
 import org.jetbrains.java.decompiler.main.collectors.BytecodeSourceMapper;
 import org.jetbrains.java.decompiler.main.collectors.ImportCollector;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
-import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.main.extern.IIdentifierRenamer;
 import org.jetbrains.java.decompiler.main.rels.ClassWrapper;
 import org.jetbrains.java.decompiler.main.rels.LambdaProcessor;
@@ -35,7 +34,8 @@ public class ClassesProcessor implements CodeConstants {
   public static final int AVERAGE_CLASS_SIZE = 16 * 1024;
 
   private final StructContext context;
-  private final Map<String, ClassNode> mapRootClasses = new HashMap<>();
+  // lambda nodes are added while classes are written, possibly by several threads
+  private final Map<String, ClassNode> mapRootClasses = Collections.synchronizedMap(new HashMap<>());
 
   private static class Inner {
     private String simpleName;
@@ -57,8 +57,8 @@ public class ClassesProcessor implements CodeConstants {
     Map<String, Set<String>> mapEnclosingClassReferences = new HashMap<>();
     Map<String, String> mapNewSimpleNames = new HashMap<>();
 
-    boolean bDecompileInner = DecompilerContext.getOption(IFernflowerPreferences.DECOMPILE_INNER);
-    boolean verifyAnonymousClasses = DecompilerContext.getOption(IFernflowerPreferences.VERIFY_ANONYMOUS_CLASSES);
+    boolean bDecompileInner = DecompilerContext.getOptions().decompileInner;
+    boolean verifyAnonymousClasses = DecompilerContext.getOptions().verifyAnonymousClasses;
 
     // create class nodes
     for (StructClass cl : context.getClasses().values()) {
@@ -223,6 +223,9 @@ public class ClassesProcessor implements CodeConstants {
 
                 stack.add(nestedClass);
               }
+
+              // the anonymous class checks read the code of the enclosing class long before it is decompiled
+              scl.releaseBytes();
             }
           }
         }
@@ -325,10 +328,11 @@ public class ClassesProcessor implements CodeConstants {
     boolean packageInfo = cl.isSynthetic() && "package-info".equals(root.simpleName);
     boolean moduleInfo = cl.hasModifier(CodeConstants.ACC_MODULE) && cl.hasAttribute(StructGeneralAttribute.ATTRIBUTE_MODULE);
 
-    DecompilerContext.getLogger().startReadingClass(cl.qualifiedName);
+    DecompilerContext context = DecompilerContext.getCurrentContext();
+    context.logger().startReadingClass(cl.qualifiedName);
     try {
       ImportCollector importCollector = new ImportCollector(root);
-      DecompilerContext.startClass(importCollector);
+      context.startClass(root, importCollector);
 
       if (packageInfo) {
         ClassWriter.packageInfoToJava(cl, buffer);
@@ -350,14 +354,14 @@ public class ClassesProcessor implements CodeConstants {
         addClassNameToImport(root, importCollector);
 
         // build wrappers for all nested classes (that's where actual processing takes place)
-        initWrappers(root);
+        initWrappers(context, root);
 
         new NestedClassProcessor().processClass(root, root);
 
         new NestedMemberAccess().propagateMemberAccess(root);
 
         TextBuffer classBuffer = new TextBuffer(AVERAGE_CLASS_SIZE);
-        new ClassWriter().classToJava(root, classBuffer, 0, null);
+        new ClassWriter(context).classToJava(root, classBuffer, 0, null);
 
         int index = cl.qualifiedName.lastIndexOf('/');
         if (index >= 0) {
@@ -371,13 +375,13 @@ public class ClassesProcessor implements CodeConstants {
 
         buffer.append(classBuffer);
 
-        if (DecompilerContext.getOption(IFernflowerPreferences.BYTECODE_SOURCE_MAPPING)) {
-          BytecodeSourceMapper mapper = DecompilerContext.getBytecodeSourceMapper();
+        if (context.options().bytecodeSourceMapping) {
+          BytecodeSourceMapper mapper = context.bytecodeSourceMapper();
           mapper.addTotalOffset(offsetLines);
-          if (DecompilerContext.getOption(IFernflowerPreferences.DUMP_ORIGINAL_LINES)) {
+          if (context.options().dumpOriginalLines) {
             buffer.dumpOriginalLineNumbers(mapper.getOriginalLinesMapping());
           }
-          if (DecompilerContext.getOption(IFernflowerPreferences.UNIT_TEST_MODE)) {
+          if (context.options().unitTestMode) {
             buffer.appendLineSeparator();
             mapper.dumpMapping(buffer, true);
           }
@@ -386,22 +390,22 @@ public class ClassesProcessor implements CodeConstants {
     }
     finally {
       destroyWrappers(root);
-      DecompilerContext.getLogger().endReadingClass();
+      context.logger().endReadingClass();
     }
   }
 
-  private static void initWrappers(ClassNode node) {
+  private static void initWrappers(DecompilerContext context, ClassNode node) {
     if (node.type == ClassNode.CLASS_LAMBDA) {
       return;
     }
 
     ClassWrapper wrapper = new ClassWrapper(node.classStruct);
-    wrapper.init();
+    wrapper.init(context);
 
     node.wrapper = wrapper;
 
     for (ClassNode nd : node.nested) {
-      initWrappers(nd);
+      initWrappers(context, nd);
     }
   }
 
@@ -415,7 +419,7 @@ public class ClassesProcessor implements CodeConstants {
     }
   }
 
-  private static void destroyWrappers(ClassNode node) {
+  static void destroyWrappers(ClassNode node) {
     node.wrapper = null;
     node.classStruct.releaseResources();
 
@@ -509,7 +513,15 @@ public class ClassesProcessor implements CodeConstants {
       while (node.type == CLASS_LAMBDA) {
         node = node.parent;
       }
-      return node.wrapper;
+      if (node.wrapper == null) {
+        return null;
+      }
+      // wrappers of classes being decompiled on other threads are not visible, same as in a sequential run
+      ClassNode root = node;
+      while (root.parent != null) {
+        root = root.parent;
+      }
+      return root == DecompilerContext.getRootClass() ? node.wrapper : null;
     }
 
     public boolean isNonSealed() {
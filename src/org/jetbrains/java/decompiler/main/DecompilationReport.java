@@ -0,0 +1,202 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.main;
+
+import org.jetbrains.java.decompiler.main.collectors.PassStatistics;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Processing costs of every class and method of a run, written as JSON once the run is complete. Methods are reported
+ * with their pass timings and allocations, the size of their bytecode and control flow graph, the number of rounds
+ * of the finally processing, their status and the number of characters written for them.
+ */
+public class DecompilationReport {
+  public enum Status {OK, ERROR, TIMEOUT}
+
+  private final File file;
+  private final Map<String, ClassEntry> classes = new TreeMap<>();
+
+  private static class ClassEntry {
+    private final Map<String, MethodEntry> methods = new LinkedHashMap<>();
+    private PassStatistics statistics;
+    private Status status = Status.OK;
+    private int outputChars = -1;
+    private int fileChars = -1;
+    private boolean cached;
+  }
+
+  private static class MethodEntry {
+    private final String name;
+    private final String descriptor;
+    private final PassStatistics statistics;
+    private final Status status;
+    private int outputChars = -1;
+
+    private MethodEntry(String name, String descriptor, PassStatistics statistics, Status status) {
+      this.name = name;
+      this.descriptor = descriptor;
+      this.statistics = statistics;
+      this.status = status;
+    }
+  }
+
+  public DecompilationReport(File file) {
+    this.file = file;
+  }
+
+  public synchronized void addMethod(String className, String name, String descriptor, PassStatistics statistics, Status status) {
+    getClass(className).methods.put(name + ' ' + descriptor, new MethodEntry(name, descriptor, statistics, status));
+  }
+
+  /**
+   * Sets the sums over the methods of a class, once all of them have been processed.
+   */
+  public synchronized void addClass(String className, PassStatistics statistics) {
+    getClass(className).statistics = statistics;
+  }
+
+  public synchronized void setClassFailed(String className) {
+    getClass(className).status = Status.ERROR;
+  }
+
+  /**
+   * Sets the number of characters written for a method, including its lambdas and anonymous classes.
+   */
+  public synchronized void setMethodOutput(String className, String name, String descriptor, int chars) {
+    ClassEntry entry = classes.get(className);
+    MethodEntry method = entry != null ? entry.methods.get(name + ' ' + descriptor) : null;
+    if (method != null) {
+      method.outputChars = chars;
+    }
+  }
+
+  /**
+   * Sets the number of characters written for a class definition, including its nested classes.
+   */
+  public synchronized void setClassOutput(String className, int chars) {
+    getClass(className).outputChars = chars;
+  }
+
+  /**
+   * Sets the number of characters of the file of a root class, and whether it was taken from the content cache.
+   */
+  public synchronized void setFileOutput(String className, int chars, boolean cached) {
+    ClassEntry entry = getClass(className);
+    entry.fileChars = chars;
+    entry.cached = cached;
+  }
+
+  private ClassEntry getClass(String className) {
+    return classes.computeIfAbsent(className, k -> new ClassEntry());
+  }
+
+  public synchronized void write(PassStatistics runStatistics) throws IOException {
+    File parent = file.getAbsoluteFile().getParentFile();
+    if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+      throw new IOException("Cannot create directory " + parent);
+    }
+
+    try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+      StringBuilder builder = new StringBuilder();
+      builder.append("{\n");
+      if (runStatistics != null) {
+        appendCosts(builder, runStatistics, "  ");
+      }
+      builder.append("  \"classes\": [");
+      boolean first = true;
+      for (Map.Entry<String, ClassEntry> entry : classes.entrySet()) {
+        builder.append(first ? "\n" : ",\n");
+        first = false;
+        appendClass(builder, entry.getKey(), entry.getValue());
+        writer.write(builder.toString());
+        builder.setLength(0);
+      }
+      builder.append(first ? "]\n}\n" : "\n  ]\n}\n");
+      writer.write(builder.toString());
+    }
+  }
+
+  private static void appendClass(StringBuilder builder, String name, ClassEntry entry) {
+    builder.append("    {\n");
+    builder.append("      \"name\": ").append(quote(name)).append(",\n");
+    builder.append("      \"status\": ").append(quote(entry.status)).append(",\n");
+    if (entry.cached) {
+      builder.append("      \"cached\": true,\n");
+    }
+    if (entry.fileChars >= 0) {
+      builder.append("      \"fileChars\": ").append(entry.fileChars).append(",\n");
+    }
+    if (entry.outputChars >= 0) {
+      builder.append("      \"outputChars\": ").append(entry.outputChars).append(",\n");
+    }
+    if (entry.statistics != null) {
+      appendCosts(builder, entry.statistics, "      ");
+    }
+    builder.append("      \"methods\": [");
+    boolean first = true;
+    for (MethodEntry method : entry.methods.values()) {
+      builder.append(first ? "\n" : ",\n");
+      first = false;
+      appendMethod(builder, method);
+    }
+    builder.append(first ? "]\n" : "\n      ]\n");
+    builder.append("    }");
+  }
+
+  private static void appendMethod(StringBuilder builder, MethodEntry method) {
+    String indent = "          ";
+    builder.append("        {\n");
+    builder.append(indent).append("\"name\": ").append(quote(method.name)).append(",\n");
+    builder.append(indent).append("\"descriptor\": ").append(quote(method.descriptor)).append(",\n");
+    builder.append(indent).append("\"status\": ").append(quote(method.status)).append(",\n");
+    if (method.outputChars >= 0) {
+      builder.append(indent).append("\"outputChars\": ").append(method.outputChars).append(",\n");
+    }
+    builder.append(indent).append("\"finallyRounds\": ").append(method.statistics.getCount("finally")).append(",\n");
+    appendCosts(builder, method.statistics, indent);
+    builder.setLength(builder.length() - 2);  // remove the comma after the passes
+    builder.append("\n        }");
+  }
+
+  // time, allocations, code size and passes, each line followed by a comma
+  private static void appendCosts(StringBuilder builder, PassStatistics statistics, String indent) {
+    builder.append(indent).append("\"timeNanos\": ").append(statistics.getTimeNanos()).append(",\n");
+    builder.append(indent).append("\"allocatedBytes\": ").append(statistics.getAllocatedBytes()).append(",\n");
+    builder.append(indent).append("\"instructions\": ").append(statistics.getInstructionCount()).append(",\n");
+    builder.append(indent).append("\"blocks\": ").append(statistics.getBlockCount()).append(",\n");
+    builder.append(indent).append("\"passes\": [");
+    boolean first = true;
+    for (PassStatistics.Pass pass : statistics.getPasses()) {
+      builder.append(first ? "" : ", ");
+      first = false;
+      builder.append("{\"name\": ").append(quote(pass.getName()))
+        .append(", \"count\": ").append(pass.getCount())
+        .append(", \"timeNanos\": ").append(pass.getTimeNanos())
+        .append(", \"allocatedBytes\": ").append(pass.getAllocatedBytes()).append('}');
+    }
+    builder.append("],\n");
+  }
+
+  private static String quote(Status status) {
+    return quote(status.name().toLowerCase(Locale.ROOT));
+  }
+
+  private static String quote(String value) {
+    StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        builder.append('\\').append(c);
+      }
+      else if (c < 0x20) {
+        builder.append(String.format("\\u%04x", (int)c));
+      }
+      else {
+        builder.append(c);
+      }
+    }
+    return builder.append('"').toString();
+  }
+}
@@ -1,15 +1,19 @@
 // Copyright 2000-2018 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package org.jetbrains.java.decompiler.main;
 
+import org.jetbrains.java.decompiler.main.ClassesProcessor.ClassNode;
 import org.jetbrains.java.decompiler.main.collectors.BytecodeSourceMapper;
 import org.jetbrains.java.decompiler.main.collectors.CounterContainer;
 import org.jetbrains.java.decompiler.main.collectors.ImportCollector;
+import org.jetbrains.java.decompiler.main.collectors.PassStatistics;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
+import org.jetbrains.java.decompiler.main.rels.MethodWrapper;
 import org.jetbrains.java.decompiler.modules.decompiler.vars.VarProcessor;
 import org.jetbrains.java.decompiler.modules.renamer.PoolInterceptor;
 import org.jetbrains.java.decompiler.struct.StructContext;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 
@@ -24,10 +28,17 @@ public class DecompilerContext {
   private final StructContext structContext;
   private final ClassesProcessor classProcessor;
   private final PoolInterceptor poolInterceptor;
+  private ClassNode rootClass;
   private ImportCollector importCollector;
   private VarProcessor varProcessor;
   private CounterContainer counterContainer;
   private BytecodeSourceMapper bytecodeSourceMapper;
+  private CancellationToken cancellationToken = CancellationToken.NONE;
+  private volatile String pass;
+  private PassStatistics passStatistics;
+  private PassStatistics runStatistics;
+  private DecompilationReport report;
+  private DecompilerOptions options;
 
   public DecompilerContext(Map<String, Object> properties,
                            IFernflowerLogger logger,
@@ -45,6 +56,7 @@ public class DecompilerContext {
     this.classProcessor = classProcessor;
     this.poolInterceptor = interceptor;
     this.counterContainer = new CounterContainer();
+    this.runStatistics = logger.acceptsStatistics() ? new PassStatistics() : null;
   }
 
   // *****************************************************************************
@@ -61,21 +73,62 @@ public class DecompilerContext {
     currentContext.set(context);
   }
 
-  public static void setProperty(String key, Object value) {
-    getCurrentContext().properties.put(key, value);
+  /**
+   * Creates a context for decompiling a class on another thread. Shared structures are reused,
+   * while properties and per-class state are private to the copy.
+   */
+  public DecompilerContext copy() {
+    DecompilerContext context = new DecompilerContext(new HashMap<>(properties), logger, structContext, classProcessor, poolInterceptor);
+    context.runStatistics = runStatistics;
+    context.report = report;
+    context.options = options;
+    return context;
   }
 
-  public static void startClass(ImportCollector importCollector) {
+  /**
+   * Creates a context for processing the current method on another thread, with the given variable processor.
+   * Shared structures are reused, while properties, counters and pass statistics are private to the copy, and the
+   * output state of the class is not available to it. A job abandoned after its time limit thus never touches this
+   * context; the state of a finished job is taken over with {@link #adoptMethodState}.
+   */
+  public DecompilerContext copy(CancellationToken token, VarProcessor varProcessor) {
+    DecompilerContext context = new DecompilerContext(new HashMap<>(properties), logger, structContext, classProcessor, poolInterceptor);
+    context.rootClass = rootClass;
+    context.varProcessor = varProcessor;
+    context.cancellationToken = token;
+    context.passStatistics = passStatistics != null ? new PassStatistics() : null;
+    context.runStatistics = null;
+    context.options = options;
+    return context;
+  }
+
+  /**
+   * Takes over the variable processor, counters and pass statistics of a method job once it has finished, also when it
+   * failed or stopped at a cancellation check.
+   */
+  public void adoptMethodState(DecompilerContext job) {
+    varProcessor = job.varProcessor;
+    counterContainer = job.counterContainer;
+    passStatistics = job.passStatistics;
+  }
+
+  public static void setProperty(String key, Object value) {
     DecompilerContext context = getCurrentContext();
-    context.importCollector = importCollector;
-    context.counterContainer = new CounterContainer();
-    context.bytecodeSourceMapper = new BytecodeSourceMapper();
+    context.properties.put(key, value);
+    if (DecompilerOptions.KEYS.contains(key)) {
+      context.options = null;
+    }
   }
 
-  public static void startMethod(VarProcessor varProcessor) {
+  /**
+   * Sets the report of the run, statistics are collected from then on even if the logger does not accept them.
+   */
+  public static void setReport(DecompilationReport report) {
     DecompilerContext context = getCurrentContext();
-    context.varProcessor = varProcessor;
-    context.counterContainer = new CounterContainer();
+    context.report = report;
+    if (context.runStatistics == null) {
+      context.runStatistics = new PassStatistics();
+    }
   }
 
   // *****************************************************************************
@@ -86,13 +139,20 @@ public class DecompilerContext {
     return getCurrentContext().properties.get(key);
   }
 
+  /**
+   * Looks the option up in the properties. Options read while processing classes are also available, already parsed,
+   * from {@link #getOptions()}.
+   */
   public static boolean getOption(String key) {
     return "1".equals(getProperty(key));
   }
 
+  public static DecompilerOptions getOptions() {
+    return getCurrentContext().options();
+  }
+
   public static String getNewLineSeparator() {
-    return getOption(IFernflowerPreferences.NEW_LINE_SEPARATOR) ?
-           IFernflowerPreferences.LINE_SEPARATOR_UNX : IFernflowerPreferences.LINE_SEPARATOR_WIN;
+    return getOptions().newLineSeparator;
   }
 
   public static IFernflowerLogger getLogger() {
@@ -111,6 +171,10 @@ public class DecompilerContext {
     return getCurrentContext().poolInterceptor;
   }
 
+  public static ClassNode getRootClass() {
+    return getCurrentContext().rootClass;
+  }
+
   public static ImportCollector getImportCollector() {
     return getCurrentContext().importCollector;
   }
@@ -126,4 +190,148 @@ public class DecompilerContext {
   public static BytecodeSourceMapper getBytecodeSourceMapper() {
     return getCurrentContext().bytecodeSourceMapper;
   }
-}
\ No newline at end of file
+
+  public static CancellationToken getCancellationToken() {
+    return getCurrentContext().cancellationToken;
+  }
+
+  /**
+   * @return statistics of the passes of the current method, null unless the logger accepts statistics or a report is written
+   */
+  public static PassStatistics getPassStatistics() {
+    return getCurrentContext().passStatistics;
+  }
+
+  /**
+   * @return statistics of all methods processed since the context was created, null unless the logger accepts statistics
+   * or a report is written
+   */
+  public static PassStatistics getRunStatistics() {
+    return getCurrentContext().runStatistics;
+  }
+
+  /**
+   * @return report of the run, null unless {@link IFernflowerPreferences#REPORT_FILE} is set
+   */
+  public static DecompilationReport getReport() {
+    return getCurrentContext().report;
+  }
+
+  // *****************************************************************************
+  // explicit context access
+  // *****************************************************************************
+
+  // The static methods above look the context of the current thread up on every call. Class and method processing
+  // takes the context as a parameter instead and uses these methods, which act on the given context. Code that is not
+  // given the context calls them on getCurrentContext().
+
+  public void startClass(ClassNode rootClass, ImportCollector importCollector) {
+    this.rootClass = rootClass;
+    this.importCollector = importCollector;
+    this.counterContainer = new CounterContainer();
+    this.bytecodeSourceMapper = new BytecodeSourceMapper();
+  }
+
+  public void startMethod(VarProcessor varProcessor) {
+    this.varProcessor = varProcessor;
+    this.counterContainer = new CounterContainer();
+    this.pass = null;
+    this.passStatistics = runStatistics != null ? new PassStatistics() : null;
+  }
+
+  /**
+   * Marks the start of a method processing pass, the name is reported when processing is cancelled.
+   */
+  public void startPass(String pass) {
+    this.pass = pass;
+    if (passStatistics != null) {
+      passStatistics.startPass(pass);
+    }
+    cancellationToken.checkCancelled(pass);
+  }
+
+  public void checkCancelled() {
+    cancellationToken.checkCancelled(pass);
+  }
+
+  /**
+   * @return name of the method processing pass started last, null before the first one
+   */
+  public String pass() {
+    return pass;
+  }
+
+  // the class and method being written are kept in the properties, where code below the writers looks them up
+
+  public ClassNode currentClassNode() {
+    return (ClassNode)properties.get(CURRENT_CLASS_NODE);
+  }
+
+  public void setCurrentClassNode(ClassNode node) {
+    properties.put(CURRENT_CLASS_NODE, node);
+  }
+
+  public MethodWrapper currentMethodWrapper() {
+    return (MethodWrapper)properties.get(CURRENT_METHOD_WRAPPER);
+  }
+
+  public void setCurrentMethodWrapper(MethodWrapper wrapper) {
+    properties.put(CURRENT_METHOD_WRAPPER, wrapper);
+  }
+
+  public DecompilerOptions options() {
+    DecompilerOptions result = options;
+    if (result == null) {
+      options = result = new DecompilerOptions(properties);
+    }
+    return result;
+  }
+
+  public IFernflowerLogger logger() {
+    return logger;
+  }
+
+  public StructContext structContext() {
+    return structContext;
+  }
+
+  public ClassesProcessor classProcessor() {
+    return classProcessor;
+  }
+
+  public PoolInterceptor poolInterceptor() {
+    return poolInterceptor;
+  }
+
+  public ClassNode rootClass() {
+    return rootClass;
+  }
+
+  public ImportCollector importCollector() {
+    return importCollector;
+  }
+
+  public VarProcessor varProcessor() {
+    return varProcessor;
+  }
+
+  public CounterContainer counterContainer() {
+    return counterContainer;
+  }
+
+  public BytecodeSourceMapper bytecodeSourceMapper() {
+    return bytecodeSourceMapper;
+  }
+
+  public PassStatistics passStatistics() {
+    return passStatistics;
+  }
+
+  public PassStatistics runStatistics() {
+    return runStatistics;
+  }
+
+  public DecompilationReport report() {
+    return report;
+  }
+}
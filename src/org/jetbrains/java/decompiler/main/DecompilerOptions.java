@@ -0,0 +1,103 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.main;
+
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Options which are read during class and method processing, parsed once from the properties of a context. The snapshot
+ * is immutable; {@link DecompilerContext#setProperty} drops it when one of its {@link #KEYS} is changed, and the next
+ * {@link DecompilerContext#getOptions()} parses the properties again.
+ */
+public class DecompilerOptions {
+  static final Set<String> KEYS = new HashSet<>(Arrays.asList(
+    IFernflowerPreferences.REMOVE_BRIDGE, IFernflowerPreferences.REMOVE_SYNTHETIC, IFernflowerPreferences.DECOMPILE_INNER,
+    IFernflowerPreferences.DECOMPILE_CLASS_1_4, IFernflowerPreferences.DECOMPILE_ASSERTIONS, IFernflowerPreferences.HIDE_EMPTY_SUPER,
+    IFernflowerPreferences.HIDE_DEFAULT_CONSTRUCTOR, IFernflowerPreferences.DECOMPILE_GENERIC_SIGNATURES,
+    IFernflowerPreferences.NO_EXCEPTIONS_RETURN, IFernflowerPreferences.ENSURE_SYNCHRONIZED_MONITOR, IFernflowerPreferences.DECOMPILE_ENUM,
+    IFernflowerPreferences.REMOVE_GET_CLASS_NEW, IFernflowerPreferences.LITERALS_AS_IS, IFernflowerPreferences.BOOLEAN_TRUE_ONE,
+    IFernflowerPreferences.ASCII_STRING_CHARACTERS, IFernflowerPreferences.SYNTHETIC_NOT_SET,
+    IFernflowerPreferences.UNDEFINED_PARAM_TYPE_OBJECT, IFernflowerPreferences.USE_DEBUG_VAR_NAMES,
+    IFernflowerPreferences.USE_METHOD_PARAMETERS, IFernflowerPreferences.REMOVE_EMPTY_RANGES, IFernflowerPreferences.FINALLY_DEINLINE,
+    IFernflowerPreferences.IDEA_NOT_NULL_ANNOTATION, IFernflowerPreferences.LAMBDA_TO_ANONYMOUS_CLASS,
+    IFernflowerPreferences.BYTECODE_SOURCE_MAPPING, IFernflowerPreferences.IGNORE_INVALID_BYTECODE,
+    IFernflowerPreferences.VERIFY_ANONYMOUS_CLASSES, IFernflowerPreferences.NEW_LINE_SEPARATOR, IFernflowerPreferences.INDENT_STRING,
+    IFernflowerPreferences.VIRTUAL_THREADS, IFernflowerPreferences.DUMP_ORIGINAL_LINES, IFernflowerPreferences.UNIT_TEST_MODE));
+
+  public final boolean removeBridge;
+  public final boolean removeSynthetic;
+  public final boolean decompileInner;
+  public final boolean decompileClass14;
+  public final boolean decompileAssertions;
+  public final boolean hideEmptySuper;
+  public final boolean hideDefaultConstructor;
+  public final boolean decompileGenericSignatures;
+  public final boolean noExceptionsReturn;
+  public final boolean ensureSynchronizedMonitor;
+  public final boolean decompileEnum;
+  public final boolean removeGetClassNew;
+  public final boolean literalsAsIs;
+  public final boolean booleanTrueOne;
+  public final boolean asciiStringCharacters;
+  public final boolean syntheticNotSet;
+  public final boolean undefinedParamTypeObject;
+  public final boolean useDebugVarNames;
+  public final boolean useMethodParameters;
+  public final boolean removeEmptyRanges;
+  public final boolean finallyDeinline;
+  public final boolean ideaNotNullAnnotation;
+  public final boolean lambdaToAnonymousClass;
+  public final boolean bytecodeSourceMapping;
+  public final boolean ignoreInvalidBytecode;
+  public final boolean verifyAnonymousClasses;
+  public final boolean virtualThreads;
+  public final boolean dumpOriginalLines;
+  public final boolean unitTestMode;
+
+  public final String newLineSeparator;
+  public final String indentString;
+
+  public DecompilerOptions(Map<String, Object> properties) {
+    removeBridge = isSet(properties, IFernflowerPreferences.REMOVE_BRIDGE);
+    removeSynthetic = isSet(properties, IFernflowerPreferences.REMOVE_SYNTHETIC);
+    decompileInner = isSet(properties, IFernflowerPreferences.DECOMPILE_INNER);
+    decompileClass14 = isSet(properties, IFernflowerPreferences.DECOMPILE_CLASS_1_4);
+    decompileAssertions = isSet(properties, IFernflowerPreferences.DECOMPILE_ASSERTIONS);
+    hideEmptySuper = isSet(properties, IFernflowerPreferences.HIDE_EMPTY_SUPER);
+    hideDefaultConstructor = isSet(properties, IFernflowerPreferences.HIDE_DEFAULT_CONSTRUCTOR);
+    decompileGenericSignatures = isSet(properties, IFernflowerPreferences.DECOMPILE_GENERIC_SIGNATURES);
+    noExceptionsReturn = isSet(properties, IFernflowerPreferences.NO_EXCEPTIONS_RETURN);
+    ensureSynchronizedMonitor = isSet(properties, IFernflowerPreferences.ENSURE_SYNCHRONIZED_MONITOR);
+    decompileEnum = isSet(properties, IFernflowerPreferences.DECOMPILE_ENUM);
+    removeGetClassNew = isSet(properties, IFernflowerPreferences.REMOVE_GET_CLASS_NEW);
+    literalsAsIs = isSet(properties, IFernflowerPreferences.LITERALS_AS_IS);
+    booleanTrueOne = isSet(properties, IFernflowerPreferences.BOOLEAN_TRUE_ONE);
+    asciiStringCharacters = isSet(properties, IFernflowerPreferences.ASCII_STRING_CHARACTERS);
+    syntheticNotSet = isSet(properties, IFernflowerPreferences.SYNTHETIC_NOT_SET);
+    undefinedParamTypeObject = isSet(properties, IFernflowerPreferences.UNDEFINED_PARAM_TYPE_OBJECT);
+    useDebugVarNames = isSet(properties, IFernflowerPreferences.USE_DEBUG_VAR_NAMES);
+    useMethodParameters = isSet(properties, IFernflowerPreferences.USE_METHOD_PARAMETERS);
+    removeEmptyRanges = isSet(properties, IFernflowerPreferences.REMOVE_EMPTY_RANGES);
+    finallyDeinline = isSet(properties, IFernflowerPreferences.FINALLY_DEINLINE);
+    ideaNotNullAnnotation = isSet(properties, IFernflowerPreferences.IDEA_NOT_NULL_ANNOTATION);
+    lambdaToAnonymousClass = isSet(properties, IFernflowerPreferences.LAMBDA_TO_ANONYMOUS_CLASS);
+    bytecodeSourceMapping = isSet(properties, IFernflowerPreferences.BYTECODE_SOURCE_MAPPING);
+    ignoreInvalidBytecode = isSet(properties, IFernflowerPreferences.IGNORE_INVALID_BYTECODE);
+    verifyAnonymousClasses = isSet(properties, IFernflowerPreferences.VERIFY_ANONYMOUS_CLASSES);
+    virtualThreads = isSet(properties, IFernflowerPreferences.VIRTUAL_THREADS);
+    dumpOriginalLines = isSet(properties, IFernflowerPreferences.DUMP_ORIGINAL_LINES);
+    unitTestMode = isSet(properties, IFernflowerPreferences.UNIT_TEST_MODE);
+
+    newLineSeparator = isSet(properties, IFernflowerPreferences.NEW_LINE_SEPARATOR) ?
+                       IFernflowerPreferences.LINE_SEPARATOR_UNX : IFernflowerPreferences.LINE_SEPARATOR_WIN;
+    indentString = (String)properties.get(IFernflowerPreferences.INDENT_STRING);
+  }
+
+  private static boolean isSet(Map<String, Object> properties, String key) {
+    return "1".equals(properties.get(key));
+  }
+}
@@ -2,17 +2,20 @@
 package org.jetbrains.java.decompiler.main;
 
 import org.jetbrains.java.decompiler.main.ClassesProcessor.ClassNode;
+import org.jetbrains.java.decompiler.main.collectors.PassStatistics;
 import org.jetbrains.java.decompiler.main.extern.*;
 import org.jetbrains.java.decompiler.modules.renamer.ConverterHelper;
 import org.jetbrains.java.decompiler.modules.renamer.IdentifierConverter;
 import org.jetbrains.java.decompiler.modules.renamer.PoolInterceptor;
 import org.jetbrains.java.decompiler.struct.IDecompiledData;
+import org.jetbrains.java.decompiler.struct.LibrarySnapshot;
 import org.jetbrains.java.decompiler.struct.StructClass;
 import org.jetbrains.java.decompiler.struct.StructContext;
 import org.jetbrains.java.decompiler.struct.lazy.LazyLoader;
 import org.jetbrains.java.decompiler.util.TextBuffer;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
@@ -22,8 +25,21 @@ public class Fernflower implements IDecompiledData {
   private final ClassesProcessor classProcessor;
   private final IIdentifierRenamer helper;
   private final IdentifierConverter converter;
+  private final Map<String, Object> properties;
+  private ClassContentCache contentCache;
 
   public Fernflower(IBytecodeProvider provider, IResultSaver saver, Map<String, Object> customProperties, IFernflowerLogger logger) {
+    this(provider, saver, customProperties, logger, null);
+  }
+
+  /**
+   * @param librarySnapshot library classes shared with other instances, looked up after the libraries added to this instance
+   */
+  public Fernflower(IBytecodeProvider provider,
+                    IResultSaver saver,
+                    Map<String, Object> customProperties,
+                    IFernflowerLogger logger,
+                    LibrarySnapshot librarySnapshot) {
     Map<String, Object> properties = new HashMap<>(IFernflowerPreferences.DEFAULTS);
     if (customProperties != null) {
       properties.putAll(customProperties);
@@ -37,7 +53,7 @@ public class Fernflower implements IDecompiledData {
       catch (IllegalArgumentException ignore) { }
     }
 
-    structContext = new StructContext(saver, this, new LazyLoader(provider));
+    structContext = new StructContext(saver, this, new LazyLoader(provider), librarySnapshot);
     classProcessor = new ClassesProcessor(structContext);
 
     PoolInterceptor interceptor = null;
@@ -51,6 +67,8 @@ public class Fernflower implements IDecompiledData {
       converter = null;
     }
 
+    this.properties = properties;
+
     DecompilerContext context = new DecompilerContext(properties, logger, structContext, classProcessor, interceptor);
     DecompilerContext.setCurrentContext(context);
   }
@@ -84,7 +102,32 @@ public class Fernflower implements IDecompiledData {
 
     classProcessor.loadClasses(helper);
 
+    Object cacheDirectory = properties.get(IFernflowerPreferences.CACHE_DIRECTORY);
+    if (cacheDirectory != null) {
+      contentCache = new ClassContentCache(new File(cacheDirectory.toString()), properties);
+    }
+
+    Object reportFile = properties.get(IFernflowerPreferences.REPORT_FILE);
+    if (reportFile != null) {
+      DecompilerContext.setReport(new DecompilationReport(new File(reportFile.toString())));
+    }
+
     structContext.saveContext();
+
+    PassStatistics statistics = DecompilerContext.getRunStatistics();
+    if (statistics != null && DecompilerContext.getLogger().acceptsStatistics()) {
+      DecompilerContext.getLogger().runStatistics(statistics);
+    }
+
+    DecompilationReport report = DecompilerContext.getReport();
+    if (report != null) {
+      try {
+        report.write(statistics);
+      }
+      catch (IOException e) {
+        DecompilerContext.getLogger().writeMessage("Cannot write report " + reportFile, IFernflowerLogger.Severity.WARN, e);
+      }
+    }
   }
 
   public void clearContext() {
@@ -108,14 +151,53 @@ public class Fernflower implements IDecompiledData {
 
   @Override
   public String getClassContent(StructClass cl) {
+    TextBuffer buffer = getClassBuffer(cl);
+    return buffer != null ? buffer.toString() : null;
+  }
+
+  @Override
+  public TextBuffer getClassBuffer(StructClass cl) {
     try {
+      ClassNode root = contentCache != null ? classProcessor.getMapRootClasses().get(cl.qualifiedName) : null;
+      String key = root != null && root.type == ClassNode.CLASS_ROOT ? contentCache.getKey(root) : null;
+      if (key != null) {
+        ClassContentCache.Entry entry = contentCache.get(key);
+        if (entry != null) {
+          DecompilerContext.getCurrentContext().startClass(root, null);
+          if (entry.mapping != null) {
+            DecompilerContext.getBytecodeSourceMapper().addOriginalLinesMapping(entry.mapping);
+          }
+          ClassesProcessor.destroyWrappers(root);
+          if (DecompilerContext.getReport() != null) {
+            DecompilerContext.getReport().setFileOutput(cl.qualifiedName, entry.content.length(), true);
+          }
+          return new TextBuffer(entry.content);
+        }
+      }
+
       TextBuffer buffer = new TextBuffer(ClassesProcessor.AVERAGE_CLASS_SIZE);
       buffer.append(DecompilerContext.getProperty(IFernflowerPreferences.BANNER).toString());
       classProcessor.writeClass(cl, buffer);
-      return buffer.toString();
+
+      if (key != null) {
+        int[] mapping = null;
+        if (DecompilerContext.getOptions().bytecodeSourceMapping) {
+          mapping = DecompilerContext.getBytecodeSourceMapper().getOriginalLinesMapping();
+        }
+        contentCache.put(key, buffer.toString(), mapping);
+      }
+
+      if (DecompilerContext.getReport() != null) {
+        DecompilerContext.getReport().setFileOutput(cl.qualifiedName, buffer.length(), false);
+      }
+
+      return buffer;
     }
     catch (Throwable t) {
       DecompilerContext.getLogger().writeMessage("Class " + cl.qualifiedName + " couldn't be fully decompiled.", t);
+      if (DecompilerContext.getReport() != null) {
+        DecompilerContext.getReport().setClassFailed(cl.qualifiedName);
+      }
       return null;
     }
   }
@@ -3,7 +3,6 @@ package org.jetbrains.java.decompiler.main;
 
 import org.jetbrains.java.decompiler.code.CodeConstants;
 import org.jetbrains.java.decompiler.main.ClassesProcessor.ClassNode;
-import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.main.rels.ClassWrapper;
 import org.jetbrains.java.decompiler.main.rels.MethodWrapper;
 import org.jetbrains.java.decompiler.modules.decompiler.exps.*;
@@ -31,7 +30,7 @@ public final class InitializerProcessor {
     // This can happen if InnerClasses attributes are erased
     liftConstructor(wrapper);
 
-    if (DecompilerContext.getOption(IFernflowerPreferences.HIDE_EMPTY_SUPER)) {
+    if (DecompilerContext.getOptions().hideEmptySuper) {
       hideEmptySuper(wrapper);
     }
   }
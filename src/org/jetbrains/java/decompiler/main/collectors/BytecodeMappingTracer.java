@@ -7,7 +7,14 @@ import java.util.*;
 import java.util.Map.Entry;
 
 public class BytecodeMappingTracer {
-  public static final BytecodeMappingTracer DUMMY = new BytecodeMappingTracer();
+  // shared by all threads, so it must not collect anything
+  public static final BytecodeMappingTracer DUMMY = new BytecodeMappingTracer() {
+    @Override
+    public void addMapping(int bytecode_offset) { }
+
+    @Override
+    public void addTracer(BytecodeMappingTracer tracer) { }
+  };
 
   private int currentSourceLine;
   private StructLineNumberTableAttribute lineNumberTable = null;
@@ -88,6 +88,15 @@ public class BytecodeSourceMapper {
     }
   }
 
+  /**
+   * Restores the mapping previously returned by {@link #getOriginalLinesMapping()}.
+   */
+  public void addOriginalLinesMapping(int[] mapping) {
+    for (int i = 0; i < mapping.length; i += 2) {
+      linesMapping.put(mapping[i], mapping[i + 1] - offset_total - 1);
+    }
+  }
+
   public void addTotalOffset(int offset_total) {
     this.offset_total += offset_total;
   }
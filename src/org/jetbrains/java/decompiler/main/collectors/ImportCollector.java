@@ -37,7 +37,7 @@ public class ImportCollector {
       currentPackagePoint = "";
     }
 
-    Map<String, StructClass> classes = DecompilerContext.getStructContext().getClasses();
+    StructContext context = DecompilerContext.getStructContext();
     LinkedList<String> queue = new LinkedList<>();
     Set<StructClass> processedClasses = new HashSet<>();
     StructClass currentClass = root.classStruct;
@@ -66,7 +66,7 @@ public class ImportCollector {
 
       // .. and traverse through parent.
       do {
-        currentClass = queue.isEmpty() ? null : classes.get(queue.removeFirst());
+        currentClass = queue.isEmpty() ? null : context.getClass(queue.removeFirst());
 
         if (currentClass != null && processedClasses.contains(currentClass)) {
           // Class already processed, skipping.
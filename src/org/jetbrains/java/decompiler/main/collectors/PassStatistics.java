@@ -0,0 +1,187 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.main.collectors;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wall time, allocated bytes and number of runs of the passes which process a method, as marked by
+ * {@link org.jetbrains.java.decompiler.main.DecompilerContext#startPass}, and the size of the method code.
+ * Statistics of single methods are summed up per class and per run with {@link #add}.
+ */
+public class PassStatistics {
+  private static final com.sun.management.ThreadMXBean THREAD_BEAN = getThreadBean();
+
+  private final Map<String, Pass> passes = new LinkedHashMap<>();
+  private Pass current;
+  private long currentThread;
+  private long currentStartTime;
+  private long currentStartBytes;
+  private long instructionCount;
+  private long blockCount;
+
+  public static class Pass {
+    private final String name;
+    private int count;
+    private long timeNanos;
+    private long allocatedBytes;
+
+    private Pass(String name) {
+      this.name = name;
+    }
+
+    private Pass(Pass pass) {
+      this(pass.name);
+      add(pass);
+    }
+
+    private void add(Pass pass) {
+      count += pass.count;
+      timeNanos += pass.timeNanos;
+      allocatedBytes += pass.allocatedBytes;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return number of times the pass was started, e.g. rounds of the finally processing
+     */
+    public int getCount() {
+      return count;
+    }
+
+    public long getTimeNanos() {
+      return timeNanos;
+    }
+
+    /**
+     * @return bytes allocated by the processing thread, or 0 when the JVM cannot measure them
+     */
+    public long getAllocatedBytes() {
+      return allocatedBytes;
+    }
+  }
+
+  private static com.sun.management.ThreadMXBean getThreadBean() {
+    try {
+      ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      if (bean instanceof com.sun.management.ThreadMXBean) {
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean)bean;
+        if (threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled()) {
+          return threadBean;
+        }
+      }
+    }
+    catch (LinkageError ignore) { }  // jdk.management is not available
+    return null;
+  }
+
+  private static long getAllocatedBytes(long threadId) {
+    return THREAD_BEAN != null ? Math.max(THREAD_BEAN.getThreadAllocatedBytes(threadId), 0) : 0;
+  }
+
+  /**
+   * Ends the current pass and starts the given one on the calling thread.
+   */
+  public synchronized void startPass(String name) {
+    endPass();
+
+    current = passes.computeIfAbsent(name, Pass::new);
+    current.count++;
+    currentThread = Thread.currentThread().getId();
+    currentStartBytes = getAllocatedBytes(currentThread);
+    currentStartTime = System.nanoTime();
+  }
+
+  public synchronized void setCodeSize(int instructionCount, int blockCount) {
+    this.instructionCount = instructionCount;
+    this.blockCount = blockCount;
+  }
+
+  public synchronized void endPass() {
+    if (current != null) {
+      current.timeNanos += System.nanoTime() - currentStartTime;
+      current.allocatedBytes += Math.max(getAllocatedBytes(currentThread) - currentStartBytes, 0);
+      current = null;
+    }
+  }
+
+  /**
+   * Adds the completed passes of the given statistics to these.
+   */
+  public void add(PassStatistics statistics) {
+    List<Pass> other = statistics.getPasses();
+    long otherInstructions, otherBlocks;
+    synchronized (statistics) {
+      otherInstructions = statistics.instructionCount;
+      otherBlocks = statistics.blockCount;
+    }
+
+    synchronized (this) {
+      for (Pass pass : other) {
+        passes.computeIfAbsent(pass.name, Pass::new).add(pass);
+      }
+      instructionCount += otherInstructions;
+      blockCount += otherBlocks;
+    }
+  }
+
+  /**
+   * @return copies of the completed passes, in the order they were first started
+   */
+  public synchronized List<Pass> getPasses() {
+    List<Pass> result = new ArrayList<>(passes.size());
+    for (Pass pass : passes.values()) {
+      result.add(new Pass(pass));
+    }
+    return result;
+  }
+
+  /**
+   * @return number of times the given pass was started
+   */
+  public synchronized int getCount(String pass) {
+    Pass result = passes.get(pass);
+    return result != null ? result.count : 0;
+  }
+
+  public synchronized long getTimeNanos() {
+    long time = 0;
+    for (Pass pass : passes.values()) {
+      time += pass.timeNanos;
+    }
+    return time;
+  }
+
+  public synchronized long getAllocatedBytes() {
+    long bytes = 0;
+    for (Pass pass : passes.values()) {
+      bytes += pass.allocatedBytes;
+    }
+    return bytes;
+  }
+
+  /**
+   * @return number of bytecode instructions
+   */
+  public synchronized long getInstructionCount() {
+    return instructionCount;
+  }
+
+  /**
+   * @return number of blocks of the control flow graph, as built from the bytecode
+   */
+  public synchronized long getBlockCount() {
+    return blockCount;
+  }
+
+  public synchronized boolean isEmpty() {
+    return passes.isEmpty();
+  }
+}
@@ -5,6 +5,7 @@ import org.jetbrains.java.decompiler.main.Fernflower;
 import org.jetbrains.java.decompiler.main.extern.IBytecodeProvider;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
 import org.jetbrains.java.decompiler.main.extern.IResultSaver;
+import org.jetbrains.java.decompiler.struct.LibrarySnapshot;
 
 import java.io.File;
 import java.util.Map;
@@ -17,6 +18,14 @@ public class BaseDecompiler {
     engine = new Fernflower(provider, saver, options, logger);
   }
 
+  public BaseDecompiler(IBytecodeProvider provider,
+                        IResultSaver saver,
+                        Map<String, Object> options,
+                        IFernflowerLogger logger,
+                        LibrarySnapshot librarySnapshot) {
+    engine = new Fernflower(provider, saver, options, logger, librarySnapshot);
+  }
+
   public void addSource(File source) {
     engine.addSource(source);
   }
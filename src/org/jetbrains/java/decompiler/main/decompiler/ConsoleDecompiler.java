@@ -5,6 +5,7 @@ import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.main.Fernflower;
 import org.jetbrains.java.decompiler.main.extern.IBytecodeProvider;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.main.extern.IResultSaver;
 import org.jetbrains.java.decompiler.util.InterpreterUtil;
 
@@ -97,10 +98,43 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
   // Implementation
   // *******************************************************************
 
+  private static final int MAX_OPEN_ARCHIVES = 16;
+
   private final File root;
   private final Fernflower engine;
   private final Map<String, ZipOutputStream> mapArchiveStreams = new HashMap<>();
+  private final Map<String, ZipArchiveWriter> mapArchiveWriters = new HashMap<>();
   private final Map<String, Set<String>> mapArchiveEntries = new HashMap<>();
+  // source archives kept open between reads, in access order; only lookups, reference counts and eviction go under
+  // the map lock, entries are read outside of it and an evicted archive is closed once its last reader is done
+  private final Map<String, OpenArchive> mapOpenArchives = new LinkedHashMap<String, OpenArchive>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, OpenArchive> eldest) {
+      if (size() > MAX_OPEN_ARCHIVES) {
+        eldest.getValue().evict();
+        return true;
+      }
+      return false;
+    }
+  };
+  private int archiveOpenCount;
+
+  private static final class OpenArchive {
+    private final ZipFile file;
+    private int readers;
+    private boolean evicted;
+
+    private OpenArchive(ZipFile file) {
+      this.file = file;
+    }
+
+    private void evict() {
+      evicted = true;
+      if (readers == 0) {
+        closeSourceArchive(file);
+      }
+    }
+  }
 
   protected ConsoleDecompiler(File destination, Map<String, Object> options, IFernflowerLogger logger) {
     root = destination;
@@ -120,10 +154,76 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
       engine.decompileContext();
     }
     finally {
+      closeSourceArchives();
       engine.clearContext();
     }
   }
 
+  /**
+   * @return number of times a source archive was opened by this decompiler
+   */
+  public int getArchiveOpenCount() {
+    synchronized (mapOpenArchives) {
+      return archiveOpenCount;
+    }
+  }
+
+  /**
+   * Returns an open source archive, which must be passed to {@link #releaseSourceArchive} once reading is done.
+   */
+  private OpenArchive acquireSourceArchive(String path) throws IOException {
+    synchronized (mapOpenArchives) {
+      OpenArchive archive = mapOpenArchives.get(path);
+      if (archive != null) {
+        archive.readers++;
+        return archive;
+      }
+    }
+
+    // opened outside of the lock; when another thread has opened the archive meanwhile, this copy is dropped
+    ZipFile file = new ZipFile(new File(path));
+    synchronized (mapOpenArchives) {
+      archiveOpenCount++;
+      OpenArchive archive = mapOpenArchives.get(path);
+      if (archive == null) {
+        archive = new OpenArchive(file);
+        mapOpenArchives.put(path, archive);
+      }
+      else {
+        closeSourceArchive(file);
+      }
+      archive.readers++;
+      return archive;
+    }
+  }
+
+  private void releaseSourceArchive(OpenArchive archive) {
+    synchronized (mapOpenArchives) {
+      archive.readers--;
+      if (archive.evicted && archive.readers == 0) {
+        closeSourceArchive(archive.file);
+      }
+    }
+  }
+
+  private void closeSourceArchives() {
+    synchronized (mapOpenArchives) {
+      for (OpenArchive archive : mapOpenArchives.values()) {
+        archive.evict();
+      }
+      mapOpenArchives.clear();
+    }
+  }
+
+  private static void closeSourceArchive(ZipFile archive) {
+    try {
+      archive.close();
+    }
+    catch (IOException ex) {
+      DecompilerContext.getLogger().writeMessage("Cannot close " + archive.getName(), IFernflowerLogger.Severity.WARN);
+    }
+  }
+
   // *******************************************************************
   // Interface IBytecodeProvider
   // *******************************************************************
@@ -135,10 +235,14 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
       return InterpreterUtil.getBytes(file);
     }
     else {
-      try (ZipFile archive = new ZipFile(file)) {
-        ZipEntry entry = archive.getEntry(internalPath);
+      OpenArchive archive = acquireSourceArchive(externalPath);
+      try {
+        ZipEntry entry = archive.file.getEntry(internalPath);
         if (entry == null) throw new IOException("Entry not found: " + internalPath);
-        return InterpreterUtil.getBytes(archive, entry);
+        return InterpreterUtil.getBytes(archive.file, entry);
+      }
+      finally {
+        releaseSourceArchive(archive);
       }
     }
   }
@@ -171,9 +275,14 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
 
   @Override
   public void saveClassFile(String path, String qualifiedName, String entryName, String content, int[] mapping) {
+    writeClassFile(path, qualifiedName, entryName, writer -> writer.write(content), mapping);
+  }
+
+  @Override
+  public void writeClassFile(String path, String qualifiedName, String entryName, ContentWriter content, int[] mapping) {
     File file = new File(getAbsolutePath(path), entryName);
     try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
-      out.write(content);
+      content.writeTo(out);
     }
     catch (IOException ex) {
       DecompilerContext.getLogger().writeMessage("Cannot write class file " + file, ex);
@@ -189,8 +298,16 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
       }
 
       FileOutputStream fileStream = new FileOutputStream(file);
-      ZipOutputStream zipStream = manifest != null ? new JarOutputStream(fileStream, manifest) : new ZipOutputStream(fileStream);
-      mapArchiveStreams.put(file.getPath(), zipStream);
+      String compression = (String)DecompilerContext.getProperty(IFernflowerPreferences.ARCHIVE_COMPRESSION);
+      if ("parallel".equalsIgnoreCase(compression) || "store".equalsIgnoreCase(compression)) {
+        boolean compress = "parallel".equalsIgnoreCase(compression);
+        int threads = Runtime.getRuntime().availableProcessors();
+        mapArchiveWriters.put(file.getPath(), new ZipArchiveWriter(fileStream, manifest, compress, threads));
+      }
+      else {
+        ZipOutputStream zipStream = manifest != null ? new JarOutputStream(fileStream, manifest) : new ZipOutputStream(fileStream);
+        mapArchiveStreams.put(file.getPath(), zipStream);
+      }
     }
     catch (IOException ex) {
       DecompilerContext.getLogger().writeMessage("Cannot create archive " + file, ex);
@@ -199,7 +316,7 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
 
   @Override
   public void saveDirEntry(String path, String archiveName, String entryName) {
-    saveClassEntry(path, archiveName, null, entryName, null);
+    writeClassEntry(path, archiveName, null, entryName, null);
   }
 
   @Override
@@ -210,15 +327,29 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
       return;
     }
 
-    try (ZipFile srcArchive = new ZipFile(new File(source))) {
-      ZipEntry entry = srcArchive.getEntry(entryName);
-      if (entry != null) {
-        try (InputStream in = srcArchive.getInputStream(entry)) {
-          ZipOutputStream out = mapArchiveStreams.get(file);
-          out.putNextEntry(new ZipEntry(entryName));
-          InterpreterUtil.copyStream(in, out);
+    try {
+      OpenArchive srcArchive = acquireSourceArchive(source);
+      try {
+        ZipEntry entry = srcArchive.file.getEntry(entryName);
+        ZipArchiveWriter writer = mapArchiveWriters.get(file);
+        if (entry != null && writer != null) {
+          byte[] bytes = InterpreterUtil.getBytes(srcArchive.file, entry);
+          writer.addEntry(entryName, () -> bytes);
+        }
+        else if (entry != null) {
+          try (InputStream in = srcArchive.file.getInputStream(entry)) {
+            ZipOutputStream out = mapArchiveStreams.get(file);
+            out.putNextEntry(new ZipEntry(entryName));
+            InterpreterUtil.copyStream(in, out);
+          }
         }
       }
+      finally {
+        releaseSourceArchive(srcArchive);
+      }
+    }
+    catch (ZipArchiveWriter.EntryException ex) {
+      logEntryFailure(ex, file);
     }
     catch (IOException ex) {
       String message = "Cannot copy entry " + entryName + " from " + source + " to " + file;
@@ -228,6 +359,11 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
 
   @Override
   public void saveClassEntry(String path, String archiveName, String qualifiedName, String entryName, String content) {
+    writeClassEntry(path, archiveName, qualifiedName, entryName, content != null ? writer -> writer.write(content) : null);
+  }
+
+  @Override
+  public void writeClassEntry(String path, String archiveName, String qualifiedName, String entryName, ContentWriter content) {
     String file = new File(getAbsolutePath(path), archiveName).getPath();
 
     if (!checkEntry(entryName, file)) {
@@ -235,18 +371,49 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
     }
 
     try {
+      ZipArchiveWriter archiveWriter = mapArchiveWriters.get(file);
+      if (archiveWriter != null) {
+        // encoded on a compression thread
+        archiveWriter.addEntry(entryName, content != null ? () -> getBytes(content) : null);
+        return;
+      }
+
       ZipOutputStream out = mapArchiveStreams.get(file);
       out.putNextEntry(new ZipEntry(entryName));
       if (content != null) {
-        out.write(content.getBytes(StandardCharsets.UTF_8));
+        // not closed, that would close the archive
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        content.writeTo(writer);
+        writer.flush();
       }
     }
+    catch (ZipArchiveWriter.EntryException ex) {
+      logEntryFailure(ex, file);
+    }
     catch (IOException ex) {
       String message = "Cannot write entry " + entryName + " to " + file;
       DecompilerContext.getLogger().writeMessage(message, ex);
     }
   }
 
+  // the failed entry may have been added before the one being written, it is named by the exception
+  private static void logEntryFailure(ZipArchiveWriter.EntryException ex, String file) {
+    DecompilerContext.getLogger().writeMessage("Cannot write entry " + ex.getEntryName() + " to " + file, ex.getCause());
+    for (Throwable suppressed : ex.getSuppressed()) {
+      if (suppressed instanceof ZipArchiveWriter.EntryException) {
+        logEntryFailure((ZipArchiveWriter.EntryException)suppressed, file);
+      }
+    }
+  }
+
+  private static byte[] getBytes(ContentWriter content) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (Writer writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8)) {
+      content.writeTo(writer);
+    }
+    return bytes.toByteArray();
+  }
+
   private boolean checkEntry(String entryName, String file) {
     Set<String> set = mapArchiveEntries.computeIfAbsent(file, k -> new HashSet<>());
 
@@ -263,7 +430,11 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
     String file = new File(getAbsolutePath(path), archiveName).getPath();
     try {
       mapArchiveEntries.remove(file);
-      mapArchiveStreams.remove(file).close();
+      Closeable out = mapArchiveWriters.containsKey(file) ? mapArchiveWriters.remove(file) : mapArchiveStreams.remove(file);
+      out.close();
+    }
+    catch (ZipArchiveWriter.EntryException ex) {
+      logEntryFailure(ex, file);
     }
     catch (IOException ex) {
       DecompilerContext.getLogger().writeMessage("Cannot close " + file, IFernflowerLogger.Severity.WARN);
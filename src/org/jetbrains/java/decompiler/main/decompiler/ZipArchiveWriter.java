@@ -0,0 +1,309 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.main.decompiler;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+/**
+ * Writes a zip archive whose entries are either deflated on a thread pool or stored uncompressed. Entries are written
+ * in the order they are added. ZipOutputStream can do neither: it deflates entries itself, on the writing thread, and
+ * needs the size and checksum of a stored entry before its data.
+ */
+class ZipArchiveWriter implements Closeable {
+  interface EntryData {
+    byte[] getBytes() throws IOException;
+  }
+
+  /**
+   * Failure to obtain the content of an entry, which is left out of the archive. When entries are compressed on the
+   * thread pool, it is thrown by a later call than the one adding the entry.
+   */
+  static class EntryException extends IOException {
+    private final String entryName;
+
+    private EntryException(String entryName, Throwable cause) {
+      super("Cannot write entry " + entryName, cause);
+      this.entryName = entryName;
+    }
+
+    String getEntryName() {
+      return entryName;
+    }
+  }
+
+  private static final int MAX_PENDING_ENTRIES_PER_THREAD = 4;
+  private static final int LOCAL_HEADER = 0x04034b50;
+  private static final int CENTRAL_HEADER = 0x02014b50;
+  private static final int END_HEADER = 0x06054b50;
+  private static final int ZIP64_END_HEADER = 0x06064b50;
+  private static final int ZIP64_LOCATOR = 0x07064b50;
+  private static final int UTF8_NAMES = 0x0800;
+  private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+  private static class Entry {
+    private final byte[] name;
+    private final int method;
+    private final long crc;
+    private final long size;
+    private byte[] data;  // released once written
+    private long compressedSize;
+    private long offset;
+
+    private Entry(byte[] name, int method, long crc, long size, byte[] data) {
+      this.name = name;
+      this.method = method;
+      this.crc = crc;
+      this.size = size;
+      this.data = data;
+      this.compressedSize = data.length;
+    }
+  }
+
+  private final OutputStream out;
+  private final boolean compress;
+  private final ExecutorService executor;
+  private final int maxPending;
+  private final int dosTime = getDosTime(LocalDateTime.now());
+  private final Deque<Future<Entry>> pending = new ArrayDeque<>();
+  private final List<Entry> written = new ArrayList<>();
+  private long offset;
+
+  /**
+   * @param threads number of compression threads; entries are compressed on the calling thread when it is 1
+   */
+  ZipArchiveWriter(OutputStream out, Manifest manifest, boolean compress, int threads) throws IOException {
+    this.out = new BufferedOutputStream(out);
+    this.compress = compress;
+    this.executor = compress && threads > 1 ? Executors.newFixedThreadPool(threads, ZipArchiveWriter::newWorkerThread) : null;
+    this.maxPending = executor != null ? MAX_PENDING_ENTRIES_PER_THREAD * threads : 0;
+
+    if (manifest != null) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      manifest.write(bytes);
+      addEntry(JarFile.MANIFEST_NAME, bytes::toByteArray);
+    }
+  }
+
+  private static Thread newWorkerThread(Runnable r) {
+    Thread thread = new Thread(r, "Archive compression");
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  /**
+   * @param data entry content, obtained on a compression thread; null for an empty entry
+   * @throws EntryException when the content of this entry or of an entry added earlier cannot be obtained
+   */
+  void addEntry(String name, EntryData data) throws IOException {
+    if (executor == null) {
+      writeEntry(createEntry(name, data));
+      return;
+    }
+
+    pending.add(executor.submit(() -> createEntry(name, data)));
+    if (pending.size() > maxPending) {
+      writeEntry(getPending(pending.removeFirst()));
+    }
+  }
+
+  private Entry createEntry(String name, EntryData data) throws EntryException {
+    byte[] bytes;
+    try {
+      bytes = data != null ? data.getBytes() : new byte[0];
+    }
+    catch (IOException | RuntimeException e) {
+      throw new EntryException(name, e);
+    }
+
+    CRC32 crc = new CRC32();
+    crc.update(bytes);
+    byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+
+    if (!compress || bytes.length == 0) {
+      return new Entry(nameBytes, ZipEntry.STORED, crc.getValue(), bytes.length, bytes);
+    }
+
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    try {
+      deflater.setInput(bytes);
+      deflater.finish();
+      ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4 + 64);
+      byte[] buffer = new byte[8192];
+      while (!deflater.finished()) {
+        compressed.write(buffer, 0, deflater.deflate(buffer));
+      }
+      return new Entry(nameBytes, ZipEntry.DEFLATED, crc.getValue(), bytes.length, compressed.toByteArray());
+    }
+    finally {
+      deflater.end();
+    }
+  }
+
+  private static Entry getPending(Future<Entry> future) throws IOException {
+    try {
+      return future.get();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    }
+    catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) throw (IOException)cause;
+      if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+      if (cause instanceof Error) throw (Error)cause;
+      throw new RuntimeException(cause);
+    }
+  }
+
+  private void writeEntry(Entry entry) throws IOException {
+    entry.offset = offset;
+    writeInt(LOCAL_HEADER);
+    writeShort(getVersion(entry, false));
+    writeShort(UTF8_NAMES);
+    writeShort(entry.method);
+    writeInt(dosTime);
+    writeInt(entry.crc);
+    writeInt(entry.compressedSize);
+    writeInt(entry.size);
+    writeShort(entry.name.length);
+    writeShort(0);
+    out.write(entry.name);
+    out.write(entry.data);
+    offset += 30 + entry.name.length + entry.data.length;
+
+    entry.data = null;
+    written.add(entry);
+  }
+
+  /**
+   * Writes the pending entries and the central directory.
+   *
+   * @throws EntryException when the content of a pending entry cannot be obtained, after the archive is completed
+   * without it; failures of further entries are suppressed by the first one
+   */
+  @Override
+  public void close() throws IOException {
+    EntryException failure = null;
+    try {
+      while (!pending.isEmpty()) {
+        try {
+          writeEntry(getPending(pending.removeFirst()));
+        }
+        catch (EntryException e) {
+          if (failure == null) {
+            failure = e;
+          }
+          else {
+            failure.addSuppressed(e);
+          }
+        }
+      }
+      writeCentralDirectory();
+    }
+    finally {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+      out.close();
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private void writeCentralDirectory() throws IOException {
+    long start = offset;
+    for (Entry entry : written) {
+      boolean zip64 = entry.offset >= ZIP64_MAGIC;
+      writeInt(CENTRAL_HEADER);
+      writeShort(getVersion(entry, zip64));
+      writeShort(getVersion(entry, zip64));
+      writeShort(UTF8_NAMES);
+      writeShort(entry.method);
+      writeInt(dosTime);
+      writeInt(entry.crc);
+      writeInt(entry.compressedSize);
+      writeInt(entry.size);
+      writeShort(entry.name.length);
+      writeShort(zip64 ? 12 : 0);
+      writeShort(0);  // comment
+      writeShort(0);  // disk number
+      writeShort(0);  // internal attributes
+      writeInt(0);    // external attributes
+      writeInt(zip64 ? ZIP64_MAGIC : entry.offset);
+      out.write(entry.name);
+      if (zip64) {
+        writeShort(1);
+        writeShort(8);
+        writeLong(entry.offset);
+      }
+      offset += 46 + entry.name.length + (zip64 ? 12 : 0);
+    }
+    long size = offset - start;
+
+    boolean zip64 = written.size() >= 0xFFFF || start >= ZIP64_MAGIC || size >= ZIP64_MAGIC;
+    if (zip64) {
+      long end = offset;
+      writeInt(ZIP64_END_HEADER);
+      writeLong(44);
+      writeShort(45);
+      writeShort(45);
+      writeInt(0);
+      writeInt(0);
+      writeLong(written.size());
+      writeLong(written.size());
+      writeLong(size);
+      writeLong(start);
+
+      writeInt(ZIP64_LOCATOR);
+      writeInt(0);
+      writeLong(end);
+      writeInt(1);
+    }
+
+    writeInt(END_HEADER);
+    writeShort(0);
+    writeShort(0);
+    writeShort(zip64 ? 0xFFFF : written.size());
+    writeShort(zip64 ? 0xFFFF : written.size());
+    writeInt(zip64 ? ZIP64_MAGIC : size);
+    writeInt(zip64 ? ZIP64_MAGIC : start);
+    writeShort(0);
+  }
+
+  private static int getVersion(Entry entry, boolean zip64) {
+    return zip64 ? 45 : entry.method == ZipEntry.DEFLATED ? 20 : 10;
+  }
+
+  private static int getDosTime(LocalDateTime time) {
+    return (time.getYear() - 1980) << 25 | time.getMonthValue() << 21 | time.getDayOfMonth() << 16 |
+           time.getHour() << 11 | time.getMinute() << 5 | time.getSecond() >> 1;
+  }
+
+  private void writeShort(int value) throws IOException {
+    out.write(value & 0xFF);
+    out.write((value >>> 8) & 0xFF);
+  }
+
+  private void writeInt(long value) throws IOException {
+    writeShort((int)(value & 0xFFFF));
+    writeShort((int)((value >>> 16) & 0xFFFF));
+  }
+
+  private void writeLong(long value) throws IOException {
+    writeInt(value & 0xFFFFFFFFL);
+    writeInt(value >>> 32);
+  }
+}
@@ -1,6 +1,8 @@
 // Copyright 2000-2017 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package org.jetbrains.java.decompiler.main.extern;
 
+import org.jetbrains.java.decompiler.main.collectors.PassStatistics;
+
 public abstract class IFernflowerLogger {
 
   public enum Severity {
@@ -46,4 +48,28 @@ public abstract class IFernflowerLogger {
   public void startWriteClass(String className) { }
 
   public void endWriteClass() { }
+
+  /**
+   * Statistics of the processing passes are only collected, and the statistics callbacks only called, when this returns
+   * true. Callbacks may come from several threads when classes are decompiled in parallel.
+   */
+  public boolean acceptsStatistics() {
+    return false;
+  }
+
+  /**
+   * Called once a method with code has been processed, or its processing has failed.
+   */
+  public void methodStatistics(String className, String methodName, PassStatistics statistics) { }
+
+  /**
+   * Called once all methods of a class have been processed, with the sums over the methods.
+   */
+  public void classStatistics(String className, PassStatistics statistics) { }
+
+  /**
+   * Called at the end of {@link org.jetbrains.java.decompiler.main.Fernflower#decompileContext()}, with the sums
+   * over all processed classes.
+   */
+  public void runStatistics(PassStatistics statistics) { }
 }
@@ -34,9 +34,16 @@ public interface IFernflowerPreferences {
   String BYTECODE_SOURCE_MAPPING = "bsm";
   String IGNORE_INVALID_BYTECODE = "iib";
   String VERIFY_ANONYMOUS_CLASSES = "vac";
+  String LAZY_LIBRARIES = "lzl";
 
   String LOG_LEVEL = "log";
   String MAX_PROCESSING_METHOD = "mpm";
+  String THREADS = "thr";
+  String VIRTUAL_THREADS = "vth";
+  String LIBRARY_CACHE_SIZE = "lcs";
+  String CACHE_DIRECTORY = "cdr";
+  String ARCHIVE_COMPRESSION = "acm";
+  String REPORT_FILE = "rpt";
   String RENAME_ENTITIES = "ren";
   String USER_RENAMER_CLASS = "urc";
   String NEW_LINE_SEPARATOR = "nls";
@@ -80,9 +87,14 @@ public interface IFernflowerPreferences {
     defaults.put(BYTECODE_SOURCE_MAPPING, "0");
     defaults.put(IGNORE_INVALID_BYTECODE, "0");
     defaults.put(VERIFY_ANONYMOUS_CLASSES, "0");
+    defaults.put(LAZY_LIBRARIES, "0");
 
     defaults.put(LOG_LEVEL, IFernflowerLogger.Severity.INFO.name());
     defaults.put(MAX_PROCESSING_METHOD, "0");
+    defaults.put(THREADS, "1");
+    defaults.put(VIRTUAL_THREADS, "0");
+    defaults.put(LIBRARY_CACHE_SIZE, "0");
+    defaults.put(ARCHIVE_COMPRESSION, "deflate");
     defaults.put(RENAME_ENTITIES, "0");
     defaults.put(NEW_LINE_SEPARATOR, (InterpreterUtil.IS_WINDOWS ? "0" : "1"));
     defaults.put(INDENT_STRING, "   ");
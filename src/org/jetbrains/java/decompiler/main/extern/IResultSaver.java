@@ -1,6 +1,9 @@
 // Copyright 2000-2017 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package org.jetbrains.java.decompiler.main.extern;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.jar.Manifest;
 
 public interface IResultSaver {
@@ -19,4 +22,42 @@ public interface IResultSaver {
   void saveClassEntry(String path, String archiveName, String qualifiedName, String entryName, String content);
 
   void closeArchive(String path, String archiveName);
+
+  /**
+   * Streaming variant of {@link #saveClassFile}, which is what the decompiler calls. Savers which can write the content
+   * directly into a file override it; by default the content is collected into a string and passed to saveClassFile.
+   */
+  default void writeClassFile(String path, String qualifiedName, String entryName, ContentWriter content, int[] mapping) {
+    saveClassFile(path, qualifiedName, entryName, collect(content), mapping);
+  }
+
+  /**
+   * Streaming variant of {@link #saveClassEntry}, see {@link #writeClassFile}.
+   *
+   * @param content null when the class couldn't be decompiled
+   */
+  default void writeClassEntry(String path, String archiveName, String qualifiedName, String entryName, ContentWriter content) {
+    saveClassEntry(path, archiveName, qualifiedName, entryName, collect(content));
+  }
+
+  private static String collect(ContentWriter content) {
+    if (content == null) {
+      return null;
+    }
+    StringWriter writer = new StringWriter();
+    try {
+      content.writeTo(writer);
+    }
+    catch (IOException e) {
+      throw new RuntimeException(e);  // not thrown by StringWriter
+    }
+    return writer.toString();
+  }
+
+  /**
+   * Decompiled source of a class, written on demand to a writer supplied by the saver.
+   */
+  interface ContentWriter {
+    void writeTo(Writer writer) throws IOException;
+  }
 }
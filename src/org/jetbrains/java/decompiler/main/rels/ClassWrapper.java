@@ -2,8 +2,11 @@
 package org.jetbrains.java.decompiler.main.rels;
 
 import org.jetbrains.java.decompiler.code.CodeConstants;
+import org.jetbrains.java.decompiler.main.CancellationToken;
+import org.jetbrains.java.decompiler.main.DecompilationReport;
 import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.main.collectors.CounterContainer;
+import org.jetbrains.java.decompiler.main.collectors.PassStatistics;
 import org.jetbrains.java.decompiler.main.collectors.VarNamesCollector;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
@@ -36,67 +39,47 @@ public class ClassWrapper {
     this.classStruct = classStruct;
   }
 
-  public void init() {
+  public void init(DecompilerContext context) {
     DecompilerContext.setProperty(DecompilerContext.CURRENT_CLASS, classStruct);
     DecompilerContext.setProperty(DecompilerContext.CURRENT_CLASS_WRAPPER, this);
-    DecompilerContext.getLogger().startClass(classStruct.qualifiedName);
+    context.logger().startClass(classStruct.qualifiedName);
 
     int maxSec = Integer.parseInt(DecompilerContext.getProperty(IFernflowerPreferences.MAX_PROCESSING_METHOD).toString());
-    boolean testMode = DecompilerContext.getOption(IFernflowerPreferences.UNIT_TEST_MODE);
+    boolean testMode = context.options().unitTestMode;
+    PassStatistics classStatistics = context.runStatistics() != null ? new PassStatistics() : null;
 
     for (StructMethod mt : classStruct.getMethods()) {
-      DecompilerContext.getLogger().startMethod(mt.getName() + " " + mt.getDescriptor());
+      context.logger().startMethod(mt.getName() + " " + mt.getDescriptor());
 
       MethodDescriptor md = MethodDescriptor.parseDescriptor(mt.getDescriptor());
-      VarProcessor varProc = new VarProcessor(classStruct, mt, md);
-      DecompilerContext.startMethod(varProc);
-
-      VarNamesCollector vc = varProc.getVarNamesCollector();
-      CounterContainer counter = DecompilerContext.getCounterContainer();
+      VarProcessor varProc = new VarProcessor(context, classStruct, mt, md);
+      context.startMethod(varProc);
 
       RootStatement root = null;
 
       boolean isError = false;
+      boolean isTimeout = false;
 
       try {
         if (mt.containsCode()) {
           if (maxSec == 0 || testMode) {
-            root = MethodProcessorRunnable.codeToJava(classStruct, mt, md, varProc);
+            root = MethodProcessorRunnable.codeToJava(context, classStruct, mt, md, varProc);
           }
           else {
-            MethodProcessorRunnable mtProc = new MethodProcessorRunnable(classStruct, mt, md, varProc, DecompilerContext.getCurrentContext());
-
-            Thread mtThread = new Thread(mtProc, "Java decompiler");
-            long stopAt = System.currentTimeMillis() + maxSec * 1000L;
-
-            mtThread.start();
-
-            while (!mtProc.isFinished()) {
-              try {
-                synchronized (mtProc.lock) {
-                  mtProc.lock.wait(200);
-                }
-              }
-              catch (InterruptedException e) {
-                killThread(mtThread);
-                throw e;
-              }
-
-              if (System.currentTimeMillis() >= stopAt) {
-                String message = "Processing time limit exceeded for method " + mt.getName() + ", execution interrupted.";
-                DecompilerContext.getLogger().writeMessage(message, IFernflowerLogger.Severity.ERROR);
-                killThread(mtThread);
-                isError = true;
-                break;
-              }
+            try {
+              root = MethodProcessorRunnable.codeToJava(context, classStruct, mt, md, maxSec * 1000L);
             }
-
-            if (!isError) {
-              root = mtProc.getResult();
+            catch (CancellationToken.CancelledException e) {
+              String message = "Processing time limit exceeded for method " + mt.getName() +
+                               (e.getPass() != null ? " in pass '" + e.getPass() + "'" : "") + ", execution interrupted.";
+              context.logger().writeMessage(message, IFernflowerLogger.Severity.ERROR);
+              isError = true;
+              isTimeout = true;
             }
           }
         }
         else {
+          VarNamesCollector vc = varProc.getVarNamesCollector();
           int varIndex = 0;
           if (!mt.hasModifier(CodeConstants.ACC_STATIC)) {
             varProc.getThisVars().put(new VarVersionPair(0, 0), classStruct.qualifiedName);
@@ -111,10 +94,29 @@ public class ClassWrapper {
       }
       catch (Throwable t) {
         String message = "Method " + mt.getName() + " " + mt.getDescriptor() + " couldn't be decompiled.";
-        DecompilerContext.getLogger().writeMessage(message, IFernflowerLogger.Severity.WARN, t);
+        context.logger().writeMessage(message, IFernflowerLogger.Severity.WARN, t);
         isError = true;
       }
 
+      // a method processed on another thread brings its own state
+      varProc = context.varProcessor();
+      CounterContainer counter = context.counterContainer();
+
+      PassStatistics statistics = context.passStatistics();
+      if (statistics != null && mt.containsCode()) {
+        if (context.logger().acceptsStatistics()) {
+          context.logger().methodStatistics(classStruct.qualifiedName, mt.getName() + " " + mt.getDescriptor(), statistics);
+        }
+        classStatistics.add(statistics);
+      }
+
+      DecompilationReport report = context.report();
+      if (report != null) {
+        DecompilationReport.Status status = isTimeout ? DecompilationReport.Status.TIMEOUT :
+                                            isError ? DecompilationReport.Status.ERROR : DecompilationReport.Status.OK;
+        report.addMethod(classStruct.qualifiedName, mt.getName(), mt.getDescriptor(), statistics, status);
+      }
+
       MethodWrapper methodWrapper = new MethodWrapper(root, varProc, mt, counter);
       methodWrapper.decompiledWithErrors = isError;
 
@@ -126,19 +128,29 @@ public class ClassWrapper {
         classStruct.getFields().forEach(f -> namesCollector.addName(f.getName()));
         varProc.refreshVarNames(namesCollector);
 
-        applyParameterNames(mt, md, varProc);  // if parameter names are present and should be used
+        applyParameterNames(context, mt, md, varProc);  // if parameter names are present and should be used
 
-        applyDebugInfo(mt, varProc, methodWrapper);  // if debug information is present and should be used
+        applyDebugInfo(context, mt, varProc, methodWrapper);  // if debug information is present and should be used
       }
 
-      DecompilerContext.getLogger().endMethod();
+      context.logger().endMethod();
+    }
+
+    if (classStatistics != null) {
+      if (context.logger().acceptsStatistics()) {
+        context.logger().classStatistics(classStruct.qualifiedName, classStatistics);
+      }
+      context.runStatistics().add(classStatistics);
+      if (context.report() != null) {
+        context.report().addClass(classStruct.qualifiedName, classStatistics);
+      }
     }
 
-    DecompilerContext.getLogger().endClass();
+    context.logger().endClass();
   }
 
-  private static void applyParameterNames(StructMethod mt, MethodDescriptor md, VarProcessor varProc) {
-    if (DecompilerContext.getOption(IFernflowerPreferences.USE_METHOD_PARAMETERS)) {
+  private static void applyParameterNames(DecompilerContext context, StructMethod mt, MethodDescriptor md, VarProcessor varProc) {
+    if (context.options().useMethodParameters) {
       StructMethodParametersAttribute attr = mt.getAttribute(StructGeneralAttribute.ATTRIBUTE_METHOD_PARAMETERS);
       if (attr != null) {
         List<StructMethodParametersAttribute.Entry> entries = attr.getEntries();
@@ -157,8 +169,8 @@ public class ClassWrapper {
     }
   }
 
-  private static void applyDebugInfo(StructMethod mt, VarProcessor varProc, MethodWrapper methodWrapper) {
-    if (DecompilerContext.getOption(IFernflowerPreferences.USE_DEBUG_VAR_NAMES)) {
+  private static void applyDebugInfo(DecompilerContext context, StructMethod mt, VarProcessor varProc, MethodWrapper methodWrapper) {
+    if (context.options().useDebugVarNames) {
       StructLocalVariableTableAttribute attr = mt.getLocalVariableAttr();
       if (attr != null) {
         // only param names here
@@ -183,11 +195,6 @@ public class ClassWrapper {
     }
   }
 
-  @SuppressWarnings("deprecation")
-  private static void killThread(Thread thread) {
-    thread.stop();
-  }
-
   public MethodWrapper getMethodWrapper(String name, String descriptor) {
     return methods.getWithKey(InterpreterUtil.makeUniqueKey(name, descriptor));
   }
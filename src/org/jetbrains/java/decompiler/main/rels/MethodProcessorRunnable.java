@@ -4,10 +4,11 @@ package org.jetbrains.java.decompiler.main.rels;
 import org.jetbrains.java.decompiler.code.CodeConstants;
 import org.jetbrains.java.decompiler.code.InstructionSequence;
 import org.jetbrains.java.decompiler.code.cfg.ControlFlowGraph;
+import org.jetbrains.java.decompiler.main.CancellationToken;
 import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.main.collectors.CounterContainer;
+import org.jetbrains.java.decompiler.main.collectors.PassStatistics;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
-import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.modules.code.DeadCodeHelper;
 import org.jetbrains.java.decompiler.modules.decompiler.*;
 import org.jetbrains.java.decompiler.modules.decompiler.deobfuscator.ExceptionDeobfuscator;
@@ -16,31 +17,38 @@ import org.jetbrains.java.decompiler.modules.decompiler.vars.VarProcessor;
 import org.jetbrains.java.decompiler.struct.StructClass;
 import org.jetbrains.java.decompiler.struct.StructMethod;
 import org.jetbrains.java.decompiler.struct.gen.MethodDescriptor;
+import org.jetbrains.java.decompiler.util.ThreadUtil;
 
 import java.io.IOException;
+import java.util.concurrent.*;
 
 public class MethodProcessorRunnable implements Runnable {
-  public final Object lock = new Object();
+  // time a method is given to reach a cancellation check once its time limit is exceeded
+  private static final long CANCELLATION_GRACE_MILLIS = 1000;
+
+  private static final ExecutorService executor = ThreadUtil.newUnboundedExecutor("Java decompiler", false);
+  private static final ScheduledExecutorService watchdog =
+    Executors.newSingleThreadScheduledExecutor(ThreadUtil.newThreadFactory("Java decompiler watchdog", false));
+
+  private static class VirtualExecutorHolder {
+    private static final ExecutorService executor = ThreadUtil.newUnboundedExecutor("Java decompiler", true);
+  }
 
   private final StructClass klass;
   private final StructMethod method;
   private final MethodDescriptor methodDescriptor;
-  private final VarProcessor varProc;
   private final DecompilerContext parentContext;
 
   private volatile RootStatement root;
   private volatile Throwable error;
-  private volatile boolean finished = false;
 
   public MethodProcessorRunnable(StructClass klass,
                                  StructMethod method,
                                  MethodDescriptor methodDescriptor,
-                                 VarProcessor varProc,
                                  DecompilerContext parentContext) {
     this.klass = klass;
     this.method = method;
     this.methodDescriptor = methodDescriptor;
-    this.varProc = varProc;
     this.parentContext = parentContext;
   }
 
@@ -50,8 +58,9 @@ public class MethodProcessorRunnable implements Runnable {
     root = null;
 
     try {
+      // expressions, statements and the simplification helpers still find the context through the thread
       DecompilerContext.setCurrentContext(parentContext);
-      root = codeToJava(klass, method, methodDescriptor, varProc);
+      root = codeToJava(parentContext, klass, method, methodDescriptor, parentContext.varProcessor());
     }
     catch (Throwable t) {
       error = t;
@@ -59,20 +68,86 @@ public class MethodProcessorRunnable implements Runnable {
     finally {
       DecompilerContext.setCurrentContext(null);
     }
+  }
 
-    finished = true;
-    synchronized (lock) {
-      lock.notifyAll();
+  /**
+   * Processes the method on a pooled thread, or on a new virtual thread when they are enabled and supported. When the
+   * time limit is exceeded, the method is cancelled and {@link CancellationToken.CancelledException} is thrown.
+   * The method is processed with a variable processor, counters and pass statistics of its own, which replace those
+   * of the given context once the job has finished, also when it failed or stopped at a cancellation check, so the
+   * statistics show how far it got. Only a job abandoned after missing its cancellation checks, or one whose caller
+   * was interrupted, leaves the context unchanged.
+   */
+  public static RootStatement codeToJava(DecompilerContext parentContext,
+                                         StructClass cl,
+                                         StructMethod mt,
+                                         MethodDescriptor md,
+                                         long timeLimitMillis) throws Throwable {
+    CancellationToken token = new CancellationToken();
+    DecompilerContext context = parentContext.copy(token, new VarProcessor(parentContext, cl, mt, md));
+    MethodProcessorRunnable mtProc = new MethodProcessorRunnable(cl, mt, md, context);
+
+    boolean virtual = parentContext.options().virtualThreads && ThreadUtil.isVirtualThreadSupported();
+    Future<?> future = (virtual ? VirtualExecutorHolder.executor : executor).submit(mtProc);
+    ScheduledFuture<?> deadline = watchdog.schedule(token::cancel, timeLimitMillis, TimeUnit.MILLISECONDS);
+    try {
+      future.get(timeLimitMillis + CANCELLATION_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+    catch (TimeoutException e) {
+      // no cancellation check was reached; the thread is left to finish on its own state, which is never read
+      future.cancel(true);
+      throw new CancellationToken.CancelledException(context.pass());
+    }
+    catch (InterruptedException e) {
+      token.cancel();
+      future.cancel(true);
+      throw e;
+    }
+    finally {
+      deadline.cancel(false);
+    }
+
+    // the job has finished, successfully or not, and no longer touches its state
+    parentContext.adoptMethodState(context);
+    return mtProc.getResult();
+  }
+
+  public static RootStatement codeToJava(DecompilerContext context,
+                                         StructClass cl,
+                                         StructMethod mt,
+                                         MethodDescriptor md,
+                                         VarProcessor varProc) throws IOException {
+    try {
+      return processMethod(context, cl, mt, md, varProc);
+    }
+    finally {
+      // the last pass is ended on the thread which ran it
+      PassStatistics statistics = context.passStatistics();
+      if (statistics != null) {
+        statistics.endPass();
+      }
     }
   }
 
-  public static RootStatement codeToJava(StructClass cl, StructMethod mt, MethodDescriptor md, VarProcessor varProc) throws IOException {
+  private static RootStatement processMethod(DecompilerContext context,
+                                             StructClass cl,
+                                             StructMethod mt,
+                                             MethodDescriptor md,
+                                             VarProcessor varProc) throws IOException {
     boolean isInitializer = CodeConstants.CLINIT_NAME.equals(mt.getName()); // for now static initializer only
 
-    mt.expandData(cl);
-    InstructionSequence seq = mt.getInstructionSequence();
+    context.startPass("cfg");
+
+    InstructionSequence seq = mt.readInstructionSequence(cl);
     ControlFlowGraph graph = new ControlFlowGraph(seq);
 
+    PassStatistics statistics = context.passStatistics();
+    if (statistics != null) {
+      statistics.setCodeSize(seq.length(), graph.getBlocks().size());
+    }
+
+    context.startPass("deadCode");
+
     DeadCodeHelper.removeDeadBlocks(graph);
 
     //
@@ -92,20 +167,22 @@ public class MethodProcessorRunnable implements Runnable {
 
     DeadCodeHelper.removeGotos(graph);
 
+    context.startPass("exceptionRanges");
+
     ExceptionDeobfuscator.removeCircularRanges(graph);
 
     ExceptionDeobfuscator.restorePopRanges(graph);
 
-    if (DecompilerContext.getOption(IFernflowerPreferences.REMOVE_EMPTY_RANGES)) {
+    if (context.options().removeEmptyRanges) {
       ExceptionDeobfuscator.removeEmptyRanges(graph);
     }
 
-    if (DecompilerContext.getOption(IFernflowerPreferences.ENSURE_SYNCHRONIZED_MONITOR)) {
+    if (context.options().ensureSynchronizedMonitor) {
       // special case: search for 'synchronized' ranges w/o monitorexit instruction (as generated by Kotlin and Scala)
       DeadCodeHelper.extendSynchronizedRangeToMonitorexit(graph);
     }
 
-    if (DecompilerContext.getOption(IFernflowerPreferences.NO_EXCEPTIONS_RETURN)) {
+    if (context.options().noExceptionsReturn) {
       // special case: single return instruction outside of a protected range
       DeadCodeHelper.incorporateValueReturns(graph);
     }
@@ -115,20 +192,27 @@ public class MethodProcessorRunnable implements Runnable {
 
     DeadCodeHelper.mergeBasicBlocks(graph);
 
-    DecompilerContext.getCounterContainer().setCounter(CounterContainer.VAR_COUNTER, mt.getLocalVariables());
+    context.counterContainer().setCounter(CounterContainer.VAR_COUNTER, mt.getLocalVariables());
 
     if (ExceptionDeobfuscator.hasObfuscatedExceptions(graph)) {
-      DecompilerContext.getLogger().writeMessage("Heavily obfuscated exception ranges found!", IFernflowerLogger.Severity.WARN);
+      context.logger().writeMessage("Heavily obfuscated exception ranges found!", IFernflowerLogger.Severity.WARN);
       if (!ExceptionDeobfuscator.handleMultipleEntryExceptionRanges(graph)) {
-        DecompilerContext.getLogger().writeMessage("Found multiple entry exception ranges which could not be splitted", IFernflowerLogger.Severity.WARN);
+        context.logger().writeMessage("Found multiple entry exception ranges which could not be splitted", IFernflowerLogger.Severity.WARN);
       }
       ExceptionDeobfuscator.insertDummyExceptionHandlerBlocks(graph, mt.getBytecodeVersion());
     }
 
+    context.startPass("parseGraph");
+
     RootStatement root = DomHelper.parseGraph(graph);
 
-    FinallyProcessor fProc = new FinallyProcessor(md, varProc);
-    while (fProc.iterateGraph(cl, mt, root, graph)) {
+    FinallyProcessor fProc = new FinallyProcessor(context, md, varProc);
+    while (true) {
+      context.startPass("finally");
+      if (!fProc.iterateGraph(cl, mt, root, graph)) {
+        break;
+      }
+      context.startPass("parseGraph");
       root = DomHelper.parseGraph(graph);
     }
 
@@ -142,7 +226,9 @@ public class MethodProcessorRunnable implements Runnable {
 
     ClearStructHelper.clearStatements(root);
 
-    ExprProcessor proc = new ExprProcessor(md, varProc);
+    context.startPass("exprents");
+
+    ExprProcessor proc = new ExprProcessor(context, md, varProc);
     proc.processStatement(root, cl);
 
     SequenceHelper.condenseSequences(root);
@@ -150,12 +236,15 @@ public class MethodProcessorRunnable implements Runnable {
     StackVarsProcessor stackProc = new StackVarsProcessor();
 
     do {
+      context.startPass("stackVars");
       stackProc.simplifyStackVars(root, mt, cl);
       varProc.setVarVersions(root);
     }
     while (new PPandMMHelper().findPPandMM(root));
 
     while (true) {
+      context.startPass("merge");
+
       LabelHelper.cleanUpEdges(root);
 
       do {
@@ -163,7 +252,7 @@ public class MethodProcessorRunnable implements Runnable {
       }
       while (LoopExtractHelper.extractLoops(root) || IfHelper.mergeAllIfs(root));
 
-      if (DecompilerContext.getOption(IFernflowerPreferences.IDEA_NOT_NULL_ANNOTATION)) {
+      if (context.options().ideaNotNullAnnotation) {
         if (IdeaNotNullHelper.removeHardcodedChecks(root, mt)) {
           SequenceHelper.condenseSequences(root);
           stackProc.simplifyStackVars(root, mt, cl);
@@ -171,6 +260,8 @@ public class MethodProcessorRunnable implements Runnable {
         }
       }
 
+      context.startPass("labels");
+
       LabelHelper.identifyLabels(root);
 
       if (InlineSingleBlockHelper.inlineSingleBlocks(root)) {
@@ -188,6 +279,8 @@ public class MethodProcessorRunnable implements Runnable {
       //}
     }
 
+    context.startPass("varDefinitions");
+
     ExitHelper.removeRedundantReturns(root);
 
     SecondaryFunctionsHelper.identifySecondaryFunctions(root, varProc);
@@ -201,8 +294,6 @@ public class MethodProcessorRunnable implements Runnable {
     PatternHelper.replaceAssignmentsWithPatternVariables(root, cl);
     SwitchHelper.simplifySwitchesOnString(root);
 
-    mt.releaseResources();
-
     return root;
   }
 
@@ -211,8 +302,4 @@ public class MethodProcessorRunnable implements Runnable {
     if (t != null) throw t;
     return root;
   }
-
-  public boolean isFinished() {
-    return finished;
-  }
 }
@@ -9,7 +9,6 @@ import org.jetbrains.java.decompiler.code.cfg.BasicBlock;
 import org.jetbrains.java.decompiler.code.cfg.ControlFlowGraph;
 import org.jetbrains.java.decompiler.code.cfg.ExceptionRangeCFG;
 import org.jetbrains.java.decompiler.main.DecompilerContext;
-import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 
 import java.util.*;
 
@@ -128,7 +127,7 @@ public final class DeadCodeHelper {
           List<BasicBlock> lst = range.getProtectedRange();
 
           if (lst.size() == 1 && lst.get(0) == block) {
-            if (DecompilerContext.getOption(IFernflowerPreferences.REMOVE_EMPTY_RANGES)) {
+            if (DecompilerContext.getOptions().removeEmptyRanges) {
               block.removeSuccessorException(range.getHandler());
               lstRanges.remove(i);
 
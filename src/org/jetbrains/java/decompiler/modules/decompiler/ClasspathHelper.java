@@ -1,72 +1,111 @@
 // Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
 package org.jetbrains.java.decompiler.modules.decompiler;
 
-import org.jetbrains.java.decompiler.struct.gen.MethodDescriptor;
-import org.jetbrains.java.decompiler.struct.gen.VarType;
+import org.jetbrains.java.decompiler.code.CodeConstants;
+import org.jetbrains.java.decompiler.struct.consts.ConstantPool;
+import org.jetbrains.java.decompiler.struct.consts.PrimitiveConstant;
+import org.jetbrains.java.decompiler.struct.lazy.LazyLoader;
+import org.jetbrains.java.decompiler.util.DataInputFullStream;
+import org.jetbrains.java.decompiler.util.InterpreterUtil;
 
-import java.lang.reflect.Method;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Index of the public methods of runtime classes, for classes which are neither decompiled nor given as libraries.
+ * Class files are read from the bootstrap class path (the jrt image) once per class, and looked up by method name
+ * and descriptor afterwards. As with {@link Class#getMethods()}, the methods of a class include the public methods
+ * of its superclasses and the non-static ones of its superinterfaces.
+ */
 public final class ClasspathHelper {
+  // use bootstrap classloader to only provide access to JRE classes
+  private static final ClassLoader BOOTSTRAP_LOADER = new ClassLoader(null) { };
 
-  private static final Map<String, Method> METHOD_CACHE = Collections.synchronizedMap(new HashMap<>());
+  // class name, access flags of public methods (inherited ones included) keyed by name and descriptor;
+  // empty for classes which are not available
+  private static final Map<String, Map<String, Integer>> METHOD_INDEX = new ConcurrentHashMap<>();
 
-  public static Method findMethod(String classname, String methodName, MethodDescriptor descriptor) {
-    String targetClass = classname.replace('/', '.');
-    String methodSignature = buildMethodSignature(targetClass + '.' + methodName, descriptor);
-
-    Method method;
-    if (METHOD_CACHE.containsKey(methodSignature)) {
-      method = METHOD_CACHE.get(methodSignature);
-    }
-    else {
-      method = findMethodOnClasspath(targetClass, methodSignature);
-      METHOD_CACHE.put(methodSignature, method);
-    }
-
-    return method;
+  /**
+   * @return access flags of a public method declared or inherited by a runtime class, or -1 when there is no such method
+   */
+  public static int getMethodAccessFlags(String className, String methodName, String descriptor) {
+    Integer flags = getMethods(className).get(InterpreterUtil.makeUniqueKey(methodName, descriptor));
+    return flags != null ? flags : -1;
   }
 
-  private static Method findMethodOnClasspath(String targetClass, String methodSignature) {
-    try {
-      // use bootstrap classloader to only provide access to JRE classes
-      Class cls = new ClassLoader(null) {}.loadClass(targetClass);
-      for (Method mtd : cls.getMethods()) {
-        // use contains() to ignore access modifiers and thrown exceptions
-        if (mtd.toString().contains(methodSignature)) {
-          return mtd;
-        }
+  private static Map<String, Integer> getMethods(String className) {
+    Map<String, Integer> methods = METHOD_INDEX.get(className);
+    if (methods == null) {
+      // classes read concurrently by several threads are indexed more than once, but reads are never blocked
+      methods = readMethods(className);
+      Map<String, Integer> existing = METHOD_INDEX.putIfAbsent(className, methods);
+      if (existing != null) {
+        methods = existing;
       }
     }
-    catch (Exception e) {
-      // ignore
-    }
-    return null;
+    return methods;
   }
 
-  private static String buildMethodSignature(String name, MethodDescriptor md) {
-    StringBuilder sb = new StringBuilder();
+  private static Map<String, Integer> readMethods(String className) {
+    try (InputStream stream = BOOTSTRAP_LOADER.getResourceAsStream(className + ".class")) {
+      if (stream == null) {
+        return Collections.emptyMap();
+      }
+
+      try (DataInputFullStream in = new DataInputFullStream(stream.readAllBytes())) {
+        in.discard(8);
+        ConstantPool pool = new ConstantPool(in);
+
+        in.discard(4);
+        int superClass = in.readUnsignedShort();
+        int[] interfaces = new int[in.readUnsignedShort()];
+        for (int i = 0; i < interfaces.length; i++) {
+          interfaces[i] = in.readUnsignedShort();
+        }
 
-    appendType(sb, md.ret);
-    sb.append(' ').append(name).append('(');
-    for (VarType param : md.params) {
-      appendType(sb, param);
-      sb.append(',');
+        int length = in.readUnsignedShort();
+        for (int i = 0; i < length; i++) {
+          in.discard(6);
+          LazyLoader.skipAttributes(in);
+        }
+
+        Map<String, Integer> methods = new HashMap<>();
+        length = in.readUnsignedShort();
+        for (int i = 0; i < length; i++) {
+          int accessFlags = in.readUnsignedShort();
+          String name = ((PrimitiveConstant)pool.getConstant(in.readUnsignedShort())).getString();
+          String descriptor = ((PrimitiveConstant)pool.getConstant(in.readUnsignedShort())).getString();
+          LazyLoader.skipAttributes(in);
+          if ((accessFlags & CodeConstants.ACC_PUBLIC) != 0) {
+            methods.put(InterpreterUtil.makeUniqueKey(name, descriptor), accessFlags);
+          }
+        }
+
+        // methods declared by the class override inherited ones, superclass methods come before interface ones
+        if (superClass != 0) {
+          getMethods(getClassName(pool, superClass)).forEach(methods::putIfAbsent);
+        }
+        for (int index : interfaces) {
+          getMethods(getClassName(pool, index)).forEach((key, flags) -> {
+            if ((flags & CodeConstants.ACC_STATIC) == 0) {
+              methods.putIfAbsent(key, flags);
+            }
+          });
+        }
+        return methods;
+      }
     }
-    if (sb.charAt(sb.length() - 1) == ',') {
-      sb.setLength(sb.length() - 1);
+    catch (Exception e) {
+      return Collections.emptyMap();
     }
-    sb.append(')');
-
-    return sb.toString();
   }
 
-  private static void appendType(StringBuilder sb, VarType type) {
-    sb.append(type.getValue().replace('/', '.'));
-    for (int i = 0; i < type.getArrayDim(); i++) {
-      sb.append("[]");
-    }
+  // the pool interceptor renaming decompiled classes does not apply to runtime classes, hence no getPrimitiveConstant()
+  private static String getClassName(ConstantPool pool, int index) {
+    return ((PrimitiveConstant)pool.getConstant(index)).getString();
   }
 }
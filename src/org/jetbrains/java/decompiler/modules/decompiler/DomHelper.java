@@ -353,6 +353,7 @@ public final class DomHelper {
           boolean forceall = i != 0;
 
           while (true) {
+            DecompilerContext.getCurrentContext().checkCancelled();
 
             if (findSimpleStatements(general, mapExtPost)) {
               reducibility = 0;
@@ -100,12 +100,12 @@ public class ExprProcessor implements CodeConstants {
 
   private static final String[] typeNames = {"byte", "char", "double", "float", "int", "long", "short", "boolean"};
 
-  private static final String EMPTY_ENTRY_POINTS_KEY = "-";
-
+  private final DecompilerContext context;
   private final MethodDescriptor methodDescriptor;
   private final VarProcessor varProcessor;
 
-  public ExprProcessor(MethodDescriptor md, VarProcessor varProc) {
+  public ExprProcessor(DecompilerContext context, MethodDescriptor md, VarProcessor varProc) {
+    this.context = context;
     methodDescriptor = md;
     varProcessor = varProc;
   }
@@ -115,45 +115,49 @@ public class ExprProcessor implements CodeConstants {
     DirectGraph dgraph = flattenHelper.buildDirectGraph(root);
 
     // collect finally entry points
-    Set<String> setFinallyShortRangeEntryPoints = new HashSet<>();
+    BitSet setFinallyShortRangeEntryPoints = new BitSet(dgraph.getNodeCount());
     for (List<FinallyPathWrapper> wrappers : dgraph.mapShortRangeFinallyPaths.values()) {
       for (FinallyPathWrapper wrapper : wrappers) {
-        setFinallyShortRangeEntryPoints.add(wrapper.entry);
+        setFinallyShortRangeEntryPoints.set(wrapper.entry);
       }
     }
 
-    Set<String> setFinallyLongRangeEntryPaths = new HashSet<>();
+    // (source node id, entry node id), packed into a long
+    Set<Long> setFinallyLongRangeEntryPaths = new HashSet<>();
     for (List<FinallyPathWrapper> wrappers : dgraph.mapLongRangeFinallyPaths.values()) {
       for (FinallyPathWrapper wrapper : wrappers) {
-        setFinallyLongRangeEntryPaths.add(wrapper.source + "##" + wrapper.entry);
+        setFinallyLongRangeEntryPaths.add(((long)wrapper.source << 32) | wrapper.entry);
       }
     }
 
-    Map<String, VarExprent> mapCatch = new HashMap<>();
-    collectCatchVars(root, flattenHelper, mapCatch);
+    VarExprent[] catchVars = new VarExprent[dgraph.getNodeCount()];
+    collectCatchVars(root, flattenHelper, catchVars);
 
-    Map<DirectNode, Map<String, PrimitiveExpressionList>> mapData = new HashMap<>();
+    Map<DirectNode, Map<EntryPoints, PrimitiveExpressionList>> mapData = new HashMap<>();
 
     LinkedList<DirectNode> stack = new LinkedList<>();
-    LinkedList<LinkedList<String>> stackEntryPoint = new LinkedList<>();
+    LinkedList<EntryPoints> stackEntryPoint = new LinkedList<>();
 
     stack.add(dgraph.first);
-    stackEntryPoint.add(new LinkedList<>());
+    stackEntryPoint.add(EntryPoints.EMPTY);
 
-    Map<String, PrimitiveExpressionList> map = new HashMap<>();
-    map.put(EMPTY_ENTRY_POINTS_KEY, new PrimitiveExpressionList());
+    Map<EntryPoints, PrimitiveExpressionList> map = new HashMap<>();
+    map.put(EntryPoints.EMPTY, new PrimitiveExpressionList());
     mapData.put(dgraph.first, map);
 
     while (!stack.isEmpty()) {
+      // blocks are processed once per finally entry point path, which can multiply them
+      context.checkCancelled();
+
       DirectNode node = stack.removeFirst();
-      LinkedList<String> entryPoints = stackEntryPoint.removeFirst();
+      EntryPoints entryPoints = stackEntryPoint.removeFirst();
 
       PrimitiveExpressionList data;
-      if (mapCatch.containsKey(node.id)) {
-        data = getExpressionData(mapCatch.get(node.id));
+      if (catchVars[node.id] != null) {
+        data = getExpressionData(catchVars[node.id]);
       }
       else {
-        data = mapData.get(node).get(buildEntryPointKey(entryPoints));
+        data = mapData.get(node).get(entryPoints);
       }
 
       BasicBlockStatement block = node.block;
@@ -162,15 +166,15 @@ public class ExprProcessor implements CodeConstants {
         block.setExprents(data.getExpressions());
       }
 
-      String currentEntrypoint = entryPoints.isEmpty() ? null : entryPoints.getLast();
+      List<FinallyPathWrapper> longRangePaths = dgraph.mapLongRangeFinallyPaths.get(node.id);
 
       for (DirectNode nd : node.successors) {
         boolean isSuccessor = true;
 
-        if (currentEntrypoint != null && dgraph.mapLongRangeFinallyPaths.containsKey(node.id)) {
+        if (!entryPoints.isEmpty() && longRangePaths != null) {
           isSuccessor = false;
-          for (FinallyPathWrapper wrapper : dgraph.mapLongRangeFinallyPaths.get(node.id)) {
-            if (wrapper.source.equals(currentEntrypoint) && wrapper.destination.equals(nd.id)) {
+          for (FinallyPathWrapper wrapper : longRangePaths) {
+            if (wrapper.source == entryPoints.getLast() && wrapper.destination == nd.id) {
               isSuccessor = true;
               break;
             }
@@ -178,28 +182,25 @@ public class ExprProcessor implements CodeConstants {
         }
 
         if (isSuccessor) {
-          Map<String, PrimitiveExpressionList> successorMap = mapData.computeIfAbsent(nd, k -> new HashMap<>());
-          LinkedList<String> nodeEntryPoints = new LinkedList<>(entryPoints);
+          Map<EntryPoints, PrimitiveExpressionList> successorMap = mapData.computeIfAbsent(nd, k -> new HashMap<>());
+          EntryPoints nodeEntryPoints = entryPoints;
 
-          if (setFinallyLongRangeEntryPaths.contains(node.id + "##" + nd.id)) {
-            nodeEntryPoints.addLast(node.id);
+          if (setFinallyLongRangeEntryPaths.contains(((long)node.id << 32) | nd.id)) {
+            nodeEntryPoints = nodeEntryPoints.add(node.id);
           }
-          else if (!setFinallyShortRangeEntryPoints.contains(nd.id) && dgraph.mapLongRangeFinallyPaths.containsKey(node.id)) {
-            nodeEntryPoints.removeLast(); // currentEntrypoint should not be null at this point
+          else if (!setFinallyShortRangeEntryPoints.get(nd.id) && longRangePaths != null) {
+            nodeEntryPoints = nodeEntryPoints.removeLast(); // the current entry point should exist at this point
           }
 
           // handling of entry point loops
           int successorEntryIndex = nodeEntryPoints.indexOf(nd.id);
           if (successorEntryIndex >= 0) {
             // we are in a loop (e.g. continue in a 'finally' block): drop all entry points in the list beginning with successor index
-            for (int elementsToRemove = nodeEntryPoints.size() - successorEntryIndex; elementsToRemove > 0; elementsToRemove--) {
-              nodeEntryPoints.removeLast();
-            }
+            nodeEntryPoints = nodeEntryPoints.truncate(successorEntryIndex);
           }
 
-          String nodeEntryKey = buildEntryPointKey(nodeEntryPoints);
-          if (!successorMap.containsKey(nodeEntryKey)) {
-            successorMap.put(nodeEntryKey, data.copy());
+          if (!successorMap.containsKey(nodeEntryPoints)) {
+            successorMap.put(nodeEntryPoints, data.copy());
             stack.add(nd);
             stackEntryPoint.add(nodeEntryPoints);
           }
@@ -210,20 +211,7 @@ public class ExprProcessor implements CodeConstants {
     initStatementExprents(root);
   }
 
-  // FIXME: Ugly code, to be rewritten. A tuple class is needed.
-  private static String buildEntryPointKey(LinkedList<String> entryPoints) {
-    if (entryPoints.isEmpty()) {
-      return EMPTY_ENTRY_POINTS_KEY;
-    }
-    else if (entryPoints.size() == 1) {
-      return entryPoints.getFirst();
-    }
-    else {
-      return String.join(":", entryPoints);
-    }
-  }
-
-  private static void collectCatchVars(Statement stat, FlattenStatementsHelper flatthelper, Map<String, VarExprent> map) {
+  private static void collectCatchVars(Statement stat, FlattenStatementsHelper flatthelper, VarExprent[] catchVars) {
     List<VarExprent> lst = null;
 
     if (stat.type == StatementType.CATCH_ALL) {
@@ -238,12 +226,12 @@ public class ExprProcessor implements CodeConstants {
 
     if (lst != null) {
       for (int i = 1; i < stat.getStats().size(); i++) {
-        map.put(flatthelper.getMapDestinationNodes().get(stat.getStats().get(i).id)[0], lst.get(i - 1));
+        catchVars[flatthelper.getMapDestinationNodes().get(stat.getStats().get(i).id)[0]] = lst.get(i - 1);
       }
     }
 
     for (Statement st : stat.getStats()) {
-      collectCatchVars(st, flatthelper, map);
+      collectCatchVars(st, flatthelper, catchVars);
     }
   }
 
@@ -655,6 +643,13 @@ public class ExprProcessor implements CodeConstants {
   }
 
   public static String getTypeName(VarType type, boolean getShort, List<TypeAnnotationWriteHelper> typeAnnWriteHelpers) {
+    return getTypeName(DecompilerContext.getCurrentContext(), type, getShort, typeAnnWriteHelpers);
+  }
+
+  public static String getTypeName(DecompilerContext context,
+                                   VarType type,
+                                   boolean getShort,
+                                   List<TypeAnnotationWriteHelper> typeAnnWriteHelpers) {
     int tp = type.getType();
     StringBuilder sb = new StringBuilder();
     typeAnnWriteHelpers = writeTypeAnnotationBeforeType(type, sb, typeAnnWriteHelpers);
@@ -677,15 +672,15 @@ public class ExprProcessor implements CodeConstants {
     else if (tp == CodeConstants.TYPE_OBJECT) {
       String ret;
       if (getShort) {
-        ret = DecompilerContext.getImportCollector().getNestedName(type.getValue());
+        ret = context.importCollector().getNestedName(type.getValue());
       } else {
-        ret = buildJavaClassName(type.getValue());
+        ret = buildJavaClassName(context, type.getValue());
       }
       if (ret == null) {
         return UNDEFINED_TYPE_STRING; // FIXME: a warning should be logged
       }
       List<String> nestedTypes = Arrays.asList(ret.split("\\."));
-      writeNestedClass(sb, type, nestedTypes, typeAnnWriteHelpers);
+      writeNestedClass(context, sb, type, nestedTypes, typeAnnWriteHelpers);
       popNestedTypeAnnotation(typeAnnWriteHelpers);
       return sb.toString();
     }
@@ -718,7 +713,17 @@ public class ExprProcessor implements CodeConstants {
     List<String> nestedTypes,
     List<TypeAnnotationWriteHelper> typeAnnWriteHelpers
   ) {
-    List<ClassesProcessor.ClassNode> enclosingClasses = enclosingClassList();
+    return writeNestedClass(DecompilerContext.getCurrentContext(), sb, type, nestedTypes, typeAnnWriteHelpers);
+  }
+
+  public static List<TypeAnnotationWriteHelper> writeNestedClass(
+    DecompilerContext context,
+    StringBuilder sb,
+    Type type,
+    List<String> nestedTypes,
+    List<TypeAnnotationWriteHelper> typeAnnWriteHelpers
+  ) {
+    List<ClassesProcessor.ClassNode> enclosingClasses = enclosingClassList(context);
     StringBuilder curPathBldr = new StringBuilder(type.getValue().substring(0, type.getValue().lastIndexOf('/') + 1));
     for (int i = 0; i < nestedTypes.size(); i++) {
       String nestedType = nestedTypes.get(i);
@@ -730,7 +735,7 @@ public class ExprProcessor implements CodeConstants {
       if (i == 0) { // first annotation can be written already
         if (!sb.toString().isEmpty()) shouldWrite = true; // write if annotation exists
       } else {
-        if (canWriteNestedTypeAnnotation(curPathBldr + nestedType + '$', nestedTypes.subList(i + 1, nestedTypes.size()))) {
+        if (canWriteNestedTypeAnnotation(context, curPathBldr + nestedType + '$', nestedTypes.subList(i + 1, nestedTypes.size()))) {
           List<TypeAnnotationWriteHelper> notWrittenTypeAnnotations = writeNestedTypeAnnotations(sb, typeAnnWriteHelpers);
           shouldWrite |= (notWrittenTypeAnnotations.size() != typeAnnWriteHelpers.size());
           typeAnnWriteHelpers = notWrittenTypeAnnotations;
@@ -753,17 +758,20 @@ public class ExprProcessor implements CodeConstants {
    * Nested type annotations can only be written when all types on the right of the currently annotated type don't reference a static class.
    */
   public static boolean canWriteNestedTypeAnnotation(String curPath, List<String> nestedTypes) {
+    return canWriteNestedTypeAnnotation(DecompilerContext.getCurrentContext(), curPath, nestedTypes);
+  }
+
+  public static boolean canWriteNestedTypeAnnotation(DecompilerContext context, String curPath, List<String> nestedTypes) {
     if (nestedTypes.isEmpty()) return true;
     String fullName = curPath + nestedTypes.get(0);
-    ClassesProcessor.ClassNode classNode = DecompilerContext.getClassProcessor().getMapRootClasses().get(fullName);
+    ClassesProcessor.ClassNode classNode = context.classProcessor().getMapRootClasses().get(fullName);
     if (classNode == null) return false;
-    return (classNode.access & CodeConstants.ACC_STATIC) == 0 && canWriteNestedTypeAnnotation(fullName + "$", nestedTypes.subList(1, nestedTypes.size()));
+    return (classNode.access & CodeConstants.ACC_STATIC) == 0 &&
+           canWriteNestedTypeAnnotation(context, fullName + "$", nestedTypes.subList(1, nestedTypes.size()));
   }
 
-  public static List<ClassesProcessor.ClassNode> enclosingClassList() {
-    ClassesProcessor.ClassNode enclosingClass = (ClassesProcessor.ClassNode) DecompilerContext.getProperty(
-      DecompilerContext.CURRENT_CLASS_NODE
-    );
+  public static List<ClassesProcessor.ClassNode> enclosingClassList(DecompilerContext context) {
+    ClassesProcessor.ClassNode enclosingClass = context.currentClassNode();
     List<ClassesProcessor.ClassNode> enclosingClassList = new ArrayList<>(List.of(enclosingClass));
     while (enclosingClass.parent != null) {
       enclosingClass = enclosingClass.parent;
@@ -806,9 +814,20 @@ public class ExprProcessor implements CodeConstants {
   }
 
   public static String getCastTypeName(VarType type, boolean getShort, List<TypeAnnotationWriteHelper> typeAnnWriteHelpers) {
+    return getCastTypeName(DecompilerContext.getCurrentContext(), type, getShort, typeAnnWriteHelpers);
+  }
+
+  public static String getCastTypeName(DecompilerContext context, VarType type, List<TypeAnnotationWriteHelper> typePathWriteHelper) {
+    return getCastTypeName(context, type, true, typePathWriteHelper);
+  }
+
+  public static String getCastTypeName(DecompilerContext context,
+                                       VarType type,
+                                       boolean getShort,
+                                       List<TypeAnnotationWriteHelper> typeAnnWriteHelpers) {
     List<TypeAnnotationWriteHelper> arrayTypeAnnWriteHelpers = arrayPath(type, typeAnnWriteHelpers);
     List<TypeAnnotationWriteHelper> nonArrayTypeAnnWriteHelpers = nonArrayPath(type, typeAnnWriteHelpers);
-    StringBuilder sb = new StringBuilder(getTypeName(type, getShort, nonArrayTypeAnnWriteHelpers));
+    StringBuilder sb = new StringBuilder(getTypeName(context, type, getShort, nonArrayTypeAnnWriteHelpers));
     writeArray(sb, type.getArrayDim(), arrayTypeAnnWriteHelpers);
     return sb.toString();
   }
@@ -913,11 +932,15 @@ public class ExprProcessor implements CodeConstants {
   }
 
   public static String buildJavaClassName(String name) {
+    return buildJavaClassName(DecompilerContext.getCurrentContext(), name);
+  }
+
+  public static String buildJavaClassName(DecompilerContext context, String name) {
     String res = name.replace('/', '.');
 
     if (res.contains("$")) { // attempt to invoke foreign member
       // classes correctly
-      StructClass cl = DecompilerContext.getStructContext().getClass(name);
+      StructClass cl = context.structContext().getClass(name);
       if (cl == null || !cl.isOwn()) {
         res = res.replace('$', '.');
       }
@@ -1065,4 +1088,70 @@ public class ExprProcessor implements CodeConstants {
   private static boolean isNarrowedIntType(VarType type) {
     return VarType.VARTYPE_INT.isStrictSuperset(type) || type.equals(VarType.VARTYPE_BYTE_OBJ) || type.equals(VarType.VARTYPE_SHORT_OBJ);
   }
+
+  /**
+   * Ids of the finally entry point nodes passed on the way to a node, the innermost one last. Immutable.
+   */
+  private static final class EntryPoints {
+    private static final EntryPoints EMPTY = new EntryPoints(new int[0]);
+
+    private final int[] ids;
+    private final int hashCode;
+
+    private EntryPoints(int[] ids) {
+      this.ids = ids;
+      this.hashCode = Arrays.hashCode(ids);
+    }
+
+    boolean isEmpty() {
+      return ids.length == 0;
+    }
+
+    int getLast() {
+      return ids[ids.length - 1];
+    }
+
+    int indexOf(int id) {
+      for (int i = 0; i < ids.length; i++) {
+        if (ids[i] == id) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    EntryPoints add(int id) {
+      int[] newIds = Arrays.copyOf(ids, ids.length + 1);
+      newIds[ids.length] = id;
+      return new EntryPoints(newIds);
+    }
+
+    EntryPoints removeLast() {
+      if (ids.length == 0) {
+        throw new NoSuchElementException();
+      }
+      return truncate(ids.length - 1);
+    }
+
+    EntryPoints truncate(int length) {
+      return length == 0 ? EMPTY : new EntryPoints(Arrays.copyOf(ids, length));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o == this) return true;
+      if (!(o instanceof EntryPoints)) return false;
+      return Arrays.equals(ids, ((EntryPoints)o).ids);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public String toString() {
+      return Arrays.toString(ids);
+    }
+  }
 }
@@ -10,7 +10,6 @@ import org.jetbrains.java.decompiler.code.cfg.ControlFlowGraph;
 import org.jetbrains.java.decompiler.code.cfg.ExceptionRangeCFG;
 import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.main.collectors.CounterContainer;
-import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.modules.code.DeadCodeHelper;
 import org.jetbrains.java.decompiler.modules.decompiler.StatEdge.EdgeType;
 import org.jetbrains.java.decompiler.modules.decompiler.exps.AssignmentExprent;
@@ -41,10 +40,12 @@ public class FinallyProcessor {
   private final Map<Integer, Integer> finallyBlockIDs = new HashMap<>();
   private final Map<Integer, Integer> catchallBlockIDs = new HashMap<>();
 
+  private final DecompilerContext context;
   private final MethodDescriptor methodDescriptor;
   private final VarProcessor varProcessor;
 
-  public FinallyProcessor(MethodDescriptor md, VarProcessor varProc) {
+  public FinallyProcessor(DecompilerContext context, MethodDescriptor md, VarProcessor varProc) {
+    this.context = context;
     methodDescriptor = md;
     varProcessor = varProc;
   }
@@ -56,6 +57,8 @@ public class FinallyProcessor {
     stack.add(root);
 
     while (!stack.isEmpty()) {
+      context.checkCancelled();
+
       Statement stat = stack.removeLast();
 
       Statement parent = stat.getParent();
@@ -82,11 +85,11 @@ public class FinallyProcessor {
             catchallBlockIDs.put(handler.id, null);
           }
           else {
-            if (DecompilerContext.getOption(IFernflowerPreferences.FINALLY_DEINLINE) && verifyFinallyEx(graph, fin, inf)) {
+            if (context.options().finallyDeinline && verifyFinallyEx(graph, fin, inf)) {
               finallyBlockIDs.put(handler.id, null);
             }
             else {
-              int varIndex = DecompilerContext.getCounterContainer().getCounterAndIncrement(CounterContainer.VAR_COUNTER);
+              int varIndex = context.counterContainer().getCounterAndIncrement(CounterContainer.VAR_COUNTER);
               insertSemaphore(graph, getAllBasicBlocks(fin.getFirst()), head, handler, varIndex, inf, bytecodeVersion);
 
               finallyBlockIDs.put(handler.id, varIndex);
@@ -134,7 +137,7 @@ public class FinallyProcessor {
         firstcode = 2;
     }
 
-    ExprProcessor proc = new ExprProcessor(methodDescriptor, varProcessor);
+    ExprProcessor proc = new ExprProcessor(context, methodDescriptor, varProcessor);
     proc.processStatement(root, cl);
 
     SSAConstructorSparseEx ssa = new SSAConstructorSparseEx();
@@ -1,6 +1,7 @@
 // Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package org.jetbrains.java.decompiler.modules.decompiler;
 
+import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.modules.decompiler.StatEdge.EdgeDirection;
 import org.jetbrains.java.decompiler.modules.decompiler.StatEdge.EdgeType;
 import org.jetbrains.java.decompiler.modules.decompiler.exps.Exprent;
@@ -28,6 +29,8 @@ public final class IfHelper {
 
     if (stat.getExprents() == null) {
       while (true) {
+        DecompilerContext.getCurrentContext().checkCancelled();
+
         boolean changed = false;
 
         for (Statement st : stat.getStats()) {
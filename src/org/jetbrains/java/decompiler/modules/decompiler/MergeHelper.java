@@ -19,7 +19,9 @@ import static org.jetbrains.java.decompiler.modules.decompiler.StatEdge.EdgeDire
 
 public final class MergeHelper {
   public static void enhanceLoops(Statement root) {
-    while (enhanceLoopsRec(root)) /**/;
+    while (enhanceLoopsRec(root)) {
+      DecompilerContext.getCurrentContext().checkCancelled();
+    }
     SequenceHelper.condenseSequences(root);
   }
 
@@ -4,7 +4,6 @@ package org.jetbrains.java.decompiler.modules.decompiler;
 import org.jetbrains.java.decompiler.code.CodeConstants;
 import org.jetbrains.java.decompiler.main.ClassesProcessor.ClassNode;
 import org.jetbrains.java.decompiler.main.DecompilerContext;
-import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.main.rels.ClassWrapper;
 import org.jetbrains.java.decompiler.modules.decompiler.StatEdge.EdgeType;
 import org.jetbrains.java.decompiler.modules.decompiler.exps.*;
@@ -15,6 +14,7 @@ import org.jetbrains.java.decompiler.modules.decompiler.stats.Statement.Statemen
 import org.jetbrains.java.decompiler.modules.decompiler.vars.VarVersionPair;
 import org.jetbrains.java.decompiler.struct.StructClass;
 import org.jetbrains.java.decompiler.struct.gen.VarType;
+import org.jetbrains.java.decompiler.struct.match.MatchContext;
 import org.jetbrains.java.decompiler.struct.match.MatchEngine;
 import org.jetbrains.java.decompiler.util.FastSparseSetFactory.FastSparseSet;
 import org.jetbrains.java.decompiler.util.InterpreterUtil;
@@ -58,7 +58,7 @@ public class SimplifyExprentsHelper {
 
     List<Exprent> expressions = stat.getExprents();
     if (expressions == null) {
-      boolean processClass14 = DecompilerContext.getOption(IFernflowerPreferences.DECOMPILE_CLASS_1_4);
+      boolean processClass14 = DecompilerContext.getOptions().decompileClass14;
 
       while (true) {
         boolean changed = false;
@@ -139,7 +139,7 @@ public class SimplifyExprentsHelper {
       }
 
       // remove getClass() invocation, which is part of a qualified new
-      if (DecompilerContext.getOption(IFernflowerPreferences.REMOVE_GET_CLASS_NEW)) {
+      if (DecompilerContext.getOptions().removeGetClassNew) {
         if (isQualifiedNewGetClass(current, next)) {
           list.remove(index);
           res = true;
@@ -745,11 +745,12 @@ public class SimplifyExprentsHelper {
   }
 
   private static boolean collapseInlinedClass14(Statement stat) {
-    boolean ret = class14Builder.match(stat);
+    MatchContext match = class14Builder.match(stat);
+    boolean ret = match != null;
     if (ret) {
-      String class_name = (String)class14Builder.getVariableValue("$classname$");
-      AssignmentExprent assignment = (AssignmentExprent)class14Builder.getVariableValue("$assignfield$");
-      FieldExprent fieldExpr = (FieldExprent)class14Builder.getVariableValue("$field$");
+      String class_name = (String)match.getVariableValue("$classname$");
+      AssignmentExprent assignment = (AssignmentExprent)match.getVariableValue("$assignfield$");
+      FieldExprent fieldExpr = (FieldExprent)match.getVariableValue("$field$");
 
       assignment.replaceExprent(assignment.getRight(), new ConstExprent(VarType.VARTYPE_CLASS, class_name, null));
 
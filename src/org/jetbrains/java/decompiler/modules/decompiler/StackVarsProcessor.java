@@ -586,7 +586,7 @@ public class StackVarsProcessor {
     }
 
     // compare protected ranges
-    if (!Objects.equals(ssau.getMapVersionFirstRange().get(leftpaar), ssau.getMapVersionFirstRange().get(usedvar))) {
+    if (ssau.getMapVersionFirstRange().get(leftpaar.key(), -1) != ssau.getMapVersionFirstRange().get(usedvar.key(), -1)) {
       return false;
     }
 
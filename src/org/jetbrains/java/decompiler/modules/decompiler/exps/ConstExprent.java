@@ -5,13 +5,12 @@ import org.jetbrains.java.decompiler.code.CodeConstants;
 import org.jetbrains.java.decompiler.main.ClassesProcessor;
 import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.main.collectors.BytecodeMappingTracer;
-import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.modules.decompiler.ExprProcessor;
 import org.jetbrains.java.decompiler.struct.StructField;
 import org.jetbrains.java.decompiler.struct.StructMember;
 import org.jetbrains.java.decompiler.struct.gen.FieldDescriptor;
 import org.jetbrains.java.decompiler.struct.gen.VarType;
-import org.jetbrains.java.decompiler.struct.match.MatchEngine;
+import org.jetbrains.java.decompiler.struct.match.MatchContext;
 import org.jetbrains.java.decompiler.struct.match.MatchNode;
 import org.jetbrains.java.decompiler.struct.match.MatchNode.RuleValue;
 import org.jetbrains.java.decompiler.util.TextBuffer;
@@ -122,8 +121,8 @@ public class ConstExprent extends Exprent {
 
   @Override
   public TextBuffer toJava(int indent, BytecodeMappingTracer tracer) {
-    boolean literal = DecompilerContext.getOption(IFernflowerPreferences.LITERALS_AS_IS);
-    boolean ascii = DecompilerContext.getOption(IFernflowerPreferences.ASCII_STRING_CHARACTERS);
+    boolean literal = DecompilerContext.getOptions().literalsAsIs;
+    boolean ascii = DecompilerContext.getOptions().asciiStringCharacters;
 
     tracer.addMapping(bytecode);
 
@@ -358,7 +357,7 @@ public class ConstExprent extends Exprent {
       case CodeConstants.TYPE_SHORTCHAR:
       case CodeConstants.TYPE_INT:
         int value = (Integer)this.value;
-        return value == 0 || (DecompilerContext.getOption(IFernflowerPreferences.BOOLEAN_TRUE_ONE) && value == 1);
+        return value == 0 || (DecompilerContext.getOptions().booleanTrueOne && value == 1);
     }
 
     return false;
@@ -446,8 +445,8 @@ public class ConstExprent extends Exprent {
   // *****************************************************************************
 
   @Override
-  public boolean match(MatchNode matchNode, MatchEngine engine) {
-    if (!super.match(matchNode, engine)) {
+  public boolean match(MatchNode matchNode, MatchContext context) {
+    if (!super.match(matchNode, context)) {
       return false;
     }
 
@@ -461,7 +460,7 @@ public class ConstExprent extends Exprent {
         }
       }
       else if (key == MatchProperties.EXPRENT_CONSTVALUE) {
-        if (value.isVariable() && !engine.checkAndSetVariableValue(value.value.toString(), this.value)) {
+        if (value.isVariable() && !context.checkAndSetVariableValue(value.value.toString(), this.value)) {
           return false;
         }
       }
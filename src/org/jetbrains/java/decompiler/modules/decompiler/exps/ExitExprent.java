@@ -11,7 +11,7 @@ import org.jetbrains.java.decompiler.modules.decompiler.vars.CheckTypesResult;
 import org.jetbrains.java.decompiler.struct.attr.StructExceptionsAttribute;
 import org.jetbrains.java.decompiler.struct.attr.StructGeneralAttribute;
 import org.jetbrains.java.decompiler.struct.gen.VarType;
-import org.jetbrains.java.decompiler.struct.match.MatchEngine;
+import org.jetbrains.java.decompiler.struct.match.MatchContext;
 import org.jetbrains.java.decompiler.struct.match.MatchNode;
 import org.jetbrains.java.decompiler.util.TextBuffer;
 
@@ -146,8 +146,8 @@ public class ExitExprent extends Exprent {
   // *****************************************************************************
 
   @Override
-  public boolean match(MatchNode matchNode, MatchEngine engine) {
-    if (!super.match(matchNode, engine)) {
+  public boolean match(MatchNode matchNode, MatchContext context) {
+    if (!super.match(matchNode, context)) {
       return false;
     }
 
@@ -11,7 +11,7 @@ import org.jetbrains.java.decompiler.modules.decompiler.vars.CheckTypesResult;
 import org.jetbrains.java.decompiler.modules.decompiler.vars.VarVersionPair;
 import org.jetbrains.java.decompiler.struct.gen.VarType;
 import org.jetbrains.java.decompiler.struct.match.IMatchable;
-import org.jetbrains.java.decompiler.struct.match.MatchEngine;
+import org.jetbrains.java.decompiler.struct.match.MatchContext;
 import org.jetbrains.java.decompiler.struct.match.MatchNode;
 import org.jetbrains.java.decompiler.struct.match.MatchNode.RuleValue;
 
@@ -142,10 +142,10 @@ public class Exprent implements IMatchable {
       return null;
     }
 
-    String position = (String)matchNode.getRuleValue(MatchProperties.EXPRENT_POSITION);
+    Object position = matchNode.getRuleValue(MatchProperties.EXPRENT_POSITION);
     if (position != null) {
-      if (position.matches("-?\\d+")) {
-        return lstAllExprents.get((lstAllExprents.size() + Integer.parseInt(position)) % lstAllExprents.size()); // care for negative positions
+      if (position instanceof Integer) {
+        return lstAllExprents.get((lstAllExprents.size() + (Integer)position) % lstAllExprents.size()); // care for negative positions
       }
     }
     else if (index < lstAllExprents.size()) { // use 'index' parameter
@@ -156,7 +156,7 @@ public class Exprent implements IMatchable {
   }
 
   @Override
-  public boolean match(MatchNode matchNode, MatchEngine engine) {
+  public boolean match(MatchNode matchNode, MatchContext context) {
     if (matchNode.getType() != MatchNode.MATCHNODE_EXPRENT) {
       return false;
     }
@@ -166,7 +166,7 @@ public class Exprent implements IMatchable {
       if (key == MatchProperties.EXPRENT_TYPE && this.type != (Integer)rule.getValue().value) {
         return false;
       }
-      if (key == MatchProperties.EXPRENT_RET && !engine.checkAndSetVariableValue((String)rule.getValue().value, this)) {
+      if (key == MatchProperties.EXPRENT_RET && !context.checkAndSetVariableValue((String)rule.getValue().value, this)) {
         return false;
       }
     }
@@ -12,7 +12,7 @@ import org.jetbrains.java.decompiler.struct.attr.StructLocalVariableTableAttribu
 import org.jetbrains.java.decompiler.struct.consts.LinkConstant;
 import org.jetbrains.java.decompiler.struct.gen.FieldDescriptor;
 import org.jetbrains.java.decompiler.struct.gen.VarType;
-import org.jetbrains.java.decompiler.struct.match.MatchEngine;
+import org.jetbrains.java.decompiler.struct.match.MatchContext;
 import org.jetbrains.java.decompiler.struct.match.MatchNode;
 import org.jetbrains.java.decompiler.struct.match.MatchNode.RuleValue;
 import org.jetbrains.java.decompiler.util.TextBuffer;
@@ -188,15 +188,15 @@ public class FieldExprent extends Exprent {
   // *****************************************************************************
 
   @Override
-  public boolean match(MatchNode matchNode, MatchEngine engine) {
-    if (!super.match(matchNode, engine)) {
+  public boolean match(MatchNode matchNode, MatchContext context) {
+    if (!super.match(matchNode, context)) {
       return false;
     }
 
     RuleValue rule = matchNode.getRules().get(MatchProperties.EXPRENT_FIELD_NAME);
     if (rule != null) {
       if (rule.isVariable()) {
-        return engine.checkAndSetVariableValue((String)rule.value, this.name);
+        return context.checkAndSetVariableValue((String)rule.value, this.name);
       }
       else {
         return rule.value.equals(this.name);
@@ -6,7 +6,7 @@ import org.jetbrains.java.decompiler.main.collectors.BytecodeMappingTracer;
 import org.jetbrains.java.decompiler.modules.decompiler.ExprProcessor;
 import org.jetbrains.java.decompiler.modules.decompiler.vars.CheckTypesResult;
 import org.jetbrains.java.decompiler.struct.gen.VarType;
-import org.jetbrains.java.decompiler.struct.match.MatchEngine;
+import org.jetbrains.java.decompiler.struct.match.MatchContext;
 import org.jetbrains.java.decompiler.struct.match.MatchNode;
 import org.jetbrains.java.decompiler.util.ListStack;
 import org.jetbrains.java.decompiler.util.TextBuffer;
@@ -603,8 +603,8 @@ public class FunctionExprent extends Exprent {
   // *****************************************************************************
 
   @Override
-  public boolean match(MatchNode matchNode, MatchEngine engine) {
-    if (!super.match(matchNode, engine)) {
+  public boolean match(MatchNode matchNode, MatchContext context) {
+    if (!super.match(matchNode, context)) {
       return false;
     }
 
@@ -6,7 +6,6 @@ import org.jetbrains.java.decompiler.code.CodeConstants;
 import org.jetbrains.java.decompiler.main.ClassesProcessor.ClassNode;
 import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.main.collectors.BytecodeMappingTracer;
-import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.main.rels.MethodWrapper;
 import org.jetbrains.java.decompiler.modules.decompiler.ClasspathHelper;
 import org.jetbrains.java.decompiler.modules.decompiler.ExprProcessor;
@@ -19,7 +18,7 @@ import org.jetbrains.java.decompiler.struct.consts.LinkConstant;
 import org.jetbrains.java.decompiler.struct.consts.PooledConstant;
 import org.jetbrains.java.decompiler.struct.gen.MethodDescriptor;
 import org.jetbrains.java.decompiler.struct.gen.VarType;
-import org.jetbrains.java.decompiler.struct.match.MatchEngine;
+import org.jetbrains.java.decompiler.struct.match.MatchContext;
 import org.jetbrains.java.decompiler.struct.match.MatchNode;
 import org.jetbrains.java.decompiler.struct.match.MatchNode.RuleValue;
 import org.jetbrains.java.decompiler.util.InterpreterUtil;
@@ -27,7 +26,6 @@ import org.jetbrains.java.decompiler.util.ListStack;
 import org.jetbrains.java.decompiler.util.TextBuffer;
 import org.jetbrains.java.decompiler.util.TextUtil;
 
-import java.lang.reflect.Method;
 import java.util.*;
 import java.util.Map.Entry;
 
@@ -330,7 +328,7 @@ public class InvocationExprent extends Exprent {
       ClassNode newNode = DecompilerContext.getClassProcessor().getMapRootClasses().get(className);
       if (newNode != null) {
         mask = ExprUtil.getSyntheticParametersMask(newNode, stringDescriptor, parameters.size());
-        isEnum = newNode.classStruct.hasModifier(CodeConstants.ACC_ENUM) && DecompilerContext.getOption(IFernflowerPreferences.DECOMPILE_ENUM);
+        isEnum = newNode.classStruct.hasModifier(CodeConstants.ACC_ENUM) && DecompilerContext.getOptions().decompileEnum;
       }
     }
 
@@ -383,8 +381,8 @@ public class InvocationExprent extends Exprent {
       // TODO: tap into IDEA indices to access libraries methods details
 
       // try to check the class on the classpath
-      Method mtd = ClasspathHelper.findMethod(className, name, descriptor);
-      return mtd != null && mtd.isVarArgs();
+      int flags = ClasspathHelper.getMethodAccessFlags(className, name, stringDescriptor);
+      return flags != -1 && (flags & CodeConstants.ACC_VARARGS) != 0;
     }
     return false;
   }
@@ -627,8 +625,8 @@ public class InvocationExprent extends Exprent {
   // *****************************************************************************
 
   @Override
-  public boolean match(MatchNode matchNode, MatchEngine engine) {
-    if (!super.match(matchNode, engine)) {
+  public boolean match(MatchNode matchNode, MatchContext context) {
+    if (!super.match(matchNode, context)) {
       return false;
     }
 
@@ -638,7 +636,7 @@ public class InvocationExprent extends Exprent {
       MatchProperties key = rule.getKey();
       if (key == MatchProperties.EXPRENT_INVOCATION_PARAMETER) {
         if (value.isVariable() && (value.parameter >= parameters.size() ||
-                                   !engine.checkAndSetVariableValue(value.value.toString(), parameters.get(value.parameter)))) {
+                                   !context.checkAndSetVariableValue(value.value.toString(), parameters.get(value.parameter)))) {
           return false;
         }
       }
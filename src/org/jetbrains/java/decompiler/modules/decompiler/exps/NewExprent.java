@@ -7,7 +7,6 @@ import org.jetbrains.java.decompiler.main.ClassesProcessor.ClassNode;
 import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.main.collectors.BytecodeMappingTracer;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
-import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.modules.decompiler.ExprProcessor;
 import org.jetbrains.java.decompiler.modules.decompiler.vars.CheckTypesResult;
 import org.jetbrains.java.decompiler.modules.decompiler.vars.VarVersionPair;
@@ -143,7 +142,7 @@ public class NewExprent extends Exprent {
       boolean selfReference = DecompilerContext.getProperty(DecompilerContext.CURRENT_CLASS_NODE) == child;
 
       // IDEA-204310 - avoid backtracking later on for lambdas (causes spurious imports)
-      if (!enumConst && (!lambda || DecompilerContext.getOption(IFernflowerPreferences.LAMBDA_TO_ANONYMOUS_CLASS))) {
+      if (!enumConst && (!lambda || DecompilerContext.getOptions().lambdaToAnonymousClass)) {
         String enclosing = null;
 
         if (!lambda && constructor != null) {
@@ -220,7 +219,7 @@ public class NewExprent extends Exprent {
       }
 
       if (lambda) {
-        if (!DecompilerContext.getOption(IFernflowerPreferences.LAMBDA_TO_ANONYMOUS_CLASS)) {
+        if (!DecompilerContext.getOptions().lambdaToAnonymousClass) {
           buf.setLength(0);  // remove the usual 'new <class>()', it will be replaced with lambda style '() ->'
         }
         Exprent methodObject = constructor == null ? null : constructor.getInstance();
@@ -1,42 +1,102 @@
 // Copyright 2000-2017 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package org.jetbrains.java.decompiler.modules.decompiler.sforms;
 
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.java.decompiler.modules.decompiler.exps.Exprent;
+import org.jetbrains.java.decompiler.modules.decompiler.sforms.DirectNode.DirectNodeType;
 import org.jetbrains.java.decompiler.modules.decompiler.sforms.FlattenStatementsHelper.FinallyPathWrapper;
-import org.jetbrains.java.decompiler.util.VBStyleCollection;
+import org.jetbrains.java.decompiler.modules.decompiler.stats.BasicBlockStatement;
+import org.jetbrains.java.decompiler.modules.decompiler.stats.Statement;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
 
 
 public class DirectGraph {
 
-  public final VBStyleCollection<DirectNode, String> nodes = new VBStyleCollection<>();
+  // reachable nodes in reverse post order
+  public final List<DirectNode> nodes = new ArrayList<>();
+
+  // all nodes, indexed by node id
+  private final List<DirectNode> nodesById = new ArrayList<>();
+
+  // (statement id, node type), node id
+  private final Map<Long, Integer> mapNodeIds = new HashMap<>();
+
+  // node id, negative if branch (recorded for handling of && and ||), -1 if none
+  private int[] negIfBranches = new int[16];
 
   public DirectNode first;
 
-  // exit, [source, destination]
-  public final HashMap<String, List<FinallyPathWrapper>> mapShortRangeFinallyPaths = new HashMap<>();
+  // exit node id, [source, destination]
+  public final Map<Integer, List<FinallyPathWrapper>> mapShortRangeFinallyPaths = new HashMap<>();
+
+  // exit node id, [source, destination]
+  public final Map<Integer, List<FinallyPathWrapper>> mapLongRangeFinallyPaths = new HashMap<>();
+
+  // node ids, that are exception exits of a finally block with monitor variable
+  public final Map<Integer, Integer> mapFinallyMonitorExceptionPathExits = new HashMap<>();
+
+  /**
+   * Statements of a finally handler are flattened once for every path through the handler. A node created again for
+   * the same statement and type replaces the previous one and keeps its id.
+   */
+  DirectNode addNode(@NotNull DirectNodeType type, @NotNull Statement statement, @Nullable BasicBlockStatement block) {
+    long key = ((long)statement.id << 32) | type.ordinal();
+    Integer id = mapNodeIds.get(key);
+    if (id == null) {
+      id = nodesById.size();
+      mapNodeIds.put(key, id);
+      nodesById.add(null);
+
+      if (id == negIfBranches.length) {
+        negIfBranches = Arrays.copyOf(negIfBranches, id * 2);
+      }
+      negIfBranches[id] = -1;
+    }
+
+    DirectNode node = new DirectNode(type, statement, block, id);
+    nodesById.set(id, node);
+    return node;
+  }
+
+  public DirectNode getNode(int id) {
+    return nodesById.get(id);
+  }
+
+  /**
+   * @return upper bound of node ids, to size tables indexed by node id
+   */
+  public int getNodeCount() {
+    return nodesById.size();
+  }
 
-  // exit, [source, destination]
-  public final HashMap<String, List<FinallyPathWrapper>> mapLongRangeFinallyPaths = new HashMap<>();
+  public int getNegIfBranch(int id) {
+    return negIfBranches[id];
+  }
 
-  // negative if branches (recorded for handling of && and ||)
-  public final HashMap<String, String> mapNegIfBranch = new HashMap<>();
+  void setNegIfBranch(int id, int destination) {
+    negIfBranches[id] = destination;
+  }
 
-  // nodes, that are exception exits of a finally block with monitor variable
-  public final HashMap<String, String> mapFinallyMonitorExceptionPathExits = new HashMap<>();
+  public boolean hasLongRangeFinallyPath(int exit, int source, int destination) {
+    List<FinallyPathWrapper> paths = mapLongRangeFinallyPaths.get(exit);
+    if (paths != null) {
+      for (FinallyPathWrapper path : paths) {
+        if (path.source == source && path.destination == destination) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
 
   public void sortReversePostOrder() {
     LinkedList<DirectNode> res = new LinkedList<>();
     addToReversePostOrderListIterative(first, res);
 
     nodes.clear();
-    for (DirectNode node : res) {
-      nodes.addWithKey(node, node.id);
-    }
+    nodes.addAll(res);
   }
 
   private static void addToReversePostOrderListIterative(DirectNode root, List<? super DirectNode> lst) {
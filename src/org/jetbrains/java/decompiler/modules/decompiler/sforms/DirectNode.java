@@ -13,30 +13,31 @@ import java.util.List;
 
 public class DirectNode {
   public final @NotNull DirectNodeType type;
-  public final @NotNull String id;
+  // index of the node in its graph
+  public final int id;
   public final @NotNull Statement statement;
   public final @Nullable BasicBlockStatement block;
   public final List<DirectNode> successors = new ArrayList<>();
   public final List<DirectNode> predecessors = new ArrayList<>();
   public List<Exprent> exprents = new ArrayList<>();
 
-  public DirectNode(@NotNull DirectNodeType type, @NotNull Statement statement, @NotNull String id) {
+  DirectNode(@NotNull DirectNodeType type, @NotNull Statement statement, @Nullable BasicBlockStatement block, int id) {
     this.type = type;
     this.statement = statement;
-    this.id = id;
-    this.block = null;
-  }
-
-  public DirectNode(@NotNull DirectNodeType type, @NotNull Statement statement, @NotNull BasicBlockStatement block) {
-    this.type = type;
-    this.statement = statement;
-    this.id = Integer.toString(block.id);
     this.block = block;
+    this.id = id;
   }
 
   @Override
   public String toString() {
-    return id;
+    switch (type) {
+      case TAIL: return statement.id + "_tail";
+      case INIT: return statement.id + "_init";
+      case CONDITION: return statement.id + "_cond";
+      case INCREMENT: return statement.id + "_inc";
+      case TRY: return statement.id + "_try";
+      default: return Integer.toString(statement.id);
+    }
   }
 
   public enum DirectNodeType {
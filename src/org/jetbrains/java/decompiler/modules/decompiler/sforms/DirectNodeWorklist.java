@@ -0,0 +1,89 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.modules.decompiler.sforms;
+
+import org.jetbrains.java.decompiler.main.DecompilerContext;
+import org.jetbrains.java.decompiler.modules.decompiler.sforms.FlattenStatementsHelper.FinallyPathWrapper;
+
+import java.util.*;
+
+/**
+ * Nodes of a direct graph whose variable versions have to be recomputed by the SSA constructors. Nodes are visited
+ * in rounds over the reverse post order, like a sweep over the whole graph, but only when one of their inputs changed
+ * since their last visit. Changes behind the current position of a round are picked up by the next round.
+ */
+class DirectNodeWorklist {
+  private final DirectGraph graph;
+
+  // node id, position in the reverse post order
+  private final int[] positions;
+
+  // positions of nodes which have to be visited
+  private final BitSet dirty = new BitSet();
+
+  // node id, positions of nodes which read the out maps of that node through short range finally paths
+  private final Map<Integer, BitSet> finallyDependents = new HashMap<>();
+
+  private int position = -1;
+
+  DirectNodeWorklist(DirectGraph graph) {
+    this.graph = graph;
+
+    positions = new int[graph.getNodeCount()];
+    Arrays.fill(positions, -1);
+    for (int i = 0; i < graph.nodes.size(); i++) {
+      positions[graph.nodes.get(i).id] = i;
+    }
+
+    if (!graph.mapShortRangeFinallyPaths.isEmpty()) {
+      for (DirectNode node : graph.nodes) {
+        for (DirectNode pred : node.predecessors) {
+          addFinallyDependent(pred.id, positions[node.id], new HashSet<>());
+        }
+      }
+    }
+
+    dirty.set(0, graph.nodes.size());
+  }
+
+  private void addFinallyDependent(int predid, int position, Set<Integer> visited) {
+    List<FinallyPathWrapper> finallyPaths = graph.mapShortRangeFinallyPaths.get(predid);
+    if (finallyPaths != null && visited.add(predid)) {
+      for (FinallyPathWrapper finwrap : finallyPaths) {
+        finallyDependents.computeIfAbsent(finwrap.source, k -> new BitSet()).set(position);
+        addFinallyDependent(finwrap.source, position, visited);
+      }
+    }
+  }
+
+  /**
+   * @return next node to visit, or null when no input changed since the last visit of any node
+   */
+  DirectNode next() {
+    int next = dirty.nextSetBit(position + 1);
+    if (next < 0) {
+      next = dirty.nextSetBit(0);
+      if (next < 0) {
+        return null;
+      }
+      DecompilerContext.getCurrentContext().checkCancelled();
+    }
+
+    dirty.clear(next);
+    position = next;
+    return graph.nodes.get(next);
+  }
+
+  /**
+   * Schedules the nodes which read the out maps of the given node.
+   */
+  void changed(DirectNode node) {
+    for (DirectNode successor : node.successors) {
+      dirty.set(positions[successor.id]);
+    }
+
+    BitSet dependents = finallyDependents.get(node.id);
+    if (dependents != null) {
+      dirty.or(dependents);
+    }
+  }
+}
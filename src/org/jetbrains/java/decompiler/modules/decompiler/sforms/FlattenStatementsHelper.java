@@ -16,19 +16,19 @@ import java.util.Map.Entry;
 public class FlattenStatementsHelper {
 
   // statement.id, node.id(direct), node.id(continue)
-  private final Map<Integer, String[]> mapDestinationNodes = new HashMap<>();
+  private final Map<Integer, int[]> mapDestinationNodes = new HashMap<>();
 
   // node.id(source), statement.id(destination), edge type
   private final List<Edge> listEdges = new ArrayList<>();
 
-  // node.id(exit), [node.id(source), statement.id(destination)]
-  private final Map<String, List<String[]>> mapShortRangeFinallyPathIds = new HashMap<>();
+  // node.id(exit), [node.id(source), statement.id(destination), statement.id(entry), monitor exception path, continue edge]
+  private final Map<Integer, List<int[]>> mapShortRangeFinallyPathIds = new HashMap<>();
 
-  // node.id(exit), [node.id(source), statement.id(destination)]
-  private final Map<String, List<String[]>> mapLongRangeFinallyPathIds = new HashMap<>();
+  // node.id(exit), [node.id(source), statement.id(destination), statement.id(entry), continue edge]
+  private final Map<Integer, List<int[]>> mapLongRangeFinallyPathIds = new HashMap<>();
 
-  // positive if branches
-  private final Map<String, Integer> mapPosIfBranch = new HashMap<>();
+  // node.id, statement.id(positive if branch)
+  private final Map<Integer, Integer> mapPosIfBranch = new HashMap<>();
 
   private DirectGraph graph;
 
@@ -44,14 +44,13 @@ public class FlattenStatementsHelper {
 
     // dummy exit node
     Statement dummyexit = root.getDummyExit();
-    DirectNode node = new DirectNode(DirectNodeType.DIRECT, dummyexit, Integer.toString(dummyexit.id));
+    DirectNode node = graph.addNode(DirectNodeType.DIRECT, dummyexit, null);
     node.exprents = new ArrayList<>();
-    graph.nodes.addWithKey(node, node.id);
-    mapDestinationNodes.put(dummyexit.id, new String[]{node.id, null});
+    mapDestinationNodes.put(dummyexit.id, new int[]{node.id, -1});
 
     setEdges();
 
-    graph.first = graph.nodes.getWithKey(mapDestinationNodes.get(root.id)[0]);
+    graph.first = graph.getNode(mapDestinationNodes.get(root.id)[0]);
     graph.sortReversePostOrder();
 
     return graph;
@@ -97,12 +96,11 @@ public class FlattenStatementsHelper {
 
         switch (stat.type) {
           case BASIC_BLOCK:
-            node = new DirectNode(DirectNodeType.DIRECT, stat, (BasicBlockStatement)stat);
+            node = graph.addNode(DirectNodeType.DIRECT, stat, (BasicBlockStatement)stat);
             if (stat.getExprents() != null) {
               node.exprents = stat.getExprents();
             }
-            graph.nodes.putWithKey(node, node.id);
-            mapDestinationNodes.put(stat.id, new String[]{node.id, null});
+            mapDestinationNodes.put(stat.id, new int[]{node.id, -1});
 
             lstSuccEdges.addAll(stat.getSuccessorEdges(EdgeType.DIRECT_ALL));
             sourcenode = node;
@@ -110,11 +108,10 @@ public class FlattenStatementsHelper {
             List<Exprent> tailExprentList = statEntry.tailExprents;
 
             if (tailExprentList != null) {
-              DirectNode tail = new DirectNode(DirectNodeType.TAIL, stat, stat.id + "_tail");
+              DirectNode tail = graph.addNode(DirectNodeType.TAIL, stat, null);
               tail.exprents = tailExprentList;
-              graph.nodes.putWithKey(tail, tail.id);
 
-              mapDestinationNodes.put(-stat.id, new String[]{tail.id, null});
+              mapDestinationNodes.put(-stat.id, new int[]{tail.id, -1});
               listEdges.add(new Edge(node.id, -stat.id, EdgeType.REGULAR));
 
               sourcenode = tail;
@@ -128,10 +125,9 @@ public class FlattenStatementsHelper {
             break;
           case CATCH_ALL:
           case TRY_CATCH:
-            DirectNode firstnd = new DirectNode(DirectNodeType.TRY, stat, stat.id + "_try");
+            DirectNode firstnd = graph.addNode(DirectNodeType.TRY, stat, null);
 
-            mapDestinationNodes.put(stat.id, new String[]{firstnd.id, null});
-            graph.nodes.putWithKey(firstnd, firstnd.id);
+            mapDestinationNodes.put(stat.id, new int[]{firstnd.id, -1});
 
             LinkedList<StatementStackEntry> lst = new LinkedList<>();
 
@@ -164,13 +160,13 @@ public class FlattenStatementsHelper {
               continue mainloop;
             }
 
-            nd = graph.nodes.getWithKey(mapDestinationNodes.get(stat.getFirst().id)[0]);
+            nd = graph.getNode(mapDestinationNodes.get(stat.getFirst().id)[0]);
 
             DoStatement dostat = (DoStatement)stat;
             LoopType loopType = dostat.getLoopType();
 
             if (loopType == LoopType.DO) {
-              mapDestinationNodes.put(stat.id, new String[]{nd.id, nd.id});
+              mapDestinationNodes.put(stat.id, new int[]{nd.id, nd.id});
               break;
             }
 
@@ -179,21 +175,20 @@ public class FlattenStatementsHelper {
             switch (loopType) {
               case WHILE:
               case DO_WHILE:
-                node = new DirectNode(DirectNodeType.CONDITION, stat, stat.id + "_cond");
+                node = graph.addNode(DirectNodeType.CONDITION, stat, null);
                 node.exprents = dostat.getConditionExprentList();
-                graph.nodes.putWithKey(node, node.id);
 
                 listEdges.add(new Edge(node.id, stat.getFirst().id, EdgeType.REGULAR));
 
                 if (loopType == LoopType.WHILE) {
-                  mapDestinationNodes.put(stat.id, new String[]{node.id, node.id});
+                  mapDestinationNodes.put(stat.id, new int[]{node.id, node.id});
                 }
                 else {
-                  mapDestinationNodes.put(stat.id, new String[]{nd.id, node.id});
+                  mapDestinationNodes.put(stat.id, new int[]{nd.id, node.id});
 
                   boolean found = false;
                   for (Edge edge : listEdges) {
-                    if (edge.statid.equals(stat.id) && edge.edgetype == EdgeType.CONTINUE) {
+                    if (edge.statid == stat.id && edge.edgetype == EdgeType.CONTINUE) {
                       found = true;
                       break;
                     }
@@ -205,22 +200,19 @@ public class FlattenStatementsHelper {
                 sourcenode = node;
                 break;
               case FOR:
-                DirectNode nodeinit = new DirectNode(DirectNodeType.INIT, stat, stat.id + "_init");
+                DirectNode nodeinit = graph.addNode(DirectNodeType.INIT, stat, null);
                 if (dostat.getInitExprent() != null) {
                   nodeinit.exprents = dostat.getInitExprentList();
                 }
-                graph.nodes.putWithKey(nodeinit, nodeinit.id);
 
-                DirectNode nodecond = new DirectNode(DirectNodeType.CONDITION, stat, stat.id + "_cond");
+                DirectNode nodecond = graph.addNode(DirectNodeType.CONDITION, stat, null);
                 nodecond.exprents = dostat.getConditionExprentList();
-                graph.nodes.putWithKey(nodecond, nodecond.id);
 
-                DirectNode nodeinc = new DirectNode(DirectNodeType.INCREMENT, stat, stat.id + "_inc");
+                DirectNode nodeinc = graph.addNode(DirectNodeType.INCREMENT, stat, null);
                 nodeinc.exprents = dostat.getIncExprentList();
-                graph.nodes.putWithKey(nodeinc, nodeinc.id);
 
-                mapDestinationNodes.put(stat.id, new String[]{nodeinit.id, nodeinc.id});
-                mapDestinationNodes.put(-stat.id, new String[]{nodecond.id, null});
+                mapDestinationNodes.put(stat.id, new int[]{nodeinit.id, nodeinc.id});
+                mapDestinationNodes.put(-stat.id, new int[]{nodecond.id, -1});
 
                 listEdges.add(new Edge(nodecond.id, stat.getFirst().id, EdgeType.REGULAR));
                 listEdges.add(new Edge(nodeinit.id, -stat.id, EdgeType.REGULAR));
@@ -228,7 +220,7 @@ public class FlattenStatementsHelper {
 
                 boolean found = false;
                 for (Edge edge : listEdges) {
-                  if (edge.statid.equals(stat.id) && edge.edgetype == EdgeType.CONTINUE) {
+                  if (edge.statid == stat.id && edge.edgetype == EdgeType.CONTINUE) {
                     found = true;
                     break;
                   }
@@ -274,12 +266,12 @@ public class FlattenStatementsHelper {
                 continue mainloop;
               }
 
-              node = graph.nodes.getWithKey(mapDestinationNodes.get(stat.getFirst().id)[0]);
-              mapDestinationNodes.put(stat.id, new String[]{node.id, null});
+              node = graph.getNode(mapDestinationNodes.get(stat.getFirst().id)[0]);
+              mapDestinationNodes.put(stat.id, new int[]{node.id, -1});
 
               if (stat.type == StatementType.IF && ((IfStatement)stat).iftype == IfStatement.IFTYPE_IF) {
                 lstSuccEdges.add(stat.getSuccessorEdges(EdgeType.DIRECT_ALL).get(0));  // exactly one edge
-                sourcenode = tailexprlst.get(0) == null ? node : graph.nodes.getWithKey(node.id + "_tail");
+                sourcenode = tailexprlst.get(0) == null ? node : graph.getNode(mapDestinationNodes.get(-stat.getFirst().id)[0]);
               }
             }
         }
@@ -404,18 +396,18 @@ public class FlattenStatementsHelper {
     if (finallyShortRangeSource != null) {
       boolean isContinueEdge = (edgetype == EdgeType.CONTINUE);
 
-      mapShortRangeFinallyPathIds.computeIfAbsent(sourcenode.id, k -> new ArrayList<>()).add(new String[]{
+      mapShortRangeFinallyPathIds.computeIfAbsent(sourcenode.id, k -> new ArrayList<>()).add(new int[]{
         finallyShortRangeSource.id,
-        Integer.toString(destination.id),
-        Integer.toString(finallyShortRangeEntry.id),
-        isFinallyMonitorExceptionPath ? "1" : null,
-        isContinueEdge ? "1" : null});
+        destination.id,
+        finallyShortRangeEntry.id,
+        isFinallyMonitorExceptionPath ? 1 : 0,
+        isContinueEdge ? 1 : 0});
 
-      mapLongRangeFinallyPathIds.computeIfAbsent(sourcenode.id, k -> new ArrayList<>()).add(new String[]{
+      mapLongRangeFinallyPathIds.computeIfAbsent(sourcenode.id, k -> new ArrayList<>()).add(new int[]{
         finallyLongRangeSource.id,
-        Integer.toString(destination.id),
-        Integer.toString(finallyLongRangeEntry.id),
-        isContinueEdge ? "1" : null});
+        destination.id,
+        finallyLongRangeEntry.id,
+        isContinueEdge ? 1 : 0});
     }
   }
 
@@ -423,12 +415,10 @@ public class FlattenStatementsHelper {
 
     for (Edge edge : listEdges) {
 
-      String sourceid = edge.sourceid;
-      Integer statid = edge.statid;
+      DirectNode source = graph.getNode(edge.sourceid);
+      int statid = edge.statid;
 
-      DirectNode source = graph.nodes.getWithKey(sourceid);
-
-      DirectNode dest = graph.nodes.getWithKey(mapDestinationNodes.get(statid)[edge.edgetype == EdgeType.CONTINUE ? 1 : 0]);
+      DirectNode dest = graph.getNode(mapDestinationNodes.get(statid)[edge.edgetype == EdgeType.CONTINUE ? 1 : 0]);
 
       if (!source.successors.contains(dest)) {
         source.successors.add(dest);
@@ -438,50 +428,49 @@ public class FlattenStatementsHelper {
         dest.predecessors.add(source);
       }
 
-      if (mapPosIfBranch.containsKey(sourceid) && !statid.equals(mapPosIfBranch.get(sourceid))) {
-        graph.mapNegIfBranch.put(sourceid, dest.id);
+      Integer posIfBranch = mapPosIfBranch.get(source.id);
+      if (posIfBranch != null && posIfBranch != statid) {
+        graph.setNegIfBranch(source.id, dest.id);
       }
     }
 
     for (int i = 0; i < 2; i++) {
-      for (Entry<String, List<String[]>> ent : (i == 0 ? mapShortRangeFinallyPathIds : mapLongRangeFinallyPathIds).entrySet()) {
+      for (Entry<Integer, List<int[]>> ent : (i == 0 ? mapShortRangeFinallyPathIds : mapLongRangeFinallyPathIds).entrySet()) {
 
-        List<FinallyPathWrapper> newLst = new ArrayList<>();
+        Set<FinallyPathWrapper> newSet = new LinkedHashSet<>();
 
-        List<String[]> lst = ent.getValue();
-        for (String[] arr : lst) {
+        List<int[]> lst = ent.getValue();
+        for (int[] arr : lst) {
 
-          boolean isContinueEdge = arr[i == 0 ? 4 : 3] != null;
+          boolean isContinueEdge = arr[i == 0 ? 4 : 3] != 0;
 
-          DirectNode dest = graph.nodes.getWithKey(mapDestinationNodes.get(Integer.parseInt(arr[1]))[isContinueEdge ? 1 : 0]);
-          DirectNode enter = graph.nodes.getWithKey(mapDestinationNodes.get(Integer.parseInt(arr[2]))[0]);
+          int dest = mapDestinationNodes.get(arr[1])[isContinueEdge ? 1 : 0];
+          int enter = mapDestinationNodes.get(arr[2])[0];
 
-          newLst.add(new FinallyPathWrapper(arr[0], dest.id, enter.id));
+          newSet.add(new FinallyPathWrapper(arr[0], dest, enter));
 
-          if (i == 0 && arr[3] != null) {
-            graph.mapFinallyMonitorExceptionPathExits.put(ent.getKey(), dest.id);
+          if (i == 0 && arr[3] != 0) {
+            graph.mapFinallyMonitorExceptionPathExits.put(ent.getKey(), dest);
           }
         }
 
-        if (!newLst.isEmpty()) {
-          (i == 0 ? graph.mapShortRangeFinallyPaths : graph.mapLongRangeFinallyPaths).put(ent.getKey(),
-                                                                                          new ArrayList<>(
-                                                                                            new HashSet<>(newLst)));
+        if (!newSet.isEmpty()) {
+          (i == 0 ? graph.mapShortRangeFinallyPaths : graph.mapLongRangeFinallyPaths).put(ent.getKey(), new ArrayList<>(newSet));
         }
       }
     }
   }
 
-  public Map<Integer, String[]> getMapDestinationNodes() {
+  public Map<Integer, int[]> getMapDestinationNodes() {
     return mapDestinationNodes;
   }
 
   public static final class FinallyPathWrapper {
-    public final String source;
-    public final String destination;
-    public final String entry;
+    public final int source;
+    public final int destination;
+    public final int entry;
 
-    private FinallyPathWrapper(String source, String destination, String entry) {
+    private FinallyPathWrapper(int source, int destination, int entry) {
       this.source = source;
       this.destination = destination;
       this.entry = entry;
@@ -493,12 +482,12 @@ public class FlattenStatementsHelper {
       if (!(o instanceof FinallyPathWrapper)) return false;
 
       FinallyPathWrapper fpw = (FinallyPathWrapper)o;
-      return (source + ":" + destination + ":" + entry).equals(fpw.source + ":" + fpw.destination + ":" + fpw.entry);
+      return source == fpw.source && destination == fpw.destination && entry == fpw.entry;
     }
 
     @Override
     public int hashCode() {
-      return (source + ":" + destination + ":" + entry).hashCode();
+      return (source * 31 + destination) * 31 + entry;
     }
 
     @Override
@@ -549,11 +538,11 @@ public class FlattenStatementsHelper {
   }
 
   private static class Edge {
-    public final String sourceid;
-    public final Integer statid;
+    public final int sourceid;
+    public final int statid;
     public final EdgeType edgetype;
 
-    Edge(String sourceid, Integer statid, EdgeType edgetype) {
+    Edge(int sourceid, int statid, EdgeType edgetype) {
       this.sourceid = sourceid;
       this.statid = statid;
       this.edgetype = edgetype;
@@ -28,16 +28,16 @@ import java.util.Objects;
 public class SSAConstructorSparseEx {
 
   // node id, var, version
-  private final HashMap<String, SFormsFastMapDirect> inVarVersions = new HashMap<>();
+  private SFormsFastMapDirect[] inVarVersions;
 
   // node id, var, version (direct branch)
-  private final HashMap<String, SFormsFastMapDirect> outVarVersions = new HashMap<>();
+  private SFormsFastMapDirect[] outVarVersions;
 
   // node id, var, version (negative branch)
-  private final HashMap<String, SFormsFastMapDirect> outNegVarVersions = new HashMap<>();
+  private SFormsFastMapDirect[] outNegVarVersions;
 
   // node id, var, version
-  private final HashMap<String, SFormsFastMapDirect> extraVarVersions = new HashMap<>();
+  private SFormsFastMapDirect[] extraVarVersions;
 
   // (var, version), version
   private final HashMap<VarVersionPair, FastSparseSet<Integer>> phi = new HashMap<>();
@@ -63,70 +63,72 @@ public class SSAConstructorSparseEx {
     }
     factory = new FastSparseSetFactory<>(setInit);
 
-    SFormsFastMapDirect firstmap = createFirstMap(mt);
-    extraVarVersions.put(dgraph.first.id, firstmap);
-
-    setCatchMaps(root, dgraph, flatthelper);
+    int nodeCount = dgraph.getNodeCount();
+    inVarVersions = new SFormsFastMapDirect[nodeCount];
+    outVarVersions = new SFormsFastMapDirect[nodeCount];
+    outNegVarVersions = new SFormsFastMapDirect[nodeCount];
+    extraVarVersions = new SFormsFastMapDirect[nodeCount];
 
-    HashSet<String> updated = new HashSet<>();
-    do {
-      // System.out.println("~~~~~~~~~~~~~ \r\n"+root.toJava());
-      ssaStatements(dgraph, updated);
-      // System.out.println("~~~~~~~~~~~~~ \r\n"+root.toJava());
-    }
-    while (!updated.isEmpty());
-  }
+    SFormsFastMapDirect firstmap = createFirstMap(mt);
+    extraVarVersions[dgraph.first.id] = firstmap;
 
-  private void ssaStatements(DirectGraph dgraph, HashSet<String> updated) {
+    setCatchMaps(root, flatthelper);
 
     // try {
     // DotExporter.toDotFile(dgraph, new File("c:\\Temp\\gr1_my.dot"));
     // } catch(Exception ex) {ex.printStackTrace();}
 
-    for (DirectNode node : dgraph.nodes) {
+    DirectNodeWorklist worklist = new DirectNodeWorklist(dgraph);
+    for (DirectNode node = worklist.next(); node != null; node = worklist.next()) {
+      if (ssaStatement(dgraph, node)) {
+        worklist.changed(node);
+      }
+    }
+  }
 
-      //			if (node.id.endsWith("_inc")) {
-      //				System.out.println();
-      //
-      //				try {
-      //					DotExporter.toDotFile(dgraph, new File("c:\\Temp\\gr1_my.dot"));
-      //				} catch (Exception ex) {
-      //					ex.printStackTrace();
-      //				}
-      //			}
+  /**
+   * @return whether the out maps of the node changed
+   */
+  private boolean ssaStatement(DirectGraph dgraph, DirectNode node) {
 
-      updated.remove(node.id);
-      mergeInVarMaps(node, dgraph);
+    //			if (node.id.endsWith("_inc")) {
+    //				System.out.println();
+    //
+    //				try {
+    //					DotExporter.toDotFile(dgraph, new File("c:\\Temp\\gr1_my.dot"));
+    //				} catch (Exception ex) {
+    //					ex.printStackTrace();
+    //				}
+    //			}
 
-      SFormsFastMapDirect varmap = inVarVersions.get(node.id);
-      varmap = new SFormsFastMapDirect(varmap);
+    mergeInVarMaps(node, dgraph);
 
-      SFormsFastMapDirect[] varmaparr = new SFormsFastMapDirect[]{varmap, null};
+    SFormsFastMapDirect varmap = inVarVersions[node.id];
+    varmap = new SFormsFastMapDirect(varmap);
 
-      if (node.exprents != null) {
-        for (Exprent expr : node.exprents) {
-          processExprent(expr, varmaparr);
-        }
-      }
+    SFormsFastMapDirect[] varmaparr = new SFormsFastMapDirect[]{varmap, null};
 
-      if (varmaparr[1] == null) {
-        varmaparr[1] = varmaparr[0];
+    if (node.exprents != null) {
+      for (Exprent expr : node.exprents) {
+        processExprent(expr, varmaparr);
       }
+    }
 
-      boolean this_updated = !mapsEqual(varmaparr[0], outVarVersions.get(node.id))
-                             || (outNegVarVersions.containsKey(node.id) && !mapsEqual(varmaparr[1], outNegVarVersions.get(node.id)));
+    if (varmaparr[1] == null) {
+      varmaparr[1] = varmaparr[0];
+    }
 
-      if (this_updated) {
-        outVarVersions.put(node.id, varmaparr[0]);
-        if (dgraph.mapNegIfBranch.containsKey(node.id)) {
-          outNegVarVersions.put(node.id, varmaparr[1]);
-        }
+    boolean this_updated = !mapsEqual(varmaparr[0], outVarVersions[node.id])
+                           || (outNegVarVersions[node.id] != null && !mapsEqual(varmaparr[1], outNegVarVersions[node.id]));
 
-        for (DirectNode nd : node.successors) {
-          updated.add(nd.id);
-        }
+    if (this_updated) {
+      outVarVersions[node.id] = varmaparr[0];
+      if (dgraph.getNegIfBranch(node.id) >= 0) {
+        outNegVarVersions[node.id] = varmaparr[1];
       }
     }
+
+    return this_updated;
   }
 
   private void processExprent(Exprent expr, SFormsFastMapDirect[] varmaparr) {
@@ -295,8 +297,8 @@ public class SSAConstructorSparseEx {
       }
     }
 
-    if (extraVarVersions.containsKey(node.id)) {
-      SFormsFastMapDirect mapExtra = extraVarVersions.get(node.id);
+    SFormsFastMapDirect mapExtra = extraVarVersions[node.id];
+    if (mapExtra != null) {
       if (mapNew.isEmpty()) {
         mapNew = mapExtra.getCopy();
       }
@@ -305,39 +307,34 @@ public class SSAConstructorSparseEx {
       }
     }
 
-    inVarVersions.put(node.id, mapNew);
+    inVarVersions[node.id] = mapNew;
   }
 
-  private SFormsFastMapDirect getFilteredOutMap(String nodeid, String predid, DirectGraph dgraph, String destid) {
+  private SFormsFastMapDirect getFilteredOutMap(int nodeid, int predid, DirectGraph dgraph, int destid) {
 
     SFormsFastMapDirect mapNew = new SFormsFastMapDirect();
 
-    if (nodeid.equals(dgraph.mapNegIfBranch.get(predid))) {
-      if (outNegVarVersions.containsKey(predid)) {
-        mapNew = outNegVarVersions.get(predid).getCopy();
+    if (nodeid == dgraph.getNegIfBranch(predid)) {
+      if (outNegVarVersions[predid] != null) {
+        mapNew = outNegVarVersions[predid].getCopy();
       }
     }
-    else if (outVarVersions.containsKey(predid)) {
-      mapNew = outVarVersions.get(predid).getCopy();
+    else if (outVarVersions[predid] != null) {
+      mapNew = outVarVersions[predid].getCopy();
     }
 
-    boolean isFinallyExit = dgraph.mapShortRangeFinallyPaths.containsKey(predid);
+    List<FinallyPathWrapper> finallyPaths = dgraph.mapShortRangeFinallyPaths.get(predid);
 
-    if (isFinallyExit && !mapNew.isEmpty()) {
+    if (finallyPaths != null && !mapNew.isEmpty()) {
 
       SFormsFastMapDirect mapNewTemp = mapNew.getCopy();
 
       SFormsFastMapDirect mapTrueSource = new SFormsFastMapDirect();
 
-      String exceptionDest = dgraph.mapFinallyMonitorExceptionPathExits.get(predid);
-      boolean isExceptionMonitorExit = (exceptionDest != null && !nodeid.equals(exceptionDest));
-
-      HashSet<String> setLongPathWrapper = new HashSet<>();
-      for (FinallyPathWrapper finwraplong : dgraph.mapLongRangeFinallyPaths.get(predid)) {
-        setLongPathWrapper.add(finwraplong.destination + "##" + finwraplong.source);
-      }
+      Integer exceptionDest = dgraph.mapFinallyMonitorExceptionPathExits.get(predid);
+      boolean isExceptionMonitorExit = (exceptionDest != null && nodeid != exceptionDest);
 
-      for (FinallyPathWrapper finwrap : dgraph.mapShortRangeFinallyPaths.get(predid)) {
+      for (FinallyPathWrapper finwrap : finallyPaths) {
         SFormsFastMapDirect map;
 
         boolean recFinally = dgraph.mapShortRangeFinallyPaths.containsKey(finwrap.source);
@@ -347,11 +344,11 @@ public class SSAConstructorSparseEx {
           map = getFilteredOutMap(finwrap.entry, finwrap.source, dgraph, destid);
         }
         else {
-          if (finwrap.entry.equals(dgraph.mapNegIfBranch.get(finwrap.source))) {
-            map = outNegVarVersions.get(finwrap.source);
+          if (finwrap.entry == dgraph.getNegIfBranch(finwrap.source)) {
+            map = outNegVarVersions[finwrap.source];
           }
           else {
-            map = outVarVersions.get(finwrap.source);
+            map = outVarVersions[finwrap.source];
           }
         }
 
@@ -359,10 +356,10 @@ public class SSAConstructorSparseEx {
         boolean isFalsePath;
 
         if (recFinally) {
-          isFalsePath = !finwrap.destination.equals(nodeid);
+          isFalsePath = finwrap.destination != nodeid;
         }
         else {
-          isFalsePath = !setLongPathWrapper.contains(destid + "##" + finwrap.source);
+          isFalsePath = !dgraph.hasLongRangeFinallyPath(predid, finwrap.source, destid);
         }
 
         if (isFalsePath) {
@@ -388,7 +385,7 @@ public class SSAConstructorSparseEx {
 
         mapNewTemp.union(mapTrueSource);
 
-        SFormsFastMapDirect oldInMap = inVarVersions.get(nodeid);
+        SFormsFastMapDirect oldInMap = inVarVersions[nodeid];
         if (oldInMap != null) {
           mapNewTemp.union(oldInMap);
         }
@@ -437,7 +434,7 @@ public class SSAConstructorSparseEx {
     varmap.put(var, set);
   }
 
-  private void setCatchMaps(Statement stat, DirectGraph dgraph, FlattenStatementsHelper flatthelper) {
+  private void setCatchMaps(Statement stat, FlattenStatementsHelper flatthelper) {
 
     SFormsFastMapDirect map;
 
@@ -460,12 +457,12 @@ public class SSAConstructorSparseEx {
           map = new SFormsFastMapDirect();
           setCurrentVar(map, varindex, version);
 
-          extraVarVersions.put(dgraph.nodes.getWithKey(flatthelper.getMapDestinationNodes().get(stat.getStats().get(i).id)[0]).id, map);
+          extraVarVersions[flatthelper.getMapDestinationNodes().get(stat.getStats().get(i).id)[0]] = map;
         }
     }
 
     for (Statement st : stat.getStats()) {
-      setCatchMaps(st, dgraph, flatthelper);
+      setCatchMaps(st, flatthelper);
     }
   }
 
@@ -2,6 +2,7 @@
 package org.jetbrains.java.decompiler.modules.decompiler.sforms;
 
 import org.jetbrains.java.decompiler.code.CodeConstants;
+import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.modules.decompiler.exps.*;
 import org.jetbrains.java.decompiler.modules.decompiler.sforms.FlattenStatementsHelper.FinallyPathWrapper;
 import org.jetbrains.java.decompiler.modules.decompiler.stats.*;
@@ -14,6 +15,8 @@ import org.jetbrains.java.decompiler.struct.StructMethod;
 import org.jetbrains.java.decompiler.struct.gen.MethodDescriptor;
 import org.jetbrains.java.decompiler.util.FastSparseSetFactory;
 import org.jetbrains.java.decompiler.util.FastSparseSetFactory.FastSparseSet;
+import org.jetbrains.java.decompiler.util.LongIntHashMap;
+import org.jetbrains.java.decompiler.util.LongObjectHashMap;
 import org.jetbrains.java.decompiler.util.SFormsFastMapDirect;
 import org.jetbrains.java.decompiler.util.VBStyleCollection;
 
@@ -23,32 +26,31 @@ import java.util.Map.Entry;
 public class SSAUConstructorSparseEx {
 
   // node id, var, version
-  private final HashMap<String, SFormsFastMapDirect> inVarVersions = new HashMap<>();
-  //private HashMap<String, HashMap<Integer, FastSet<Integer>>> inVarVersions = new HashMap<String, HashMap<Integer, FastSet<Integer>>>();
+  private SFormsFastMapDirect[] inVarVersions;
 
   // node id, var, version (direct branch)
-  private final HashMap<String, SFormsFastMapDirect> outVarVersions = new HashMap<>();
-  //private HashMap<String, HashMap<Integer, FastSet<Integer>>> outVarVersions = new HashMap<String, HashMap<Integer, FastSet<Integer>>>();
+  private SFormsFastMapDirect[] outVarVersions;
 
   // node id, var, version (negative branch)
-  private final HashMap<String, SFormsFastMapDirect> outNegVarVersions = new HashMap<>();
-  //private HashMap<String, HashMap<Integer, FastSet<Integer>>> outNegVarVersions = new HashMap<String, HashMap<Integer, FastSet<Integer>>>();
+  private SFormsFastMapDirect[] outNegVarVersions;
 
   // node id, var, version
-  private final HashMap<String, SFormsFastMapDirect> extraVarVersions = new HashMap<>();
-  //private HashMap<String, HashMap<Integer, FastSet<Integer>>> extraVarVersions = new HashMap<String, HashMap<Integer, FastSet<Integer>>>();
+  private SFormsFastMapDirect[] extraVarVersions;
+
+  // (destination node id, source node id) of all long range finally paths, packed into a long
+  private final Set<Long> setLongPathWrapper = new HashSet<>();
 
   // var, version
   private final HashMap<Integer, Integer> lastversion = new HashMap<>();
 
   // version, protected ranges (catch, finally)
-  private final HashMap<VarVersionPair, Integer> mapVersionFirstRange = new HashMap<>();
+  private final LongIntHashMap mapVersionFirstRange = new LongIntHashMap();
 
   // version, version
-  private final HashMap<VarVersionPair, VarVersionPair> phantomppnodes = new HashMap<>(); // ++ and --
+  private final LongObjectHashMap<VarVersionPair> phantomppnodes = new LongObjectHashMap<>(); // ++ and --
 
   // node.id, version, version
-  private final HashMap<String, HashMap<VarVersionPair, VarVersionPair>> phantomexitnodes =
+  private final HashMap<Integer, LongObjectHashMap<VarVersionPair>> phantomexitnodes =
     new HashMap<>(); // finally exits
 
   // versions memory dependencies
@@ -74,73 +76,82 @@ public class SSAUConstructorSparseEx {
     }
     factory = new FastSparseSetFactory<>(setInit);
 
-    extraVarVersions.put(dgraph.first.id, createFirstMap(mt, root));
+    int nodeCount = dgraph.getNodeCount();
+    inVarVersions = new SFormsFastMapDirect[nodeCount];
+    outVarVersions = new SFormsFastMapDirect[nodeCount];
+    outNegVarVersions = new SFormsFastMapDirect[nodeCount];
+    extraVarVersions = new SFormsFastMapDirect[nodeCount];
+
+    for (List<FinallyPathWrapper> lstwrapper : dgraph.mapLongRangeFinallyPaths.values()) {
+      for (FinallyPathWrapper finwraplong : lstwrapper) {
+        setLongPathWrapper.add(getPathKey(finwraplong.destination, finwraplong.source));
+      }
+    }
 
-    setCatchMaps(root, dgraph, flatthelper);
+    extraVarVersions[dgraph.first.id] = createFirstMap(mt, root);
+
+    setCatchMaps(root, flatthelper);
 
     //		try {
     //			DotExporter.toDotFile(dgraph, new File("c:\\Temp\\gr12_my.dot"));
     //		} catch(Exception ex) {ex.printStackTrace();}
 
-    HashSet<String> updated = new HashSet<>();
-    do {
-      //			System.out.println("~~~~~~~~~~~~~ \r\n"+root.toJava());
-      ssaStatements(dgraph, updated, false);
-      //			System.out.println("~~~~~~~~~~~~~ \r\n"+root.toJava());
+    DecompilerContext.getCurrentContext().checkCancelled();
+    DirectNodeWorklist worklist = new DirectNodeWorklist(dgraph);
+    for (DirectNode node = worklist.next(); node != null; node = worklist.next()) {
+      if (ssaStatement(dgraph, node, false)) {
+        worklist.changed(node);
+      }
     }
-    while (!updated.isEmpty());
-
 
-    ssaStatements(dgraph, updated, true);
+    for (DirectNode node : dgraph.nodes) {
+      ssaStatement(dgraph, node, true);
+    }
 
     ssuversions.initDominators();
   }
 
-  private void ssaStatements(DirectGraph dgraph, HashSet<String> updated, boolean calcLiveVars) {
-
-    for (DirectNode node : dgraph.nodes) {
+  /**
+   * @return whether the out maps of the node changed
+   */
+  private boolean ssaStatement(DirectGraph dgraph, DirectNode node, boolean calcLiveVars) {
+    mergeInVarMaps(node, dgraph);
 
-      updated.remove(node.id);
-      mergeInVarMaps(node, dgraph);
+    SFormsFastMapDirect varmap = new SFormsFastMapDirect(inVarVersions[node.id]);
 
-      SFormsFastMapDirect varmap = new SFormsFastMapDirect(inVarVersions.get(node.id));
+    SFormsFastMapDirect[] varmaparr = new SFormsFastMapDirect[]{varmap, null};
 
-      SFormsFastMapDirect[] varmaparr = new SFormsFastMapDirect[]{varmap, null};
-
-      if (node.exprents != null) {
-        for (Exprent expr : node.exprents) {
-          processExprent(expr, varmaparr, node.statement, calcLiveVars);
-        }
-      }
-
-      if (varmaparr[1] == null) {
-        varmaparr[1] = varmaparr[0];
+    if (node.exprents != null) {
+      for (Exprent expr : node.exprents) {
+        processExprent(expr, varmaparr, node.statement, calcLiveVars);
       }
+    }
 
-      // quick solution: 'dummy' field variables should not cross basic block borders (otherwise problems e.g. with finally loops - usage without assignment in a loop)
-      // For the full solution consider adding a dummy assignment at the entry point of the method
-      boolean allow_field_propagation = node.successors.isEmpty() || (node.successors.size() == 1 && node.successors.get(0).predecessors.size() == 1);
+    if (varmaparr[1] == null) {
+      varmaparr[1] = varmaparr[0];
+    }
 
-      if (!allow_field_propagation && varmaparr[0] != null) {
-        varmaparr[0].removeAllFields();
-        varmaparr[1].removeAllFields();
-      }
+    // quick solution: 'dummy' field variables should not cross basic block borders (otherwise problems e.g. with finally loops - usage without assignment in a loop)
+    // For the full solution consider adding a dummy assignment at the entry point of the method
+    boolean allow_field_propagation = node.successors.isEmpty() || (node.successors.size() == 1 && node.successors.get(0).predecessors.size() == 1);
 
-      boolean this_updated = !mapsEqual(varmaparr[0], outVarVersions.get(node.id))
-                             || (outNegVarVersions.containsKey(node.id) && !mapsEqual(varmaparr[1], outNegVarVersions.get(node.id)));
+    if (!allow_field_propagation && varmaparr[0] != null) {
+      varmaparr[0].removeAllFields();
+      varmaparr[1].removeAllFields();
+    }
 
-      if (this_updated) {
+    boolean this_updated = !mapsEqual(varmaparr[0], outVarVersions[node.id])
+                           || (outNegVarVersions[node.id] != null && !mapsEqual(varmaparr[1], outNegVarVersions[node.id]));
 
-        outVarVersions.put(node.id, varmaparr[0]);
-        if (dgraph.mapNegIfBranch.containsKey(node.id)) {
-          outNegVarVersions.put(node.id, varmaparr[1]);
-        }
+    if (this_updated) {
 
-        for (DirectNode nd : node.successors) {
-          updated.add(nd.id);
-        }
+      outVarVersions[node.id] = varmaparr[0];
+      if (dgraph.getNegIfBranch(node.id) >= 0) {
+        outNegVarVersions[node.id] = varmaparr[1];
       }
     }
+
+    return this_updated;
   }
 
 
@@ -312,7 +323,7 @@ public class SSAUConstructorSparseEx {
             VarVersionPair varpaar = new VarVersionPair(varindex.intValue(), var.getVersion());
 
             // ssu graph
-            VarVersionPair phantomver = phantomppnodes.get(varpaar);
+            VarVersionPair phantomver = phantomppnodes.get(varpaar.key());
             if (phantomver == null) {
               // get next version
               Integer nextver = getNextFreeVersion(varindex, null);
@@ -333,7 +344,7 @@ public class SSAUConstructorSparseEx {
               }
               vers.add(nextver);
               createOrUpdatePhiNode(varpaar, vers, stat);
-              phantomppnodes.put(varpaar, phantomver);
+              phantomppnodes.put(varpaar.key(), phantomver);
             }
             if (calcLiveVars) {
               varMapToGraph(varpaar, varmap);
@@ -408,7 +419,8 @@ public class SSAUConstructorSparseEx {
     FastSparseSet<Integer> versCopy = vers.getCopy();
 
     // take into account the corresponding mm/pp node if existing
-    int ppvers = phantomppnodes.containsKey(phivar) ? phantomppnodes.get(phivar).version : -1;
+    VarVersionPair ppvar = phantomppnodes.get(phivar.key());
+    int ppvers = ppvar != null ? ppvar.version : -1;
 
     // ssu graph
     VarVersionNode phinode = ssuversions.nodes.getWithKey(phivar);
@@ -485,7 +497,7 @@ public class SSAUConstructorSparseEx {
     if (stat != null) { // null iff phantom version
       Integer firstRangeId = getFirstProtectedRange(stat);
       if (firstRangeId != null) {
-        mapVersionFirstRange.put(new VarVersionPair(var, nextver), firstRangeId);
+        mapVersionFirstRange.put(VarVersionPair.key(var, nextver), firstRangeId);
       }
     }
 
@@ -507,8 +519,8 @@ public class SSAUConstructorSparseEx {
       }
     }
 
-    if (extraVarVersions.containsKey(node.id)) {
-      SFormsFastMapDirect mapExtra = extraVarVersions.get(node.id);
+    SFormsFastMapDirect mapExtra = extraVarVersions[node.id];
+    if (mapExtra != null) {
       if (mapNew.isEmpty()) {
         mapNew = mapExtra.getCopy();
       }
@@ -517,41 +529,34 @@ public class SSAUConstructorSparseEx {
       }
     }
 
-    inVarVersions.put(node.id, mapNew);
+    inVarVersions[node.id] = mapNew;
   }
 
-  private SFormsFastMapDirect getFilteredOutMap(String nodeid, String predid, DirectGraph dgraph, String destid) {
+  private SFormsFastMapDirect getFilteredOutMap(int nodeid, int predid, DirectGraph dgraph, int destid) {
 
     SFormsFastMapDirect mapNew = new SFormsFastMapDirect();
 
-    boolean isFinallyExit = dgraph.mapShortRangeFinallyPaths.containsKey(predid);
+    List<FinallyPathWrapper> finallyPaths = dgraph.mapShortRangeFinallyPaths.get(predid);
 
-    if (nodeid.equals(dgraph.mapNegIfBranch.get(predid))) {
-      if (outNegVarVersions.containsKey(predid)) {
-        mapNew = outNegVarVersions.get(predid).getCopy();
+    if (nodeid == dgraph.getNegIfBranch(predid)) {
+      if (outNegVarVersions[predid] != null) {
+        mapNew = outNegVarVersions[predid].getCopy();
       }
     }
-    else if (outVarVersions.containsKey(predid)) {
-      mapNew = outVarVersions.get(predid).getCopy();
+    else if (outVarVersions[predid] != null) {
+      mapNew = outVarVersions[predid].getCopy();
     }
 
-    if (isFinallyExit) {
+    if (finallyPaths != null) {
 
       SFormsFastMapDirect mapNewTemp = mapNew.getCopy();
 
       SFormsFastMapDirect mapTrueSource = new SFormsFastMapDirect();
 
-      String exceptionDest = dgraph.mapFinallyMonitorExceptionPathExits.get(predid);
-      boolean isExceptionMonitorExit = (exceptionDest != null && !nodeid.equals(exceptionDest));
-
-      HashSet<String> setLongPathWrapper = new HashSet<>();
-      for (List<FinallyPathWrapper> lstwrapper : dgraph.mapLongRangeFinallyPaths.values()) {
-        for (FinallyPathWrapper finwraplong : lstwrapper) {
-          setLongPathWrapper.add(finwraplong.destination + "##" + finwraplong.source);
-        }
-      }
+      Integer exceptionDest = dgraph.mapFinallyMonitorExceptionPathExits.get(predid);
+      boolean isExceptionMonitorExit = (exceptionDest != null && nodeid != exceptionDest);
 
-      for (FinallyPathWrapper finwrap : dgraph.mapShortRangeFinallyPaths.get(predid)) {
+      for (FinallyPathWrapper finwrap : finallyPaths) {
         SFormsFastMapDirect map;
 
         boolean recFinally = dgraph.mapShortRangeFinallyPaths.containsKey(finwrap.source);
@@ -561,11 +566,11 @@ public class SSAUConstructorSparseEx {
           map = getFilteredOutMap(finwrap.entry, finwrap.source, dgraph, destid);
         }
         else {
-          if (finwrap.entry.equals(dgraph.mapNegIfBranch.get(finwrap.source))) {
-            map = outNegVarVersions.get(finwrap.source);
+          if (finwrap.entry == dgraph.getNegIfBranch(finwrap.source)) {
+            map = outNegVarVersions[finwrap.source];
           }
           else {
-            map = outVarVersions.get(finwrap.source);
+            map = outVarVersions[finwrap.source];
           }
         }
 
@@ -573,10 +578,10 @@ public class SSAUConstructorSparseEx {
         boolean isFalsePath;
 
         if (recFinally) {
-          isFalsePath = !finwrap.destination.equals(nodeid);
+          isFalsePath = finwrap.destination != nodeid;
         }
         else {
-          isFalsePath = !setLongPathWrapper.contains(destid + "##" + finwrap.source);
+          isFalsePath = !setLongPathWrapper.contains(getPathKey(destid, finwrap.source));
         }
 
         if (isFalsePath) {
@@ -606,9 +611,9 @@ public class SSAUConstructorSparseEx {
         if (!mapTrueSource.isEmpty() && !mapNew.isEmpty()) { // FIXME: what for??
 
           // replace phi versions with corresponding phantom ones
-          HashMap<VarVersionPair, VarVersionPair> mapPhantom = phantomexitnodes.get(predid);
+          LongObjectHashMap<VarVersionPair> mapPhantom = phantomexitnodes.get(predid);
           if (mapPhantom == null) {
-            mapPhantom = new HashMap<>();
+            mapPhantom = new LongObjectHashMap<>();
           }
 
           SFormsFastMapDirect mapExitVar = mapNew.getCopy();
@@ -625,7 +630,7 @@ public class SSAUConstructorSparseEx {
               newSet.remove(version);
 
               // get or create phantom version
-              VarVersionPair phantomvar = mapPhantom.get(exitvar);
+              VarVersionPair phantomvar = mapPhantom.get(exitvar.key());
               if (phantomvar == null) {
                 Integer newversion = getNextFreeVersion(exitvar.var, null);
                 phantomvar = new VarVersionPair(exitvar.var, newversion.intValue());
@@ -638,7 +643,7 @@ public class SSAUConstructorSparseEx {
                 exitnode.addSuccessor(edge);
                 phantomnode.addPredecessor(edge);
 
-                mapPhantom.put(exitvar, phantomvar);
+                mapPhantom.put(exitvar.key(), phantomvar);
               }
 
               // add phantom version
@@ -656,6 +661,10 @@ public class SSAUConstructorSparseEx {
     return mapNew;
   }
 
+  private static long getPathKey(int destination, int source) {
+    return ((long)destination << 32) | source;
+  }
+
   private static SFormsFastMapDirect mergeMaps(SFormsFastMapDirect mapTo, SFormsFastMapDirect map2) {
 
     if (map2 != null && !map2.isEmpty()) {
@@ -694,7 +703,7 @@ public class SSAUConstructorSparseEx {
     varmap.put(var, set);
   }
 
-  private void setCatchMaps(Statement stat, DirectGraph dgraph, FlattenStatementsHelper flatthelper) {
+  private void setCatchMaps(Statement stat, FlattenStatementsHelper flatthelper) {
 
     SFormsFastMapDirect map;
 
@@ -717,14 +726,14 @@ public class SSAUConstructorSparseEx {
           map = new SFormsFastMapDirect();
           setCurrentVar(map, varindex, version);
 
-          extraVarVersions.put(dgraph.nodes.getWithKey(flatthelper.getMapDestinationNodes().get(stat.getStats().get(i).id)[0]).id, map);
+          extraVarVersions[flatthelper.getMapDestinationNodes().get(stat.getStats().get(i).id)[0]] = map;
           //ssuversions.createOrGetNode(new VarVersionPair(varindex, version));
           ssuversions.createNode(new VarVersionPair(varindex, version));
         }
     }
 
     for (Statement st : stat.getStats()) {
-      setCatchMaps(st, dgraph, flatthelper);
+      setCatchMaps(st, flatthelper);
     }
   }
 
@@ -803,7 +812,10 @@ public class SSAUConstructorSparseEx {
     return null;
   }
 
-  public HashMap<VarVersionPair, Integer> getMapVersionFirstRange() {
+  /**
+   * @return packed var version, id of the first protected range (catch, finally or synchronized) containing the version
+   */
+  public LongIntHashMap getMapVersionFirstRange() {
     return mapVersionFirstRange;
   }
 
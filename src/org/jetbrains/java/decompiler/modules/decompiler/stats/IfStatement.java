@@ -9,7 +9,7 @@ import org.jetbrains.java.decompiler.modules.decompiler.StatEdge.EdgeType;
 import org.jetbrains.java.decompiler.modules.decompiler.exps.Exprent;
 import org.jetbrains.java.decompiler.modules.decompiler.exps.IfExprent;
 import org.jetbrains.java.decompiler.struct.match.IMatchable;
-import org.jetbrains.java.decompiler.struct.match.MatchEngine;
+import org.jetbrains.java.decompiler.struct.match.MatchContext;
 import org.jetbrains.java.decompiler.struct.match.MatchNode;
 import org.jetbrains.java.decompiler.util.TextBuffer;
 import org.jetbrains.java.decompiler.util.TextUtil;
@@ -421,7 +421,7 @@ public final class IfStatement extends Statement {
     }
 
     if (matchNode.getType() == MatchNode.MATCHNODE_EXPRENT) {
-      String position = (String)matchNode.getRuleValue(MatchProperties.EXPRENT_POSITION);
+      Object position = matchNode.getRuleValue(MatchProperties.EXPRENT_POSITION);
       if ("head".equals(position)) {
         return getHeadexprent();
       }
@@ -431,8 +431,8 @@ public final class IfStatement extends Statement {
   }
 
   @Override
-  public boolean match(MatchNode matchNode, MatchEngine engine) {
-    if (!super.match(matchNode, engine)) {
+  public boolean match(MatchNode matchNode, MatchContext context) {
+    if (!super.match(matchNode, context)) {
       return false;
     }
 
@@ -16,7 +16,7 @@ import org.jetbrains.java.decompiler.modules.decompiler.StrongConnectivityHelper
 import org.jetbrains.java.decompiler.modules.decompiler.exps.Exprent;
 import org.jetbrains.java.decompiler.modules.decompiler.stats.DoStatement.LoopType;
 import org.jetbrains.java.decompiler.struct.match.IMatchable;
-import org.jetbrains.java.decompiler.struct.match.MatchEngine;
+import org.jetbrains.java.decompiler.struct.match.MatchContext;
 import org.jetbrains.java.decompiler.struct.match.MatchNode;
 import org.jetbrains.java.decompiler.struct.match.MatchNode.RuleValue;
 import org.jetbrains.java.decompiler.util.TextBuffer;
@@ -801,10 +801,10 @@ public abstract class Statement implements IMatchable {
     int node_type = matchNode.getType();
 
     if (node_type == MatchNode.MATCHNODE_STATEMENT && !this.stats.isEmpty()) {
-      String position = (String)matchNode.getRuleValue(MatchProperties.STATEMENT_POSITION);
+      Object position = matchNode.getRuleValue(MatchProperties.STATEMENT_POSITION);
       if (position != null) {
-        if (position.matches("-?\\d+")) {
-          return this.stats.get((this.stats.size() + Integer.parseInt(position)) % this.stats.size()); // care for negative positions
+        if (position instanceof Integer) {
+          return this.stats.get((this.stats.size() + (Integer)position) % this.stats.size()); // care for negative positions
         }
       }
       else if (index < this.stats.size()) { // use 'index' parameter
@@ -812,10 +812,10 @@ public abstract class Statement implements IMatchable {
       }
     }
     else if (node_type == MatchNode.MATCHNODE_EXPRENT && this.exprents != null && !this.exprents.isEmpty()) {
-      String position = (String)matchNode.getRuleValue(MatchProperties.EXPRENT_POSITION);
+      Object position = matchNode.getRuleValue(MatchProperties.EXPRENT_POSITION);
       if (position != null) {
-        if (position.matches("-?\\d+")) {
-          return this.exprents.get((this.exprents.size() + Integer.parseInt(position)) % this.exprents.size()); // care for negative positions
+        if (position instanceof Integer) {
+          return this.exprents.get((this.exprents.size() + (Integer)position) % this.exprents.size()); // care for negative positions
         }
       }
       else if (index < this.exprents.size()) { // use 'index' parameter
@@ -827,7 +827,7 @@ public abstract class Statement implements IMatchable {
   }
 
   @Override
-  public boolean match(MatchNode matchNode, MatchEngine engine) {
+  public boolean match(MatchNode matchNode, MatchContext context) {
     if (matchNode.getType() != MatchNode.MATCHNODE_STATEMENT) {
       return false;
     }
@@ -858,7 +858,7 @@ public abstract class Statement implements IMatchable {
           }
           break;
         case STATEMENT_RET:
-          if (!engine.checkAndSetVariableValue((String)rule.getValue().value, this)) {
+          if (!context.checkAndSetVariableValue((String)rule.getValue().value, this)) {
             return false;
           }
           break;
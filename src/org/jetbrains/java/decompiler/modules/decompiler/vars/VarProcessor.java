@@ -4,7 +4,6 @@ package org.jetbrains.java.decompiler.modules.decompiler.vars;
 import org.jetbrains.java.decompiler.code.CodeConstants;
 import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.main.collectors.VarNamesCollector;
-import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.modules.decompiler.stats.RootStatement;
 import org.jetbrains.java.decompiler.modules.decompiler.stats.Statement;
 import org.jetbrains.java.decompiler.struct.StructClass;
@@ -32,10 +31,10 @@ public class VarProcessor {
   private final int firstParameterVarIndex;
   private final int firstParameterPosition;
 
-  public VarProcessor(StructClass cl, StructMethod mt, MethodDescriptor md) {
+  public VarProcessor(DecompilerContext context, StructClass cl, StructMethod mt, MethodDescriptor md) {
     method = mt;
     methodDescriptor = md;
-    boolean isEnum = cl.hasModifier(CodeConstants.ACC_ENUM) && DecompilerContext.getOption(IFernflowerPreferences.DECOMPILE_ENUM);
+    boolean isEnum = cl.hasModifier(CodeConstants.ACC_ENUM) && context.options().decompileEnum;
     boolean isEnumInit = isEnum && CodeConstants.INIT_NAME.equals(mt.getName());
     firstParameterVarIndex = isEnumInit ? 3 : !mt.hasModifier(CodeConstants.ACC_STATIC) ? 1 : 0;
     firstParameterPosition = isEnumInit ? 2 : 0;
@@ -15,6 +15,8 @@ import org.jetbrains.java.decompiler.struct.StructClass;
 import org.jetbrains.java.decompiler.struct.StructMethod;
 import org.jetbrains.java.decompiler.struct.gen.MethodDescriptor;
 import org.jetbrains.java.decompiler.struct.gen.VarType;
+import org.jetbrains.java.decompiler.util.LongIntHashMap;
+import org.jetbrains.java.decompiler.util.LongObjectHashMap;
 
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -25,9 +27,12 @@ public class VarTypeProcessor {
   private final StructMethod method;
   private final MethodDescriptor methodDescriptor;
 
+  // iterated when new variable indices are assigned, so the iteration order of the map is visible in the output
   private final Map<VarVersionPair, VarType> minExprentTypes = new HashMap<>();
-  private final Map<VarVersionPair, VarType> maxExprentTypes = new HashMap<>();
-  private final Map<VarVersionPair, Integer> finalVariables = new HashMap<>();
+  // packed var version, type
+  private final LongObjectHashMap<VarType> maxExprentTypes = new LongObjectHashMap<>();
+  // packed var version, VarProcessor.VAR_* constant
+  private final LongIntHashMap finalVariables = new LongIntHashMap();
 
   public VarTypeProcessor(@NotNull StructMethod method, @NotNull MethodDescriptor methodDescriptor) {
     this.method = method;
@@ -48,13 +53,13 @@ public class VarTypeProcessor {
       StructClass currentClass = (StructClass)DecompilerContext.getProperty(DecompilerContext.CURRENT_CLASS);
       VarType classType = new VarType(CodeConstants.TYPE_OBJECT, 0, currentClass.qualifiedName);
       minExprentTypes.put(new VarVersionPair(0, 1), classType);
-      maxExprentTypes.put(new VarVersionPair(0, 1), classType);
+      maxExprentTypes.put(VarVersionPair.key(0, 1), classType);
     }
     int varIndex = 0;
     VarType[] methodParameters = methodDescriptor.params;
     for (VarType parameter : methodParameters) {
       minExprentTypes.put(new VarVersionPair(varIndex + (thisVar ? 1 : 0), 1), parameter);
-      maxExprentTypes.put(new VarVersionPair(varIndex + (thisVar ? 1 : 0), 1), parameter);
+      maxExprentTypes.put(VarVersionPair.key(varIndex + (thisVar ? 1 : 0), 1), parameter);
       varIndex += parameter.getStackSize();
     }
   }
@@ -74,7 +79,7 @@ public class VarTypeProcessor {
       if (catchVariables != null) {
         for (VarExprent catchVariable : catchVariables) {
           minExprentTypes.put(new VarVersionPair(catchVariable.getIndex(), 1), catchVariable.getVarType());
-          maxExprentTypes.put(new VarVersionPair(catchVariable.getIndex(), 1), catchVariable.getVarType());
+          maxExprentTypes.put(VarVersionPair.key(catchVariable.getIndex(), 1), catchVariable.getVarType());
         }
       }
       statements.addAll(statement.getStats());
@@ -172,7 +177,7 @@ public class VarTypeProcessor {
       return currentMinType == null ||
              (newMinType.getTypeFamily() <= currentMinType.getTypeFamily() && !newMinType.isStrictSuperset(currentMinType));
     }
-    VarType currentMaxType = maxExprentTypes.get(varVersion);
+    VarType currentMaxType = maxExprentTypes.get(varVersion.key());
     VarType newMaxType;
     if (currentMaxType == null || newType.getTypeFamily() < currentMaxType.getTypeFamily()) {
       newMaxType = newType;
@@ -183,7 +188,7 @@ public class VarTypeProcessor {
     else {
       newMaxType = VarType.getCommonMinType(currentMaxType, newType);
     }
-    maxExprentTypes.put(varVersion, newMaxType);
+    maxExprentTypes.put(varVersion.key(), newMaxType);
     return true;
   }
 
@@ -206,7 +211,7 @@ public class VarTypeProcessor {
     });
   }
 
-  public Map<VarVersionPair, VarType> getMaxExprentTypes() {
+  public LongObjectHashMap<VarType> getMaxExprentTypes() {
     return maxExprentTypes;
   }
 
@@ -214,7 +219,7 @@ public class VarTypeProcessor {
     return minExprentTypes;
   }
 
-  public Map<VarVersionPair, Integer> getFinalVariables() {
+  public LongIntHashMap getFinalVariables() {
     return finalVariables;
   }
 
@@ -25,6 +25,17 @@ public class VarVersionPair {
     this.version = var.getVersion();
   }
 
+  /**
+   * @return the pair packed into a long, for primitive collections
+   */
+  public static long key(int var, int version) {
+    return ((long)var << 32) | (version & 0xFFFFFFFFL);
+  }
+
+  public long key() {
+    return key(var, version);
+  }
+
   @Override
   public boolean equals(Object o) {
     if (o == this) return true;
@@ -15,6 +15,8 @@ import org.jetbrains.java.decompiler.struct.StructMethod;
 import org.jetbrains.java.decompiler.struct.gen.MethodDescriptor;
 import org.jetbrains.java.decompiler.struct.gen.VarType;
 import org.jetbrains.java.decompiler.util.FastSparseSetFactory.FastSparseSet;
+import org.jetbrains.java.decompiler.util.LongIntHashMap;
+import org.jetbrains.java.decompiler.util.LongObjectHashMap;
 
 import java.util.*;
 import java.util.Map.Entry;
@@ -50,47 +52,37 @@ public class VarVersionsProcessor {
   }
 
   private static void mergePhiVersions(SSAConstructorSparseEx ssa, DirectGraph graph) {
-    // collect phi versions
-    List<Set<VarVersionPair>> lst = new ArrayList<>();
+    // versions connected by phi nodes are merged into the lowest one of them
+    LongIntHashMap phiVersions = new LongIntHashMap();
     for (Entry<VarVersionPair, FastSparseSet<Integer>> ent : ssa.getPhi().entrySet()) {
-      Set<VarVersionPair> set = new HashSet<>();
-      set.add(ent.getKey());
+      VarVersionPair phi = ent.getKey();
       for (Integer version : ent.getValue()) {
-        set.add(new VarVersionPair(ent.getKey().var, version.intValue()));
-      }
-
-      for (int i = lst.size() - 1; i >= 0; i--) {
-        Set<VarVersionPair> tset = lst.get(i);
-        Set<VarVersionPair> intersection = new HashSet<>(set);
-        intersection.retainAll(tset);
-
-        if (!intersection.isEmpty()) {
-          set.addAll(tset);
-          lst.remove(i);
+        int root1 = findVersion(phiVersions, phi.var, phi.version);
+        int root2 = findVersion(phiVersions, phi.var, version);
+        if (root1 < root2) {
+          phiVersions.put(VarVersionPair.key(phi.var, root2), root1);
         }
-      }
-
-      lst.add(set);
-    }
-
-    Map<VarVersionPair, Integer> phiVersions = new HashMap<>();
-    for (Set<VarVersionPair> set : lst) {
-      int min = Integer.MAX_VALUE;
-      for (VarVersionPair paar : set) {
-        if (paar.version < min) {
-          min = paar.version;
+        else if (root2 < root1) {
+          phiVersions.put(VarVersionPair.key(phi.var, root1), root2);
         }
       }
-
-      for (VarVersionPair paar : set) {
-        phiVersions.put(new VarVersionPair(paar.var, paar.version), min);
-      }
     }
 
     updateVersions(graph, phiVersions);
   }
 
-  private static void updateVersions(DirectGraph graph, final Map<VarVersionPair, Integer> versions) {
+  /**
+   * @param versions packed var version, version it is merged into
+   */
+  private static int findVersion(LongIntHashMap versions, int var, int version) {
+    int merged;
+    while ((merged = versions.get(VarVersionPair.key(var, version), version)) != version) {
+      version = merged;
+    }
+    return version;
+  }
+
+  private static void updateVersions(DirectGraph graph, LongIntHashMap versions) {
     graph.iterateExprents(exprent -> {
       List<Exprent> lst = exprent.getAllExprents(true);
       lst.add(exprent);
@@ -98,10 +90,7 @@ public class VarVersionsProcessor {
       for (Exprent expr : lst) {
         if (expr.type == Exprent.EXPRENT_VAR) {
           VarExprent var = (VarExprent)expr;
-          Integer version = versions.get(new VarVersionPair(var));
-          if (version != null) {
-            var.setVersion(version);
-          }
+          var.setVersion(findVersion(versions, var.getIndex(), var.getVersion()));
         }
       }
 
@@ -110,12 +99,12 @@ public class VarVersionsProcessor {
   }
 
   private static void eliminateNonJavaTypes(VarTypeProcessor typeProcessor) {
-    Map<VarVersionPair, VarType> mapExprentMaxTypes = typeProcessor.getMaxExprentTypes();
+    LongObjectHashMap<VarType> mapExprentMaxTypes = typeProcessor.getMaxExprentTypes();
     Map<VarVersionPair, VarType> mapExprentMinTypes = typeProcessor.getMinExprentTypes();
 
     for (VarVersionPair paar : new ArrayList<>(mapExprentMinTypes.keySet())) {
       VarType type = mapExprentMinTypes.get(paar);
-      VarType maxType = mapExprentMaxTypes.get(paar);
+      VarType maxType = mapExprentMaxTypes.get(paar.key());
 
       if (type.getType() == CodeConstants.TYPE_BYTECHAR || type.getType() == CodeConstants.TYPE_SHORTCHAR) {
         if (maxType != null && maxType.getType() == CodeConstants.TYPE_CHAR) {
@@ -135,7 +124,7 @@ public class VarVersionsProcessor {
   }
 
   private static void simpleMerge(VarTypeProcessor typeProcessor, DirectGraph graph, StructMethod mt) {
-    Map<VarVersionPair, VarType> mapExprentMaxTypes = typeProcessor.getMaxExprentTypes();
+    LongObjectHashMap<VarType> mapExprentMaxTypes = typeProcessor.getMaxExprentTypes();
     Map<VarVersionPair, VarType> mapExprentMinTypes = typeProcessor.getMinExprentTypes();
 
     Map<Integer, Set<Integer>> mapVarVersions = new HashMap<>();
@@ -148,7 +137,7 @@ public class VarVersionsProcessor {
 
     boolean is_method_static = mt.hasModifier(CodeConstants.ACC_STATIC);
 
-    Map<VarVersionPair, Integer> mapMergedVersions = new HashMap<>();
+    LongIntHashMap mapMergedVersions = new LongIntHashMap();
 
     for (Entry<Integer, Set<Integer>> ent : mapVarVersions.entrySet()) {
 
@@ -172,8 +161,8 @@ public class VarVersionsProcessor {
                 firstType.equals(VarType.VARTYPE_NULL) && secondType.getType() == CodeConstants.TYPE_OBJECT ||
                 secondType.equals(VarType.VARTYPE_NULL) && firstType.getType() == CodeConstants.TYPE_OBJECT ||
                 firstType.getTypeFamily() == CodeConstants.TYPE_FAMILY_INTEGER && secondType.getTypeFamily() == CodeConstants.TYPE_FAMILY_INTEGER) {
-              VarType firstMaxType = mapExprentMaxTypes.get(firstPair);
-              VarType secondMaxType = mapExprentMaxTypes.get(secondPair);
+              VarType firstMaxType = mapExprentMaxTypes.get(firstPair.key());
+              VarType secondMaxType = mapExprentMaxTypes.get(secondPair.key());
               VarType type = firstMaxType == null ? secondMaxType :
                              secondMaxType == null ? firstMaxType :
                              VarType.getCommonMinType(firstMaxType, secondMaxType);
@@ -240,9 +229,9 @@ public class VarVersionsProcessor {
                 mapExprentMinTypes.put(firstPair, type);
               }
 
-              mapExprentMaxTypes.put(firstPair, type);
-              mapMergedVersions.put(secondPair, firstPair.version);
-              mapExprentMaxTypes.remove(secondPair);
+              mapExprentMaxTypes.put(firstPair.key(), type);
+              mapMergedVersions.put(secondPair.key(), firstPair.version);
+              mapExprentMaxTypes.remove(secondPair.key());
               mapExprentMinTypes.remove(secondPair);
 
               if (firstType.equals(VarType.VARTYPE_NULL)) {
@@ -250,7 +239,7 @@ public class VarVersionsProcessor {
                 firstType = secondType;
               }
 
-              typeProcessor.getFinalVariables().put(firstPair, VarProcessor.VAR_NON_FINAL);
+              typeProcessor.getFinalVariables().put(firstPair.key(), VarProcessor.VAR_NON_FINAL);
 
               lstVersions.remove(j);
               //noinspection AssignmentToForLoopParameter
@@ -267,13 +256,14 @@ public class VarVersionsProcessor {
   }
 
   private void setNewVarIndices(VarTypeProcessor typeProcessor, DirectGraph graph, VarVersionsProcessor previousVersionsProcessor) {
-    final Map<VarVersionPair, VarType> mapExprentMaxTypes = typeProcessor.getMaxExprentTypes();
+    LongObjectHashMap<VarType> mapExprentMaxTypes = typeProcessor.getMaxExprentTypes();
     Map<VarVersionPair, VarType> mapExprentMinTypes = typeProcessor.getMinExprentTypes();
-    Map<VarVersionPair, Integer> mapFinalVars = typeProcessor.getFinalVariables();
+    LongIntHashMap mapFinalVars = typeProcessor.getFinalVariables();
 
     CounterContainer counters = DecompilerContext.getCounterContainer();
 
-    final Map<VarVersionPair, Integer> mapVarPaar = new HashMap<>();
+    // packed var version, new var index
+    LongIntHashMap mapVarPaar = new LongIntHashMap();
     Map<Integer, Integer> mapOriginalVarIndices = new HashMap<>();
 
     // map var-version pairs on new var indexes
@@ -285,13 +275,13 @@ public class VarVersionsProcessor {
         VarVersionPair newVar = new VarVersionPair(newIndex, 0);
 
         mapExprentMinTypes.put(newVar, mapExprentMinTypes.get(pair));
-        mapExprentMaxTypes.put(newVar, mapExprentMaxTypes.get(pair));
+        mapExprentMaxTypes.put(newVar.key(), mapExprentMaxTypes.get(pair.key()));
 
-        if (mapFinalVars.containsKey(pair)) {
-          mapFinalVars.put(newVar, mapFinalVars.remove(pair));
+        if (mapFinalVars.containsKey(pair.key())) {
+          mapFinalVars.put(newVar.key(), mapFinalVars.remove(pair.key(), 0));
         }
 
-        mapVarPaar.put(pair, newIndex);
+        mapVarPaar.put(pair.key(), newIndex);
         mapOriginalVarIndices.put(newIndex, pair.var);
       }
     }
@@ -304,14 +294,14 @@ public class VarVersionsProcessor {
       for (Exprent expr : lst) {
         if (expr.type == Exprent.EXPRENT_VAR) {
           VarExprent newVar = (VarExprent)expr;
-          Integer newVarIndex = mapVarPaar.get(new VarVersionPair(newVar));
-          if (newVarIndex != null) {
+          int newVarIndex = mapVarPaar.get(VarVersionPair.key(newVar.getIndex(), newVar.getVersion()), -1);
+          if (newVarIndex >= 0) {
             newVar.setIndex(newVarIndex);
             newVar.setVersion(0);
           }
         }
         else if (expr.type == Exprent.EXPRENT_CONST) {
-          VarType maxType = mapExprentMaxTypes.get(new VarVersionPair(expr.id, -1));
+          VarType maxType = mapExprentMaxTypes.get(VarVersionPair.key(expr.id, -1));
           if (maxType != null && maxType.equals(VarType.VARTYPE_CHAR)) {
             ((ConstExprent)expr).setConstType(maxType);
           }
@@ -345,12 +335,11 @@ public class VarVersionsProcessor {
   }
 
   public int getVarFinal(VarVersionPair pair) {
-    Integer fin = typeProcessor.getFinalVariables().get(pair);
-    return fin == null ? VarProcessor.VAR_FINAL : fin;
+    return typeProcessor.getFinalVariables().get(pair.key(), VarProcessor.VAR_FINAL);
   }
 
   public void setVarFinal(VarVersionPair pair, int finalType) {
-    typeProcessor.getFinalVariables().put(pair, finalType);
+    typeProcessor.getFinalVariables().put(pair.key(), finalType);
   }
 
   public Map<Integer, Integer> getMapOriginalVarIndices() {
@@ -155,7 +155,7 @@ public class IdentifierConverter implements NewClassNameBuilder {
         String classname = helper.getNextClassName(classOldFullName, ConverterHelper.getSimpleClassName(classOldFullName));
         classNewFullName = ConverterHelper.replaceSimpleClassName(classOldFullName, classname);
       }
-      while (context.getClasses().containsKey(classNewFullName));
+      while (context.getClass(classNewFullName) != null);
 
       interceptor.addName(classOldFullName, classNewFullName);
     }
@@ -335,7 +335,7 @@ public class IdentifierConverter implements NewClassNameBuilder {
 
           if (isInterface) {
             for (String ifName : clStr.getInterfaceNames()) {
-              StructClass clParent = classes.get(ifName);
+              StructClass clParent = context.getClass(ifName);
               if (clParent != null) {
                 stack.add(clParent);
                 stackSubNodes.add(node);
@@ -344,7 +344,7 @@ public class IdentifierConverter implements NewClassNameBuilder {
             }
           }
           else if (clStr.superClass != null) { // null iff java/lang/Object
-            StructClass clParent = classes.get(clStr.superClass.getString());
+            StructClass clParent = context.getClass(clStr.superClass.getString());
             if (clParent != null) {
               stack.add(clParent);
               stackSubNodes.add(node);
@@ -7,10 +7,16 @@ import org.jetbrains.java.decompiler.main.extern.IResultSaver;
 import org.jetbrains.java.decompiler.struct.lazy.LazyLoader;
 import org.jetbrains.java.decompiler.struct.lazy.LazyLoader.Link;
 import org.jetbrains.java.decompiler.util.DataInputFullStream;
+import org.jetbrains.java.decompiler.util.TextBuffer;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 
@@ -20,6 +26,8 @@ public class ContextUnit {
   public static final int TYPE_JAR = 1;
   public static final int TYPE_ZIP = 2;
 
+  private static final int MAX_PENDING_CLASSES = 4;
+
   private final int type;
   private final boolean own;
 
@@ -78,7 +86,7 @@ public class ContextUnit {
     classes = lstClasses;
   }
 
-  public void save() {
+  public void save(ExecutorService executor) {
     switch (type) {
       case TYPE_FOLDER:
         // create folder
@@ -90,23 +98,11 @@ public class ContextUnit {
         }
 
         // classes
-        for (int i = 0; i < classes.size(); i++) {
-          StructClass cl = classes.get(i);
-          if (!cl.isOwn()) {
-            continue;
-          }
-          String entryName = decompiledData.getClassEntryName(cl, classEntries.get(i));
-          if (entryName != null) {
-            String content = decompiledData.getClassContent(cl);
-            if (content != null) {
-              int[] mapping = null;
-              if (DecompilerContext.getOption(IFernflowerPreferences.BYTECODE_SOURCE_MAPPING)) {
-                mapping = DecompilerContext.getBytecodeSourceMapper().getOriginalLinesMapping();
-              }
-              resultSaver.saveClassFile(filename, cl.qualifiedName, entryName, content, mapping);
-            }
+        saveClasses(executor, true, (cl, entryName, content, mapping) -> {
+          if (content != null) {
+            resultSaver.writeClassFile(filename, cl.qualifiedName, entryName, content::writeTo, mapping);
           }
-        }
+        });
 
         break;
 
@@ -129,19 +125,74 @@ public class ContextUnit {
         }
 
         // classes
-        for (int i = 0; i < classes.size(); i++) {
-          StructClass cl = classes.get(i);
-          String entryName = decompiledData.getClassEntryName(cl, classEntries.get(i));
-          if (entryName != null) {
-            String content = decompiledData.getClassContent(cl);
-            resultSaver.saveClassEntry(archivePath, filename, cl.qualifiedName, entryName, content);
+        saveClasses(executor, false, (cl, entryName, content, mapping) ->
+          resultSaver.writeClassEntry(archivePath, filename, cl.qualifiedName, entryName, content != null ? content::writeTo : null));
+
+        resultSaver.closeArchive(archivePath, filename);
+    }
+  }
+
+  /**
+   * Decompiles classes of the unit and passes the results to the consumer in the order of entries.
+   * When an executor is given, classes are decompiled ahead on its threads, a few per thread at most.
+   */
+  private void saveClasses(ExecutorService executor, boolean ownOnly, ClassConsumer consumer) {
+    DecompilerContext parentContext = DecompilerContext.getCurrentContext();
+    Deque<PendingClass> pending = new ArrayDeque<>();
+    int maxPending = executor == null ? 0 : MAX_PENDING_CLASSES * getThreadCount();
+
+    for (int i = 0; i < classes.size(); i++) {
+      StructClass cl = classes.get(i);
+      if (ownOnly && !cl.isOwn()) {
+        continue;
+      }
+      String entryName = decompiledData.getClassEntryName(cl, classEntries.get(i));
+      if (entryName == null) {
+        continue;
+      }
+
+      if (executor == null) {
+        ClassContent content = decompileClass(cl);
+        consumer.accept(cl, entryName, content.content, content.mapping);
+      }
+      else {
+        DecompilerContext context = parentContext.copy();
+        Future<ClassContent> future = executor.submit(() -> {
+          DecompilerContext.setCurrentContext(context);
+          try {
+            return decompileClass(cl);
+          }
+          finally {
+            DecompilerContext.setCurrentContext(null);
           }
+        });
+        pending.add(new PendingClass(cl, entryName, future));
+
+        if (pending.size() >= maxPending) {
+          pending.removeFirst().save(consumer);
         }
+      }
+    }
 
-        resultSaver.closeArchive(archivePath, filename);
+    while (!pending.isEmpty()) {
+      pending.removeFirst().save(consumer);
     }
   }
 
+  private ClassContent decompileClass(StructClass cl) {
+    TextBuffer content = decompiledData.getClassBuffer(cl);
+    int[] mapping = null;
+    if (content != null && DecompilerContext.getOptions().bytecodeSourceMapping) {
+      mapping = DecompilerContext.getBytecodeSourceMapper().getOriginalLinesMapping();
+    }
+    return new ClassContent(content, mapping);
+  }
+
+  public static int getThreadCount() {
+    Object value = DecompilerContext.getProperty(IFernflowerPreferences.THREADS);
+    return value == null ? 1 : Math.max(1, Integer.parseInt(value.toString()));
+  }
+
   public void setManifest(Manifest manifest) {
     this.manifest = manifest;
   }
@@ -153,4 +204,48 @@ public class ContextUnit {
   public List<StructClass> getClasses() {
     return classes;
   }
-}
\ No newline at end of file
+
+  private interface ClassConsumer {
+    void accept(StructClass cl, String entryName, TextBuffer content, int[] mapping);
+  }
+
+  private static class ClassContent {
+    private final TextBuffer content;
+    private final int[] mapping;
+
+    private ClassContent(TextBuffer content, int[] mapping) {
+      this.content = content;
+      this.mapping = mapping;
+    }
+  }
+
+  private static class PendingClass {
+    private final StructClass cl;
+    private final String entryName;
+    private final Future<ClassContent> future;
+
+    private PendingClass(StructClass cl, String entryName, Future<ClassContent> future) {
+      this.cl = cl;
+      this.entryName = entryName;
+      this.future = future;
+    }
+
+    private void save(ClassConsumer consumer) {
+      ClassContent content;
+      try {
+        content = future.get();
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(e);
+      }
+      catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+        if (cause instanceof Error) throw (Error)cause;
+        throw new RuntimeException(cause);
+      }
+      consumer.accept(cl, entryName, content.content, content.mapping);
+    }
+  }
+}
@@ -1,9 +1,19 @@
 // Copyright 2000-2017 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package org.jetbrains.java.decompiler.struct;
 
+import org.jetbrains.java.decompiler.util.TextBuffer;
+
 public interface IDecompiledData {
 
   String getClassEntryName(StructClass cl, String entryname);
 
   String getClassContent(StructClass cl);
+
+  /**
+   * Same as {@link #getClassContent}, but the source is not converted to a string, so that it can be written out as it is.
+   */
+  default TextBuffer getClassBuffer(StructClass cl) {
+    String content = getClassContent(cl);
+    return content != null ? new TextBuffer(content) : null;
+  }
 }
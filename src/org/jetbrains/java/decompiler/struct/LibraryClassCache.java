@@ -0,0 +1,93 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.struct;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parsed library classes, evicted in least-recently-used order once the total size of their class files exceeds the budget.
+ * Evicted classes are parsed again through their {@link org.jetbrains.java.decompiler.struct.lazy.LazyLoader} link when needed.
+ */
+class LibraryClassCache {
+  private static class Entry {
+    final StructClass cl;
+    final int size;
+
+    Entry(StructClass cl, int size) {
+      this.cl = cl;
+      this.size = size;
+    }
+  }
+
+  private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long budget;
+  private long size;
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  /**
+   * @param budget maximum total size of cached class files in bytes, 0 means no limit
+   */
+  synchronized void setBudget(long budget) {
+    this.budget = budget;
+    evict();
+  }
+
+  synchronized StructClass get(String name) {
+    Entry entry = entries.get(name);
+    if (entry == null) {
+      misses++;
+      return null;
+    }
+    hits++;
+    return entry.cl;
+  }
+
+  /**
+   * Adds a class unless another thread has already done so, and returns the cached instance.
+   */
+  synchronized StructClass put(StructClass cl, int classFileSize) {
+    Entry existing = entries.get(cl.qualifiedName);
+    if (existing != null) {
+      return existing.cl;
+    }
+
+    entries.put(cl.qualifiedName, new Entry(cl, classFileSize));
+    size += classFileSize;
+    evict();
+    return cl;
+  }
+
+  synchronized void remove(String name) {
+    Entry entry = entries.remove(name);
+    if (entry != null) {
+      size -= entry.size;
+    }
+  }
+
+  synchronized void clear() {
+    entries.clear();
+    size = 0;
+  }
+
+  private void evict() {
+    Iterator<Entry> iterator = entries.values().iterator();
+    while (budget > 0 && size > budget && entries.size() > 1 && iterator.hasNext()) {
+      size -= iterator.next().size;
+      iterator.remove();
+      evictions++;
+    }
+  }
+
+  synchronized boolean isUsed() {
+    return hits + misses > 0 || !entries.isEmpty();
+  }
+
+  @Override
+  public synchronized String toString() {
+    return entries.size() + " classes (" + size / 1024 + " KB of class files), " +
+           hits + " hits, " + misses + " misses, " + evictions + " evictions";
+  }
+}
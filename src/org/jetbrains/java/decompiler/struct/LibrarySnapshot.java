@@ -0,0 +1,92 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.struct;
+
+import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
+import org.jetbrains.java.decompiler.util.DataInputFullStream;
+import org.jetbrains.java.decompiler.util.InterpreterUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Library classes parsed once and shared read-only by any number of decompiler instances, also running concurrently.
+ * The classes are fully loaded (constant pools included) and are never changed afterwards, so only own classes
+ * have to be parsed for every job. As on a class path, the first occurrence of a class wins.
+ * <p>
+ * Constant pools of snapshot classes are not affected by renaming in the jobs that use them.
+ */
+public final class LibrarySnapshot {
+  private final Map<String, StructClass> classes;
+
+  private LibrarySnapshot(Map<String, StructClass> classes) {
+    this.classes = Collections.unmodifiableMap(classes);
+  }
+
+  public static LibrarySnapshot create(List<File> libraries, IFernflowerLogger logger) {
+    Map<String, StructClass> classes = new HashMap<>();
+    for (File library : libraries) {
+      addSpace(classes, library, logger);
+    }
+    return new LibrarySnapshot(classes);
+  }
+
+  private static void addSpace(Map<String, StructClass> classes, File file, IFernflowerLogger logger) {
+    if (file.isDirectory()) {
+      File[] files = file.listFiles();
+      if (files != null) {
+        for (File child : files) {
+          addSpace(classes, child, logger);
+        }
+      }
+      return;
+    }
+
+    String filename = file.getName();
+    try {
+      if (filename.endsWith(".jar") || filename.endsWith(".zip")) {
+        try (ZipFile archive = new ZipFile(file)) {
+          Enumeration<? extends ZipEntry> entries = archive.entries();
+          while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            String name = entry.getName();
+            if (!entry.isDirectory() && name.endsWith(".class") && !name.startsWith("META-INF/versions")) {
+              addClass(classes, InterpreterUtil.getBytes(archive, entry), file + "!/" + name, logger);
+            }
+          }
+        }
+      }
+      else if (filename.endsWith(".class")) {
+        addClass(classes, InterpreterUtil.getBytes(file), file.getPath(), logger);
+      }
+    }
+    catch (IOException ex) {
+      logger.writeMessage("Corrupted archive file: " + file, ex);
+    }
+  }
+
+  private static void addClass(Map<String, StructClass> classes, byte[] bytes, String path, IFernflowerLogger logger) {
+    try (DataInputFullStream in = new DataInputFullStream(bytes)) {
+      // no renaming, whichever context is current on the building thread
+      StructClass cl = StructClass.create(in, false, null, null);
+      classes.putIfAbsent(cl.qualifiedName, cl);
+    }
+    catch (IOException | RuntimeException ex) {
+      logger.writeMessage("Corrupted class file: " + path, IFernflowerLogger.Severity.WARN, ex);
+    }
+  }
+
+  public StructClass getClass(String name) {
+    return classes.get(name);
+  }
+
+  public int size() {
+    return classes.size();
+  }
+}
@@ -2,6 +2,8 @@
 package org.jetbrains.java.decompiler.struct;
 
 import org.jetbrains.java.decompiler.code.CodeConstants;
+import org.jetbrains.java.decompiler.main.DecompilerContext;
+import org.jetbrains.java.decompiler.modules.renamer.PoolInterceptor;
 import org.jetbrains.java.decompiler.struct.attr.StructGeneralAttribute;
 import org.jetbrains.java.decompiler.struct.attr.StructPermittedSubclassesAttribute;
 import org.jetbrains.java.decompiler.struct.attr.StructRecordAttribute;
@@ -39,12 +41,21 @@ import java.util.Map;
 */
 public class StructClass extends StructMember {
   public static StructClass create(DataInputFullStream in, boolean own, LazyLoader loader) throws IOException {
+    return create(in, own, loader, DecompilerContext.getPoolInterceptor());
+  }
+
+  /**
+   * Reads a class whose constant pool looks names up through the given interceptor instead of the one of the current
+   * context, {@code null} keeps the names of the class file.
+   */
+  public static StructClass create(DataInputFullStream in, boolean own, LazyLoader loader, PoolInterceptor interceptor)
+    throws IOException {
     in.discard(4);
     int minorVersion = in.readUnsignedShort();
     int majorVersion = in.readUnsignedShort();
     int bytecodeVersion = Math.max(majorVersion, CodeConstants.BYTECODE_JAVA_LE_4);
 
-    ConstantPool pool = new ConstantPool(in);
+    ConstantPool pool = new ConstantPool(in, interceptor);
 
     int accessFlags = in.readUnsignedShort();
     int thisClassIdx = in.readUnsignedShort();
@@ -94,6 +105,7 @@ public class StructClass extends StructMember {
   private final VBStyleCollection<StructMethod, String> methods;
 
   private ConstantPool pool;
+  private byte[] bytes;
 
   private StructClass(int accessFlags,
                       Map<String, StructGeneralAttribute> attributes,
@@ -143,16 +155,42 @@ public class StructClass extends StructMember {
   public void releaseResources() {
     if (loader != null) {
       pool = null;
+      bytes = null;
+    }
+  }
+
+  /**
+   * Drops the class file but keeps the parsed pool, for callers that read the code of the class outside its decompilation.
+   * The next {@link #getBytes()} reads the class file again.
+   */
+  public void releaseBytes() {
+    if (loader != null) {
+      bytes = null;
     }
   }
 
   public ConstantPool getPool() {
     if (pool == null && loader != null) {
-      pool = loader.loadPool(qualifiedName);
+      // own classes keep the class file around for method bodies, library classes only need the pool
+      pool = own ? LazyLoader.readPool(getBytes()) : loader.loadPool(qualifiedName);
     }
     return pool;
   }
 
+  /**
+   * Returns the content of the class file. It is kept until {@link #releaseResources()}, so method bodies
+   * are sliced out of it by the offsets recorded at parsing time instead of reading the class again. This holds
+   * a whole class file per class being decompiled in addition to its pool, callers outside the decompilation of
+   * the class drop it with {@link #releaseBytes()}.
+   */
+  public byte[] getBytes() {
+    byte[] bytes = this.bytes;
+    if (bytes == null && loader != null) {
+      bytes = this.bytes = loader.loadBytes(qualifiedName);
+    }
+    return bytes;
+  }
+
   /**
    * @return list of record components; null if this class is not a record
    */
@@ -2,10 +2,13 @@
 package org.jetbrains.java.decompiler.struct;
 
 import org.jetbrains.java.decompiler.main.DecompilerContext;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.main.extern.IResultSaver;
 import org.jetbrains.java.decompiler.struct.lazy.LazyLoader;
 import org.jetbrains.java.decompiler.util.DataInputFullStream;
 import org.jetbrains.java.decompiler.util.InterpreterUtil;
+import org.jetbrains.java.decompiler.util.ThreadUtil;
 
 import java.io.File;
 import java.io.IOException;
@@ -13,6 +16,8 @@ import java.nio.file.Path;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.jar.JarFile;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -23,21 +28,64 @@ public class StructContext {
   private final LazyLoader loader;
   private final Map<String, ContextUnit> units = new HashMap<>();
   private final Map<String, StructClass> classes = new HashMap<>();
+  private final LibraryClassCache libraryClasses = new LibraryClassCache();
+  private final LibrarySnapshot librarySnapshot;
 
   public StructContext(IResultSaver saver, IDecompiledData decompiledData, LazyLoader loader) {
+    this(saver, decompiledData, loader, null);
+  }
+
+  public StructContext(IResultSaver saver, IDecompiledData decompiledData, LazyLoader loader, LibrarySnapshot librarySnapshot) {
     this.saver = saver;
     this.decompiledData = decompiledData;
     this.loader = loader;
+    this.librarySnapshot = librarySnapshot;
 
     ContextUnit defaultUnit = new ContextUnit(ContextUnit.TYPE_FOLDER, null, "", true, saver, decompiledData);
     units.put("", defaultUnit);
   }
 
   public StructClass getClass(String name) {
-    return classes.get(name);
+    StructClass cl = classes.get(name);
+    if (cl == null && loader.getClassLink(name) != null) {
+      cl = getLibraryClass(name);
+    }
+    if (cl == null && librarySnapshot != null) {
+      cl = librarySnapshot.getClass(name);
+    }
+    return cl;
+  }
+
+  private StructClass getLibraryClass(String name) {
+    StructClass cl = libraryClasses.get(name);
+    if (cl != null) {
+      return cl;
+    }
+
+    byte[] bytes;
+    try {
+      bytes = loader.readBytes(name);
+      try (DataInputFullStream in = new DataInputFullStream(bytes)) {
+        cl = StructClass.create(in, false, loader);
+      }
+    }
+    catch (IOException ex) {
+      String message = "Corrupted class file: " + name;
+      DecompilerContext.getLogger().writeMessage(message, ex);
+      return null;
+    }
+
+    if (!name.equals(cl.qualifiedName)) {
+      return null; // the entry name does not match the class inside
+    }
+
+    return libraryClasses.put(cl, bytes.length);
   }
 
   public void reloadContext() throws IOException {
+    // library classes are parsed again on demand, now with the renamed identifiers
+    libraryClasses.clear();
+
     for (ContextUnit unit : units.values()) {
       for (StructClass cl : unit.getClasses()) {
         classes.remove(cl.qualifiedName);
@@ -53,14 +101,35 @@ public class StructContext {
   }
 
   public void saveContext() {
-    for (ContextUnit unit : units.values()) {
-      if (unit.isOwn()) {
-        unit.save();
+    int threads = ContextUnit.getThreadCount();
+    ExecutorService executor = null;
+    if (threads > 1) {
+      boolean virtual = DecompilerContext.getOptions().virtualThreads;
+      executor = Executors.newFixedThreadPool(threads, ThreadUtil.newThreadFactory("Java decompiler", virtual));
+    }
+    try {
+      for (ContextUnit unit : units.values()) {
+        if (unit.isOwn()) {
+          unit.save(executor);
+        }
+      }
+    }
+    finally {
+      if (executor != null) {
+        executor.shutdownNow();
       }
     }
+
+    if (libraryClasses.isUsed()) {
+      DecompilerContext.getLogger().writeMessage("Library class cache: " + libraryClasses, IFernflowerLogger.Severity.INFO);
+    }
   }
 
   public void addSpace(File file, boolean isOwn) {
+    if (!isOwn) {
+      String budget = (String)DecompilerContext.getProperty(IFernflowerPreferences.LIBRARY_CACHE_SIZE);
+      libraryClasses.setBudget(budget == null ? 0 : Long.parseLong(budget) * 1024 * 1024);
+    }
     addSpace("", file, isOwn, 0);
   }
 
@@ -107,9 +176,7 @@ public class StructContext {
       if (filename.endsWith(".class")) {
         try (DataInputFullStream in = loader.getClassStream(file.getAbsolutePath(), null)) {
           StructClass cl = StructClass.create(in, isOwn, loader);
-          classes.put(cl.qualifiedName, cl);
-          unit.addClass(cl, filename);
-          loader.addClassLink(cl.qualifiedName, new LazyLoader.Link(file.getAbsolutePath(), null));
+          addClass(unit, cl, filename, new LazyLoader.Link(file.getAbsolutePath(), null), (int)file.length());
         }
         catch (IOException ex) {
           String message = "Corrupted class file: " + file;
@@ -123,6 +190,8 @@ public class StructContext {
   }
 
   private void addArchive(String path, File file, int type, boolean isOwn) throws IOException {
+    boolean lazy = !isOwn && DecompilerContext.getOption(IFernflowerPreferences.LAZY_LIBRARIES);
+
     try (ZipFile archive = type == ContextUnit.TYPE_JAR ? new JarFile(file) : new ZipFile(file)) {
       Enumeration<? extends ZipEntry> entries = archive.entries();
       while (entries.hasMoreElements()) {
@@ -144,12 +213,16 @@ public class StructContext {
         }
 
         if (!entry.isDirectory()) {
-          if (name.endsWith(".class")) {
+          if (lazy && name.endsWith(".class")) {
+            String className = name.substring(0, name.length() - ".class".length());
+            if (!classes.containsKey(className)) {
+              loader.addClassLink(className, new LazyLoader.Link(file.getAbsolutePath(), name));
+            }
+          }
+          else if (name.endsWith(".class")) {
             byte[] bytes = InterpreterUtil.getBytes(archive, entry);
             StructClass cl = StructClass.create(new DataInputFullStream(bytes), isOwn, loader);
-            classes.put(cl.qualifiedName, cl);
-            unit.addClass(cl, name);
-            loader.addClassLink(cl.qualifiedName, new LazyLoader.Link(file.getAbsolutePath(), name));
+            addClass(unit, cl, name, new LazyLoader.Link(file.getAbsolutePath(), name), bytes.length);
           }
           else {
             unit.addOtherEntry(file.getAbsolutePath(), name);
@@ -162,6 +235,25 @@ public class StructContext {
     }
   }
 
+  private void addClass(ContextUnit unit, StructClass cl, String entryName, LazyLoader.Link link, int classFileSize) {
+    if (cl.isOwn()) {
+      classes.put(cl.qualifiedName, cl);
+      libraryClasses.remove(cl.qualifiedName);
+      unit.addClass(cl, entryName);
+    }
+    else if (!classes.containsKey(cl.qualifiedName)) {
+      libraryClasses.remove(cl.qualifiedName);
+      libraryClasses.put(cl, classFileSize);
+    }
+    else {
+      return; // library classes do not shadow own ones
+    }
+    loader.addClassLink(cl.qualifiedName, link);
+  }
+
+  /**
+   * @return own classes; library classes are only reachable through {@link #getClass(String)}
+   */
   public Map<String, StructClass> getClasses() {
     return classes;
   }
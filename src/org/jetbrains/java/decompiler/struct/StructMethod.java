@@ -53,6 +53,7 @@ public class StructMethod extends StructMember {
   private final String descriptor;
   private final int bytecodeVersion;
   private final int localVariables;
+  private final int codeOffset;
   private final int codeLength;
   private final int codeFullLength;
   private InstructionSequence seq = null;
@@ -70,22 +71,36 @@ public class StructMethod extends StructMember {
     this.bytecodeVersion = bytecodeVersion;
     if (code != null) {
       this.localVariables = code.localVariables;
+      this.codeOffset = code.codeOffset;
       this.codeLength = code.codeLength;
       this.codeFullLength = code.codeFullLength;
     }
     else {
-      this.localVariables = this.codeLength = this.codeFullLength = -1;
+      this.localVariables = this.codeOffset = this.codeLength = this.codeFullLength = -1;
     }
   }
 
   public void expandData(StructClass classStruct) throws IOException {
     if (codeLength >= 0 && !expanded) {
-      byte[] code = classStruct.getLoader().loadBytecode(classStruct, this, codeFullLength);
-      seq = parseBytecode(new DataInputFullStream(code), codeLength, classStruct.getPool());
+      seq = readInstructionSequence(classStruct);
       expanded = true;
     }
   }
 
+  /**
+   * Parses the code of the method without keeping it in the method, so that processing on another thread
+   * leaves the method unchanged.
+   *
+   * @return instruction sequence; null if the method has no code
+   */
+  public InstructionSequence readInstructionSequence(StructClass classStruct) throws IOException {
+    if (codeLength < 0) {
+      return null;
+    }
+    DataInputFullStream in = new DataInputFullStream(classStruct.getBytes(), codeOffset, codeFullLength);
+    return parseBytecode(in, codeLength, classStruct.getPool());
+  }
+
   public void releaseResources() {
     if (codeLength >= 0 && expanded) {
       seq = null;
@@ -25,6 +25,7 @@ import java.util.Map;
 */
 public class StructCodeAttribute extends StructGeneralAttribute {
   public int localVariables = 0;
+  public int codeOffset = 0;
   public int codeLength = 0;
   public int codeFullLength = 0;
   public Map<String, StructGeneralAttribute> codeAttributes;
@@ -34,6 +35,7 @@ public class StructCodeAttribute extends StructGeneralAttribute {
     data.discard(2);
     localVariables = data.readUnsignedShort();
     codeLength = data.readInt();
+    codeOffset = data.getPosition();
     data.discard(codeLength);
     int excLength = data.readUnsignedShort();
     data.discard(excLength * 8);
@@ -26,6 +26,14 @@ public class ConstantPool implements NewClassNameBuilder {
   private final PoolInterceptor interceptor;
 
   public ConstantPool(DataInputStream in) throws IOException {
+    // get global constant pool interceptor instance, if any available
+    this(in, DecompilerContext.getPoolInterceptor());
+  }
+
+  /**
+   * Reads a pool which looks names up through the given interceptor, {@code null} keeps the names of the class file.
+   */
+  public ConstantPool(DataInputStream in, PoolInterceptor interceptor) throws IOException {
     int size = in.readUnsignedShort();
     pool = new ArrayList<>(size);
     BitSet[] nextPass = {new BitSet(size), new BitSet(size), new BitSet(size)};
@@ -105,8 +113,7 @@ public class ConstantPool implements NewClassNameBuilder {
       }
     }
 
-    // get global constant pool interceptor instance, if any available
-    interceptor = DecompilerContext.getPoolInterceptor();
+    this.interceptor = interceptor;
   }
 
   public static void skipPool(DataInputFullStream in) throws IOException {
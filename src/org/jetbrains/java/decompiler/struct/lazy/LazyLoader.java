@@ -2,9 +2,6 @@
 package org.jetbrains.java.decompiler.struct.lazy;
 
 import org.jetbrains.java.decompiler.main.extern.IBytecodeProvider;
-import org.jetbrains.java.decompiler.struct.StructClass;
-import org.jetbrains.java.decompiler.struct.StructMethod;
-import org.jetbrains.java.decompiler.struct.attr.StructGeneralAttribute;
 import org.jetbrains.java.decompiler.struct.consts.ConstantPool;
 import org.jetbrains.java.decompiler.util.DataInputFullStream;
 
@@ -33,80 +30,35 @@ public class LazyLoader {
   }
 
   public ConstantPool loadPool(String className) {
-    try (DataInputFullStream in = getClassStream(className)) {
-      if (in != null) {
-        in.discard(8);
-        return new ConstantPool(in);
-      }
+    return readPool(loadBytes(className));
+  }
 
-      return null;
+  public byte[] loadBytes(String className) {
+    try {
+      return readBytes(className);
     }
     catch (IOException ex) {
       throw new RuntimeException(ex);
     }
   }
 
-  public byte[] loadBytecode(StructClass classStruct, StructMethod mt, int codeFullLength) {
-    String className = classStruct.qualifiedName;
-
-    try (DataInputFullStream in = getClassStream(className)) {
-      if (in != null) {
-        in.discard(8);
-
-        ConstantPool pool = classStruct.getPool();
-        if (pool == null) {
-          pool = new ConstantPool(in);
-        }
-        else {
-          ConstantPool.skipPool(in);
-        }
-
-        in.discard(6);
-
-        // interfaces
-        in.discard(in.readUnsignedShort() * 2);
-
-        // fields
-        int size = in.readUnsignedShort();
-        for (int i = 0; i < size; i++) {
-          in.discard(6);
-          skipAttributes(in);
-        }
-
-        // methods
-        size = in.readUnsignedShort();
-        for (int i = 0; i < size; i++) {
-          in.discard(2);
-
-          int nameIndex = in.readUnsignedShort();
-          int descriptorIndex = in.readUnsignedShort();
-
-          String[] values = pool.getClassElement(ConstantPool.METHOD, className, nameIndex, descriptorIndex);
-          if (!mt.getName().equals(values[0]) || !mt.getDescriptor().equals(values[1])) {
-            skipAttributes(in);
-            continue;
-          }
-
-          int attrSize = in.readUnsignedShort();
-          for (int j = 0; j < attrSize; j++) {
-            int attrNameIndex = in.readUnsignedShort();
-            String attrName = pool.getPrimitiveConstant(attrNameIndex).getString();
-            if (!StructGeneralAttribute.ATTRIBUTE_CODE.name.equals(attrName)) {
-              in.discard(in.readInt());
-              continue;
-            }
-
-            in.discard(12);
-
-            return in.read(codeFullLength);
-          }
-
-          break;
-        }
-      }
+  /**
+   * @return content of the class file of a linked class; null if the class is not linked
+   */
+  public byte[] readBytes(String className) throws IOException {
+    Link link = mapClassLinks.get(className);
+    return link == null ? null : provider.getBytecode(link.externalPath, link.internalPath);
+  }
 
+  public static ConstantPool readPool(byte[] bytes) {
+    if (bytes == null) {
       return null;
     }
+
+    try (DataInputFullStream in = new DataInputFullStream(bytes)) {
+      in.discard(8);
+      return new ConstantPool(in);
+    }
     catch (IOException ex) {
       throw new RuntimeException(ex);
     }
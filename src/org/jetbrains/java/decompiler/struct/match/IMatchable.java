@@ -26,5 +26,5 @@ public interface IMatchable {
 
   IMatchable findObject(MatchNode matchNode, int index);
 
-  boolean match(MatchNode matchNode, MatchEngine engine);
+  boolean match(MatchNode matchNode, MatchContext context);
 }
\ No newline at end of file
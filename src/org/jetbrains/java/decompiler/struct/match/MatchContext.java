@@ -0,0 +1,27 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.struct.match;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Variables bound by a single match of a {@link MatchEngine} pattern.
+ */
+public class MatchContext {
+  private final Map<String, Object> variables = new HashMap<>();
+
+  public boolean checkAndSetVariableValue(String name, Object value) {
+    Object old_value = variables.get(name);
+    if (old_value != null) {
+      return old_value.equals(value);
+    }
+    else {
+      variables.put(name, value);
+      return true;
+    }
+  }
+
+  public Object getVariableValue(String name) {
+    return variables.get(name);
+  }
+}
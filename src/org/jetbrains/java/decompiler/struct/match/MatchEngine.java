@@ -14,6 +14,10 @@ import java.util.*;
 
 import static java.util.Map.entry;
 
+/**
+ * Pattern of statements and expressions, parsed once from its description. The engine is immutable and may be shared
+ * between threads, variables bound by a match are kept in the {@link MatchContext} returned for it.
+ */
 public class MatchEngine {
   @SuppressWarnings("SpellCheckingInspection")
   private static final Map<String, MatchProperties> stat_properties = Map.of(
@@ -80,7 +84,6 @@ public class MatchEngine {
     "string", VarType.VARTYPE_STRING);
 
   private final MatchNode rootNode;
-  private final Map<String, Object> variables = new HashMap<>();
 
   public MatchEngine(String description) {
     // each line is a separate statement/expression
@@ -126,10 +129,13 @@ public class MatchEngine {
               break;
             case STATEMENT_POSITION:
             case EXPRENT_POSITION:
+            case EXPRENT_VAR_INDEX:
+              // numbers are parsed here rather than on every match
+              value = strValue.matches("-?\\d+") ? (Object)Integer.valueOf(strValue) : strValue;
+              break;
             case EXPRENT_INVOCATION_CLASS:
             case EXPRENT_INVOCATION_SIGNATURE:
             case EXPRENT_INVOCATION_PARAMETER:
-            case EXPRENT_VAR_INDEX:
             case EXPRENT_FIELD_NAME:
             case EXPRENT_CONSTVALUE:
             case STATEMENT_RET:
@@ -180,13 +186,16 @@ public class MatchEngine {
     this.rootNode = stack.getLast();
   }
 
-  public boolean match(IMatchable object) {
-    variables.clear();
-    return match(this.rootNode, object);
+  /**
+   * @return variables bound by the match, or null when the object does not match the pattern
+   */
+  public MatchContext match(IMatchable object) {
+    MatchContext context = new MatchContext();
+    return match(this.rootNode, object, context) ? context : null;
   }
 
-  private boolean match(MatchNode matchNode, IMatchable object) {
-    if (!object.match(matchNode, this)) {
+  private static boolean match(MatchNode matchNode, IMatchable object, MatchContext context) {
+    if (!object.match(matchNode, context)) {
       return false;
     }
 
@@ -196,7 +205,7 @@ public class MatchEngine {
       boolean isStatement = childNode.getType() == MatchNode.MATCHNODE_STATEMENT;
 
       IMatchable childObject = object.findObject(childNode, isStatement ? stat_index : expr_index);
-      if (childObject == null || !match(childNode, childObject)) {
+      if (childObject == null || !match(childNode, childObject, context)) {
         return false;
       }
 
@@ -210,19 +219,4 @@ public class MatchEngine {
 
     return true;
   }
-
-  public boolean checkAndSetVariableValue(String name, Object value) {
-    Object old_value = variables.get(name);
-    if (old_value != null) {
-      return old_value.equals(value);
-    }
-    else {
-      variables.put(name, value);
-      return true;
-    }
-  }
-
-  public Object getVariableValue(String name) {
-    return variables.get(name);
-  }
 }
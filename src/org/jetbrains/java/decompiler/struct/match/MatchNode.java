@@ -4,7 +4,7 @@ package org.jetbrains.java.decompiler.struct.match;
 import org.jetbrains.java.decompiler.struct.match.IMatchable.MatchProperties;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 
@@ -12,15 +12,18 @@ public class MatchNode {
   public static class RuleValue {
     public final int parameter;
     public final Object value;
+    private final boolean variable;
 
     public RuleValue(int parameter, Object value) {
       this.parameter = parameter;
       this.value = value;
+
+      String strValue = value.toString();
+      this.variable = strValue.charAt(0) == '$' && strValue.charAt(strValue.length() - 1) == '$';
     }
 
     public boolean isVariable() {
-      String strValue = value.toString();
-      return (strValue.charAt(0) == '$' && strValue.charAt(strValue.length() - 1) == '$');
+      return variable;
     }
 
     public String toString() {
@@ -32,7 +35,7 @@ public class MatchNode {
   public static final int MATCHNODE_EXPRENT = 1;
 
   private final int type;
-  private final Map<MatchProperties, RuleValue> rules = new HashMap<>();
+  private final Map<MatchProperties, RuleValue> rules = new EnumMap<>(MatchProperties.class);
   private final List<MatchNode> children = new ArrayList<>();
 
   public MatchNode(int type) {
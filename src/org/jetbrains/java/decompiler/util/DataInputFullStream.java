@@ -6,8 +6,22 @@ import java.io.DataInputStream;
 import java.io.IOException;
 
 public class DataInputFullStream extends DataInputStream {
+  private final int length;
+
   public DataInputFullStream(byte[] bytes) {
-    super(new ByteArrayInputStream(bytes));
+    this(bytes, 0, bytes.length);
+  }
+
+  public DataInputFullStream(byte[] bytes, int offset, int length) {
+    super(new ByteArrayInputStream(bytes, offset, length));
+    this.length = length;
+  }
+
+  /**
+   * @return number of bytes read so far
+   */
+  public int getPosition() throws IOException {
+    return length - available();
   }
 
   public byte[] read(int n) throws IOException {
@@ -75,6 +75,10 @@ public class FastSparseSetFactory<E> {
 
     private int[] data;
     private int[] next;
+    // data and next may be referenced by copies of this set, and are then copied before the first modification.
+    // Nothing tracks how many sets still refer to them, so when every other set has copied them already,
+    // the last one still makes a needless copy.
+    private boolean shared;
 
     private FastSparseSet(FastSparseSetFactory<E> factory) {
       this.factory = factory;
@@ -94,7 +98,17 @@ public class FastSparseSetFactory<E> {
     }
 
     public FastSparseSet<E> getCopy() {
-      return new FastSparseSet<>(factory, data.clone(), next.clone());
+      FastSparseSet<E> copy = new FastSparseSet<>(factory, data, next);
+      copy.shared = shared = true;
+      return copy;
+    }
+
+    private void unshare() {
+      if (shared) {
+        data = data.clone();
+        next = next.clone();
+        shared = false;
+      }
     }
 
     private int[] ensureCapacity(int index) {
@@ -110,6 +124,7 @@ public class FastSparseSetFactory<E> {
 
       data = Arrays.copyOf(data, newlength);
       next = Arrays.copyOf(next, newlength);
+      shared = false;
 
       return data;
     }
@@ -125,6 +140,12 @@ public class FastSparseSetFactory<E> {
       if (block >= data.length) {
         ensureCapacity(block);
       }
+      else if ((data[block] & index[1]) != 0) {
+        return;
+      }
+      else {
+        unshare();
+      }
 
       data[block] |= index[1];
 
@@ -139,7 +160,8 @@ public class FastSparseSetFactory<E> {
       }
 
       int block = index[0];
-      if (block < data.length) {
+      if (block < data.length && (data[block] & index[1]) != 0) {
+        unshare();
         data[block] &= ~index[1];
 
         if (data[block] == 0) {
@@ -181,6 +203,10 @@ public class FastSparseSetFactory<E> {
     }
 
     public void union(FastSparseSet<E> set) {
+      if (set.data == data) {
+        return;
+      }
+      unshare();
 
       int[] extdata = set.getData();
       int[] extnext = set.getNext();
@@ -206,6 +232,11 @@ public class FastSparseSetFactory<E> {
     }
 
     public void intersection(FastSparseSet<E> set) {
+      if (set.data == data) {
+        return;
+      }
+      unshare();
+
       int[] extdata = set.getData();
       int[] intdata = data;
 
@@ -223,6 +254,7 @@ public class FastSparseSetFactory<E> {
     }
 
     public void complement(FastSparseSet<E> set) {
+      unshare();
 
       int[] extdata = set.getData();
       int[] intdata = data;
@@ -251,6 +283,7 @@ public class FastSparseSetFactory<E> {
 
       int[] longdata = ((FastSparseSet<?>)o).getData();
       int[] shortdata = data;
+      if (longdata == shortdata) return true;
 
       if (data.length > longdata.length) {
         shortdata = longdata;
@@ -346,6 +379,7 @@ public class FastSparseSetFactory<E> {
 
   public static final class FastSparseSetIterator<E> implements Iterator<E> {
 
+    private final FastSparseSet<E> set;
     private final VBStyleCollection<int[], E> colValuesInternal;
     private final int[] data;
     private final int[] next;
@@ -355,6 +389,7 @@ public class FastSparseSetFactory<E> {
     private int next_pointer = -1;
 
     private FastSparseSetIterator(FastSparseSet<E> set) {
+      this.set = set;
       colValuesInternal = set.getFactory().getInternalValuesCollection();
       data = set.getData();
       next = set.getNext();
@@ -416,8 +451,10 @@ public class FastSparseSetFactory<E> {
 
     @Override
     public void remove() {
+      // iterates over the arrays it started with, which stay unchanged if the set copies them on modification
       int[] index = colValuesInternal.get(pointer);
-      data[index[0]] &= ~index[1];
+      set.unshare();
+      set.data[index[0]] &= ~index[1];
     }
   }
 }
@@ -0,0 +1,145 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.util;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map with primitive long keys and int values, see {@link LongObjectHashMap}.
+ * Lookups of absent keys return a caller-supplied default value.
+ */
+public class LongIntHashMap {
+  private static final int INITIAL_CAPACITY = 16;
+  // marks a free slot; the key itself is kept outside the table
+  private static final long FREE = Long.MIN_VALUE;
+
+  private long[] keys;
+  private int[] values;
+  private int size;
+  private boolean hasFreeKey;
+  private int freeKeyValue;
+
+  public LongIntHashMap() {
+    allocate(INITIAL_CAPACITY);
+  }
+
+  static int hash(long key) {
+    int h = (int)(key ^ (key >>> 32)) * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean containsKey(long key) {
+    if (key == FREE) {
+      return hasFreeKey;
+    }
+    return find(key) >= 0;
+  }
+
+  public int get(long key, int defaultValue) {
+    if (key == FREE) {
+      return hasFreeKey ? freeKeyValue : defaultValue;
+    }
+    int slot = find(key);
+    return slot >= 0 ? values[slot] : defaultValue;
+  }
+
+  public void put(long key, int value) {
+    if (key == FREE) {
+      if (!hasFreeKey) {
+        hasFreeKey = true;
+        size++;
+      }
+      freeKeyValue = value;
+      return;
+    }
+
+    int mask = keys.length - 1;
+    int slot = hash(key) & mask;
+    for (; keys[slot] != FREE; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        values[slot] = value;
+        return;
+      }
+    }
+
+    keys[slot] = key;
+    values[slot] = value;
+    if (++size * 2 > keys.length) {
+      rehash(keys.length * 2);
+    }
+  }
+
+  public int remove(long key, int defaultValue) {
+    if (key == FREE) {
+      if (!hasFreeKey) {
+        return defaultValue;
+      }
+      hasFreeKey = false;
+      size--;
+      return freeKeyValue;
+    }
+
+    int slot = find(key);
+    if (slot < 0) {
+      return defaultValue;
+    }
+    int old = values[slot];
+
+    // linear probing without tombstones: entries following the removed one are shifted back when it is on their probe path
+    int mask = keys.length - 1;
+    int gap = slot;
+    for (int i = (slot + 1) & mask; keys[i] != FREE; i = (i + 1) & mask) {
+      int ideal = hash(keys[i]) & mask;
+      if (((i - ideal) & mask) >= ((i - gap) & mask)) {
+        keys[gap] = keys[i];
+        values[gap] = values[i];
+        gap = i;
+      }
+    }
+    keys[gap] = FREE;
+    size--;
+
+    return old;
+  }
+
+  private int find(long key) {
+    int mask = keys.length - 1;
+    for (int slot = hash(key) & mask; keys[slot] != FREE; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        return slot;
+      }
+    }
+    return -1;
+  }
+
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    allocate(capacity);
+
+    int mask = capacity - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != FREE) {
+        int slot = hash(oldKeys[i]) & mask;
+        while (keys[slot] != FREE) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new int[capacity];
+    Arrays.fill(keys, FREE);
+  }
+}
@@ -0,0 +1,120 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.util;
+
+/**
+ * Open addressing hash map with primitive long keys and non-null values, for keys like packed variable versions
+ * (see {@link org.jetbrains.java.decompiler.modules.decompiler.vars.VarVersionPair#key(int, int)}).
+ * There is no iteration, so the map cannot leak a hash order into the output.
+ */
+public class LongObjectHashMap<V> {
+  private static final int INITIAL_CAPACITY = 16;
+
+  private long[] keys;
+  private V[] values;  // a null value marks a free slot
+  private int size;
+
+  public LongObjectHashMap() {
+    allocate(INITIAL_CAPACITY);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean containsKey(long key) {
+    return get(key) != null;
+  }
+
+  public V get(long key) {
+    int mask = keys.length - 1;
+    for (int slot = LongIntHashMap.hash(key) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        return values[slot];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @param value new value, null removes the key
+   * @return previous value or null
+   */
+  public V put(long key, V value) {
+    if (value == null) {
+      return remove(key);
+    }
+
+    int mask = keys.length - 1;
+    int slot = LongIntHashMap.hash(key) & mask;
+    for (; values[slot] != null; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        V old = values[slot];
+        values[slot] = value;
+        return old;
+      }
+    }
+
+    keys[slot] = key;
+    values[slot] = value;
+    if (++size * 2 > keys.length) {
+      rehash(keys.length * 2);
+    }
+    return null;
+  }
+
+  public V remove(long key) {
+    int mask = keys.length - 1;
+    for (int slot = LongIntHashMap.hash(key) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        V old = values[slot];
+        removeAt(slot);
+        return old;
+      }
+    }
+    return null;
+  }
+
+  // linear probing without tombstones: entries following the removed one are shifted back when it is on their probe path
+  private void removeAt(int slot) {
+    int mask = keys.length - 1;
+    int gap = slot;
+    for (int i = (slot + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+      int ideal = LongIntHashMap.hash(keys[i]) & mask;
+      if (((i - ideal) & mask) >= ((i - gap) & mask)) {
+        keys[gap] = keys[i];
+        values[gap] = values[i];
+        gap = i;
+      }
+    }
+    values[gap] = null;
+    size--;
+  }
+
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    V[] oldValues = values;
+    allocate(capacity);
+
+    int mask = capacity - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldValues[i] != null) {
+        int slot = LongIntHashMap.hash(oldKeys[i]) & mask;
+        while (values[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = (V[])new Object[capacity];
+  }
+}
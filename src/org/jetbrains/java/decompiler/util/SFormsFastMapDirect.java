@@ -18,6 +18,10 @@ public class SFormsFastMapDirect {
 
   private final int[][] next = new int[3][];
 
+  // arrays of an index which may be referenced by another map, see unshare(); as with FastSparseSet, the last map
+  // referring to them still copies them once
+  private final boolean[] shared = new boolean[3];
+
   public SFormsFastMapDirect() {
     this(true);
   }
@@ -32,25 +36,25 @@ public class SFormsFastMapDirect {
     }
   }
 
+  /**
+   * Creates a map with the same value sets as the given one. Unlike {@link #getCopy()}, the sets themselves are
+   * not copied, and the arrays holding them are only copied when either map is modified.
+   */
   public SFormsFastMapDirect(SFormsFastMapDirect map) {
     for (int i = 2; i >= 0; i--) {
-      FastSparseSet<Integer>[] arr = map.elements[i];
-      int[] arrnext = map.next[i];
-
-      int length = arr.length;
-      @SuppressWarnings("unchecked") FastSparseSet<Integer>[] arrnew = new FastSparseSet[length];
-      int[] arrnextnew = new int[length];
-
-      System.arraycopy(arr, 0, arrnew, 0, length);
-      System.arraycopy(arrnext, 0, arrnextnew, 0, length);
+      elements[i] = map.elements[i];
+      next[i] = map.next[i];
 
-      elements[i] = arrnew;
-      next[i] = arrnextnew;
-
-      size = map.size;
+      if (elements[i].length > 0) {
+        shared[i] = map.shared[i] = true;
+      }
     }
+    size = map.size;
   }
 
+  /**
+   * Creates a map with copies of the value sets, see {@link FastSparseSet#getCopy()}.
+   */
   public SFormsFastMapDirect getCopy() {
 
     SFormsFastMapDirect map = new SFormsFastMapDirect(false);
@@ -105,7 +109,7 @@ public class SFormsFastMapDirect {
   }
 
   public void removeAllFields() {
-    FastSparseSet<Integer>[] arr = elements[2];
+    FastSparseSet<Integer>[] arr = unshare(2);
     int[] arrnext = next[2];
 
     for (int i = arr.length - 1; i >= 0; i--) {
@@ -142,6 +146,11 @@ public class SFormsFastMapDirect {
     }
 
     FastSparseSet<Integer> oldval = arr[ikey];
+    if (oldval == value) {
+      return;
+    }
+
+    arr = unshare(index);
     arr[ikey] = value;
 
     int[] arrnext = next[index];
@@ -194,12 +203,12 @@ public class SFormsFastMapDirect {
   public void complement(SFormsFastMapDirect map) {
 
     for (int i = 2; i >= 0; i--) {
-      FastSparseSet<Integer>[] lstOwn = elements[i];
-
-      if (lstOwn.length == 0) {
+      if (elements[i].length == 0) {
         continue;
       }
 
+      FastSparseSet<Integer>[] lstOwn = unshare(i);
+
       FastSparseSet<Integer>[] lstExtern = map.elements[i];
       int[] arrnext = next[i];
 
@@ -232,12 +241,12 @@ public class SFormsFastMapDirect {
   public void intersection(SFormsFastMapDirect map) {
 
     for (int i = 2; i >= 0; i--) {
-      FastSparseSet<Integer>[] lstOwn = elements[i];
-
-      if (lstOwn.length == 0) {
+      if (elements[i].length == 0) {
         continue;
       }
 
+      FastSparseSet<Integer>[] lstOwn = unshare(i);
+
       FastSparseSet<Integer>[] lstExtern = map.elements[i];
       int[] arrnext = next[i];
 
@@ -277,7 +286,7 @@ public class SFormsFastMapDirect {
         continue;
       }
 
-      FastSparseSet<Integer>[] lstOwn = elements[i];
+      FastSparseSet<Integer>[] lstOwn = unshare(i);
       int[] arrnext = next[i];
       int[] arrnextExtern = map.next[i];
 
@@ -392,7 +401,17 @@ public class SFormsFastMapDirect {
 
     elements[index] = arrnew;
     next[index] = arrnextnew;
+    shared[index] = false;
 
     return arrnew;
   }
+
+  private FastSparseSet<Integer>[] unshare(int index) {
+    if (shared[index]) {
+      elements[index] = elements[index].clone();
+      next[index] = next[index].clone();
+      shared[index] = false;
+    }
+    return elements[index];
+  }
 }
\ No newline at end of file
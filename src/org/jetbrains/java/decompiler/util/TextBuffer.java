@@ -4,21 +4,33 @@
 package org.jetbrains.java.decompiler.util;
 
 import org.jetbrains.java.decompiler.main.DecompilerContext;
-import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.*;
 
 /**
- * Allows to connect text with resulting lines
+ * Allows to connect text with resulting lines.
+ * <p>
+ * Longer buffers appended to this one are not copied but linked as immutable segments, which keep the offsets of their
+ * line separators relative to their own start. The text is flattened once, when it is converted to a string.
  *
  * @author egor
  */
 @SuppressWarnings("UnusedReturnValue")
 public class TextBuffer {
+  // shorter buffers are copied when appended
+  private static final int MIN_SEGMENT_LENGTH = 256;
+
   private final String myLineSeparator = DecompilerContext.getNewLineSeparator();
-  private final String myIndent = (String)DecompilerContext.getProperty(IFernflowerPreferences.INDENT_STRING);
-  private final StringBuilder myStringBuilder;
-  private Map<Integer, Integer> myLineToOffsetMapping = null;
+  private final String myIndent = DecompilerContext.getOptions().indentString;
+  // linked text followed by the text being written
+  private Composite mySegments = new Composite(myLineSeparator);
+  private StringBuilder myStringBuilder;
+  // offsets of line separators in the [0, myScannedLength) part of myStringBuilder, extended lazily as the text grows
+  private int[] mySeparatorOffsets = new int[16];
+  private int mySeparatorCount = 0;
+  private int myScannedLength = 0;
 
   public TextBuffer() {
     myStringBuilder = new StringBuilder();
@@ -60,8 +72,16 @@ public class TextBuffer {
   }
 
   public TextBuffer prepend(String s) {
-    myStringBuilder.insert(0, s);
-    shiftMapping(s.length());
+    if (mySegments.length() == 0) {
+      myStringBuilder.insert(0, s);
+      resetSeparators();
+    }
+    else if (!s.isEmpty()) {
+      Composite segments = new Composite(myLineSeparator);
+      segments.add(Leaf.of(s, myLineSeparator));
+      segments.addChildren(mySegments);
+      mySegments = segments;
+    }
     return this;
   }
 
@@ -72,6 +92,9 @@ public class TextBuffer {
   }
 
   public boolean containsOnlyWhitespaces() {
+    if (!mySegments.containsOnlyWhitespaces()) {
+      return false;
+    }
     for (int i = 0; i < myStringBuilder.length(); i++) {
       if (myStringBuilder.charAt(i) != ' ') {
         return false;
@@ -82,44 +105,44 @@ public class TextBuffer {
 
   @Override
   public String toString() {
-    String original = myStringBuilder.toString();
-    if (myLineToOffsetMapping == null || myLineToOffsetMapping.isEmpty()) {
-      if (myLineMapping != null) {
-        return addOriginalLineNumbers();
-      }
-      return original;
+    flatten();
+    if (myLineMapping != null) {
+      return addOriginalLineNumbers();
     }
-    else {
-      StringBuilder res = new StringBuilder();
-      String[] srcLines = original.split(myLineSeparator);
-      int currentLineStartOffset = 0;
-      int currentLine = 0;
-      int previousMarkLine = 0;
-      int dumpedLines = 0;
-      ArrayList<Integer> linesWithMarks = new ArrayList<>(myLineToOffsetMapping.keySet());
-      Collections.sort(linesWithMarks);
-      for (Integer markLine : linesWithMarks) {
-        Integer markOffset = myLineToOffsetMapping.get(markLine);
-        while (currentLine < srcLines.length) {
-          String line = srcLines[currentLine];
-          int lineEnd = currentLineStartOffset + line.length() + myLineSeparator.length();
-          if (markOffset <= lineEnd) {
-            int requiredLine = markLine - 1;
-            int linesToAdd = requiredLine - dumpedLines;
-            dumpedLines = requiredLine;
-            appendLines(res, srcLines, previousMarkLine, currentLine, linesToAdd);
-            previousMarkLine = currentLine;
-            break;
-          }
-          currentLineStartOffset = lineEnd;
-          currentLine++;
-        }
+    return myStringBuilder.toString();
+  }
+
+  /**
+   * Writes the same text as {@link #toString()}, without building a string of it when no line numbers need to be changed.
+   */
+  public void writeTo(Writer writer) throws IOException {
+    if (myLineMapping != null) {
+      writer.write(toString());
+      return;
+    }
+
+    char[] chunk = new char[8192];
+    mySegments.writeTo(writer, chunk);
+    writeChars(myStringBuilder, 0, myStringBuilder.length(), writer, chunk);
+  }
+
+  // Writer.write(String) copies the whole string, hence the fixed size chunks
+  private static void writeChars(CharSequence text, int start, int end, Writer writer, char[] chunk) throws IOException {
+    while (start < end) {
+      int length = Math.min(end - start, chunk.length);
+      if (text instanceof StringBuilder) {
+        ((StringBuilder)text).getChars(start, start + length, chunk, 0);
       }
-      if (previousMarkLine < srcLines.length) {
-        appendLines(res, srcLines, previousMarkLine, srcLines.length, srcLines.length - previousMarkLine);
+      else if (text instanceof String) {
+        ((String)text).getChars(start, start + length, chunk, 0);
       }
-
-      return res.toString();
+      else {
+        for (int i = 0; i < length; i++) {
+          chunk[i] = text.charAt(start + i);
+        }
+      }
+      writer.write(chunk, 0, length);
+      start += length;
     }
   }
 
@@ -146,80 +169,94 @@ public class TextBuffer {
     return sb.toString();
   }
 
-  private void appendLines(StringBuilder res, String[] srcLines, int from, int to, int requiredLineNumber) {
-    if (to - from > requiredLineNumber) {
-      List<String> strings = compactLines(Arrays.asList(srcLines).subList(from, to) ,requiredLineNumber);
-      int separatorsRequired = requiredLineNumber - 1;
-      for (String s : strings) {
-        res.append(s);
-        if (separatorsRequired-- > 0) {
-          res.append(myLineSeparator);
-        }
-      }
-      res.append(myLineSeparator);
-    }
-    else if (to - from <= requiredLineNumber) {
-      for (int i = from; i < to; i++) {
-        res.append(srcLines[i]).append(myLineSeparator);
-      }
-      for (int i = 0; i < requiredLineNumber - to + from; i++) {
-        res.append(myLineSeparator);
-      }
-    }
-  }
-
   public int length() {
-    return myStringBuilder.length();
+    return mySegments.length() + myStringBuilder.length();
   }
 
   public void setStart(int position) {
+    int linked = mySegments.length();
+    if (position < linked) {
+      mySegments = mySegments.slice(position, linked);
+      return;
+    }
+    mySegments = new Composite(myLineSeparator);
+    position -= linked;
     myStringBuilder.delete(0, position);
-    shiftMapping(-position);
+
+    if (myScannedLength < position) {
+      resetSeparators();
+    }
+    else {
+      int first = firstSeparatorFrom(position);
+      int count = mySeparatorCount - first;
+      for (int i = 0; i < count; i++) {
+        mySeparatorOffsets[i] = mySeparatorOffsets[first + i] - position;
+      }
+      mySeparatorCount = count;
+      myScannedLength -= position;
+    }
   }
 
   public void setLength(int position) {
-    myStringBuilder.setLength(position);
-    if (myLineToOffsetMapping != null) {
-      Map<Integer, Integer> newMap = new HashMap<>();
-      for (Map.Entry<Integer, Integer> entry : myLineToOffsetMapping.entrySet()) {
-        if (entry.getValue() <= position) {
-          newMap.put(entry.getKey(), entry.getValue());
-        }
+    int linked = mySegments.length();
+    if (position < linked) {
+      mySegments = mySegments.slice(0, position);
+      myStringBuilder = new StringBuilder();
+      resetSeparators();
+    }
+    else {
+      int tailLength = position - linked;
+      myStringBuilder.setLength(tailLength);
+      if (myScannedLength > tailLength) {
+        myScannedLength = tailLength;
+        // a separator cut in the middle is not a separator anymore
+        mySeparatorCount = firstSeparatorFrom(tailLength - myLineSeparator.length() + 1);
       }
-      myLineToOffsetMapping = newMap;
     }
   }
 
   public TextBuffer append(TextBuffer buffer) {
-    if (buffer.myLineToOffsetMapping != null && !buffer.myLineToOffsetMapping.isEmpty()) {
-      checkMapCreated();
-      for (Map.Entry<Integer, Integer> entry : buffer.myLineToOffsetMapping.entrySet()) {
-        myLineToOffsetMapping.put(entry.getKey(), entry.getValue() + myStringBuilder.length());
-      }
+    if (buffer.length() < MIN_SEGMENT_LENGTH) {
+      buffer.mySegments.appendTo(myStringBuilder);
+      myStringBuilder.append(buffer.myStringBuilder);
+      return this;
     }
-    myStringBuilder.append(buffer.myStringBuilder);
+
+    Segment segment = buffer.seal();
+    sealText();
+    mySegments.add(segment);
     return this;
   }
 
-  private void shiftMapping(int shiftOffset) {
-    if (myLineToOffsetMapping != null) {
-      Map<Integer, Integer> newMap = new HashMap<>();
-      for (Map.Entry<Integer, Integer> entry : myLineToOffsetMapping.entrySet()) {
-        int newValue = entry.getValue();
-        if (newValue >= 0) {
-          newValue += shiftOffset;
-        }
-        if (newValue >= 0) {
-          newMap.put(entry.getKey(), newValue);
-        }
-      }
-      myLineToOffsetMapping = newMap;
+  // moves the text being written to the linked segments
+  private void sealText() {
+    if (myStringBuilder.length() > 0) {
+      updateSeparators();
+      mySegments.add(new Leaf(myStringBuilder, 0, myStringBuilder.length(), mySeparatorOffsets, 0, mySeparatorCount, myLineSeparator.length()));
+      myStringBuilder = new StringBuilder();
+      mySeparatorOffsets = new int[16];
+      resetSeparators();
     }
   }
 
-  private void checkMapCreated() {
-    if (myLineToOffsetMapping == null) {
-      myLineToOffsetMapping = new HashMap<>();
+  // returns the whole text as an immutable segment, which this buffer continues with
+  private Segment seal() {
+    sealText();
+    Segment segment = mySegments.size() == 1 ? mySegments.get(0) : mySegments;
+    mySegments = new Composite(myLineSeparator);
+    mySegments.add(segment);
+    return segment;
+  }
+
+  // replaces the linked segments with a copy of their text
+  private void flatten() {
+    if (mySegments.length() > 0) {
+      StringBuilder text = new StringBuilder(length());
+      mySegments.appendTo(text);
+      text.append(myStringBuilder);
+      mySegments = new Composite(myLineSeparator);
+      myStringBuilder = text;
+      resetSeparators();
     }
   }
 
@@ -228,46 +265,92 @@ public class TextBuffer {
   }
 
   public int countLines(int from) {
-    return count(myLineSeparator, from);
-  }
+    if (from == 0 && startsWithSeparator()) {
+      return 0; // as count() does, which stops at a separator in the very beginning
+    }
 
-  public int count(String substring, int from) {
-    int count = 0, length = substring.length(), p = from;
-    while ((p = myStringBuilder.indexOf(substring, p)) > 0) {
-      ++count;
-      p += length;
+    updateSeparators();
+    int linked = mySegments.length();
+    int count = mySeparatorCount - firstSeparatorFrom(Math.max(from - linked, 0));
+    if (from < linked) {
+      count += mySegments.countLines(from);
+      if (myLineSeparator.length() == 2 && myStringBuilder.length() > 0 &&
+          mySegments.charAt(linked - 1) == myLineSeparator.charAt(0) && myStringBuilder.charAt(0) == myLineSeparator.charAt(1)) {
+        count++; // separator split between the linked segments and the text being written
+      }
     }
     return count;
   }
 
-  private static List<String> compactLines(List<String> srcLines, int requiredLineNumber) {
-    if (srcLines.size() < 2 || srcLines.size() <= requiredLineNumber) {
-      return srcLines;
+  private boolean startsWithSeparator() {
+    if (length() < myLineSeparator.length()) {
+      return false;
     }
-    List<String> res = new LinkedList<>(srcLines);
-    // first join lines with a single { or }
-    for (int i = res.size()-1; i > 0 ; i--) {
-      String s = res.get(i);
-      if (s.trim().equals("{") || s.trim().equals("}")) {
-        res.set(i-1, res.get(i-1).concat(s));
-        res.remove(i);
-      }
-      if (res.size() <= requiredLineNumber) {
-        return res;
+    int linked = mySegments.length();
+    for (int i = 0; i < myLineSeparator.length(); i++) {
+      char ch = i < linked ? mySegments.charAt(i) : myStringBuilder.charAt(i - linked);
+      if (ch != myLineSeparator.charAt(i)) {
+        return false;
       }
     }
-    // now join empty lines
-    for (int i = res.size()-1; i > 0 ; i--) {
-      String s = res.get(i);
-      if (s.trim().isEmpty()) {
-        res.set(i-1, res.get(i-1).concat(s));
-        res.remove(i);
+    return true;
+  }
+
+  private void updateSeparators() {
+    int length = myStringBuilder.length(), separatorLength = myLineSeparator.length();
+    if (myScannedLength == length) {
+      return;
+    }
+
+    int p = Math.max(myScannedLength - separatorLength + 1, 0);
+    if (mySeparatorCount > 0) {
+      p = Math.max(p, mySeparatorOffsets[mySeparatorCount - 1] + separatorLength);
+    }
+    while ((p = myStringBuilder.indexOf(myLineSeparator, p)) >= 0) {
+      addSeparator(p);
+      p += separatorLength;
+    }
+    myScannedLength = length;
+  }
+
+  private void addSeparator(int offset) {
+    if (mySeparatorCount == mySeparatorOffsets.length) {
+      mySeparatorOffsets = Arrays.copyOf(mySeparatorOffsets, mySeparatorCount * 2);
+    }
+    mySeparatorOffsets[mySeparatorCount++] = offset;
+  }
+
+  // index of the first known separator at or after the offset
+  private int firstSeparatorFrom(int offset) {
+    return lowerBound(mySeparatorOffsets, 0, mySeparatorCount, offset);
+  }
+
+  private static int lowerBound(int[] values, int low, int high, int value) {
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (values[mid] < value) {
+        low = mid + 1;
       }
-      if (res.size() <= requiredLineNumber) {
-        return res;
+      else {
+        high = mid;
       }
     }
-    return res;
+    return low;
+  }
+
+  private void resetSeparators() {
+    mySeparatorCount = 0;
+    myScannedLength = 0;
+  }
+
+  public int count(String substring, int from) {
+    flatten();
+    int count = 0, length = substring.length(), p = from;
+    while ((p = myStringBuilder.indexOf(substring, p)) > 0) {
+      ++count;
+      p += length;
+    }
+    return count;
   }
 
   private Map<Integer, Set<Integer>> myLineMapping = null; // new to original
@@ -282,4 +365,233 @@ public class TextBuffer {
       }
     }
   }
+
+  private static abstract class Segment {
+    abstract int length();
+
+    abstract char charAt(int index);
+
+    // line separators completely inside the segment
+    abstract int separatorCount();
+
+    // line separators starting at or after the offset
+    abstract int countLines(int from);
+
+    abstract Segment slice(int from, int to);
+
+    abstract void appendTo(StringBuilder builder);
+
+    abstract void writeTo(Writer writer, char[] chunk) throws IOException;
+
+    abstract boolean containsOnlyWhitespaces();
+  }
+
+  // part of a text which is not changed anymore
+  private static final class Leaf extends Segment {
+    private final CharSequence myText;
+    private final int myStart;
+    private final int myLength;
+    private final int[] mySeparatorOffsets;  // offsets in myText, shared by the slices of the text
+    private final int myFirstSeparator;
+    private final int myLastSeparator;
+    private final int mySeparatorLength;
+
+    Leaf(CharSequence text, int start, int length, int[] separatorOffsets, int firstSeparator, int lastSeparator, int separatorLength) {
+      myText = text;
+      myStart = start;
+      myLength = length;
+      mySeparatorOffsets = separatorOffsets;
+      myFirstSeparator = firstSeparator;
+      myLastSeparator = lastSeparator;
+      mySeparatorLength = separatorLength;
+    }
+
+    static Leaf of(String text, String separator) {
+      int[] offsets = new int[4];
+      int count = 0, p = 0;
+      while ((p = text.indexOf(separator, p)) >= 0) {
+        if (count == offsets.length) {
+          offsets = Arrays.copyOf(offsets, count * 2);
+        }
+        offsets[count++] = p;
+        p += separator.length();
+      }
+      return new Leaf(text, 0, text.length(), offsets, 0, count, separator.length());
+    }
+
+    @Override
+    int length() {
+      return myLength;
+    }
+
+    @Override
+    char charAt(int index) {
+      return myText.charAt(myStart + index);
+    }
+
+    @Override
+    int separatorCount() {
+      return myLastSeparator - myFirstSeparator;
+    }
+
+    @Override
+    int countLines(int from) {
+      return myLastSeparator - lowerBound(mySeparatorOffsets, myFirstSeparator, myLastSeparator, myStart + from);
+    }
+
+    @Override
+    Segment slice(int from, int to) {
+      if (from == 0 && to == myLength) {
+        return this;
+      }
+      int first = lowerBound(mySeparatorOffsets, myFirstSeparator, myLastSeparator, myStart + from);
+      int last = lowerBound(mySeparatorOffsets, first, myLastSeparator, myStart + to - mySeparatorLength + 1);
+      return new Leaf(myText, myStart + from, to - from, mySeparatorOffsets, first, last, mySeparatorLength);
+    }
+
+    @Override
+    void appendTo(StringBuilder builder) {
+      builder.append(myText, myStart, myStart + myLength);
+    }
+
+    @Override
+    void writeTo(Writer writer, char[] chunk) throws IOException {
+      writeChars(myText, myStart, myStart + myLength, writer, chunk);
+    }
+
+    @Override
+    boolean containsOnlyWhitespaces() {
+      for (int i = 0; i < myLength; i++) {
+        if (myText.charAt(myStart + i) != ' ') {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  // sequence of segments; it is only added to while it belongs to a single buffer
+  private static final class Composite extends Segment {
+    private final String myLineSeparator;
+    private Segment[] myChildren = new Segment[4];
+    private int[] myStarts = new int[4];
+    // line separators starting before the child, including one split between the child and the previous one
+    private int[] mySeparatorsBefore = new int[4];
+    private int mySize = 0;
+    private int myLength = 0;
+    private int mySeparatorCount = 0;
+
+    Composite(String lineSeparator) {
+      myLineSeparator = lineSeparator;
+    }
+
+    void add(Segment segment) {
+      if (segment.length() == 0) {
+        return;
+      }
+      if (mySize == myChildren.length) {
+        myChildren = Arrays.copyOf(myChildren, mySize * 2);
+        myStarts = Arrays.copyOf(myStarts, mySize * 2);
+        mySeparatorsBefore = Arrays.copyOf(mySeparatorsBefore, mySize * 2);
+      }
+
+      int split = 0;
+      if (mySize > 0 && myLineSeparator.length() == 2 &&
+          myChildren[mySize - 1].charAt(myChildren[mySize - 1].length() - 1) == myLineSeparator.charAt(0) &&
+          segment.charAt(0) == myLineSeparator.charAt(1)) {
+        split = 1;
+      }
+      myChildren[mySize] = segment;
+      myStarts[mySize] = myLength;
+      mySeparatorsBefore[mySize] = mySeparatorCount + split;
+      mySeparatorCount = mySeparatorsBefore[mySize] + segment.separatorCount();
+      myLength += segment.length();
+      mySize++;
+    }
+
+    void addChildren(Composite composite) {
+      for (int i = 0; i < composite.mySize; i++) {
+        add(composite.myChildren[i]);
+      }
+    }
+
+    int size() {
+      return mySize;
+    }
+
+    Segment get(int index) {
+      return myChildren[index];
+    }
+
+    // index of the child containing the offset
+    private int locate(int offset) {
+      return lowerBound(myStarts, 0, mySize, offset + 1) - 1;
+    }
+
+    @Override
+    int length() {
+      return myLength;
+    }
+
+    @Override
+    char charAt(int index) {
+      int i = locate(index);
+      return myChildren[i].charAt(index - myStarts[i]);
+    }
+
+    @Override
+    int separatorCount() {
+      return mySeparatorCount;
+    }
+
+    @Override
+    int countLines(int from) {
+      if (from <= 0) {
+        return mySeparatorCount;
+      }
+      if (from >= myLength) {
+        return 0;
+      }
+      int i = locate(from);
+      return myChildren[i].countLines(from - myStarts[i]) + mySeparatorCount - mySeparatorsBefore[i] - myChildren[i].separatorCount();
+    }
+
+    @Override
+    Composite slice(int from, int to) {
+      if (from == 0 && to == myLength) {
+        return this;
+      }
+
+      Composite result = new Composite(myLineSeparator);
+      for (int i = Math.max(locate(from), 0); i < mySize && myStarts[i] < to; i++) {
+        int start = myStarts[i];
+        result.add(myChildren[i].slice(Math.max(from, start) - start, Math.min(to, start + myChildren[i].length()) - start));
+      }
+      return result;
+    }
+
+    @Override
+    void appendTo(StringBuilder builder) {
+      for (int i = 0; i < mySize; i++) {
+        myChildren[i].appendTo(builder);
+      }
+    }
+
+    @Override
+    void writeTo(Writer writer, char[] chunk) throws IOException {
+      for (int i = 0; i < mySize; i++) {
+        myChildren[i].writeTo(writer, chunk);
+      }
+    }
+
+    @Override
+    boolean containsOnlyWhitespaces() {
+      for (int i = 0; i < mySize; i++) {
+        if (!myChildren[i].containsOnlyWhitespaces()) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
 }
\ No newline at end of file
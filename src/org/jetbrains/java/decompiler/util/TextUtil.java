@@ -4,7 +4,6 @@ package org.jetbrains.java.decompiler.util;
 import org.jetbrains.java.decompiler.code.CodeConstants;
 import org.jetbrains.java.decompiler.main.ClassesProcessor;
 import org.jetbrains.java.decompiler.main.DecompilerContext;
-import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.modules.decompiler.ExprProcessor;
 
 import java.util.Arrays;
@@ -28,7 +27,7 @@ public final class TextUtil {
   public static String getIndentString(int length) {
     if (length == 0) return "";
     StringBuilder buf = new StringBuilder();
-    String indent = (String)DecompilerContext.getProperty(IFernflowerPreferences.INDENT_STRING);
+    String indent = DecompilerContext.getOptions().indentString;
     append(buf, indent, length);
     return buf.toString();
   }
@@ -0,0 +1,81 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Threads for decompilation jobs. Virtual threads are used when they are requested and the runtime provides them
+ * (Java 21 and later); they are looked up reflectively, since the decompiler is compiled for Java 11. Otherwise,
+ * daemon platform threads are used.
+ */
+public final class ThreadUtil {
+  // Thread.ofVirtual(), the builder methods and Executors.newThreadPerTaskExecutor(); null when virtual threads are not available
+  private static final Method OF_VIRTUAL;
+  private static final Method BUILDER_NAME;
+  private static final Method BUILDER_FACTORY;
+  private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+  static {
+    Method ofVirtual = null, builderName = null, builderFactory = null, newThreadPerTaskExecutor = null;
+    try {
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      ofVirtual = Thread.class.getMethod("ofVirtual");
+      builderName = builderClass.getMethod("name", String.class, long.class);
+      builderFactory = builderClass.getMethod("factory");
+      newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+    }
+    catch (ReflectiveOperationException | LinkageError ignored) {
+      ofVirtual = null;
+    }
+    OF_VIRTUAL = ofVirtual;
+    BUILDER_NAME = builderName;
+    BUILDER_FACTORY = builderFactory;
+    NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+  }
+
+  public static boolean isVirtualThreadSupported() {
+    return OF_VIRTUAL != null;
+  }
+
+  /**
+   * @return a factory of virtual threads named {@code name-N} when {@code virtual} is set and supported,
+   * of daemon platform threads named {@code name} otherwise
+   */
+  public static ThreadFactory newThreadFactory(String name, boolean virtual) {
+    if (virtual && isVirtualThreadSupported()) {
+      try {
+        Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), name + '-', 0L);
+        return (ThreadFactory)BUILDER_FACTORY.invoke(builder);
+      }
+      catch (ReflectiveOperationException e) {
+        throw new IllegalStateException("Cannot create virtual thread factory", e);
+      }
+    }
+
+    return r -> {
+      Thread thread = new Thread(r, name);
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /**
+   * @return an executor starting a new virtual thread for every task when {@code virtual} is set and supported,
+   * an executor reusing daemon platform threads otherwise
+   */
+  public static ExecutorService newUnboundedExecutor(String name, boolean virtual) {
+    ThreadFactory factory = newThreadFactory(name, virtual);
+    if (virtual && isVirtualThreadSupported()) {
+      try {
+        return (ExecutorService)NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, factory);
+      }
+      catch (ReflectiveOperationException e) {
+        throw new IllegalStateException("Cannot create virtual thread executor", e);
+      }
+    }
+    return Executors.newCachedThreadPool(factory);
+  }
+}
@@ -1,19 +1,21 @@
 // Copyright 2000-2018 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package org.jetbrains.java.decompiler;
 
+import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.main.decompiler.ConsoleDecompiler;
-import org.jetbrains.java.decompiler.util.InterpreterUtil;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.*;
-import java.util.Enumeration;
+import java.util.*;
+import java.util.jar.JarFile;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.jetbrains.java.decompiler.DecompilerTestFixture.assertFilesEqual;
-import static org.junit.Assert.assertTrue;
+import static org.jetbrains.java.decompiler.DecompilerTestFixture.unpack;
 
 public class BulkDecompilationTest {
   private DecompilerTestFixture fixture;
@@ -47,6 +49,52 @@ public class BulkDecompilationTest {
     doTestJar("bulk");
   }
 
+  @Test
+  public void testJarParallel() {
+    DecompilerContext.setProperty(IFernflowerPreferences.THREADS, "4");
+    doTestJar("bulk");
+  }
+
+  @Test
+  public void testJarVirtualThreads() {
+    // time limits are not applied in unit test mode
+    DecompilerContext.setProperty(IFernflowerPreferences.UNIT_TEST_MODE, "0");
+    DecompilerContext.setProperty(IFernflowerPreferences.THREADS, "4");
+    DecompilerContext.setProperty(IFernflowerPreferences.MAX_PROCESSING_METHOD, "60");
+    DecompilerContext.setProperty(IFernflowerPreferences.VIRTUAL_THREADS, "1");
+    doTestJar("bulk");
+  }
+
+  @Test
+  public void testJarParallelCompression() {
+    DecompilerContext.setProperty(IFernflowerPreferences.ARCHIVE_COMPRESSION, "parallel");
+    doTestJar("bulk");
+  }
+
+  @Test
+  public void testJarStored() throws IOException {
+    DecompilerContext.setProperty(IFernflowerPreferences.ARCHIVE_COMPRESSION, "store");
+    doTestJar("bulk");
+
+    try (JarFile zip = new JarFile(new File(fixture.getTargetDir(), "bulk.jar"))) {
+      assertThat(zip.getManifest()).isNotNull();
+      assertThat(Collections.list(zip.entries())).isNotEmpty().allMatch(entry -> entry.getMethod() == ZipEntry.STORED);
+    }
+  }
+
+  @Test
+  public void testJarArchiveOpenedOnce() {
+    doTestJar("bulk");
+    assertThat(fixture.getDecompiler().getArchiveOpenCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void testJarLazyLibrary() {
+    DecompilerContext.setProperty(IFernflowerPreferences.LAZY_LIBRARIES, "1");
+    fixture.getDecompiler().addLibrary(new File(fixture.getTestDataDir(), "bulk.jar"));
+    doTestJar("kt25937");
+  }
+
   @Test
   public void testKtJar() {
     doTestJar("kt25937");
@@ -68,24 +116,4 @@ public class BulkDecompilationTest {
 
     assertFilesEqual(new File(fixture.getTestDataDir(), name), unpacked);
   }
-
-  private static void unpack(File archive, File targetDir) {
-    try (ZipFile zip = new ZipFile(archive)) {
-      Enumeration<? extends ZipEntry> entries = zip.entries();
-      while (entries.hasMoreElements()) {
-        ZipEntry entry = entries.nextElement();
-        if (!entry.isDirectory()) {
-          File file = new File(targetDir, entry.getName());
-          assertTrue(file.toPath().normalize().startsWith(targetDir.toPath().normalize())); // check for zip-slip vulnerability
-          assertTrue(file.getParentFile().mkdirs() || file.getParentFile().isDirectory());
-          try (InputStream in = zip.getInputStream(entry); OutputStream out = new FileOutputStream(file)) {
-            InterpreterUtil.copyStream(in, out);
-          }
-        }
-      }
-    }
-    catch (IOException e) {
-      throw new RuntimeException(e);
-    }
-  }
-}
\ No newline at end of file
+}
@@ -6,9 +6,9 @@ import org.jetbrains.java.decompiler.main.decompiler.PrintStreamLogger;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.util.InterpreterUtil;
 
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -22,7 +22,7 @@ public class DecompilerTestFixture {
   private File testDataDir;
   private File tempDir;
   private File targetDir;
-  private TestConsoleDecompiler decompiler;
+  private ConsoleDecompiler decompiler;
 
   public void setUp(String... optionPairs) throws IOException {
     assertThat(optionPairs.length % 2).isEqualTo(0);
@@ -59,7 +59,6 @@ public class DecompilerTestFixture {
     if (tempDir != null) {
       delete(tempDir);
     }
-    decompiler.close();
   }
 
   public File getTestDataDir() {
@@ -105,6 +104,26 @@ public class DecompilerTestFixture {
     }
   }
 
+  public static void unpack(File archive, File targetDir) {
+    try (ZipFile zip = new ZipFile(archive)) {
+      Enumeration<? extends ZipEntry> entries = zip.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry entry = entries.nextElement();
+        if (!entry.isDirectory()) {
+          File file = new File(targetDir, entry.getName());
+          assertTrue(file.toPath().normalize().startsWith(targetDir.toPath().normalize())); // check for zip-slip vulnerability
+          assertTrue(file.getParentFile().mkdirs() || file.getParentFile().isDirectory());
+          try (InputStream in = zip.getInputStream(entry); OutputStream out = new FileOutputStream(file)) {
+            InterpreterUtil.copyStream(in, out);
+          }
+        }
+      }
+    }
+    catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   private static String getContent(File expected) {
     try {
       return new String(InterpreterUtil.getBytes(expected), StandardCharsets.UTF_8).replace("\r\n", "\n");
@@ -114,42 +133,9 @@ public class DecompilerTestFixture {
     }
   }
 
-  // cache zip files
   private static class TestConsoleDecompiler extends ConsoleDecompiler {
-    private final HashMap<String, ZipFile> zipFiles = new HashMap<>();
-
     TestConsoleDecompiler(File destination, Map<String, Object> options) {
       super(destination, options, new PrintStreamLogger(System.out));
     }
-
-    @Override
-    public byte[] getBytecode(String externalPath, String internalPath) throws IOException {
-      File file = new File(externalPath);
-      if (internalPath == null) {
-        return InterpreterUtil.getBytes(file);
-      }
-      else {
-        ZipFile archive = zipFiles.get(file.getName());
-        if (archive == null) {
-          archive = new ZipFile(file);
-          zipFiles.put(file.getName(), archive);
-        }
-        ZipEntry entry = archive.getEntry(internalPath);
-        if (entry == null) throw new IOException("Entry not found: " + internalPath);
-        return InterpreterUtil.getBytes(archive, entry);
-      }
-    }
-
-    void close() {
-      for (ZipFile file : zipFiles.values()) {
-        try {
-          file.close();
-        }
-        catch (IOException e) {
-          e.printStackTrace();
-        }
-      }
-      zipFiles.clear();
-    }
   }
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler;
+
+import org.jetbrains.java.decompiler.main.decompiler.ConsoleDecompiler;
+import org.jetbrains.java.decompiler.main.decompiler.PrintStreamLogger;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
+import org.jetbrains.java.decompiler.util.InterpreterUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MethodTimeLimitTest {
+  private DecompilerTestFixture fixture;
+
+  @Before
+  public void setUp() throws IOException {
+    fixture = new DecompilerTestFixture();
+    fixture.setUp();
+  }
+
+  @After
+  public void tearDown() {
+    fixture.tearDown();
+    fixture = null;
+  }
+
+  @Test
+  public void testTimeLimitExceeded() throws IOException {
+    doTestTimeLimitExceeded("0");
+  }
+
+  @Test
+  public void testTimeLimitExceededOnVirtualThread() throws IOException {
+    doTestTimeLimitExceeded("1");
+  }
+
+  // the method thread is held up past the time limit by a message it logs, and cancelled at its next pass
+  private void doTestTimeLimitExceeded(String virtualThreads) throws IOException {
+    AtomicBoolean delayed = new AtomicBoolean();
+    List<String> errors = Collections.synchronizedList(new ArrayList<>());
+    PrintStreamLogger logger = new PrintStreamLogger(System.out) {
+      @Override
+      public void writeMessage(String message, Severity severity) {
+        if (severity == Severity.ERROR) {
+          errors.add(message);
+        }
+        if (message.startsWith("Heavily obfuscated exception ranges") && !delayed.getAndSet(true)) {
+          try {
+            Thread.sleep(1500);
+          }
+          catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+        super.writeMessage(message, severity);
+      }
+    };
+
+    File report = new File(fixture.getTempDir(), "report.json");
+    Map<String, Object> options = new HashMap<>();
+    options.put(IFernflowerPreferences.LOG_LEVEL, "warn");
+    options.put(IFernflowerPreferences.MAX_PROCESSING_METHOD, "1");
+    options.put(IFernflowerPreferences.VIRTUAL_THREADS, virtualThreads);
+    options.put(IFernflowerPreferences.REPORT_FILE, report.getPath());
+    ConsoleDecompiler decompiler = new ConsoleDecompiler(fixture.getTargetDir(), options, logger) { };
+    File classes = new File(fixture.getTestDataDir(), "classes/pkg");
+    decompiler.addSource(new File(classes, "TestNamedSuspendFun2Kt.class"));
+    decompiler.addSource(new File(classes, "TestNamedSuspendFun2Kt$foo2$1.class"));
+    decompiler.decompileContext();
+
+    assertThat(delayed.get()).isTrue();
+    assertThat(errors).containsExactly(
+      "Processing time limit exceeded for method foo2 in pass 'parseGraph', execution interrupted.");
+
+    String content = new String(InterpreterUtil.getBytes(report), StandardCharsets.UTF_8);
+    String[] parts = content.split("\"status\": \"timeout\"", -1);
+    assertThat(parts).hasSize(2);
+    // the state of the cancelled job is taken over, the report shows the passes it got through
+    String timedOut = parts[1].substring(0, parts[1].indexOf('}', parts[1].indexOf("\"passes\": [")));
+    assertThat(timedOut).contains("{\"name\": \"cfg\", \"count\": 1, ");
+
+    String output = new String(InterpreterUtil.getBytes(new File(fixture.getTargetDir(), "TestNamedSuspendFun2Kt.java")),
+                               StandardCharsets.UTF_8);
+    assertThat(output).contains("// $FF: Couldn't be decompiled");
+  }
+}
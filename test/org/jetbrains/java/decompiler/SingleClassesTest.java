@@ -123,6 +123,7 @@ public class SingleClassesTest {
   @Test public void testSwitchOnEnum() { doTest("pkg/TestSwitchOnEnum");}
   @Test public void testSwitchOnEnumEclipse() { doTest("pkg/TestSwitchOnEnumEclipse"); }
   @Test public void testVarArgCalls() { doTest("pkg/TestVarArgCalls"); }
+  @Test public void testInheritedVarArgCalls() { doTest("pkg/TestInheritedVarArgCalls"); }
   @Test public void testLambdaParams() { doTest("pkg/TestLambdaParams"); }
   @Test public void testInterfaceMethods() { doTest("pkg/TestInterfaceMethods"); }
   @Test public void testConstType() { doTest("pkg/TestConstType"); }
@@ -0,0 +1,175 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.main;
+
+import org.jetbrains.java.decompiler.DecompilerTestFixture;
+import org.jetbrains.java.decompiler.main.ClassesProcessor.ClassNode;
+import org.jetbrains.java.decompiler.main.decompiler.ConsoleDecompiler;
+import org.jetbrains.java.decompiler.main.decompiler.PrintStreamLogger;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
+import org.jetbrains.java.decompiler.struct.StructClass;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.jetbrains.java.decompiler.DecompilerTestFixture.assertFilesEqual;
+import static org.jetbrains.java.decompiler.DecompilerTestFixture.unpack;
+import static org.junit.Assert.assertTrue;
+
+public class ClassContentCacheTest {
+  private DecompilerTestFixture fixture;
+
+  @Before
+  public void setUp() throws IOException {
+    fixture = new DecompilerTestFixture();
+    fixture.setUp();
+  }
+
+  @After
+  public void tearDown() {
+    fixture.tearDown();
+    fixture = null;
+  }
+
+  @Test
+  public void testKey() {
+    ClassNode root = new ClassNode(ClassNode.CLASS_ROOT, readClass("pkg/TestClassCast"));
+    Map<String, Object> options = new HashMap<>(IFernflowerPreferences.DEFAULTS);
+    File directory = new File(fixture.getTempDir(), "cache");
+    String key = new ClassContentCache(directory, options).getKey(root);
+    assertThat(key).hasSize(64);
+
+    // options which do not change the output are left out
+    options.put(IFernflowerPreferences.THREADS, "8");
+    options.put(IFernflowerPreferences.REPORT_FILE, "report.json");
+    assertThat(new ClassContentCache(directory, options).getKey(root)).isEqualTo(key);
+
+    options.put(IFernflowerPreferences.LITERALS_AS_IS, "1");
+    String otherOptionsKey = new ClassContentCache(directory, options).getKey(root);
+    assertThat(otherOptionsKey).isNotEqualTo(key);
+
+    // nested classes are part of the key
+    root.nested.add(new ClassNode(ClassNode.CLASS_MEMBER, readClass("pkg/TestEnum")));
+    assertThat(new ClassContentCache(directory, options).getKey(root)).isNotIn(key, otherOptionsKey);
+  }
+
+  @Test
+  public void testBuildDigest() throws IOException {
+    File build = new File(fixture.getTempDir(), "build");
+    File classFile = new File(build, "pkg/A.class");
+    assertTrue(classFile.getParentFile().mkdirs());
+    write(classFile, "A1");
+    byte[] digest = ClassContentCache.digestBuild(build);
+    assertThat(ClassContentCache.digestBuild(build)).isEqualTo(digest);
+
+    // other files next to the classes do not count
+    write(new File(build, "pkg/notes.txt"), "notes");
+    assertThat(ClassContentCache.digestBuild(build)).isEqualTo(digest);
+
+    write(classFile, "A2");
+    assertThat(ClassContentCache.digestBuild(build)).isNotEqualTo(digest);
+
+    File jar = new File(fixture.getTempDir(), "decompiler.jar");
+    write(jar, "jar 1");
+    byte[] jarDigest = ClassContentCache.digestBuild(jar);
+    write(jar, "jar 2");
+    assertThat(ClassContentCache.digestBuild(jar)).isNotEqualTo(jarDigest);
+  }
+
+  @Test
+  public void testEntries() {
+    ClassContentCache cache = new ClassContentCache(new File(fixture.getTempDir(), "cache"), IFernflowerPreferences.DEFAULTS);
+    String key = "0123456789abcdef";
+    assertThat(cache.get(key)).isNull();
+
+    cache.put(key, "class A {\n}\n", new int[]{1, 2, 3, 4});
+    ClassContentCache.Entry entry = cache.get(key);
+    assertThat(entry.content).isEqualTo("class A {\n}\n");
+    assertThat(entry.mapping).containsExactly(1, 2, 3, 4);
+
+    cache.put(key, "class B {\n}\n", null);
+    entry = cache.get(key);
+    assertThat(entry.content).isEqualTo("class B {\n}\n");
+    assertThat(entry.mapping).isNull();
+
+    // failures are not cached
+    cache.put("fedcba9876543210", "class C {\n  " + ClassWriter.NOT_DECOMPILED_MARKER + "\n}\n", null);
+    assertThat(cache.get("fedcba9876543210")).isNull();
+  }
+
+  @Test
+  public void testCachedRun() throws IOException {
+    File cache = new File(fixture.getTempDir(), "cache");
+    File report = new File(fixture.getTempDir(), "report.json");
+    DecompilerContext.setProperty(IFernflowerPreferences.CACHE_DIRECTORY, cache.getPath());
+    DecompilerContext.setProperty(IFernflowerPreferences.REPORT_FILE, report.getPath());
+    ConsoleDecompiler decompiler = fixture.getDecompiler();
+    decompiler.addSource(new File(fixture.getTestDataDir(), "bulk.jar"));
+    decompiler.decompileContext();
+
+    File unpacked = new File(fixture.getTempDir(), "unpacked");
+    unpack(new File(fixture.getTargetDir(), "bulk.jar"), unpacked);
+    assertFilesEqual(new File(fixture.getTestDataDir(), "bulk"), unpacked);
+
+    assertThat(listFiles(cache)).hasSize(2);
+    assertThat(getClasses(report)).extracting(cl -> cl.get("cached")).containsExactly(null, null);
+
+    // a second run with the same cache directory takes the classes from there
+    File target = new File(fixture.getTempDir(), "decompiled2");
+    assertTrue(target.mkdirs());
+    Map<String, Object> options = new HashMap<>();
+    options.put(IFernflowerPreferences.CACHE_DIRECTORY, cache.getPath());
+    options.put(IFernflowerPreferences.REPORT_FILE, report.getPath());
+    options.put(IFernflowerPreferences.LOG_LEVEL, "warn");
+    options.put(IFernflowerPreferences.DECOMPILE_GENERIC_SIGNATURES, "1");
+    options.put(IFernflowerPreferences.REMOVE_SYNTHETIC, "1");
+    options.put(IFernflowerPreferences.REMOVE_BRIDGE, "1");
+    options.put(IFernflowerPreferences.LITERALS_AS_IS, "1");
+    options.put(IFernflowerPreferences.UNIT_TEST_MODE, "1");
+    decompiler = new ConsoleDecompiler(target, options, new PrintStreamLogger(System.out)) { };
+    decompiler.addSource(new File(fixture.getTestDataDir(), "bulk.jar"));
+    decompiler.decompileContext();
+
+    File unpacked2 = new File(fixture.getTempDir(), "unpacked2");
+    unpack(new File(target, "bulk.jar"), unpacked2);
+    assertFilesEqual(new File(fixture.getTestDataDir(), "bulk"), unpacked2);
+    assertThat(listFiles(cache)).hasSize(2);
+    assertThat(getClasses(report)).extracting(cl -> cl.get("cached")).containsExactly(true, true);
+  }
+
+  private static List<Map<String, Object>> getClasses(File report) throws IOException {
+    return DecompilationReportTest.getList(DecompilationReportTest.readReport(report), "classes");
+  }
+
+  // the class file is kept by the context, which the key is computed from
+  private StructClass readClass(String name) {
+    fixture.getDecompiler().addSource(new File(fixture.getTestDataDir(), "classes/" + name + ".class"));
+    return DecompilerContext.getStructContext().getClass(name);
+  }
+
+  private static void write(File file, String content) throws IOException {
+    try (OutputStream out = new FileOutputStream(file)) {
+      out.write(content.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  private static List<File> listFiles(File dir) {
+    List<File> result = new ArrayList<>();
+    File[] files = dir.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        if (file.isDirectory()) {
+          result.addAll(listFiles(file));
+        }
+        else {
+          result.add(file);
+        }
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,216 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.main;
+
+import org.jetbrains.java.decompiler.DecompilerTestFixture;
+import org.jetbrains.java.decompiler.main.collectors.PassStatistics;
+import org.jetbrains.java.decompiler.main.decompiler.ConsoleDecompiler;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
+import org.jetbrains.java.decompiler.util.InterpreterUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DecompilationReportTest {
+  private DecompilerTestFixture fixture;
+
+  @Before
+  public void setUp() throws IOException {
+    fixture = new DecompilerTestFixture();
+    fixture.setUp();
+  }
+
+  @After
+  public void tearDown() {
+    fixture.tearDown();
+    fixture = null;
+  }
+
+  @Test
+  public void testRunReport() throws IOException {
+    File report = new File(fixture.getTempDir(), "report/run.json");
+    DecompilerContext.setProperty(IFernflowerPreferences.REPORT_FILE, report.getPath());
+    ConsoleDecompiler decompiler = fixture.getDecompiler();
+    decompiler.addSource(new File(fixture.getTestDataDir(), "bulk.jar"));
+    decompiler.decompileContext();
+
+    Map<String, Object> run = readReport(report);
+    assertThat(run).containsKeys("timeNanos", "allocatedBytes", "instructions", "blocks", "passes", "classes");
+
+    List<Map<String, Object>> classes = getList(run, "classes");
+    assertThat(classes).extracting(cl -> cl.get("name")).containsExactly("pkg/Main", "pkg/res/Loader");
+    for (Map<String, Object> cl : classes) {
+      assertThat(cl.get("status")).isEqualTo("ok");
+      assertThat(cl).containsKeys("fileChars", "outputChars", "timeNanos", "passes", "methods");
+      assertThat(getList(cl, "methods")).isNotEmpty();
+    }
+
+    Map<String, Object> method = getList(classes.get(1), "methods").stream()
+      .filter(m -> m.get("name").equals("getResource"))
+      .findFirst().orElseThrow();
+    assertThat(method.get("descriptor")).isEqualTo("()Ljava/lang/String;");
+    assertThat(method.get("status")).isEqualTo("ok");
+    assertThat(method).containsKeys("outputChars", "finallyRounds", "timeNanos", "allocatedBytes", "instructions", "blocks");
+    assertThat((Long)method.get("instructions")).isPositive();
+
+    List<Map<String, Object>> passes = getList(method, "passes");
+    assertThat(passes.get(0)).containsEntry("name", "cfg").containsEntry("count", 1L);
+    assertThat(passes).extracting(pass -> pass.get("name")).contains("parseGraph", "exprents", "varDefinitions");
+  }
+
+  @Test
+  public void testEntries() throws IOException {
+    PassStatistics statistics = new PassStatistics();
+    statistics.startPass("cfg");
+    statistics.endPass();
+
+    DecompilationReport report = new DecompilationReport(new File(fixture.getTempDir(), "report.json"));
+    report.addMethod("pkg/A", "<init>", "()V", statistics, DecompilationReport.Status.OK);
+    report.addMethod("pkg/A", "run\"\n", "()V", statistics, DecompilationReport.Status.TIMEOUT);
+    report.addMethod("pkg/B", "fail", "(I)V", statistics, DecompilationReport.Status.ERROR);
+    report.addClass("pkg/A", statistics);
+    report.setClassFailed("pkg/B");
+    report.setMethodOutput("pkg/A", "<init>", "()V", 42);
+    report.setMethodOutput("pkg/C", "missing", "()V", 1);
+    report.setFileOutput("pkg/A", 100, true);
+    report.write(null);
+
+    Map<String, Object> run = readReport(new File(fixture.getTempDir(), "report.json"));
+    assertThat(run).containsOnlyKeys("classes");
+    List<Map<String, Object>> classes = getList(run, "classes");
+    assertThat(classes).extracting(cl -> cl.get("name")).containsExactly("pkg/A", "pkg/B");
+
+    Map<String, Object> a = classes.get(0);
+    assertThat(a).containsEntry("status", "ok").containsEntry("cached", true).containsEntry("fileChars", 100L);
+    List<Map<String, Object>> methods = getList(a, "methods");
+    assertThat(methods).extracting(m -> m.get("name")).containsExactly("<init>", "run\"\n");
+    assertThat(methods.get(0)).containsEntry("outputChars", 42L).containsEntry("finallyRounds", 0L);
+    assertThat(methods.get(1)).containsEntry("status", "timeout").doesNotContainKey("outputChars");
+
+    Map<String, Object> b = classes.get(1);
+    assertThat(b).containsEntry("status", "error").doesNotContainKeys("cached", "timeNanos");
+    assertThat(getList(b, "methods")).extracting(m -> m.get("status")).containsExactly("error");
+  }
+
+  @SuppressWarnings("unchecked")
+  static List<Map<String, Object>> getList(Map<String, Object> object, String key) {
+    return (List<Map<String, Object>>)object.get(key);
+  }
+
+  @SuppressWarnings("unchecked")
+  static Map<String, Object> readReport(File file) throws IOException {
+    String text = new String(InterpreterUtil.getBytes(file), StandardCharsets.UTF_8);
+    JsonReader reader = new JsonReader(text);
+    Object value = reader.readValue();
+    reader.skipWhitespace();
+    assertThat(reader.position).as("end of the report").isEqualTo(text.length());
+    return (Map<String, Object>)value;
+  }
+
+  // objects, arrays, strings, integers and booleans, which is what the report consists of
+  private static class JsonReader {
+    private final String text;
+    private int position;
+
+    JsonReader(String text) {
+      this.text = text;
+    }
+
+    Object readValue() {
+      skipWhitespace();
+      char c = text.charAt(position);
+      if (c == '{') {
+        Map<String, Object> object = new LinkedHashMap<>();
+        position++;
+        if (!consume('}')) {
+          do {
+            skipWhitespace();
+            String key = readString();
+            expect(':');
+            assertThat(object.put(key, readValue())).as("duplicate key %s", key).isNull();
+          }
+          while (consume(','));
+          expect('}');
+        }
+        return object;
+      }
+      if (c == '[') {
+        List<Object> array = new ArrayList<>();
+        position++;
+        if (!consume(']')) {
+          do {
+            array.add(readValue());
+          }
+          while (consume(','));
+          expect(']');
+        }
+        return array;
+      }
+      if (c == '"') {
+        return readString();
+      }
+      if (text.startsWith("true", position) || text.startsWith("false", position)) {
+        boolean value = c == 't';
+        position += value ? 4 : 5;
+        return value;
+      }
+      int start = position;
+      if (c == '-') {
+        position++;
+      }
+      while (position < text.length() && Character.isDigit(text.charAt(position))) {
+        position++;
+      }
+      assertThat(position).as("value at %d", start).isGreaterThan(start);
+      return Long.parseLong(text.substring(start, position));
+    }
+
+    private String readString() {
+      expect('"');
+      StringBuilder builder = new StringBuilder();
+      char c;
+      while ((c = text.charAt(position++)) != '"') {
+        if (c == '\\') {
+          c = text.charAt(position++);
+          if (c == 'u') {
+            c = (char)Integer.parseInt(text.substring(position, position + 4), 16);
+            position += 4;
+          }
+          else {
+            assertThat(c).isIn('"', '\\');
+          }
+        }
+        else {
+          assertThat(c).as("control character at %d", position - 1).isGreaterThanOrEqualTo(' ');
+        }
+        builder.append(c);
+      }
+      return builder.toString();
+    }
+
+    private boolean consume(char c) {
+      skipWhitespace();
+      if (position < text.length() && text.charAt(position) == c) {
+        position++;
+        return true;
+      }
+      return false;
+    }
+
+    private void expect(char c) {
+      assertThat(consume(c)).as("'%s' at %d", c, position).isTrue();
+    }
+
+    void skipWhitespace() {
+      while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+        position++;
+      }
+    }
+  }
+}
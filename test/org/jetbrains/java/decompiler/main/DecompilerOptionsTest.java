@@ -0,0 +1,82 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.main;
+
+import org.jetbrains.java.decompiler.DecompilerTestFixture;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DecompilerOptionsTest {
+  private DecompilerTestFixture fixture;
+
+  @Before
+  public void setUp() throws IOException {
+    fixture = new DecompilerTestFixture();
+    fixture.setUp();
+  }
+
+  @After
+  public void tearDown() {
+    fixture.tearDown();
+    fixture = null;
+  }
+
+  @Test
+  public void testParse() {
+    Map<String, Object> properties = new HashMap<>(IFernflowerPreferences.DEFAULTS);
+    properties.put(IFernflowerPreferences.NEW_LINE_SEPARATOR, "0");
+    properties.put(IFernflowerPreferences.INDENT_STRING, "\t");
+    properties.put(IFernflowerPreferences.DECOMPILE_ENUM, "0");
+    properties.put(IFernflowerPreferences.LAMBDA_TO_ANONYMOUS_CLASS, "1");
+
+    DecompilerOptions options = new DecompilerOptions(properties);
+    assertThat(options.newLineSeparator).isEqualTo(IFernflowerPreferences.LINE_SEPARATOR_WIN);
+    assertThat(options.indentString).isEqualTo("\t");
+    assertThat(options.decompileEnum).isFalse();
+    assertThat(options.lambdaToAnonymousClass).isTrue();
+    assertThat(options.removeBridge).isTrue();
+  }
+
+  @Test
+  public void testSnapshot() {
+    DecompilerOptions options = DecompilerContext.getOptions();
+    assertThat(options.literalsAsIs).isTrue();
+    assertThat(options.indentString).isEqualTo(IFernflowerPreferences.DEFAULTS.get(IFernflowerPreferences.INDENT_STRING));
+
+    // properties which are not options keep the snapshot
+    DecompilerContext.setProperty(DecompilerContext.CURRENT_CLASS, null);
+    assertThat(DecompilerContext.getOptions()).isSameAs(options);
+
+    DecompilerContext.setProperty(IFernflowerPreferences.LITERALS_AS_IS, "0");
+    assertThat(DecompilerContext.getOptions().literalsAsIs).isFalse();
+    assertThat(DecompilerContext.getOption(IFernflowerPreferences.LITERALS_AS_IS)).isFalse();
+    assertThat(options.literalsAsIs).isTrue();
+  }
+
+  @Test
+  public void testCopiedContext() {
+    DecompilerContext context = DecompilerContext.getCurrentContext();
+    DecompilerOptions options = context.options();
+
+    // the options are parsed once for all classes
+    DecompilerContext copy = context.copy();
+    assertThat(copy.options()).isSameAs(options);
+
+    DecompilerContext.setCurrentContext(copy);
+    try {
+      DecompilerContext.setProperty(IFernflowerPreferences.LITERALS_AS_IS, "0");
+      assertThat(copy.options().literalsAsIs).isFalse();
+    }
+    finally {
+      DecompilerContext.setCurrentContext(context);
+    }
+    assertThat(context.options()).isSameAs(options);
+  }
+}
@@ -0,0 +1,118 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.main.collectors;
+
+import org.jetbrains.java.decompiler.DecompilerTestFixture;
+import org.jetbrains.java.decompiler.main.decompiler.ConsoleDecompiler;
+import org.jetbrains.java.decompiler.main.decompiler.PrintStreamLogger;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PassStatisticsTest {
+  private DecompilerTestFixture fixture;
+
+  @Before
+  public void setUp() throws IOException {
+    fixture = new DecompilerTestFixture();
+    fixture.setUp();
+  }
+
+  @After
+  public void tearDown() {
+    fixture.tearDown();
+    fixture = null;
+  }
+
+  @Test
+  public void testPasses() {
+    PassStatistics statistics = new PassStatistics();
+    statistics.startPass("cfg");
+    statistics.startPass("finally");
+    statistics.startPass("parseGraph");
+    statistics.startPass("finally");
+    statistics.endPass();
+    statistics.setCodeSize(10, 3);
+
+    List<PassStatistics.Pass> passes = statistics.getPasses();
+    assertThat(passes).extracting(PassStatistics.Pass::getName).containsExactly("cfg", "finally", "parseGraph");
+    assertThat(passes).extracting(PassStatistics.Pass::getCount).containsExactly(1, 2, 1);
+    assertThat(statistics.getCount("finally")).isEqualTo(2);
+    assertThat(statistics.getCount("labels")).isEqualTo(0);
+
+    long time = 0;
+    for (PassStatistics.Pass pass : passes) {
+      time += pass.getTimeNanos();
+    }
+    assertThat(statistics.getTimeNanos()).isEqualTo(time);
+
+    PassStatistics sum = new PassStatistics();
+    sum.add(statistics);
+    sum.add(statistics);
+    assertThat(sum.getPasses()).extracting(PassStatistics.Pass::getCount).containsExactly(2, 4, 2);
+    assertThat(sum.getTimeNanos()).isEqualTo(2 * time);
+    assertThat(sum.getInstructionCount()).isEqualTo(20);
+    assertThat(sum.getBlockCount()).isEqualTo(6);
+  }
+
+  @Test
+  public void testLoggerStatistics() {
+    Map<String, PassStatistics> methods = new ConcurrentHashMap<>();
+    Map<String, PassStatistics> classes = new ConcurrentHashMap<>();
+    List<PassStatistics> runs = new ArrayList<>();
+    PrintStreamLogger logger = new PrintStreamLogger(System.out) {
+      @Override
+      public boolean acceptsStatistics() {
+        return true;
+      }
+
+      @Override
+      public void methodStatistics(String className, String methodName, PassStatistics statistics) {
+        methods.put(className + "." + methodName, statistics);
+      }
+
+      @Override
+      public void classStatistics(String className, PassStatistics statistics) {
+        classes.put(className, statistics);
+      }
+
+      @Override
+      public void runStatistics(PassStatistics statistics) {
+        runs.add(statistics);
+      }
+    };
+
+    Map<String, Object> options = new HashMap<>();
+    options.put(IFernflowerPreferences.LOG_LEVEL, "warn");
+    options.put(IFernflowerPreferences.THREADS, "2");
+    ConsoleDecompiler decompiler = new ConsoleDecompiler(fixture.getTargetDir(), options, logger) { };
+    decompiler.addSource(new File(fixture.getTestDataDir(), "bulk.jar"));
+    decompiler.decompileContext();
+
+    assertThat(classes).containsOnlyKeys("pkg/Main", "pkg/res/Loader");
+    assertThat(methods).containsKey("pkg/res/Loader.getResource ()Ljava/lang/String;");
+    assertThat(runs).hasSize(1);
+
+    long methodTime = 0;
+    for (PassStatistics statistics : methods.values()) {
+      List<PassStatistics.Pass> passes = statistics.getPasses();
+      assertThat(passes.get(0).getName()).isEqualTo("cfg");
+      assertThat(passes.get(0).getCount()).isEqualTo(1);
+      assertThat(passes).extracting(PassStatistics.Pass::getName).contains("parseGraph", "exprents", "stackVars", "varDefinitions");
+      methodTime += statistics.getTimeNanos();
+    }
+    long classTime = 0;
+    for (PassStatistics statistics : classes.values()) {
+      classTime += statistics.getTimeNanos();
+    }
+    assertThat(classTime).isEqualTo(methodTime);
+    assertThat(runs.get(0).getTimeNanos()).isEqualTo(classTime);
+  }
+}
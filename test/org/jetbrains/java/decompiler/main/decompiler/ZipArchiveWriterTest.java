@@ -0,0 +1,80 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.main.decompiler;
+
+import org.jetbrains.java.decompiler.util.InterpreterUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ZipArchiveWriterTest {
+  private File archive;
+
+  @Before
+  public void setUp() throws IOException {
+    archive = File.createTempFile("decompiler_test_", ".zip");
+  }
+
+  @After
+  public void tearDown() {
+    assertThat(archive.delete()).isTrue();
+  }
+
+  @Test
+  public void testFailedEntryOnPool() throws IOException {
+    doTestFailedEntries(4);
+  }
+
+  @Test
+  public void testFailedEntryOnCallingThread() throws IOException {
+    doTestFailedEntries(1);
+  }
+
+  // failures are reported with the name of the failed entry, which is left out, whichever call they surface in
+  private void doTestFailedEntries(int threads) throws IOException {
+    List<String> failed = new ArrayList<>();
+    ZipArchiveWriter writer = new ZipArchiveWriter(new FileOutputStream(archive), null, true, threads);
+    for (int i = 0; i < 100; i++) {
+      String name = "entry" + i + ".txt";
+      String content = "content " + i;
+      try {
+        writer.addEntry(name, () -> {
+          if (name.equals("entry10.txt") || name.equals("entry98.txt") || name.equals("entry99.txt")) {
+            throw new IOException("unreadable");
+          }
+          return content.getBytes(StandardCharsets.UTF_8);
+        });
+      }
+      catch (ZipArchiveWriter.EntryException e) {
+        failed.add(e.getEntryName());
+      }
+    }
+    try {
+      writer.close();
+    }
+    catch (ZipArchiveWriter.EntryException e) {
+      failed.add(e.getEntryName());
+      for (Throwable suppressed : e.getSuppressed()) {
+        failed.add(((ZipArchiveWriter.EntryException)suppressed).getEntryName());
+      }
+    }
+
+    assertThat(failed).containsExactlyInAnyOrder("entry10.txt", "entry98.txt", "entry99.txt");
+    try (ZipFile zip = new ZipFile(archive)) {
+      assertThat(zip.size()).isEqualTo(97);
+      assertThat(zip.getEntry("entry10.txt")).isNull();
+      ZipEntry entry = zip.getEntry("entry11.txt");
+      assertThat(new String(InterpreterUtil.getBytes(zip, entry), StandardCharsets.UTF_8)).isEqualTo("content 11");
+    }
+  }
+}
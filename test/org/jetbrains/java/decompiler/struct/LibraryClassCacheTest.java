@@ -0,0 +1,103 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.struct;
+
+import org.jetbrains.java.decompiler.DecompilerTestFixture;
+import org.jetbrains.java.decompiler.main.DecompilerContext;
+import org.jetbrains.java.decompiler.main.decompiler.ConsoleDecompiler;
+import org.jetbrains.java.decompiler.main.decompiler.PrintStreamLogger;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
+import org.jetbrains.java.decompiler.util.DataInputFullStream;
+import org.jetbrains.java.decompiler.util.InterpreterUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LibraryClassCacheTest {
+  private DecompilerTestFixture fixture;
+
+  @Before
+  public void setUp() throws IOException {
+    fixture = new DecompilerTestFixture();
+    fixture.setUp();
+  }
+
+  @After
+  public void tearDown() {
+    fixture.tearDown();
+    fixture = null;
+  }
+
+  @Test
+  public void testBudget() throws IOException {
+    StructClass a = readClass("pkg/TestEnum"), b = readClass("pkg/TestClassCast"), c = readClass("pkg/TestConstants");
+
+    LibraryClassCache cache = new LibraryClassCache();
+    cache.setBudget(250);
+    assertThat(cache.put(a, 100)).isSameAs(a);
+    assertThat(cache.put(b, 100)).isSameAs(b);
+    assertThat(cache.get(a.qualifiedName)).isSameAs(a);
+
+    // b is the least recently used class
+    assertThat(cache.put(c, 100)).isSameAs(c);
+    assertThat(cache.get(b.qualifiedName)).isNull();
+    assertThat(cache.get(a.qualifiedName)).isSameAs(a);
+    assertThat(cache.get(c.qualifiedName)).isSameAs(c);
+
+    // a smaller budget evicts at once, but the last class is kept even when it does not fit
+    cache.setBudget(50);
+    assertThat(cache.get(a.qualifiedName)).isNull();
+    assertThat(cache.get(c.qualifiedName)).isSameAs(c);
+    assertThat(cache.toString()).startsWith("1 classes (0 KB of class files), ").endsWith(", 2 evictions");
+  }
+
+  @Test
+  public void testNoLimit() throws IOException {
+    StructClass a = readClass("pkg/TestEnum"), b = readClass("pkg/TestClassCast");
+
+    LibraryClassCache cache = new LibraryClassCache();
+    assertThat(cache.put(a, Integer.MAX_VALUE)).isSameAs(a);
+    assertThat(cache.put(b, Integer.MAX_VALUE)).isSameAs(b);
+    assertThat(cache.get(a.qualifiedName)).isSameAs(a);
+    assertThat(cache.get(b.qualifiedName)).isSameAs(b);
+
+    // the class added first is kept
+    assertThat(cache.put(readClass("pkg/TestEnum"), 1)).isSameAs(a);
+  }
+
+  @Test
+  public void testUnreadableLibraryClass() {
+    List<String> errors = new ArrayList<>();
+    PrintStreamLogger logger = new PrintStreamLogger(System.out) {
+      @Override
+      public void writeMessage(String message, Severity severity, Throwable t) {
+        errors.add(message);
+      }
+    };
+
+    Map<String, Object> options = new HashMap<>();
+    options.put(IFernflowerPreferences.LAZY_LIBRARIES, "1");
+    ConsoleDecompiler decompiler = new ConsoleDecompiler(fixture.getTargetDir(), options, logger) {
+      @Override
+      public byte[] getBytecode(String externalPath, String internalPath) throws IOException {
+        throw new IOException("unreadable");
+      }
+    };
+    decompiler.addLibrary(new File(fixture.getTestDataDir(), "bulk.jar"));
+
+    assertThat(DecompilerContext.getStructContext().getClass("pkg/res/Loader")).isNull();
+    assertThat(errors).containsExactly("Corrupted class file: pkg/res/Loader");
+  }
+
+  private StructClass readClass(String name) throws IOException {
+    byte[] bytes = InterpreterUtil.getBytes(new File(fixture.getTestDataDir(), "classes/" + name + ".class"));
+    try (DataInputFullStream in = new DataInputFullStream(bytes)) {
+      return StructClass.create(in, false, null);
+    }
+  }
+}
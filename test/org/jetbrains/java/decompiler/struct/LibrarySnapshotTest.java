@@ -0,0 +1,86 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.struct;
+
+import org.jetbrains.java.decompiler.DecompilerTestFixture;
+import org.jetbrains.java.decompiler.main.DecompilerContext;
+import org.jetbrains.java.decompiler.main.Fernflower;
+import org.jetbrains.java.decompiler.main.decompiler.ConsoleDecompiler;
+import org.jetbrains.java.decompiler.main.decompiler.PrintStreamLogger;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LibrarySnapshotTest {
+  private DecompilerTestFixture fixture;
+
+  @Before
+  public void setUp() throws IOException {
+    fixture = new DecompilerTestFixture();
+    fixture.setUp();
+  }
+
+  @After
+  public void tearDown() {
+    fixture.tearDown();
+    fixture = null;
+  }
+
+  @Test
+  public void testSharedClasses() {
+    PrintStreamLogger logger = new PrintStreamLogger(System.out);
+    LibrarySnapshot snapshot = LibrarySnapshot.create(List.of(new File(fixture.getTestDataDir(), "bulk.jar")), logger);
+    assertThat(snapshot.size()).isEqualTo(2);
+    StructClass cl = snapshot.getClass("pkg/res/Loader");
+    assertThat(cl).isNotNull();
+    assertThat(cl.isOwn()).isFalse();
+    assertThat(cl.getPool()).isNotNull();
+
+    // classes are shared by the contexts of several decompiler instances
+    for (int i = 0; i < 2; i++) {
+      ConsoleDecompiler decompiler = fixture.getDecompiler();
+      Fernflower engine = new Fernflower(decompiler, decompiler, null, logger, snapshot);
+      try {
+        assertThat(DecompilerContext.getStructContext().getClass("pkg/res/Loader")).isSameAs(cl);
+        assertThat(DecompilerContext.getStructContext().getClass("pkg/Missing")).isNull();
+      }
+      finally {
+        engine.clearContext();
+      }
+    }
+  }
+
+  @Test
+  public void testRenamingContext() {
+    Map<String, Object> options = new HashMap<>();
+    options.put(IFernflowerPreferences.RENAME_ENTITIES, "1");
+    PrintStreamLogger logger = new PrintStreamLogger(System.out);
+    new ConsoleDecompiler(fixture.getTargetDir(), options, logger) { };
+    DecompilerContext.getPoolInterceptor().addName("pkg/res/Loader", "pkg/res/Renamed");
+
+    // the renaming of the context current while building does not leak into the shared classes
+    LibrarySnapshot snapshot = LibrarySnapshot.create(List.of(new File(fixture.getTestDataDir(), "bulk.jar")), logger);
+    assertThat(snapshot.getClass("pkg/res/Renamed")).isNull();
+    StructClass cl = snapshot.getClass("pkg/res/Loader");
+    assertThat(cl).isNotNull();
+    assertThat(cl.qualifiedName).isEqualTo("pkg/res/Loader");
+  }
+
+  @Test
+  public void testFirstOccurrenceWins() {
+    PrintStreamLogger logger = new PrintStreamLogger(System.out);
+    File classes = new File(fixture.getTestDataDir(), "classes/pkg");
+    File jar = new File(fixture.getTestDataDir(), "bulk.jar");
+    LibrarySnapshot snapshot = LibrarySnapshot.create(List.of(jar, jar, new File(classes, "TestEnum.class")), logger);
+    assertThat(snapshot.size()).isEqualTo(3);
+    assertThat(snapshot.getClass("pkg/TestEnum")).isNotNull();
+  }
+}
@@ -0,0 +1,45 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.struct;
+
+import org.jetbrains.java.decompiler.DecompilerTestFixture;
+import org.jetbrains.java.decompiler.main.DecompilerContext;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StructContextTest {
+  private DecompilerTestFixture fixture;
+
+  @Before
+  public void setUp() throws IOException {
+    fixture = new DecompilerTestFixture();
+    fixture.setUp();
+  }
+
+  @After
+  public void tearDown() {
+    fixture.tearDown();
+    fixture = null;
+  }
+
+  @Test
+  public void testLazyLibrary() {
+    DecompilerContext.setProperty(IFernflowerPreferences.LAZY_LIBRARIES, "1");
+    fixture.getDecompiler().addLibrary(new File(fixture.getTestDataDir(), "bulk.jar"));
+
+    // library classes are parsed on the first lookup, and only once
+    StructContext context = DecompilerContext.getStructContext();
+    assertThat(context.getClasses()).isEmpty();
+    StructClass cl = context.getClass("pkg/res/Loader");
+    assertThat(cl).isNotNull();
+    assertThat(cl.isOwn()).isFalse();
+    assertThat(context.getClass("pkg/res/Loader")).isSameAs(cl);
+    assertThat(context.getClass("pkg/Missing")).isNull();
+  }
+}
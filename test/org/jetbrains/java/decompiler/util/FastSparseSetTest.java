@@ -0,0 +1,162 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.util;
+
+import org.jetbrains.java.decompiler.util.FastSparseSetFactory.FastSparseSet;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FastSparseSetTest {
+  private FastSparseSetFactory<Integer> factory;
+
+  @Before
+  public void setUp() {
+    // three blocks of 32 elements
+    List<Integer> elements = new ArrayList<>();
+    for (int i = 0; i < 96; i++) {
+      elements.add(i);
+    }
+    factory = new FastSparseSetFactory<>(elements);
+  }
+
+  @Test
+  public void testModifyCopy() {
+    FastSparseSet<Integer> set = set(1, 40, 70);
+    FastSparseSet<Integer> copy = set.getCopy();
+
+    copy.add(5);
+    copy.remove(40);
+    assertThat(copy.toPlainSet()).containsOnly(1, 5, 70);
+    assertThat(set.toPlainSet()).containsOnly(1, 40, 70);
+
+    // the original still copies its arrays, and the copy keeps the ones it made
+    set.add(90);
+    set.remove(1);
+    assertThat(set.toPlainSet()).containsOnly(40, 70, 90);
+    assertThat(copy.toPlainSet()).containsOnly(1, 5, 70);
+  }
+
+  @Test
+  public void testModifyOriginal() {
+    FastSparseSet<Integer> set = set(1, 40);
+    FastSparseSet<Integer> copy = set.getCopy();
+    FastSparseSet<Integer> copyOfCopy = copy.getCopy();
+
+    set.add(2);
+    set.remove(40);
+    assertThat(set.toPlainSet()).containsOnly(1, 2);
+    assertThat(copy.toPlainSet()).containsOnly(1, 40);
+    assertThat(copyOfCopy.toPlainSet()).containsOnly(1, 40);
+
+    copy.remove(1);
+    assertThat(copy.toPlainSet()).containsOnly(40);
+    assertThat(copyOfCopy.toPlainSet()).containsOnly(1, 40);
+  }
+
+  @Test
+  public void testGrowCopy() {
+    FastSparseSet<Integer> set = set(1);
+    FastSparseSet<Integer> copy = set.getCopy();
+
+    // an element unknown to the factory goes to a block beyond the arrays of both sets
+    copy.add(200);
+    copy.add(2);
+    assertThat(copy.toPlainSet()).containsOnly(1, 2, 200);
+    assertThat(set.toPlainSet()).containsOnly(1);
+    assertThat(set.contains(200)).isFalse();
+  }
+
+  @Test
+  public void testSetOperations() {
+    FastSparseSet<Integer> set = set(1, 40, 70);
+    FastSparseSet<Integer> other = set(2, 40, 80);
+
+    FastSparseSet<Integer> union = set.getCopy();
+    union.union(other);
+    assertThat(union.toPlainSet()).containsOnly(1, 2, 40, 70, 80);
+
+    FastSparseSet<Integer> intersection = set.getCopy();
+    intersection.intersection(other);
+    assertThat(intersection.toPlainSet()).containsOnly(40);
+
+    FastSparseSet<Integer> complement = set.getCopy();
+    complement.complement(other);
+    assertThat(complement.toPlainSet()).containsOnly(1, 70);
+
+    assertThat(set.toPlainSet()).containsOnly(1, 40, 70);
+    assertThat(other.toPlainSet()).containsOnly(2, 40, 80);
+
+    // the operand of an operation on a copy is left alone as well
+    FastSparseSet<Integer> otherCopy = other.getCopy();
+    set.union(otherCopy);
+    set.complement(otherCopy);
+    assertThat(set.toPlainSet()).containsOnly(1, 70);
+    assertThat(otherCopy.toPlainSet()).containsOnly(2, 40, 80);
+    assertThat(other.toPlainSet()).containsOnly(2, 40, 80);
+  }
+
+  @Test
+  public void testSharedOperands() {
+    FastSparseSet<Integer> set = set(1, 40);
+    FastSparseSet<Integer> copy = set.getCopy();
+
+    // while the arrays are shared, both sets are equal and union and intersection leave them as they are
+    copy.union(set);
+    copy.intersection(set);
+    set.union(copy);
+    assertThat(copy.toPlainSet()).containsOnly(1, 40);
+    assertThat(set.toPlainSet()).containsOnly(1, 40);
+    assertThat(copy).isEqualTo(set);
+
+    copy.add(70);
+    set.intersection(copy);
+    assertThat(set.toPlainSet()).containsOnly(1, 40);
+    set.union(copy);
+    assertThat(set.toPlainSet()).containsOnly(1, 40, 70);
+    assertThat(copy.toPlainSet()).containsOnly(1, 40, 70);
+
+    // the complement with a set sharing the arrays empties only the set it is called on
+    FastSparseSet<Integer> empty = set.getCopy();
+    empty.complement(set);
+    assertThat(empty.isEmpty()).isTrue();
+    assertThat(set.toPlainSet()).containsOnly(1, 40, 70);
+  }
+
+  @Test
+  public void testIteratorRemove() {
+    FastSparseSet<Integer> set = set(1, 40, 70);
+    FastSparseSet<Integer> copy = set.getCopy();
+
+    for (Iterator<Integer> it = copy.iterator(); it.hasNext(); ) {
+      if (it.next() != 70) {
+        it.remove();
+      }
+    }
+    assertThat(copy.toPlainSet()).containsOnly(70);
+    assertThat(set.toPlainSet()).containsOnly(1, 40, 70);
+
+    // an iterator over the original keeps going over the arrays it started with
+    List<Integer> seen = new ArrayList<>();
+    for (Iterator<Integer> it = set.iterator(); it.hasNext(); ) {
+      Integer element = it.next();
+      seen.add(element);
+      it.remove();
+    }
+    assertThat(seen).containsExactly(1, 40, 70);
+    assertThat(set.toPlainSet()).isEmpty();
+    assertThat(copy.toPlainSet()).containsOnly(70);
+  }
+
+  private FastSparseSet<Integer> set(int... elements) {
+    FastSparseSet<Integer> set = factory.spawnEmptySet();
+    for (int element : elements) {
+      set.add(element);
+    }
+    return set;
+  }
+}
@@ -0,0 +1,156 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LongIntHashMapTest {
+  // a fresh map has 16 slots and grows when more than 8 keys are added
+  private static final int MASK = 15;
+
+  @Test
+  public void testCollidingKeys() {
+    long[] keys = keysInSlot(3, 4);
+    LongIntHashMap map = new LongIntHashMap();
+    for (int i = 0; i < keys.length; i++) {
+      map.put(keys[i], i);
+    }
+    map.put(keys[2], 20);
+
+    assertThat(map.size()).isEqualTo(4);
+    assertThat(map.get(keys[0], -1)).isEqualTo(0);
+    assertThat(map.get(keys[1], -1)).isEqualTo(1);
+    assertThat(map.get(keys[2], -1)).isEqualTo(20);
+    assertThat(map.get(keys[3], -1)).isEqualTo(3);
+    assertThat(map.containsKey(keysInSlot(4, 1)[0])).isFalse();
+  }
+
+  @Test
+  public void testRemoveInProbeChain() {
+    // the chain of slot 3 runs into the one of slot 4, so removing from its middle shifts both
+    long[] chain = keysInSlot(3, 3);
+    long next = keysInSlot(4, 1)[0];
+    LongIntHashMap map = new LongIntHashMap();
+    map.put(chain[0], 0);
+    map.put(chain[1], 1);
+    map.put(chain[2], 2);
+    map.put(next, 3);
+
+    assertThat(map.remove(chain[1], -1)).isEqualTo(1);
+    assertThat(map.remove(chain[1], -1)).isEqualTo(-1);
+    assertThat(map.size()).isEqualTo(3);
+    assertThat(map.get(chain[0], -1)).isEqualTo(0);
+    assertThat(map.get(chain[2], -1)).isEqualTo(2);
+    assertThat(map.get(next, -1)).isEqualTo(3);
+
+    assertThat(map.remove(chain[0], -1)).isEqualTo(0);
+    assertThat(map.get(chain[2], -1)).isEqualTo(2);
+    assertThat(map.get(next, -1)).isEqualTo(3);
+  }
+
+  @Test
+  public void testWraparound() {
+    // keys of the last slot continue at the start of the table, ahead of the keys of slot 0
+    long[] last = keysInSlot(MASK, 3);
+    long first = keysInSlot(0, 1)[0];
+    LongIntHashMap map = new LongIntHashMap();
+    map.put(last[0], 0);
+    map.put(last[1], 1);
+    map.put(last[2], 2);
+    map.put(first, 3);
+
+    assertThat(map.remove(last[0], -1)).isEqualTo(0);
+    assertThat(map.get(last[1], -1)).isEqualTo(1);
+    assertThat(map.get(last[2], -1)).isEqualTo(2);
+    assertThat(map.get(first, -1)).isEqualTo(3);
+
+    assertThat(map.remove(last[2], -1)).isEqualTo(2);
+    assertThat(map.get(last[1], -1)).isEqualTo(1);
+    assertThat(map.get(first, -1)).isEqualTo(3);
+    assertThat(map.size()).isEqualTo(2);
+
+    // the key left in the last slot is followed by one at home in slot 0, which has to stay there
+    assertThat(map.remove(last[1], -1)).isEqualTo(1);
+    assertThat(map.get(first, -1)).isEqualTo(3);
+    assertThat(map.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void testRehash() {
+    LongIntHashMap map = new LongIntHashMap();
+    for (int i = 0; i < 1000; i++) {
+      map.put(versionKey(i), i);
+    }
+
+    assertThat(map.size()).isEqualTo(1000);
+    for (int i = 0; i < 1000; i++) {
+      assertThat(map.get(versionKey(i), -1)).isEqualTo(i);
+    }
+    assertThat(map.containsKey(versionKey(1000))).isFalse();
+  }
+
+  @Test
+  public void testMinValueKey() {
+    // the key that marks free slots is kept outside the table
+    LongIntHashMap map = new LongIntHashMap();
+    assertThat(map.containsKey(Long.MIN_VALUE)).isFalse();
+    assertThat(map.get(Long.MIN_VALUE, -1)).isEqualTo(-1);
+    assertThat(map.remove(Long.MIN_VALUE, -1)).isEqualTo(-1);
+
+    map.put(Long.MIN_VALUE, 0);
+    map.put(0, 1);
+    assertThat(map.size()).isEqualTo(2);
+    assertThat(map.get(Long.MIN_VALUE, -1)).isEqualTo(0);
+    map.put(Long.MIN_VALUE, 5);
+    assertThat(map.size()).isEqualTo(2);
+
+    assertThat(map.remove(Long.MIN_VALUE, -1)).isEqualTo(5);
+    assertThat(map.containsKey(Long.MIN_VALUE)).isFalse();
+    assertThat(map.get(0, -1)).isEqualTo(1);
+    assertThat(map.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void testAgainstHashMap() {
+    Random random = new Random(42);
+    LongIntHashMap map = new LongIntHashMap();
+    Map<Long, Integer> expected = new HashMap<>();
+    for (int i = 0; i < 20000; i++) {
+      long key = random.nextInt(200) - 100;
+      if (random.nextInt(3) == 0) {
+        Integer old = expected.remove(key);
+        assertThat(map.remove(key, -1)).isEqualTo(old != null ? old : -1);
+      }
+      else {
+        expected.put(key, i);
+        map.put(key, i);
+      }
+      assertThat(map.size()).isEqualTo(expected.size());
+    }
+    for (long key = -100; key < 100; key++) {
+      Integer value = expected.get(key);
+      assertThat(map.get(key, -1)).isEqualTo(value != null ? value : -1);
+    }
+  }
+
+  // keys packed like variable versions, the way VarVersionsProcessor uses the map
+  private static long versionKey(int i) {
+    return ((long)(i % 37) << 32) | (i / 37);
+  }
+
+  static long[] keysInSlot(int slot, int count) {
+    long[] keys = new long[count];
+    int found = 0;
+    for (long key = 1; found < count; key++) {
+      if ((LongIntHashMap.hash(key) & MASK) == slot) {
+        keys[found++] = key;
+      }
+    }
+    return keys;
+  }
+}
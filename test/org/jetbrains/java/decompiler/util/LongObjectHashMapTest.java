@@ -0,0 +1,116 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.jetbrains.java.decompiler.util.LongIntHashMapTest.keysInSlot;
+
+public class LongObjectHashMapTest {
+  @Test
+  public void testCollidingKeys() {
+    long[] keys = keysInSlot(7, 4);
+    LongObjectHashMap<String> map = new LongObjectHashMap<>();
+    for (int i = 0; i < keys.length; i++) {
+      assertThat(map.put(keys[i], "v" + i)).isNull();
+    }
+    assertThat(map.put(keys[2], "w2")).isEqualTo("v2");
+
+    assertThat(map.size()).isEqualTo(4);
+    assertThat(map.get(keys[0])).isEqualTo("v0");
+    assertThat(map.get(keys[1])).isEqualTo("v1");
+    assertThat(map.get(keys[2])).isEqualTo("w2");
+    assertThat(map.get(keys[3])).isEqualTo("v3");
+    assertThat(map.get(keysInSlot(8, 1)[0])).isNull();
+  }
+
+  @Test
+  public void testRemoveInProbeChain() {
+    // the chain of slot 7 runs into the one of slot 8, so removing from its middle shifts both
+    long[] chain = keysInSlot(7, 3);
+    long next = keysInSlot(8, 1)[0];
+    LongObjectHashMap<String> map = new LongObjectHashMap<>();
+    map.put(chain[0], "a");
+    map.put(chain[1], "b");
+    map.put(chain[2], "c");
+    map.put(next, "d");
+
+    assertThat(map.remove(chain[1])).isEqualTo("b");
+    assertThat(map.remove(chain[1])).isNull();
+    assertThat(map.size()).isEqualTo(3);
+    assertThat(map.get(chain[0])).isEqualTo("a");
+    assertThat(map.get(chain[2])).isEqualTo("c");
+    assertThat(map.get(next)).isEqualTo("d");
+
+    // a null value removes the key
+    assertThat(map.put(chain[0], null)).isEqualTo("a");
+    assertThat(map.containsKey(chain[0])).isFalse();
+    assertThat(map.get(chain[2])).isEqualTo("c");
+    assertThat(map.get(next)).isEqualTo("d");
+  }
+
+  @Test
+  public void testWraparound() {
+    // keys of the last slot continue at the start of the table, ahead of the keys of slot 0
+    long[] last = keysInSlot(15, 3);
+    long first = keysInSlot(0, 1)[0];
+    LongObjectHashMap<String> map = new LongObjectHashMap<>();
+    map.put(last[0], "a");
+    map.put(last[1], "b");
+    map.put(last[2], "c");
+    map.put(first, "d");
+
+    assertThat(map.remove(last[0])).isEqualTo("a");
+    assertThat(map.get(last[1])).isEqualTo("b");
+    assertThat(map.get(last[2])).isEqualTo("c");
+    assertThat(map.get(first)).isEqualTo("d");
+
+    assertThat(map.remove(last[2])).isEqualTo("c");
+    assertThat(map.get(last[1])).isEqualTo("b");
+    assertThat(map.get(first)).isEqualTo("d");
+    assertThat(map.size()).isEqualTo(2);
+
+    // the key left in the last slot is followed by one at home in slot 0, which has to stay there
+    assertThat(map.remove(last[1])).isEqualTo("b");
+    assertThat(map.get(first)).isEqualTo("d");
+    assertThat(map.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void testRehash() {
+    LongObjectHashMap<Integer> map = new LongObjectHashMap<>();
+    for (int i = 0; i < 1000; i++) {
+      map.put(Long.MIN_VALUE + i, i);
+    }
+
+    assertThat(map.size()).isEqualTo(1000);
+    for (int i = 0; i < 1000; i++) {
+      assertThat(map.get(Long.MIN_VALUE + i)).isEqualTo(i);
+    }
+    assertThat(map.get(Long.MIN_VALUE + 1000)).isNull();
+  }
+
+  @Test
+  public void testAgainstHashMap() {
+    Random random = new Random(42);
+    LongObjectHashMap<Integer> map = new LongObjectHashMap<>();
+    Map<Long, Integer> expected = new HashMap<>();
+    for (int i = 0; i < 20000; i++) {
+      long key = random.nextInt(200) - 100;
+      if (random.nextInt(3) == 0) {
+        assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+      }
+      else {
+        assertThat(map.put(key, i)).isEqualTo(expected.put(key, i));
+      }
+      assertThat(map.size()).isEqualTo(expected.size());
+    }
+    for (long key = -100; key < 100; key++) {
+      assertThat(map.get(key)).isEqualTo(expected.get(key));
+    }
+  }
+}
@@ -0,0 +1,135 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.util;
+
+import org.jetbrains.java.decompiler.modules.decompiler.exps.VarExprent;
+import org.jetbrains.java.decompiler.util.FastSparseSetFactory.FastSparseSet;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SFormsFastMapDirectTest {
+  private static final int STACK_VAR = VarExprent.STACK_BASE + 1;
+  private static final int FIELD = -2;
+
+  private FastSparseSetFactory<Integer> factory;
+
+  @Before
+  public void setUp() {
+    List<Integer> versions = new ArrayList<>();
+    for (int i = 0; i < 64; i++) {
+      versions.add(i);
+    }
+    factory = new FastSparseSetFactory<>(versions);
+  }
+
+  @Test
+  public void testSharingConstructor() {
+    SFormsFastMapDirect map = new SFormsFastMapDirect();
+    map.put(1, set(1));
+    map.put(STACK_VAR, set(2));
+    map.put(FIELD, set(3));
+    SFormsFastMapDirect copy = new SFormsFastMapDirect(map);
+    Map<Integer, Set<Integer>> expected = contents(map);
+
+    copy.put(4, set(4));
+    copy.put(1, null);
+    copy.removeAllFields();
+    assertThat(copy.size()).isEqualTo(2);
+    assertThat(contents(copy)).containsOnlyKeys(4, STACK_VAR);
+    assertThat(map.size()).isEqualTo(3);
+    assertThat(contents(map)).isEqualTo(expected);
+
+    // the original still copies its arrays, and the copy keeps the ones it made
+    map.put(5, set(5));
+    map.put(STACK_VAR, null);
+    assertThat(contents(map)).containsOnlyKeys(1, 5, FIELD);
+    assertThat(contents(copy)).containsOnlyKeys(4, STACK_VAR);
+  }
+
+  @Test
+  public void testSharingConstructorOperations() {
+    SFormsFastMapDirect map = new SFormsFastMapDirect();
+    map.put(1, set(1, 10));
+    map.put(2, set(2));
+    SFormsFastMapDirect other = new SFormsFastMapDirect();
+    other.put(1, set(11));
+    other.put(3, set(3));
+    other.put(FIELD, set(4));
+    Map<Integer, Set<Integer>> expected = contents(map);
+
+    // maps sharing the same value sets are left as they are by union and intersection with each other
+    SFormsFastMapDirect same = new SFormsFastMapDirect(map);
+    same.union(map);
+    same.intersection(map);
+    assertThat(contents(same)).isEqualTo(expected);
+    assertThat(contents(map)).isEqualTo(expected);
+
+    SFormsFastMapDirect intersection = new SFormsFastMapDirect(map);
+    intersection.intersection(new SFormsFastMapDirect());
+    assertThat(intersection.isEmpty()).isTrue();
+    assertThat(contents(map)).isEqualTo(expected);
+
+    SFormsFastMapDirect union = new SFormsFastMapDirect(new SFormsFastMapDirect());
+    union.union(other);
+    assertThat(contents(union)).isEqualTo(contents(other));
+    union.put(3, null);
+    assertThat(contents(other)).containsOnlyKeys(1, 3, FIELD);
+  }
+
+  @Test
+  public void testCopy() {
+    SFormsFastMapDirect map = new SFormsFastMapDirect();
+    map.put(1, set(1, 10));
+    map.put(2, set(2, 20));
+    map.put(FIELD, set(3));
+    SFormsFastMapDirect other = new SFormsFastMapDirect();
+    other.put(1, set(11));
+    other.put(2, set(20));
+    other.put(4, set(4));
+    Map<Integer, Set<Integer>> expected = contents(map);
+    Map<Integer, Set<Integer>> otherExpected = contents(other);
+
+    SFormsFastMapDirect copy = map.getCopy();
+    copy.get(1).add(12);
+    copy.get(FIELD).remove(3);
+    assertThat(contents(map)).isEqualTo(expected);
+
+    SFormsFastMapDirect union = map.getCopy();
+    union.union(other);
+    assertThat(contents(union)).containsEntry(1, set(1, 10, 11).toPlainSet()).containsEntry(4, set(4).toPlainSet());
+
+    SFormsFastMapDirect intersection = map.getCopy();
+    intersection.intersection(other);
+    assertThat(contents(intersection)).containsOnlyKeys(2).containsEntry(2, set(20).toPlainSet());
+
+    SFormsFastMapDirect complement = map.getCopy();
+    complement.complement(other);
+    assertThat(contents(complement)).containsEntry(1, set(1, 10).toPlainSet()).containsEntry(2, set(2).toPlainSet());
+
+    assertThat(contents(map)).isEqualTo(expected);
+    assertThat(contents(other)).isEqualTo(otherExpected);
+
+    // value sets copied into the union from the other map are independent of it
+    union.get(4).add(5);
+    assertThat(contents(other)).isEqualTo(otherExpected);
+  }
+
+  private FastSparseSet<Integer> set(int... versions) {
+    FastSparseSet<Integer> set = factory.spawnEmptySet();
+    for (int version : versions) {
+      set.add(version);
+    }
+    return set;
+  }
+
+  private static Map<Integer, Set<Integer>> contents(SFormsFastMapDirect map) {
+    Map<Integer, Set<Integer>> result = new HashMap<>();
+    for (Map.Entry<Integer, FastSparseSet<Integer>> entry : map.entryList()) {
+      result.put(entry.getKey(), entry.getValue().toPlainSet());
+    }
+    return result;
+  }
+}
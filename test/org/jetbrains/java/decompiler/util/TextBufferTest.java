@@ -0,0 +1,162 @@
+// Copyright 2000-2022 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package org.jetbrains.java.decompiler.util;
+
+import org.jetbrains.java.decompiler.DecompilerTestFixture;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TextBufferTest {
+  private static final String SEPARATOR = IFernflowerPreferences.LINE_SEPARATOR_WIN;
+
+  private DecompilerTestFixture fixture;
+
+  @Before
+  public void setUp() throws IOException {
+    fixture = new DecompilerTestFixture();
+    fixture.setUp(IFernflowerPreferences.NEW_LINE_SEPARATOR, "0");
+  }
+
+  @After
+  public void tearDown() {
+    fixture.tearDown();
+    fixture = null;
+  }
+
+  @Test
+  public void testSeparatorSplitAcrossSegments() throws IOException {
+    // both buffers are long enough to be linked rather than copied
+    TextBuffer first = lines("a", 80).append('\r');
+    TextBuffer second = new TextBuffer("\n").append(lines("b", 80));
+    TextBuffer buffer = new TextBuffer("x").append(first).append(second);
+    assertText(buffer, "x" + text("a", 80) + "\r\n" + text("b", 80));
+
+    // separator split between the linked segments and the text being written
+    buffer = new TextBuffer().append(lines("c", 80)).append('\r').append(lines("d", 80));
+    buffer.append('\r');
+    buffer.append(new TextBuffer("\n"));
+    buffer.append("tail");
+    assertText(buffer, text("c", 80) + "\r" + text("d", 80) + "\r\ntail");
+
+    // a separator cut in the middle is not counted anymore
+    buffer.setLength(buffer.length() - "\ntail".length());
+    assertText(buffer, text("c", 80) + "\r" + text("d", 80) + "\r");
+    assertThat(buffer.toString()).isEqualTo(text("c", 80) + "\r" + text("d", 80) + "\r");
+  }
+
+  @Test
+  public void testPrependAndTrimAcrossSegments() throws IOException {
+    TextBuffer buffer = new TextBuffer("head").append(lines("a", 80)).append("mid").append(lines("b", 80)).append("end");
+    String expected = "head" + text("a", 80) + "mid" + text("b", 80) + "end";
+    assertText(buffer, expected);
+
+    buffer.prepend("pre" + SEPARATOR);
+    expected = "pre" + SEPARATOR + expected;
+    assertText(buffer, expected);
+
+    buffer.enclose("(", ")");
+    expected = "(" + expected + ")";
+    assertText(buffer, expected);
+
+    // cuts inside the first linked segment, right before a separator and inside one
+    int cut = expected.indexOf("a10");
+    buffer.setStart(cut);
+    expected = expected.substring(cut);
+    assertText(buffer, expected);
+
+    cut = expected.indexOf("b5") + 2;
+    buffer.setLength(cut);
+    expected = expected.substring(0, cut);
+    assertText(buffer, expected);
+
+    cut = expected.lastIndexOf(SEPARATOR) + 1;
+    buffer.setLength(cut);
+    expected = expected.substring(0, cut);
+    assertText(buffer, expected);
+
+    buffer.setStart(1);
+    expected = expected.substring(1);
+    buffer.append(SEPARATOR).append("more");
+    expected += SEPARATOR + "more";
+    assertText(buffer, expected);
+
+    // cut before all the linked segments
+    buffer.setLength(3);
+    assertText(buffer, expected.substring(0, 3));
+    assertThat(buffer.toString()).isEqualTo(expected.substring(0, 3));
+  }
+
+  @Test
+  public void testCountLinesOnNestedAppends() throws IOException {
+    TextBuffer inner = new TextBuffer();
+    for (int i = 0; i < 5; i++) {
+      TextBuffer method = new TextBuffer().append("method").append(i).appendLineSeparator().append(lines("m" + i, 60));
+      inner.append(method);
+      inner.appendLineSeparator();
+    }
+
+    TextBuffer outer = new TextBuffer("class A {").appendLineSeparator();
+    outer.append(inner);
+    TextBuffer nested = new TextBuffer("class B {").appendLineSeparator().append(inner).append("}");
+    outer.append(nested).appendLineSeparator();
+    outer.append("}");
+
+    StringWriter writer = new StringWriter();
+    outer.writeTo(writer);
+    String expected = writer.toString();
+    assertText(outer, expected);
+    assertThat(outer.toString()).isEqualTo(expected);
+
+    // the same segment is linked to several buffers
+    assertThat(inner.countLines()).isEqualTo(count(inner.toString(), 0));
+    assertThat(nested.countLines(10)).isEqualTo(count(nested.toString(), 10));
+  }
+
+  @Test
+  public void testLeadingSeparator() {
+    TextBuffer buffer = new TextBuffer().appendLineSeparator().append(lines("a", 80));
+    assertThat(buffer.countLines()).isEqualTo(0);
+    assertThat(buffer.countLines(1)).isEqualTo(80);
+  }
+
+  // checks the text and the line counts from every offset, without flattening the buffer
+  private static void assertText(TextBuffer buffer, String expected) throws IOException {
+    assertThat(buffer.length()).isEqualTo(expected.length());
+    for (int from = 1; from <= expected.length(); from++) {
+      assertThat(buffer.countLines(from)).as("lines from %d", from).isEqualTo(count(expected, from));
+    }
+    assertThat(buffer.countLines()).isEqualTo(count(expected, 0));
+
+    StringWriter writer = new StringWriter();
+    buffer.writeTo(writer);
+    assertThat(writer.toString()).isEqualTo(expected);
+  }
+
+  // separators at or after the offset, none when the text starts with one
+  private static int count(String text, int from) {
+    int count = 0, p = from;
+    while ((p = text.indexOf(SEPARATOR, p)) > 0) {
+      count++;
+      p += SEPARATOR.length();
+    }
+    return count;
+  }
+
+  private static TextBuffer lines(String prefix, int count) {
+    return new TextBuffer(text(prefix, count));
+  }
+
+  private static String text(String prefix, int count) {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      text.append(prefix).append(i).append(SEPARATOR);
+    }
+    return text.toString();
+  }
+}
@@ -0,0 +1,12 @@
+package pkg;
+
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+public class TestInheritedVarArgCalls {
+  public void doSmth(RecursiveTask<String> first, RecursiveTask<String> second, RecursiveAction third) {
+    RecursiveTask.invokeAll(first, second);
+    RecursiveTask.invokeAll(first, second, third);
+    RecursiveAction.invokeAll(third);
+  }
+}